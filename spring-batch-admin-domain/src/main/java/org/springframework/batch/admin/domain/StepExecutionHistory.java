@@ -39,6 +39,26 @@ public class StepExecutionHistory {
 		this.stepName = stepName;
 	}
 
+	/**
+	 * Create a copy of another history, that does not change when it does.
+	 * 
+	 * @param other the history to copy
+	 */
+	public StepExecutionHistory(StepExecutionHistory other) {
+		this.stepName = other.stepName;
+		this.count = other.count;
+		this.commitCount = new CumulativeHistory(other.commitCount);
+		this.rollbackCount = new CumulativeHistory(other.rollbackCount);
+		this.readCount = new CumulativeHistory(other.readCount);
+		this.writeCount = new CumulativeHistory(other.writeCount);
+		this.filterCount = new CumulativeHistory(other.filterCount);
+		this.readSkipCount = new CumulativeHistory(other.readSkipCount);
+		this.writeSkipCount = new CumulativeHistory(other.writeSkipCount);
+		this.processSkipCount = new CumulativeHistory(other.processSkipCount);
+		this.duration = new CumulativeHistory(other.duration);
+		this.durationPerRead = new CumulativeHistory(other.durationPerRead);
+	}
+
 	public void append(StepExecution stepExecution) {
 		if (stepExecution.getEndTime()==null) {
 			// ignore unfinished executions
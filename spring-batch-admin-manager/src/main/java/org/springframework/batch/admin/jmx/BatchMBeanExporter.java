@@ -17,31 +17,52 @@ package org.springframework.batch.admin.jmx;
 
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.springframework.batch.admin.service.JobService;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
 import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobExecutionListener;
 import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.configuration.ListableJobLocator;
+import org.springframework.batch.core.job.AbstractJob;
 import org.springframework.batch.core.launch.NoSuchJobException;
 import org.springframework.context.SmartLifecycle;
 import org.springframework.jmx.export.MBeanExporter;
 import org.springframework.jmx.export.annotation.AnnotationJmxAttributeSource;
 import org.springframework.jmx.export.annotation.ManagedAttribute;
 import org.springframework.jmx.export.annotation.ManagedMetric;
+import org.springframework.jmx.export.annotation.ManagedOperation;
 import org.springframework.jmx.export.annotation.ManagedResource;
 import org.springframework.jmx.export.assembler.MetadataMBeanInfoAssembler;
 import org.springframework.jmx.export.naming.MetadataNamingStrategy;
 import org.springframework.jmx.support.MetricType;
 import org.springframework.util.Assert;
 
+/**
+ * Exports {@link JobExecutionMetrics} and {@link StepExecutionMetrics} MBeans
+ * for the jobs and steps known to the {@link JobService}.
+ * <p>
+ * The repository is swept for job and step names on {@link #start()} and on an
+ * explicit {@link #refresh()}. After that, new jobs are picked up from the
+ * {@link #setJobLocator(ListableJobLocator) job locator} (an in-memory check),
+ * and new steps from job executions reported to this exporter as a
+ * {@link JobExecutionListener}. The exporter registers itself as a listener
+ * with jobs from the job locator that extend {@link AbstractJob}. Reading the
+ * attributes of the exporter does not query the repository.
+ * 
+ * @author Dave Syer
+ * 
+ */
 @ManagedResource
-public class BatchMBeanExporter extends MBeanExporter implements SmartLifecycle {
+public class BatchMBeanExporter extends MBeanExporter implements SmartLifecycle, JobExecutionListener {
 
 	private static final Log logger = LogFactory.getLog(BatchMBeanExporter.class);
 
@@ -57,14 +78,18 @@ public class BatchMBeanExporter extends MBeanExporter implements SmartLifecycle
 
 	private final ReentrantLock lifecycleLock = new ReentrantLock();
 
-	private Set<String> stepKeys = new HashSet<String>();
+	private final Set<String> stepKeys = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+	private final Set<String> jobKeys = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
 
-	private Set<String> jobKeys = new HashSet<String>();
+	private final Set<String> listenedJobs = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
 
 	private final AnnotationJmxAttributeSource attributeSource = new AnnotationJmxAttributeSource();
 
 	private JobService jobService;
 
+	private ListableJobLocator jobLocator;
+
 	private String domain = DEFAULT_DOMAIN;
 
 	private boolean registerSteps = true;
@@ -114,6 +139,18 @@ public class BatchMBeanExporter extends MBeanExporter implements SmartLifecycle
 		this.jobService = jobService;
 	}
 
+	/**
+	 * Optional source of the jobs that are available to launch (usually a
+	 * <code>JobRegistry</code>). If provided, new job names are registered as
+	 * soon as they appear, and this exporter listens to executions of those
+	 * jobs to register their steps.
+	 * 
+	 * @param jobLocator the job locator to set
+	 */
+	public void setJobLocator(ListableJobLocator jobLocator) {
+		this.jobLocator = jobLocator;
+	}
+
 	/**
 	 * Static properties that will be added to all object names.
 	 * 
@@ -153,6 +190,50 @@ public class BatchMBeanExporter extends MBeanExporter implements SmartLifecycle
 		// Completely disable super class registration to avoid duplicates
 	}
 
+	/**
+	 * Sweep the repository for job and step names and register MBeans for any
+	 * that are not already registered. Executions created outside the jobs
+	 * that this exporter listens to are only picked up this way.
+	 */
+	@ManagedOperation
+	public void refresh() {
+		jobService.refreshJobNames();
+		registerJobs();
+		registerSteps();
+	}
+
+	/**
+	 * Register the job (if it is new).
+	 */
+	public void beforeJob(JobExecution jobExecution) {
+		if (!running) {
+			return;
+		}
+		try {
+			registerJob(jobExecution.getJobInstance().getJobName());
+		}
+		catch (RuntimeException e) {
+			logger.error("Could not register MBean for job execution: " + jobExecution, e);
+		}
+	}
+
+	/**
+	 * Register the job and any steps that were executed (if they are new).
+	 */
+	public void afterJob(JobExecution jobExecution) {
+		if (!running) {
+			return;
+		}
+		try {
+			String jobName = jobExecution.getJobInstance().getJobName();
+			registerJob(jobName);
+			registerSteps(jobName, jobExecution.getStepExecutions());
+		}
+		catch (RuntimeException e) {
+			logger.error("Could not register MBeans for job execution: " + jobExecution, e);
+		}
+	}
+
 	private void registerSteps() {
 		if (!registerSteps) {
 			return;
@@ -167,32 +248,70 @@ public class BatchMBeanExporter extends MBeanExporter implements SmartLifecycle
 				logger.error("Job listed but does not exist", e);
 			}
 			for (JobExecution jobExecution : jobExecutions) {
-				for (StepExecution stepExecution : jobExecution.getStepExecutions()) {
-					String stepName = stepExecution.getStepName();
-					String stepKey = String.format("%s/%s", jobName, stepName);
-					String beanKey = getBeanKeyForStepExecution(jobName, stepName);
-					if (!stepKeys.contains(stepKey)) {
-						stepKeys.add(stepKey);
-						logger.info("Registering step execution " + stepKey);
-						registerBeanNameOrInstance(stepExecutionMetricsFactory.createMetricsForStep(jobName, stepName),
-								beanKey);
-					}
-				}
+				registerSteps(jobName, jobExecution.getStepExecutions());
+			}
+		}
+	}
+
+	private void registerSteps(String jobName, Collection<StepExecution> stepExecutions) {
+		if (!registerSteps) {
+			return;
+		}
+		for (StepExecution stepExecution : stepExecutions) {
+			String stepName = stepExecution.getStepName();
+			String stepKey = String.format("%s/%s", jobName, stepName);
+			if (stepKeys.add(stepKey)) {
+				logger.info("Registering step execution " + stepKey);
+				registerBeanNameOrInstance(stepExecutionMetricsFactory.createMetricsForStep(jobName, stepName),
+						getBeanKeyForStepExecution(jobName, stepName));
 			}
 		}
 	}
 
 	private void registerJobs() {
 		for (String jobName : jobService.listJobs(0, Integer.MAX_VALUE)) {
-			if (!jobKeys.contains(jobName)) {
-				jobKeys.add(jobName);
-				logger.info("Registering job execution " + jobName);
-				registerBeanNameOrInstance(jobExecutionMetricsFactory.createMetricsForJob(jobName),
-						getBeanKeyForJobExecution(jobName));
+			registerJob(jobName);
+		}
+		registerLocatedJobs();
+	}
+
+	/**
+	 * Register any jobs in the job locator that are not already registered
+	 * (no I/O).
+	 */
+	private void registerLocatedJobs() {
+		if (jobLocator == null) {
+			return;
+		}
+		for (String jobName : jobLocator.getJobNames()) {
+			registerJob(jobName);
+			if (listenedJobs.add(jobName)) {
+				listenTo(jobName);
 			}
 		}
 	}
 
+	private void listenTo(String jobName) {
+		try {
+			Job job = jobLocator.getJob(jobName);
+			if (job instanceof AbstractJob) {
+				((AbstractJob) job).registerJobExecutionListener(this);
+			}
+		}
+		catch (NoSuchJobException e) {
+			// It was unregistered in the meantime
+			logger.debug("Job no longer available: " + jobName);
+		}
+	}
+
+	private void registerJob(String jobName) {
+		if (jobKeys.add(jobName)) {
+			logger.info("Registering job execution " + jobName);
+			registerBeanNameOrInstance(jobExecutionMetricsFactory.createMetricsForJob(jobName),
+					getBeanKeyForJobExecution(jobName));
+		}
+	}
+
 	/**
 	 * Encode the job name into an ObjectName in the form
 	 * <code>[domain]:type=JobExecution,name=[jobName]</code>.
@@ -239,13 +358,12 @@ public class BatchMBeanExporter extends MBeanExporter implements SmartLifecycle
 
 	@ManagedMetric(metricType = MetricType.COUNTER, displayName = "Step Count")
 	public int getStepCount() {
-		registerSteps();
 		return stepKeys.size();
 	}
 
 	@ManagedMetric(metricType = MetricType.COUNTER, displayName = "Job Count")
 	public int getJobCount() {
-		registerJobs();
+		registerLocatedJobs();
 		return jobKeys.size();
 	}
 
@@ -262,18 +380,11 @@ public class BatchMBeanExporter extends MBeanExporter implements SmartLifecycle
 	@ManagedMetric(metricType = MetricType.COUNTER, displayName = "Job Execution Failure Count")
 	public int getJobExecutionFailureCount() {
 		int count = 0;
-		int start = 0;
-		int pageSize = 100;
-		Collection<JobExecution> jobExecutions;
-		do {
-			jobExecutions = jobService.listJobExecutions(start, pageSize);
-			start += pageSize;
-			for (JobExecution jobExecution : jobExecutions) {
-				if (jobExecution.getStatus().isUnsuccessful()) {
-					count++;
-				}
+		for (Map.Entry<BatchStatus, Integer> entry : jobService.countJobExecutionsByStatus().entrySet()) {
+			if (entry.getKey().isUnsuccessful()) {
+				count += entry.getValue();
 			}
-		} while (!jobExecutions.isEmpty());
+		}
 		return count;
 	}
 
@@ -350,8 +461,7 @@ public class BatchMBeanExporter extends MBeanExporter implements SmartLifecycle
 	}
 
 	protected void doStart() {
-		registerJobs();
-		registerSteps();
+		refresh();
 	}
 
 	private class ExecutionMetricsFactory implements JobExecutionMetricsFactory, StepExecutionMetricsFactory {
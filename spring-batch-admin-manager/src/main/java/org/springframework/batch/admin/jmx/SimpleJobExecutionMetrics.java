@@ -17,9 +17,11 @@ package org.springframework.batch.admin.jmx;
 
 import java.util.Collection;
 import java.util.Date;
+import java.util.Map;
 
 import org.springframework.batch.admin.domain.JobExecutionHistory;
 import org.springframework.batch.admin.service.JobService;
+import org.springframework.batch.core.BatchStatus;
 import org.springframework.batch.core.JobExecution;
 import org.springframework.batch.core.StepExecution;
 import org.springframework.batch.core.launch.NoSuchJobException;
@@ -48,27 +50,20 @@ public class SimpleJobExecutionMetrics implements JobExecutionMetrics {
 
 	public int getFailureCount() {
 
-		int pageSize = 100;
-		int start = 0;
-		int count = 0;
-
-		Collection<JobExecution> jobExecutions;
-		do {
+		Map<BatchStatus, Integer> counts;
+		try {
+			counts = jobService.countJobExecutionsForJobByStatus(jobName);
+		}
+		catch (NoSuchJobException e) {
+			throw new IllegalStateException("Cannot locate job=" + jobName, e);
+		}
 
-			try {
-				jobExecutions = jobService.listJobExecutionsForJob(jobName, start, pageSize);
-				start += pageSize;
-			}
-			catch (NoSuchJobException e) {
-				throw new IllegalStateException("Cannot locate job=" + jobName, e);
-			}
-			for (JobExecution jobExecution : jobExecutions) {
-				if (jobExecution.getStatus().isUnsuccessful()) {
-					count++;
-				}
+		int count = 0;
+		for (Map.Entry<BatchStatus, Integer> entry : counts.entrySet()) {
+			if (entry.getKey().isUnsuccessful()) {
+				count += entry.getValue();
 			}
-		} while (!jobExecutions.isEmpty());
-
+		}
 		return count;
 
 	}
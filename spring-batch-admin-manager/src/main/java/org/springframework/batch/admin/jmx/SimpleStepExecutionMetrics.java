@@ -17,9 +17,11 @@ package org.springframework.batch.admin.jmx;
 
 import java.util.Collection;
 import java.util.Date;
+import java.util.Map;
 
 import org.springframework.batch.admin.domain.StepExecutionHistory;
 import org.springframework.batch.admin.service.JobService;
+import org.springframework.batch.core.BatchStatus;
 import org.springframework.batch.core.StepExecution;
 import org.springframework.jmx.export.annotation.ManagedResource;
 
@@ -44,18 +46,12 @@ public class SimpleStepExecutionMetrics implements StepExecutionMetrics {
 
 	public int getFailureCount() {
 		int count = 0;
-		int start = 0;
-		int pageSize = 100;
-		Collection<StepExecution> stepExecutions;
-		do {
-			stepExecutions = jobService.listStepExecutionsForStep(jobName, stepName, start, pageSize);
-			start += pageSize;
-			for (StepExecution stepExecution : stepExecutions) {
-				if (stepExecution.getStatus().isUnsuccessful()) {
-					count++;
-				}
+		for (Map.Entry<BatchStatus, Integer> entry : jobService.countStepExecutionsForStepByStatus(jobName, stepName)
+				.entrySet()) {
+			if (entry.getKey().isUnsuccessful()) {
+				count += entry.getValue();
 			}
-		} while (!stepExecutions.isEmpty());
+		}
 		return count;
 	}
 
@@ -0,0 +1,634 @@
+/*
+ * Copyright 2009-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.admin.jmx;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.batch.admin.domain.JobExecutionHistory;
+import org.springframework.batch.admin.domain.StepExecutionHistory;
+import org.springframework.batch.admin.service.JobService;
+import org.springframework.batch.admin.util.LeaderElection;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.launch.NoSuchJobException;
+import org.springframework.util.Assert;
+
+/**
+ * A {@link JobExecutionMetricsFactory} and {@link StepExecutionMetricsFactory}
+ * whose metrics are served from an immutable in-memory snapshot instead of
+ * querying the repository for every attribute. The snapshot for all the jobs
+ * and steps that have been registered is computed in one pass by
+ * {@link #refresh()}, which is intended to be called periodically (e.g. by a
+ * scheduled task). If a metric is read and the snapshot is older than the
+ * {@link #setMaxStaleness(long) maximum staleness} it is refreshed on the
+ * calling thread; concurrent readers get the previous snapshot in the meantime.
+ * <p>
+ * A refresh counts the executions of all the jobs and steps with one grouped
+ * query each. The recent executions of a job or step are only read again if
+ * its counts have changed since the previous snapshot, or if its latest
+ * execution was still running, so the cost of a refresh depends on the
+ * activity in the repository rather than on the number of jobs and steps.
+ * <p>
+ * The metrics are the same on every node that shares the repository. With a
+ * {@link #setLeaderElection(LeaderElection) leader election} only the leader
+ * refreshes the snapshot on the {@link #setMaxStaleness(long) maximum
+ * staleness}: the other nodes serve the snapshot they have and only refresh it
+ * on a read once it is older than the (much longer)
+ * {@link #setFollowerMaxStaleness(long) follower maximum staleness}.
+ *
+ * @author Dave Syer
+ *
+ */
+public class SnapshotExecutionMetricsFactory implements JobExecutionMetricsFactory, StepExecutionMetricsFactory {
+
+	private static final Log logger = LogFactory.getLog(SnapshotExecutionMetricsFactory.class);
+
+	/**
+	 * Number of recent executions used for the mean and max durations.
+	 */
+	private static final int HISTORY_SIZE = 10;
+
+	/**
+	 * Number of recent executions inspected to find the latest one.
+	 */
+	private static final int LATEST_SIZE = 4;
+
+	private final JobService jobService;
+
+	private final ConcurrentMap<String, Boolean> jobNames = new ConcurrentHashMap<String, Boolean>();
+
+	private final ConcurrentMap<String, String[]> stepNames = new ConcurrentHashMap<String, String[]>();
+
+	private final ReentrantLock refreshLock = new ReentrantLock();
+
+	private volatile Snapshot snapshot = null;
+
+	private volatile long maxStaleness = 30000;
+
+	private volatile long followerMaxStaleness = 600000;
+
+	private LeaderElection leaderElection;
+
+	public SnapshotExecutionMetricsFactory(JobService jobService) {
+		Assert.notNull(jobService, "A JobService must be provided");
+		this.jobService = jobService;
+	}
+
+	/**
+	 * The maximum age in milliseconds of the snapshot that metrics are served
+	 * from. If a metric is read from an older snapshot it is refreshed first.
+	 * Default 30000.
+	 *
+	 * @param maxStaleness the maximum staleness to set
+	 */
+	public void setMaxStaleness(long maxStaleness) {
+		this.maxStaleness = maxStaleness;
+	}
+
+	/**
+	 * The maximum age in milliseconds of the snapshot that metrics are served
+	 * from on a node that is not the leader. Default 600000.
+	 *
+	 * @param followerMaxStaleness the maximum staleness to set
+	 */
+	public void setFollowerMaxStaleness(long followerMaxStaleness) {
+		this.followerMaxStaleness = followerMaxStaleness;
+	}
+
+	/**
+	 * The election that decides which node keeps the snapshot fresh. Optional:
+	 * without it every node is treated as the leader.
+	 *
+	 * @param leaderElection the {@link LeaderElection} to set
+	 */
+	public void setLeaderElection(LeaderElection leaderElection) {
+		this.leaderElection = leaderElection;
+	}
+
+	public JobExecutionMetrics createMetricsForJob(String jobName) {
+		jobNames.putIfAbsent(jobName, Boolean.TRUE);
+		expire();
+		return new SnapshotJobExecutionMetrics(this, jobName);
+	}
+
+	public StepExecutionMetrics createMetricsForStep(String jobName, String stepName) {
+		stepNames.putIfAbsent(getStepKey(jobName, stepName), new String[] { jobName, stepName });
+		expire();
+		return new SnapshotStepExecutionMetrics(this, jobName, stepName);
+	}
+
+	/**
+	 * Recompute the metrics for all the registered jobs and steps and publish
+	 * them as a new snapshot.
+	 */
+	public void refresh() {
+		refreshLock.lock();
+		try {
+			doRefresh();
+		}
+		finally {
+			refreshLock.unlock();
+		}
+	}
+
+	/**
+	 * @param jobName the name of a registered job
+	 * @return the metrics for the job from the current snapshot
+	 */
+	JobExecutionMetrics getJobExecutionMetrics(String jobName) {
+		JobExecutionMetrics metrics = getSnapshot().jobs.get(jobName);
+		return metrics != null ? metrics : JobMetricsValues.EMPTY;
+	}
+
+	/**
+	 * @param jobName the name of a job
+	 * @param stepName the name of a registered step in that job
+	 * @return the metrics for the step from the current snapshot
+	 */
+	StepExecutionMetrics getStepExecutionMetrics(String jobName, String stepName) {
+		StepExecutionMetrics metrics = getSnapshot().steps.get(getStepKey(jobName, stepName));
+		return metrics != null ? metrics : StepMetricsValues.EMPTY;
+	}
+
+	/**
+	 * Mark the current snapshot as stale, so that it is refreshed on the next
+	 * read, but can still be served while that happens.
+	 */
+	private void expire() {
+		Snapshot current = snapshot;
+		if (current != null) {
+			snapshot = new Snapshot(0, current.jobs, current.steps);
+		}
+	}
+
+	private Snapshot getSnapshot() {
+		Snapshot current = snapshot;
+		long staleness = leaderElection == null || leaderElection.isLeader() ? maxStaleness : followerMaxStaleness;
+		if (current != null && System.currentTimeMillis() - current.timestamp <= staleness) {
+			return current;
+		}
+		if (current == null) {
+			// Nothing to serve yet, so wait for a refresh
+			refreshLock.lock();
+		}
+		else if (!refreshLock.tryLock()) {
+			// Someone else is refreshing, so serve the old one
+			return current;
+		}
+		try {
+			if (snapshot == current) {
+				doRefresh();
+			}
+			return snapshot;
+		}
+		finally {
+			refreshLock.unlock();
+		}
+	}
+
+	private void doRefresh() {
+		long timestamp = System.currentTimeMillis();
+		Snapshot previous = snapshot;
+		Map<String, JobExecutionMetrics> jobs = new HashMap<String, JobExecutionMetrics>();
+		if (!jobNames.isEmpty()) {
+			Map<String, Map<BatchStatus, Integer>> jobCounts = jobService.countJobExecutionsByJobAndStatus();
+			for (String jobName : jobNames.keySet()) {
+				Map<BatchStatus, Integer> counts = getCounts(jobCounts, jobName);
+				JobMetricsValues metrics = previous == null ? null : (JobMetricsValues) previous.jobs.get(jobName);
+				if (metrics != null && metrics.isCurrent(counts)) {
+					jobs.put(jobName, metrics);
+					continue;
+				}
+				try {
+					jobs.put(jobName, computeJobMetrics(jobName, counts));
+				}
+				catch (NoSuchJobException e) {
+					logger.debug("Job no longer available: " + jobName);
+				}
+			}
+		}
+		Map<String, StepExecutionMetrics> steps = new HashMap<String, StepExecutionMetrics>();
+		if (!stepNames.isEmpty()) {
+			Map<String, Map<String, Map<BatchStatus, Integer>>> stepCounts = jobService
+					.countStepExecutionsByStepAndStatus();
+			for (Map.Entry<String, String[]> entry : stepNames.entrySet()) {
+				String jobName = entry.getValue()[0];
+				String stepName = entry.getValue()[1];
+				Map<BatchStatus, Integer> counts;
+				if (jobName.contains("*") || stepName.contains("*")) {
+					// Patterns cannot be looked up in the grouped counts
+					counts = jobService.countStepExecutionsForStepByStatus(jobName, stepName);
+				}
+				else {
+					counts = getCounts(stepCounts.get(jobName), stepName);
+				}
+				StepMetricsValues metrics = previous == null ? null : (StepMetricsValues) previous.steps.get(entry
+						.getKey());
+				if (metrics != null && metrics.isCurrent(counts)) {
+					steps.put(entry.getKey(), metrics);
+					continue;
+				}
+				steps.put(entry.getKey(), computeStepMetrics(jobName, stepName, counts));
+			}
+		}
+		snapshot = new Snapshot(timestamp, jobs, steps);
+	}
+
+	private static Map<BatchStatus, Integer> getCounts(Map<String, Map<BatchStatus, Integer>> counts, String name) {
+		Map<BatchStatus, Integer> result = counts == null ? null : counts.get(name);
+		return result == null ? Collections.<BatchStatus, Integer> emptyMap() : result;
+	}
+
+	private JobExecutionMetrics computeJobMetrics(String jobName, Map<BatchStatus, Integer> counts)
+			throws NoSuchJobException {
+
+		Collection<JobExecution> jobExecutions = counts.isEmpty() ? Collections.<JobExecution> emptyList()
+				: jobService.listJobExecutionsForJob(jobName, 0, HISTORY_SIZE);
+		JobExecutionHistory history = new JobExecutionHistory(jobName);
+		JobExecution latest = null;
+		int index = 0;
+		for (JobExecution jobExecution : jobExecutions) {
+			history.append(jobExecution);
+			// On the cautious side: look at the last few executions by ID
+			// for the one that was last created...
+			if (index++ < LATEST_SIZE && isLater(jobExecution, latest)) {
+				latest = jobExecution;
+			}
+		}
+
+		return new JobMetricsValues(counts, history, latest);
+
+	}
+
+	private StepExecutionMetrics computeStepMetrics(String jobName, String stepName, Map<BatchStatus, Integer> counts) {
+
+		Collection<StepExecution> stepExecutions = counts.isEmpty() ? Collections.<StepExecution> emptyList()
+				: jobService.listStepExecutionsForStep(jobName, stepName, 0, HISTORY_SIZE);
+		StepExecutionHistory history = new StepExecutionHistory(stepName);
+		StepExecution latest = null;
+		int index = 0;
+		for (StepExecution stepExecution : stepExecutions) {
+			history.append(stepExecution);
+			// ...and the one that was last started
+			if (index++ < LATEST_SIZE
+					&& (latest == null || stepExecution.getStartTime().getTime() > latest.getStartTime().getTime())) {
+				latest = stepExecution;
+			}
+		}
+
+		return new StepMetricsValues(counts, history, latest);
+
+	}
+
+	private boolean isLater(JobExecution candidate, JobExecution latest) {
+		if (latest == null) {
+			return true;
+		}
+		long created = candidate.getCreateTime().getTime();
+		long latestCreated = latest.getCreateTime().getTime();
+		// Tie breaker using ID
+		return created > latestCreated || created == latestCreated && candidate.getId() > latest.getId();
+	}
+
+	private static String getStepKey(String jobName, String stepName) {
+		return jobName + "/" + stepName;
+	}
+
+	private static int countAll(Map<BatchStatus, Integer> counts) {
+		int total = 0;
+		for (Integer count : counts.values()) {
+			total += count;
+		}
+		return total;
+	}
+
+	private static int countFailures(Map<BatchStatus, Integer> counts) {
+		int total = 0;
+		for (Map.Entry<BatchStatus, Integer> entry : counts.entrySet()) {
+			if (entry.getKey().isUnsuccessful()) {
+				total += entry.getValue();
+			}
+		}
+		return total;
+	}
+
+	private static class Snapshot {
+
+		private final long timestamp;
+
+		private final Map<String, JobExecutionMetrics> jobs;
+
+		private final Map<String, StepExecutionMetrics> steps;
+
+		public Snapshot(long timestamp, Map<String, JobExecutionMetrics> jobs, Map<String, StepExecutionMetrics> steps) {
+			this.timestamp = timestamp;
+			this.jobs = jobs;
+			this.steps = steps;
+		}
+
+	}
+
+	/**
+	 * Immutable values of the job metrics at the time of a snapshot.
+	 */
+	private static class JobMetricsValues implements JobExecutionMetrics {
+
+		private static final JobMetricsValues EMPTY = new JobMetricsValues(Collections.<BatchStatus, Integer> emptyMap(),
+				new JobExecutionHistory(""), null);
+
+		private final Map<BatchStatus, Integer> counts;
+
+		private final int executionCount;
+
+		private final int failureCount;
+
+		private final double latestDuration;
+
+		private final double meanDuration;
+
+		private final double maxDuration;
+
+		private final long latestExecutionId;
+
+		private final Date latestStartTime;
+
+		private final Date latestEndTime;
+
+		private final String latestExitCode;
+
+		private final String latestStatus;
+
+		private final String latestStepExitDescription;
+
+		private final String latestStepName;
+
+		private final boolean jobRunning;
+
+		public JobMetricsValues(Map<BatchStatus, Integer> counts, JobExecutionHistory history, JobExecution latest) {
+			this.counts = counts;
+			this.executionCount = countAll(counts);
+			this.failureCount = countFailures(counts);
+			this.meanDuration = history.getDuration().getMean();
+			this.maxDuration = history.getDuration().getMax();
+			JobExecutionHistory latestHistory = new JobExecutionHistory(history.getJobName());
+			if (latest != null) {
+				latestHistory.append(latest);
+			}
+			this.latestDuration = latestHistory.getDuration().getMean();
+			this.latestExecutionId = latest == null ? -1 : latest.getId();
+			this.latestStartTime = latest == null ? null : latest.getStartTime();
+			this.latestEndTime = latest == null ? null : latest.getEndTime();
+			this.latestExitCode = latest == null ? "NONE" : latest.getExitStatus().getExitCode();
+			this.latestStatus = latest == null ? "NONE" : latest.getStatus().toString();
+			this.jobRunning = latest == null ? false : latest.isRunning();
+			StepExecution latestStep = latest == null ? null : getLatestStepExecution(latest);
+			this.latestStepExitDescription = latestStep == null ? "" : latestStep.getExitStatus().getExitDescription();
+			this.latestStepName = latestStep == null ? "" : latestStep.getStepName();
+		}
+
+		/**
+		 * @param counts the current counts by status
+		 * @return true if nothing can have changed since these values were
+		 * computed
+		 */
+		public boolean isCurrent(Map<BatchStatus, Integer> counts) {
+			return !jobRunning && this.counts.equals(counts);
+		}
+
+		private static StepExecution getLatestStepExecution(JobExecution jobExecution) {
+			StepExecution stepExecution = null;
+			Date latest = new Date(0L);
+			Date now = new Date();
+			for (StepExecution candidate : jobExecution.getStepExecutions()) {
+				Date stepDate = candidate.getEndTime();
+				stepDate = stepDate == null ? now : stepDate;
+				if (stepDate.after(latest)) {
+					latest = stepDate;
+					stepExecution = candidate;
+				}
+				else if (stepExecution != null && stepDate.equals(latest) && candidate.getId() > stepExecution.getId()) {
+					// Tie breaker using ID
+					stepExecution = candidate;
+				}
+			}
+			return stepExecution;
+		}
+
+		public int getExecutionCount() {
+			return executionCount;
+		}
+
+		public int getFailureCount() {
+			return failureCount;
+		}
+
+		public double getLatestDuration() {
+			return latestDuration;
+		}
+
+		public double getMeanDuration() {
+			return meanDuration;
+		}
+
+		public double getMaxDuration() {
+			return maxDuration;
+		}
+
+		public long getLatestExecutionId() {
+			return latestExecutionId;
+		}
+
+		public Date getLatestStartTime() {
+			return latestStartTime == null ? null : new Date(latestStartTime.getTime());
+		}
+
+		public Date getLatestEndTime() {
+			return latestEndTime == null ? null : new Date(latestEndTime.getTime());
+		}
+
+		public String getLatestExitCode() {
+			return latestExitCode;
+		}
+
+		public String getLatestStatus() {
+			return latestStatus;
+		}
+
+		public String getLatestStepExitDescription() {
+			return latestStepExitDescription;
+		}
+
+		public String getLatestStepName() {
+			return latestStepName;
+		}
+
+		public boolean isJobRunning() {
+			return jobRunning;
+		}
+
+	}
+
+	/**
+	 * Immutable values of the step metrics at the time of a snapshot.
+	 */
+	private static class StepMetricsValues implements StepExecutionMetrics {
+
+		private static final StepMetricsValues EMPTY = new StepMetricsValues(
+				Collections.<BatchStatus, Integer> emptyMap(), new StepExecutionHistory(""), null);
+
+		private final Map<BatchStatus, Integer> counts;
+
+		private final boolean stepRunning;
+
+		private final int executionCount;
+
+		private final int failureCount;
+
+		private final double latestDuration;
+
+		private final double meanDuration;
+
+		private final double maxDuration;
+
+		private final long latestExecutionId;
+
+		private final int latestReadCount;
+
+		private final int latestWriteCount;
+
+		private final int latestFilterCount;
+
+		private final int latestSkipCount;
+
+		private final int latestCommitCount;
+
+		private final int latestRollbackCount;
+
+		private final String latestStatus;
+
+		private final String latestExitCode;
+
+		private final String latestExitDescription;
+
+		public StepMetricsValues(Map<BatchStatus, Integer> counts, StepExecutionHistory history, StepExecution latest) {
+			this.counts = counts;
+			this.executionCount = countAll(counts);
+			this.failureCount = countFailures(counts);
+			this.stepRunning = latest != null && latest.getStatus().isRunning();
+			this.meanDuration = history.getDuration().getMean();
+			this.maxDuration = history.getDuration().getMax();
+			if (latest == null) {
+				this.latestDuration = 0;
+			}
+			else {
+				Date endTime = latest.getEndTime();
+				this.latestDuration = (endTime != null ? endTime.getTime() : System.currentTimeMillis())
+						- latest.getStartTime().getTime();
+			}
+			this.latestExecutionId = latest == null ? -1 : latest.getId();
+			this.latestReadCount = latest == null ? 0 : latest.getReadCount();
+			this.latestWriteCount = latest == null ? 0 : latest.getWriteCount();
+			this.latestFilterCount = latest == null ? 0 : latest.getFilterCount();
+			this.latestSkipCount = latest == null ? 0 : latest.getSkipCount();
+			this.latestCommitCount = latest == null ? 0 : latest.getCommitCount();
+			this.latestRollbackCount = latest == null ? 0 : latest.getRollbackCount();
+			this.latestStatus = latest == null ? "NON" : latest.getStatus().toString();
+			this.latestExitCode = latest == null ? "NONE" : latest.getExitStatus().getExitCode();
+			this.latestExitDescription = latest == null ? "" : latest.getExitStatus().getExitDescription();
+		}
+
+		/**
+		 * @param counts the current counts by status
+		 * @return true if nothing can have changed since these values were
+		 * computed
+		 */
+		public boolean isCurrent(Map<BatchStatus, Integer> counts) {
+			return !stepRunning && this.counts.equals(counts);
+		}
+
+		public int getExecutionCount() {
+			return executionCount;
+		}
+
+		public int getFailureCount() {
+			return failureCount;
+		}
+
+		public double getLatestDuration() {
+			return latestDuration;
+		}
+
+		public double getMeanDuration() {
+			return meanDuration;
+		}
+
+		public double getMaxDuration() {
+			return maxDuration;
+		}
+
+		public long getLatestExecutionId() {
+			return latestExecutionId;
+		}
+
+		public int getLatestReadCount() {
+			return latestReadCount;
+		}
+
+		public int getLatestWriteCount() {
+			return latestWriteCount;
+		}
+
+		public int getLatestFilterCount() {
+			return latestFilterCount;
+		}
+
+		public int getLatestSkipCount() {
+			return latestSkipCount;
+		}
+
+		public int getLatestCommitCount() {
+			return latestCommitCount;
+		}
+
+		public int getLatestRollbackCount() {
+			return latestRollbackCount;
+		}
+
+		public String getLatestStatus() {
+			return latestStatus;
+		}
+
+		public String getLatestExitCode() {
+			return latestExitCode;
+		}
+
+		public String getLatestExitDescription() {
+			return latestExitDescription;
+		}
+
+	}
+
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2009-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.admin.jmx;
+
+import java.util.Date;
+
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+/**
+ * {@link JobExecutionMetrics} for a single job served from the current
+ * snapshot of a {@link SnapshotExecutionMetricsFactory}.
+ *
+ * @author Dave Syer
+ *
+ */
+@ManagedResource
+public class SnapshotJobExecutionMetrics implements JobExecutionMetrics {
+
+	private final SnapshotExecutionMetricsFactory factory;
+
+	private final String jobName;
+
+	public SnapshotJobExecutionMetrics(SnapshotExecutionMetricsFactory factory, String jobName) {
+		this.factory = factory;
+		this.jobName = jobName;
+	}
+
+	private JobExecutionMetrics getMetrics() {
+		return factory.getJobExecutionMetrics(jobName);
+	}
+
+	public int getExecutionCount() {
+		return getMetrics().getExecutionCount();
+	}
+
+	public int getFailureCount() {
+		return getMetrics().getFailureCount();
+	}
+
+	public double getLatestDuration() {
+		return getMetrics().getLatestDuration();
+	}
+
+	public double getMeanDuration() {
+		return getMetrics().getMeanDuration();
+	}
+
+	public double getMaxDuration() {
+		return getMetrics().getMaxDuration();
+	}
+
+	public long getLatestExecutionId() {
+		return getMetrics().getLatestExecutionId();
+	}
+
+	public Date getLatestStartTime() {
+		return getMetrics().getLatestStartTime();
+	}
+
+	public Date getLatestEndTime() {
+		return getMetrics().getLatestEndTime();
+	}
+
+	public String getLatestExitCode() {
+		return getMetrics().getLatestExitCode();
+	}
+
+	public String getLatestStatus() {
+		return getMetrics().getLatestStatus();
+	}
+
+	public String getLatestStepExitDescription() {
+		return getMetrics().getLatestStepExitDescription();
+	}
+
+	public String getLatestStepName() {
+		return getMetrics().getLatestStepName();
+	}
+
+	public boolean isJobRunning() {
+		return getMetrics().isJobRunning();
+	}
+
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2009-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.admin.jmx;
+
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+/**
+ * {@link StepExecutionMetrics} for a single step served from the current
+ * snapshot of a {@link SnapshotExecutionMetricsFactory}.
+ *
+ * @author Dave Syer
+ *
+ */
+@ManagedResource
+public class SnapshotStepExecutionMetrics implements StepExecutionMetrics {
+
+	private final SnapshotExecutionMetricsFactory factory;
+
+	private final String jobName;
+
+	private final String stepName;
+
+	public SnapshotStepExecutionMetrics(SnapshotExecutionMetricsFactory factory, String jobName, String stepName) {
+		this.factory = factory;
+		this.jobName = jobName;
+		this.stepName = stepName;
+	}
+
+	private StepExecutionMetrics getMetrics() {
+		return factory.getStepExecutionMetrics(jobName, stepName);
+	}
+
+	public int getExecutionCount() {
+		return getMetrics().getExecutionCount();
+	}
+
+	public int getFailureCount() {
+		return getMetrics().getFailureCount();
+	}
+
+	public double getLatestDuration() {
+		return getMetrics().getLatestDuration();
+	}
+
+	public double getMeanDuration() {
+		return getMetrics().getMeanDuration();
+	}
+
+	public double getMaxDuration() {
+		return getMetrics().getMaxDuration();
+	}
+
+	public long getLatestExecutionId() {
+		return getMetrics().getLatestExecutionId();
+	}
+
+	public int getLatestReadCount() {
+		return getMetrics().getLatestReadCount();
+	}
+
+	public int getLatestWriteCount() {
+		return getMetrics().getLatestWriteCount();
+	}
+
+	public int getLatestFilterCount() {
+		return getMetrics().getLatestFilterCount();
+	}
+
+	public int getLatestSkipCount() {
+		return getMetrics().getLatestSkipCount();
+	}
+
+	public int getLatestCommitCount() {
+		return getMetrics().getLatestCommitCount();
+	}
+
+	public int getLatestRollbackCount() {
+		return getMetrics().getLatestRollbackCount();
+	}
+
+	public String getLatestStatus() {
+		return getMetrics().getLatestStatus();
+	}
+
+	public String getLatestExitCode() {
+		return getMetrics().getLatestExitCode();
+	}
+
+	public String getLatestExitDescription() {
+		return getMetrics().getLatestExitDescription();
+	}
+
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2009-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.admin.launch;
+
+import java.sql.Timestamp;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.springframework.batch.core.repository.dao.AbstractJdbcBatchMetadataDao;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+/**
+ * A {@link JobLaunchMutex} backed by a lease table in the database, with one
+ * row per job name (see <code>schema-launch-lock.sql</code> in this
+ * package). A lock is a lease that expires after a {@link #setLeaseTime(long) fixed
+ * time}, so a lock held by a node that died is eventually released. Leases
+ * are compared with the clocks of the nodes, so they should be synchronized
+ * to well within the lease time.
+ * 
+ * @author Dave Syer
+ * 
+ */
+public class JdbcJobLaunchMutex implements JobLaunchMutex, InitializingBean {
+
+	/**
+	 * Default value for the {@link #setLeaseTime(long) lease time}.
+	 */
+	public static final long DEFAULT_LEASE_TIME = 60000;
+
+	private static final String TAKE_EXPIRED = "UPDATE %PREFIX%JOB_LAUNCH_LOCK set OWNER = ?, EXPIRES = ? "
+			+ "where JOB_NAME = ? and EXPIRES < ?";
+
+	private static final String INSERT = "INSERT into %PREFIX%JOB_LAUNCH_LOCK (JOB_NAME, OWNER, EXPIRES) values (?, ?, ?)";
+
+	private static final String DELETE = "DELETE from %PREFIX%JOB_LAUNCH_LOCK where JOB_NAME = ? and OWNER = ?";
+
+	private JdbcTemplate jdbcTemplate;
+
+	private String tablePrefix = AbstractJdbcBatchMetadataDao.DEFAULT_TABLE_PREFIX;
+
+	private long leaseTime = DEFAULT_LEASE_TIME;
+
+	public void setDataSource(DataSource dataSource) {
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+	}
+
+	/**
+	 * Public setter for the table prefix property. This will be prefixed to
+	 * the name of the lock table. Defaults to
+	 * {@link AbstractJdbcBatchMetadataDao#DEFAULT_TABLE_PREFIX}.
+	 * 
+	 * @param tablePrefix the tablePrefix to set
+	 */
+	public void setTablePrefix(String tablePrefix) {
+		this.tablePrefix = tablePrefix;
+	}
+
+	/**
+	 * The time in milliseconds after which a lock that was not released can
+	 * be taken by someone else. It should be longer than it takes to launch a
+	 * job (not to run it). Default is {@value #DEFAULT_LEASE_TIME}.
+	 * 
+	 * @param leaseTime the lease time to set
+	 */
+	public void setLeaseTime(long leaseTime) {
+		this.leaseTime = leaseTime;
+	}
+
+	public void afterPropertiesSet() throws Exception {
+		Assert.notNull(jdbcTemplate, "A DataSource must be provided");
+	}
+
+	@Override
+	public String tryLock(String jobName) {
+		String token = UUID.randomUUID().toString();
+		long now = System.currentTimeMillis();
+		Timestamp expires = new Timestamp(now + leaseTime);
+		if (jdbcTemplate.update(getQuery(TAKE_EXPIRED), token, expires, jobName, new Timestamp(now)) > 0) {
+			return token;
+		}
+		try {
+			jdbcTemplate.update(getQuery(INSERT), jobName, token, expires);
+			return token;
+		}
+		catch (DataIntegrityViolationException e) {
+			// Someone else holds the lock
+			return null;
+		}
+	}
+
+	@Override
+	public void unlock(String jobName, String token) {
+		jdbcTemplate.update(getQuery(DELETE), jobName, token);
+	}
+
+	private String getQuery(String base) {
+		return StringUtils.replace(base, "%PREFIX%", tablePrefix);
+	}
+
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2009-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.admin.launch;
+
+/**
+ * A mutual exclusion lock for launching jobs, shared by all the nodes that can
+ * launch the same jobs, so that checking for running executions and creating
+ * a new one is atomic across the cluster.
+ * 
+ * @author Dave Syer
+ * 
+ */
+public interface JobLaunchMutex {
+
+	/**
+	 * Try to acquire the lock for a job name without waiting.
+	 * 
+	 * @param jobName the job name
+	 * @return a token identifying the lock (to pass to
+	 * {@link #unlock(String, String)}), or null if it is held by someone else
+	 */
+	String tryLock(String jobName);
+
+	/**
+	 * Release a lock acquired with {@link #tryLock(String)}. Has no effect if
+	 * the lock is no longer held with this token (e.g. if it expired and was
+	 * taken by someone else).
+	 * 
+	 * @param jobName the job name
+	 * @param token the token returned when the lock was acquired
+	 */
+	void unlock(String jobName, String token);
+
+}
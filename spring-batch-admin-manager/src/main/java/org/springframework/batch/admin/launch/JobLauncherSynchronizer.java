@@ -1,5 +1,5 @@
 /*
- * Copyright 2009-2010 the original author or authors.
+ * Copyright 2009-2015 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,12 +18,16 @@ package org.springframework.batch.admin.launch;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
-import org.aspectj.lang.annotation.Before;
 import org.springframework.batch.core.BatchStatus;
 import org.springframework.batch.core.ExitStatus;
 import org.springframework.batch.core.Job;
@@ -32,15 +36,26 @@ import org.springframework.batch.core.explore.JobExplorer;
 import org.springframework.batch.core.launch.JobLauncher;
 import org.springframework.batch.core.repository.JobExecutionAlreadyRunningException;
 import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.repository.dao.AbstractJdbcBatchMetadataDao;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.jmx.export.annotation.ManagedAttribute;
 import org.springframework.jmx.export.annotation.ManagedOperation;
 import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
 
 /**
  * Wrapper for a {@link JobLauncher} that synchronizes jobs globally so that
  * only one execution of a given Job can be active at once.
+ * <p>
+ * If a {@link #setDataSource(DataSource) DataSource} is provided the running
+ * executions are counted with a single query (which can be supported by the
+ * index in <code>schema-launch-lock.sql</code> in this package) instead of
+ * being loaded through the {@link JobExplorer}. The check and the creation of
+ * the new execution can be made atomic across all the nodes that launch jobs
+ * by adding a {@link #setLaunchMutex(JobLaunchMutex) JobLaunchMutex}: a launch
+ * that cannot get the lock immediately is rejected.
  * 
  * @author Dave Syer
  * 
@@ -51,8 +66,25 @@ public class JobLauncherSynchronizer implements InitializingBean {
 
 	private static final Log logger = LogFactory.getLog(JobLauncherSynchronizer.class);
 
+	private static final String COUNT_RUNNING_EXECUTIONS = "SELECT COUNT(*) from %PREFIX%JOB_EXECUTION E, %PREFIX%JOB_INSTANCE I "
+			+ "where E.JOB_INSTANCE_ID = I.JOB_INSTANCE_ID and I.JOB_NAME = ? and E.END_TIME is NULL";
+
 	private JobExplorer jobExplorer;
 
+	private JdbcTemplate jdbcTemplate;
+
+	private String tablePrefix = AbstractJdbcBatchMetadataDao.DEFAULT_TABLE_PREFIX;
+
+	private JobLaunchMutex launchMutex;
+
+	private final AtomicLong checkCount = new AtomicLong();
+
+	private final AtomicLong rejectedCount = new AtomicLong();
+
+	private final AtomicLong totalCheckTime = new AtomicLong();
+
+	private final AtomicLong maxCheckTime = new AtomicLong();
+
 	private JobRepository jobRepository;
 
 	private Set<String> jobNames = new HashSet<String>();
@@ -66,6 +98,37 @@ public class JobLauncherSynchronizer implements InitializingBean {
 		this.jobExplorer = jobExplorer;
 	}
 
+	/**
+	 * The {@link DataSource} of the batch meta data, used to count running
+	 * executions without loading them. Optional if a {@link JobExplorer} is
+	 * provided.
+	 * 
+	 * @param dataSource a {@link DataSource}
+	 */
+	public void setDataSource(DataSource dataSource) {
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+	}
+
+	/**
+	 * Public setter for the table prefix property. Defaults to
+	 * {@link AbstractJdbcBatchMetadataDao#DEFAULT_TABLE_PREFIX}.
+	 * 
+	 * @param tablePrefix the tablePrefix to set
+	 */
+	public void setTablePrefix(String tablePrefix) {
+		this.tablePrefix = tablePrefix;
+	}
+
+	/**
+	 * Optional lock to hold from the check for running executions until the
+	 * new execution is created, so that two nodes cannot both pass the check.
+	 * 
+	 * @param launchMutex a {@link JobLaunchMutex}
+	 */
+	public void setLaunchMutex(JobLaunchMutex launchMutex) {
+		this.launchMutex = launchMutex;
+	}
+
 	/**
 	 * The {@link JobRepository} needed for updates to execution data.
 	 * 
@@ -112,12 +175,76 @@ public class JobLauncherSynchronizer implements InitializingBean {
 		return jobNames;
 	}
 
+	/**
+	 * @return the number of launches that have been checked
+	 */
+	@ManagedAttribute
+	public long getCheckCount() {
+		return checkCount.get();
+	}
+
+	/**
+	 * @return the number of launches rejected because the job was already
+	 * active (or locked by another launcher)
+	 */
+	@ManagedAttribute
+	public long getRejectedCount() {
+		return rejectedCount.get();
+	}
+
+	/**
+	 * @return the mean time in milliseconds spent checking a launch
+	 */
+	@ManagedAttribute
+	public double getMeanCheckTime() {
+		long count = checkCount.get();
+		return count == 0 ? 0 : totalCheckTime.get() / 1000000. / count;
+	}
+
+	/**
+	 * @return the maximum time in milliseconds spent checking a launch
+	 */
+	@ManagedAttribute
+	public double getMaxCheckTime() {
+		return maxCheckTime.get() / 1000000.;
+	}
+
 	public void afterPropertiesSet() throws Exception {
-		Assert.notNull(jobExplorer, "A JobExplorer must be provided");
+		Assert.state(jobExplorer != null || jdbcTemplate != null, "A JobExplorer or a DataSource must be provided");
 		Assert.notNull(jobRepository, "A JobRepository must be provided");
 	}
 
-	@Before("execution(* org.springframework.batch..JobLauncher+.*(..)) && args(job,..)")
+	/**
+	 * Hold the {@link #setLaunchMutex(JobLaunchMutex) launch mutex} (if there
+	 * is one) while checking for running executions and launching the job.
+	 * 
+	 * @param joinPoint the launch
+	 * @param job the job to launch
+	 * @return the result of the launch
+	 * @throws Throwable if the launch is rejected or fails
+	 */
+	@Around("execution(* org.springframework.batch..JobLauncher+.*(..)) && args(job,..)")
+	public Object synchronizeLaunch(ProceedingJoinPoint joinPoint, Job job) throws Throwable {
+		String jobName = job.getName();
+		if (launchMutex == null || !jobNames.contains(jobName)) {
+			checkJobBeforeLaunch(job);
+			return joinPoint.proceed();
+		}
+		long start = System.nanoTime();
+		String token = launchMutex.tryLock(jobName);
+		if (token == null) {
+			record(start, true);
+			throw new JobExecutionAlreadyRunningException("Another launch of this job is in progress: " + jobName);
+		}
+		try {
+			check(jobName, start);
+			return joinPoint.proceed();
+		}
+		finally {
+			launchMutex.unlock(jobName, token);
+		}
+	}
+
 	public void checkJobBeforeLaunch(Job job) throws JobExecutionAlreadyRunningException {
 		String jobName = job.getName();
 		logger.debug("Checking for synchronization on Job: " + jobName);
@@ -125,10 +252,7 @@ public class JobLauncherSynchronizer implements InitializingBean {
 			logger.debug("Not synchronizing Job: " + jobName);
 			return;
 		}
-		Set<JobExecution> running = jobExplorer.findRunningJobExecutions(jobName);
-		if (!running.isEmpty()) {
-			throw new JobExecutionAlreadyRunningException("An instance of this job is already active: "+jobName);
-		}
+		check(jobName, System.nanoTime());
 		logger.debug("Job checked and no duplicates detected: " + jobName);
 	}
 
@@ -140,8 +264,7 @@ public class JobLauncherSynchronizer implements InitializingBean {
 			logger.debug("Not re-checking for synchronization of Job: " + jobName);
 			return;
 		}
-		Set<JobExecution> running = jobExplorer.findRunningJobExecutions(jobName);
-		if (running.size() > 1) {
+		if (countRunningJobExecutions(jobName) > 1) {
 			jobExecution.setEndTime(new Date());
 			jobExecution.upgradeStatus(BatchStatus.ABANDONED);
 			jobExecution.setExitStatus(jobExecution.getExitStatus().and(ExitStatus.NOOP).addExitDescription(
@@ -150,4 +273,35 @@ public class JobLauncherSynchronizer implements InitializingBean {
 			throw new JobExecutionAlreadyRunningException("An instance of this job is already active: "+jobName);
 		}
 	}
+
+	private void check(String jobName, long start) throws JobExecutionAlreadyRunningException {
+		boolean rejected = countRunningJobExecutions(jobName) > 0;
+		record(start, rejected);
+		if (rejected) {
+			throw new JobExecutionAlreadyRunningException("An instance of this job is already active: " + jobName);
+		}
+	}
+
+	private void record(long start, boolean rejected) {
+		long duration = System.nanoTime() - start;
+		checkCount.incrementAndGet();
+		totalCheckTime.addAndGet(duration);
+		long max = maxCheckTime.get();
+		while (duration > max && !maxCheckTime.compareAndSet(max, duration)) {
+			max = maxCheckTime.get();
+		}
+		if (rejected) {
+			rejectedCount.incrementAndGet();
+		}
+	}
+
+	private int countRunningJobExecutions(String jobName) {
+		if (jdbcTemplate == null) {
+			Set<JobExecution> running = jobExplorer.findRunningJobExecutions(jobName);
+			return running.size();
+		}
+		return jdbcTemplate.queryForObject(StringUtils.replace(COUNT_RUNNING_EXECUTIONS, "%PREFIX%", tablePrefix),
+				Integer.class, jobName);
+	}
+
 }
@@ -0,0 +1,608 @@
+/*
+ * Copyright 2009-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.admin.launch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * A {@link TaskExecutor} that queues job launches in front of another
+ * {@link TaskExecutor} and only passes them on as capacity frees up, instead
+ * of letting them wait in a single FIFO queue in the delegate. The order in
+ * which queued launches are dispatched is controlled by:
+ * <ul>
+ * <li>concurrency limits: a launch is held back while its job or its job group
+ * is already running the maximum number of executions</li>
+ * <li>priority lanes: launches for jobs with a higher priority are dispatched
+ * first (lower lanes only get the capacity that higher lanes cannot use)</li>
+ * <li>weighted fair queuing: within a lane the job groups take turns in
+ * proportion to their weights, so a group with a long backlog cannot starve
+ * the others</li>
+ * </ul>
+ * Jobs are in the {@link #DEFAULT_GROUP default group} unless
+ * {@link #setJobGroups(Map) assigned} to another one. Tasks submitted through
+ * the plain {@link #execute(Runnable)} have no job name and are only subject
+ * to the overall {@link #setConcurrencyLimit(int) concurrency limit}. The
+ * concurrency limit should not be more than the delegate can run at once, or
+ * launches will queue (or be rejected) there instead. Launches rejected by the
+ * delegate go back to the front of the queue until the next
+ * {@link #dispatch()}, which should therefore also be called periodically.
+ * 
+ * @author Dave Syer
+ * 
+ * @see ScheduledJobLauncher
+ * 
+ */
+@ManagedResource
+public class LaunchScheduler implements TaskExecutor {
+
+	private static final Log logger = LogFactory.getLog(LaunchScheduler.class);
+
+	/**
+	 * The group of jobs that are not explicitly assigned to one.
+	 */
+	public static final String DEFAULT_GROUP = "default";
+
+	/**
+	 * Default value for the {@link #setConcurrencyLimit(int) concurrency
+	 * limit}.
+	 */
+	public static final int DEFAULT_CONCURRENCY_LIMIT = 6;
+
+	private TaskExecutor taskExecutor = new SyncTaskExecutor();
+
+	private volatile int concurrencyLimit = DEFAULT_CONCURRENCY_LIMIT;
+
+	private final Map<String, Integer> jobConcurrencyLimits = new ConcurrentHashMap<String, Integer>();
+
+	private final Map<String, String> jobGroups = new ConcurrentHashMap<String, String>();
+
+	private final Map<String, Integer> groupConcurrencyLimits = new ConcurrentHashMap<String, Integer>();
+
+	private final Map<String, Integer> groupWeights = new ConcurrentHashMap<String, Integer>();
+
+	private final Map<String, Integer> jobPriorities = new ConcurrentHashMap<String, Integer>();
+
+	private final Object monitor = new Object();
+
+	/**
+	 * Queued launches by priority (highest first) and group.
+	 */
+	private final TreeMap<Integer, Map<String, LinkedList<Launch>>> lanes = new TreeMap<Integer, Map<String, LinkedList<Launch>>>(
+			Collections.reverseOrder());
+
+	private final Map<String, Integer> activeByJob = new HashMap<String, Integer>();
+
+	private final Map<String, Integer> activeByGroup = new HashMap<String, Integer>();
+
+	/**
+	 * The virtual finish time of the last launch dispatched from each group.
+	 */
+	private final Map<String, Double> finishTimes = new HashMap<String, Double>();
+
+	private double virtualTime = 0;
+
+	private int active = 0;
+
+	private int queued = 0;
+
+	private long dispatchedCount = 0;
+
+	private long totalWaitTime = 0;
+
+	private long maxWaitTime = 0;
+
+	/**
+	 * The {@link TaskExecutor} that runs the launches when they are
+	 * dispatched. Default is synchronous.
+	 * 
+	 * @param taskExecutor the {@link TaskExecutor} to set
+	 */
+	public void setTaskExecutor(TaskExecutor taskExecutor) {
+		this.taskExecutor = taskExecutor;
+	}
+
+	/**
+	 * The maximum number of launches running at once. Default is
+	 * {@value #DEFAULT_CONCURRENCY_LIMIT}.
+	 * 
+	 * @param concurrencyLimit the concurrency limit to set
+	 */
+	@ManagedAttribute
+	public void setConcurrencyLimit(int concurrencyLimit) {
+		this.concurrencyLimit = concurrencyLimit;
+		dispatch();
+	}
+
+	/**
+	 * @return the maximum number of launches running at once
+	 */
+	@ManagedAttribute
+	public int getConcurrencyLimit() {
+		return concurrencyLimit;
+	}
+
+	/**
+	 * The maximum number of concurrent executions of individual jobs (by job
+	 * name). Jobs that are not in the map are only limited by their group.
+	 * 
+	 * @param jobConcurrencyLimits the limits to set
+	 */
+	public void setJobConcurrencyLimits(Map<String, Integer> jobConcurrencyLimits) {
+		this.jobConcurrencyLimits.clear();
+		this.jobConcurrencyLimits.putAll(jobConcurrencyLimits);
+	}
+
+	/**
+	 * Set the maximum number of concurrent executions of a job.
+	 * 
+	 * @param jobName the job name
+	 * @param limit the limit (zero or less for no limit)
+	 */
+	@ManagedOperation
+	public void setJobConcurrencyLimit(String jobName, int limit) {
+		put(jobConcurrencyLimits, jobName, limit);
+		dispatch();
+	}
+
+	/**
+	 * The group that each job belongs to (by job name). Jobs that are not in
+	 * the map belong to the {@link #DEFAULT_GROUP}.
+	 * 
+	 * @param jobGroups the groups to set
+	 */
+	public void setJobGroups(Map<String, String> jobGroups) {
+		this.jobGroups.clear();
+		this.jobGroups.putAll(jobGroups);
+	}
+
+	/**
+	 * The maximum number of concurrent executions of all the jobs in a group
+	 * (by group name). Groups that are not in the map are only limited by the
+	 * overall concurrency limit.
+	 * 
+	 * @param groupConcurrencyLimits the limits to set
+	 */
+	public void setGroupConcurrencyLimits(Map<String, Integer> groupConcurrencyLimits) {
+		this.groupConcurrencyLimits.clear();
+		this.groupConcurrencyLimits.putAll(groupConcurrencyLimits);
+	}
+
+	/**
+	 * Set the maximum number of concurrent executions of the jobs in a group.
+	 * 
+	 * @param group the group name
+	 * @param limit the limit (zero or less for no limit)
+	 */
+	@ManagedOperation
+	public void setGroupConcurrencyLimit(String group, int limit) {
+		put(groupConcurrencyLimits, group, limit);
+		dispatch();
+	}
+
+	/**
+	 * The share of the capacity that each group (by group name) gets when
+	 * several groups have launches waiting in the same lane. Default is 1 for
+	 * all groups.
+	 * 
+	 * @param groupWeights the weights to set
+	 */
+	public void setGroupWeights(Map<String, Integer> groupWeights) {
+		this.groupWeights.clear();
+		this.groupWeights.putAll(groupWeights);
+	}
+
+	/**
+	 * The priority lane for launches of each job (by job name). Launches in a
+	 * higher lane are dispatched first. Default is 0 for all jobs.
+	 * 
+	 * @param jobPriorities the priorities to set
+	 */
+	public void setJobPriorities(Map<String, Integer> jobPriorities) {
+		this.jobPriorities.clear();
+		this.jobPriorities.putAll(jobPriorities);
+	}
+
+	/**
+	 * Set the priority lane for future launches of a job.
+	 * 
+	 * @param jobName the job name
+	 * @param priority the priority
+	 */
+	@ManagedOperation
+	public void setJobPriority(String jobName, int priority) {
+		jobPriorities.put(jobName, priority);
+	}
+
+	/**
+	 * @return the number of launches waiting to be dispatched
+	 */
+	@ManagedAttribute
+	public int getQueueSize() {
+		synchronized (monitor) {
+			return queued;
+		}
+	}
+
+	/**
+	 * @param task a task passed to one of the execute methods
+	 * @return true if the task is waiting to be dispatched
+	 */
+	public boolean isQueued(Runnable task) {
+		synchronized (monitor) {
+			for (Map<String, LinkedList<Launch>> groups : lanes.values()) {
+				for (LinkedList<Launch> launches : groups.values()) {
+					for (Launch launch : launches) {
+						if (launch.task == task) {
+							return true;
+						}
+					}
+				}
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * @return the number of launches dispatched and not yet finished
+	 */
+	@ManagedAttribute
+	public int getActiveCount() {
+		synchronized (monitor) {
+			return active;
+		}
+	}
+
+	/**
+	 * The number of launches that could be dispatched immediately. If the
+	 * delegate is a {@link ThreadPoolTaskExecutor} this is also limited by the
+	 * number of threads it has free, in case it is busy with work that did not
+	 * come through this scheduler.
+	 * 
+	 * @return the number of launches that could be dispatched immediately
+	 */
+	@ManagedAttribute
+	public int getAvailableCapacity() {
+		synchronized (monitor) {
+			int capacity = concurrencyLimit - active - queued;
+			if (taskExecutor instanceof ThreadPoolTaskExecutor) {
+				capacity = Math.min(capacity, getFreeThreads((ThreadPoolTaskExecutor) taskExecutor) - queued);
+			}
+			return Math.max(0, capacity);
+		}
+	}
+
+	private int getFreeThreads(ThreadPoolTaskExecutor pool) {
+		ThreadPoolExecutor executor;
+		try {
+			executor = pool.getThreadPoolExecutor();
+		}
+		catch (IllegalStateException e) {
+			// Not initialized yet, so nothing is running
+			return pool.getMaxPoolSize();
+		}
+		return executor.getMaximumPoolSize() - executor.getActiveCount() - executor.getQueue().size();
+	}
+
+	/**
+	 * @return the number of launches dispatched so far
+	 */
+	@ManagedAttribute
+	public long getDispatchedCount() {
+		synchronized (monitor) {
+			return dispatchedCount;
+		}
+	}
+
+	/**
+	 * @return the mean time in milliseconds that launches waited in the queue
+	 */
+	@ManagedAttribute
+	public double getMeanWaitTime() {
+		synchronized (monitor) {
+			return dispatchedCount == 0 ? 0 : (double) totalWaitTime / dispatchedCount;
+		}
+	}
+
+	/**
+	 * @return the maximum time in milliseconds that a launch waited in the
+	 * queue
+	 */
+	@ManagedAttribute
+	public long getMaxWaitTime() {
+		synchronized (monitor) {
+			return maxWaitTime;
+		}
+	}
+
+	/**
+	 * Queue a task that is not associated with a job.
+	 * 
+	 * @see TaskExecutor#execute(Runnable)
+	 */
+	@Override
+	public void execute(Runnable task) {
+		execute(null, task);
+	}
+
+	/**
+	 * Queue the launch of a job with the priority configured for the job.
+	 * 
+	 * @param jobName the job name (can be null if the task is not a launch)
+	 * @param task the task that runs the job
+	 */
+	public void execute(String jobName, Runnable task) {
+		Integer priority = jobName == null ? null : jobPriorities.get(jobName);
+		execute(jobName, priority == null ? 0 : priority, task);
+	}
+
+	/**
+	 * Queue the launch of a job in a specific priority lane.
+	 * 
+	 * @param jobName the job name (can be null if the task is not a launch)
+	 * @param priority the priority lane
+	 * @param task the task that runs the job
+	 */
+	public void execute(String jobName, int priority, Runnable task) {
+		if (task == null) {
+			throw new NullPointerException("Task is null in LaunchScheduler.");
+		}
+		Launch launch = new Launch(jobName, getGroup(jobName), priority, task);
+		synchronized (monitor) {
+			enqueue(launch, false);
+		}
+		dispatch();
+	}
+
+	/**
+	 * Pass as many queued launches as possible to the delegate. Called when a
+	 * launch is queued or finishes, and intended to be called periodically as
+	 * well: if the delegate rejects a launch nothing else would retry it while
+	 * no other launches are running.
+	 */
+	@ManagedOperation
+	public void dispatch() {
+		List<Launch> launches = new ArrayList<Launch>();
+		synchronized (monitor) {
+			for (Launch launch = next(); launch != null; launch = next()) {
+				launches.add(launch);
+			}
+		}
+		for (int i = 0; i < launches.size(); i++) {
+			final Launch launch = launches.get(i);
+			try {
+				taskExecutor.execute(new Runnable() {
+					public void run() {
+						try {
+							launch.task.run();
+						}
+						finally {
+							release(launch);
+							dispatch();
+						}
+					}
+				});
+			}
+			catch (TaskRejectedException e) {
+				logger.warn("Launch rejected by TaskExecutor, re-queuing: " + launch.jobName, e);
+				synchronized (monitor) {
+					// Put this one and the rest back at the front of their queues
+					for (int j = launches.size() - 1; j >= i; j--) {
+						release(launches.get(j));
+						enqueue(launches.get(j), true);
+					}
+				}
+				return;
+			}
+			synchronized (monitor) {
+				long wait = System.currentTimeMillis() - launch.queued;
+				dispatchedCount++;
+				totalWaitTime += wait;
+				maxWaitTime = Math.max(maxWaitTime, wait);
+			}
+		}
+	}
+
+	/**
+	 * Take the next launch that can run from the queue and account for it as
+	 * active. Must be called with the monitor held.
+	 * 
+	 * @return the next launch or null if there is none
+	 */
+	private Launch next() {
+		if (active >= concurrencyLimit) {
+			return null;
+		}
+		for (Iterator<Map<String, LinkedList<Launch>>> lane = lanes.values().iterator(); lane.hasNext();) {
+			Map<String, LinkedList<Launch>> groups = lane.next();
+			String selected = null;
+			Launch candidate = null;
+			double finish = 0;
+			for (Map.Entry<String, LinkedList<Launch>> entry : groups.entrySet()) {
+				String group = entry.getKey();
+				if (isFull(activeByGroup, groupConcurrencyLimits, group)) {
+					continue;
+				}
+				Launch launch = firstRunnable(entry.getValue());
+				if (launch == null) {
+					continue;
+				}
+				double tag = getFinishTime(group);
+				if (candidate == null || tag < finish) {
+					selected = group;
+					candidate = launch;
+					finish = tag;
+				}
+			}
+			if (candidate != null) {
+				LinkedList<Launch> launches = groups.get(selected);
+				launches.remove(candidate);
+				if (launches.isEmpty()) {
+					groups.remove(selected);
+				}
+				if (groups.isEmpty()) {
+					lane.remove();
+				}
+				virtualTime = finish - 1.0 / getWeight(selected);
+				finishTimes.put(selected, finish);
+				acquire(candidate);
+				return candidate;
+			}
+		}
+		return null;
+	}
+
+	private Launch firstRunnable(List<Launch> launches) {
+		for (Launch launch : launches) {
+			if (launch.jobName == null || !isFull(activeByJob, jobConcurrencyLimits, launch.jobName)) {
+				return launch;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * The virtual time at which the next launch from a group would finish if
+	 * it was dispatched now.
+	 */
+	private double getFinishTime(String group) {
+		Double last = finishTimes.get(group);
+		double start = last == null ? virtualTime : Math.max(last, virtualTime);
+		return start + 1.0 / getWeight(group);
+	}
+
+	private int getWeight(String group) {
+		Integer weight = groupWeights.get(group);
+		return weight == null || weight < 1 ? 1 : weight;
+	}
+
+	private String getGroup(String jobName) {
+		String group = jobName == null ? null : jobGroups.get(jobName);
+		return group == null ? DEFAULT_GROUP : group;
+	}
+
+	private void acquire(Launch launch) {
+		queued--;
+		active++;
+		increment(activeByGroup, launch.group, 1);
+		if (launch.jobName != null) {
+			increment(activeByJob, launch.jobName, 1);
+		}
+	}
+
+	private void release(Launch launch) {
+		synchronized (monitor) {
+			active--;
+			increment(activeByGroup, launch.group, -1);
+			if (launch.jobName != null) {
+				increment(activeByJob, launch.jobName, -1);
+			}
+		}
+	}
+
+	private void enqueue(Launch launch, boolean first) {
+		Map<String, LinkedList<Launch>> lane = lanes.get(launch.priority);
+		if (lane == null) {
+			lane = new LinkedHashMap<String, LinkedList<Launch>>();
+			lanes.put(launch.priority, lane);
+		}
+		LinkedList<Launch> launches = lane.get(launch.group);
+		if (launches == null) {
+			launches = new LinkedList<Launch>();
+			lane.put(launch.group, launches);
+		}
+		if (first) {
+			launches.addFirst(launch);
+		}
+		else {
+			launches.addLast(launch);
+		}
+		queued++;
+	}
+
+	private static boolean isFull(Map<String, Integer> active, Map<String, Integer> limits, String key) {
+		Integer limit = limits.get(key);
+		if (limit == null || limit <= 0) {
+			return false;
+		}
+		Integer count = active.get(key);
+		return count != null && count >= limit;
+	}
+
+	private static void increment(Map<String, Integer> counts, String key, int delta) {
+		Integer count = counts.get(key);
+		int value = (count == null ? 0 : count) + delta;
+		if (value <= 0) {
+			counts.remove(key);
+		}
+		else {
+			counts.put(key, value);
+		}
+	}
+
+	private static void put(Map<String, Integer> map, String key, int value) {
+		if (value <= 0) {
+			map.remove(key);
+		}
+		else {
+			map.put(key, value);
+		}
+	}
+
+	/**
+	 * A queued task and the job it launches.
+	 */
+	private static class Launch {
+
+		private final String jobName;
+
+		private final String group;
+
+		private final int priority;
+
+		private final Runnable task;
+
+		private final long queued = System.currentTimeMillis();
+
+		public Launch(String jobName, String group, int priority, Runnable task) {
+			this.jobName = jobName;
+			this.group = group;
+			this.priority = priority;
+			this.task = task;
+		}
+
+	}
+
+}
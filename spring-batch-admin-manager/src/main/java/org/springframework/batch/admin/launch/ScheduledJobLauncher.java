@@ -0,0 +1,209 @@
+/*
+ * Copyright 2009-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.admin.launch;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersInvalidException;
+import org.springframework.batch.core.launch.support.SimpleJobLauncher;
+import org.springframework.batch.core.repository.JobExecutionAlreadyRunningException;
+import org.springframework.batch.core.repository.JobInstanceAlreadyCompleteException;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.repository.JobRestartException;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.task.TaskExecutor;
+
+/**
+ * A {@link SimpleJobLauncher} that hands its launches to a
+ * {@link LaunchScheduler} together with the name of the job, so that they can
+ * be queued according to the limits and priorities of the job.
+ * <p>
+ * The job execution is created (in STARTING) before the launch is queued, so
+ * an execution held in the queue is marked with the {@link #QUEUED} exit code
+ * until it is dispatched. The executions still queued when the launcher is
+ * {@link #destroy() destroyed} will never run, so they are
+ * {@link #cancelQueuedExecutions() marked as failed} instead of being left to
+ * look as if they were running. Like any other unsuccessful execution they can
+ * be restarted.
+ * 
+ * @author Dave Syer
+ * 
+ */
+public class ScheduledJobLauncher extends SimpleJobLauncher implements DisposableBean {
+
+	private static final Log logger = LogFactory.getLog(ScheduledJobLauncher.class);
+
+	/**
+	 * The exit code of a job execution that is waiting in the queue.
+	 */
+	public static final String QUEUED = "QUEUED";
+
+	private final ThreadLocal<String> currentJobName = new ThreadLocal<String>();
+
+	private final ThreadLocal<HeldLaunch> currentLaunch = new ThreadLocal<HeldLaunch>();
+
+	private final Map<Long, HeldLaunch> queued = new ConcurrentHashMap<Long, HeldLaunch>();
+
+	private JobRepository jobRepository;
+
+	@Override
+	public void setJobRepository(JobRepository jobRepository) {
+		super.setJobRepository(jobRepository);
+		this.jobRepository = jobRepository;
+	}
+
+	/**
+	 * The {@link LaunchScheduler} that queues the launches. Replaces any
+	 * {@link #setTaskExecutor(TaskExecutor) TaskExecutor} (the scheduler has
+	 * its own).
+	 * 
+	 * @param launchScheduler the {@link LaunchScheduler} to set
+	 */
+	public void setLaunchScheduler(final LaunchScheduler launchScheduler) {
+		setTaskExecutor(new TaskExecutor() {
+			public void execute(Runnable task) {
+				HeldLaunch launch = new HeldLaunch(task);
+				launchScheduler.execute(currentJobName.get(), launch);
+				if (launchScheduler.isQueued(launch)) {
+					currentLaunch.set(launch);
+				}
+			}
+		});
+	}
+
+	/**
+	 * @return the ids of the job executions waiting in the queue
+	 */
+	public Collection<Long> getQueuedExecutionIds() {
+		return new ArrayList<Long>(queued.keySet());
+	}
+
+	@Override
+	public JobExecution run(Job job, JobParameters jobParameters) throws JobExecutionAlreadyRunningException,
+			JobRestartException, JobInstanceAlreadyCompleteException, JobParametersInvalidException {
+		currentJobName.set(job.getName());
+		try {
+			JobExecution jobExecution = super.run(job, jobParameters);
+			HeldLaunch launch = currentLaunch.get();
+			if (launch != null) {
+				launch.hold(jobExecution);
+			}
+			return jobExecution;
+		}
+		finally {
+			currentJobName.remove();
+			currentLaunch.remove();
+		}
+	}
+
+	/**
+	 * Mark the job executions still waiting in the queue as failed, and make
+	 * sure they are not started if they are dispatched later.
+	 * 
+	 * @return the number of executions cancelled
+	 */
+	public int cancelQueuedExecutions() {
+		int count = 0;
+		for (HeldLaunch launch : queued.values()) {
+			if (launch.cancel()) {
+				count++;
+			}
+		}
+		if (count > 0) {
+			logger.info("Cancelled queued job executions: " + count);
+		}
+		return count;
+	}
+
+	@Override
+	public void destroy() throws Exception {
+		cancelQueuedExecutions();
+	}
+
+	/**
+	 * A launch in the queue, tracking the state of its job execution until it
+	 * is dispatched.
+	 */
+	private class HeldLaunch implements Runnable {
+
+		private final Runnable task;
+
+		private JobExecution jobExecution;
+
+		private boolean started = false;
+
+		private boolean cancelled = false;
+
+		public HeldLaunch(Runnable task) {
+			this.task = task;
+		}
+
+		/**
+		 * Mark the execution as queued, unless it was dispatched already.
+		 */
+		public synchronized void hold(JobExecution jobExecution) {
+			if (started) {
+				return;
+			}
+			this.jobExecution = jobExecution;
+			jobExecution.setExitStatus(new ExitStatus(QUEUED, "Waiting for the launch scheduler"));
+			jobRepository.update(jobExecution);
+			queued.put(jobExecution.getId(), this);
+		}
+
+		public synchronized boolean cancel() {
+			if (started || cancelled) {
+				return false;
+			}
+			cancelled = true;
+			queued.remove(jobExecution.getId());
+			jobExecution.upgradeStatus(BatchStatus.FAILED);
+			jobExecution.setEndTime(new Date());
+			jobExecution.setExitStatus(ExitStatus.FAILED
+					.addExitDescription("The launch was still queued when the launcher shut down"));
+			jobRepository.update(jobExecution);
+			return true;
+		}
+
+		@Override
+		public void run() {
+			synchronized (this) {
+				if (cancelled) {
+					return;
+				}
+				started = true;
+				if (jobExecution != null) {
+					queued.remove(jobExecution.getId());
+					jobExecution.setExitStatus(ExitStatus.UNKNOWN);
+				}
+			}
+			task.run();
+		}
+
+	}
+
+}
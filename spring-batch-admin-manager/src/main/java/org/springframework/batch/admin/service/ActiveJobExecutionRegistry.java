@@ -0,0 +1,210 @@
+/*
+ * Copyright 2009-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.admin.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobExecutionListener;
+import org.springframework.batch.core.job.AbstractJob;
+
+/**
+ * Registry of the job executions launched by a {@link JobService} that have
+ * not finished yet, keyed by id. The registry listens to the jobs it is
+ * {@link #listenTo(Job) attached} to, so executions are removed as soon as
+ * they finish and anyone waiting for them is signalled. Executions of jobs
+ * that cannot take a listener are removed by {@link #update(Map)} with
+ * statuses read from the repository.
+ * 
+ * @author Dave Syer
+ * 
+ */
+public class ActiveJobExecutionRegistry implements JobExecutionListener {
+
+	private final ConcurrentMap<Long, ActiveExecution> executions = new ConcurrentHashMap<Long, ActiveExecution>();
+
+	private final Set<Job> listenedJobs = Collections.newSetFromMap(new WeakHashMap<Job, Boolean>());
+
+	private final List<JobExecutionListener> listeners = new CopyOnWriteArrayList<JobExecutionListener>();
+
+	/**
+	 * Add a listener to be notified when the executions of the jobs this
+	 * registry listens to finish (after they have been removed).
+	 * 
+	 * @param listener a listener
+	 */
+	public void addJobExecutionListener(JobExecutionListener listener) {
+		listeners.add(listener);
+	}
+
+	/**
+	 * Attach this registry as a listener to the job provided (once only), if
+	 * it accepts listeners. Should be called before the job is launched.
+	 * 
+	 * @param job a job
+	 * @return true if the job will signal the end of its executions
+	 */
+	public boolean listenTo(Job job) {
+		if (!(job instanceof AbstractJob)) {
+			return false;
+		}
+		synchronized (listenedJobs) {
+			if (listenedJobs.add(job)) {
+				((AbstractJob) job).registerJobExecutionListener(this);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Track a job execution until it finishes. Executions that have already
+	 * finished are ignored.
+	 * 
+	 * @param jobExecution the job execution
+	 * @param listened true if the job signals the end of the execution
+	 */
+	public void register(JobExecution jobExecution, boolean listened) {
+		if (!jobExecution.isRunning()) {
+			return;
+		}
+		executions.put(jobExecution.getId(), new ActiveExecution(jobExecution, listened));
+		if (!jobExecution.isRunning()) {
+			// It finished (and was signalled) while it was being added
+			complete(jobExecution.getId());
+		}
+	}
+
+	/**
+	 * @return a snapshot of the job executions that are still active
+	 */
+	public Collection<JobExecution> getJobExecutions() {
+		Collection<JobExecution> result = new ArrayList<JobExecution>();
+		for (ActiveExecution execution : executions.values()) {
+			result.add(execution.jobExecution);
+		}
+		return result;
+	}
+
+	/**
+	 * @return the ids of the job executions that are still active
+	 */
+	public Collection<Long> getJobExecutionIds() {
+		return new ArrayList<Long>(executions.keySet());
+	}
+
+	public int size() {
+		return executions.size();
+	}
+
+	public boolean isEmpty() {
+		return executions.isEmpty();
+	}
+
+	/**
+	 * @return true if all the active executions will signal when they finish
+	 * (so there is no need to poll the repository while waiting for them)
+	 */
+	public boolean isListening() {
+		for (ActiveExecution execution : executions.values()) {
+			if (!execution.listened) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Remove the executions that are no longer running according to the
+	 * statuses provided (typically from the repository). Executions with no
+	 * status are assumed to have been deleted.
+	 * 
+	 * @param statuses the current statuses by job execution id
+	 */
+	public void update(Map<Long, BatchStatus> statuses) {
+		for (Long id : getJobExecutionIds()) {
+			BatchStatus status = statuses.get(id);
+			if (status == null || !status.isRunning()) {
+				complete(id);
+			}
+		}
+	}
+
+	/**
+	 * Wait for all the executions that are active now to finish.
+	 * 
+	 * @param timeout the maximum time to wait in milliseconds
+	 * @return true if there are no more active executions
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public boolean awaitCompletion(long timeout) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + timeout;
+		for (ActiveExecution execution : executions.values()) {
+			long remaining = deadline - System.currentTimeMillis();
+			if (remaining <= 0 || !execution.finished.await(remaining, TimeUnit.MILLISECONDS)) {
+				break;
+			}
+		}
+		return executions.isEmpty();
+	}
+
+	@Override
+	public void beforeJob(JobExecution jobExecution) {
+	}
+
+	@Override
+	public void afterJob(JobExecution jobExecution) {
+		complete(jobExecution.getId());
+		for (JobExecutionListener listener : listeners) {
+			listener.afterJob(jobExecution);
+		}
+	}
+
+	private void complete(Long id) {
+		ActiveExecution execution = executions.remove(id);
+		if (execution != null) {
+			execution.finished.countDown();
+		}
+	}
+
+	private static class ActiveExecution {
+
+		private final JobExecution jobExecution;
+
+		private final boolean listened;
+
+		private final CountDownLatch finished = new CountDownLatch(1);
+
+		public ActiveExecution(JobExecution jobExecution, boolean listened) {
+			this.jobExecution = jobExecution;
+			this.listened = listened;
+		}
+
+	}
+
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2009-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.admin.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.util.Assert;
+
+/**
+ * {@link CountStrategy} that remembers the totals computed by another
+ * strategy for a fixed time, so that paging through a listing only counts
+ * once per time to live. Totals may therefore be slightly out of date.
+ * 
+ * @author Dave Syer
+ * 
+ */
+public class CachingCountStrategy implements CountStrategy {
+
+	/**
+	 * Default value for the time to live in milliseconds.
+	 */
+	public static final long DEFAULT_TIME_TO_LIVE = 30000;
+
+	private final CountStrategy delegate;
+
+	private final long timeToLive;
+
+	private final ConcurrentMap<List<Object>, CachedCount> cache = new ConcurrentHashMap<List<Object>, CachedCount>();
+
+	public CachingCountStrategy() {
+		this(new ExactCountStrategy(), DEFAULT_TIME_TO_LIVE);
+	}
+
+	/**
+	 * @param delegate the strategy computing the totals to cache
+	 * @param timeToLive the time in milliseconds for which a total is reused
+	 */
+	public CachingCountStrategy(CountStrategy delegate, long timeToLive) {
+		Assert.notNull(delegate, "A delegate CountStrategy must be provided");
+		this.delegate = delegate;
+		this.timeToLive = timeToLive;
+	}
+
+	@Override
+	public TotalCount count(JdbcOperations jdbcTemplate, String countQuery, String selectQuery, Object... args) {
+		List<Object> key = new ArrayList<Object>(args.length + 1);
+		key.add(countQuery);
+		key.addAll(Arrays.asList(args));
+		long now = System.currentTimeMillis();
+		CachedCount cached = cache.get(key);
+		if (cached == null || now - cached.timestamp >= timeToLive) {
+			cached = new CachedCount(delegate.count(jdbcTemplate, countQuery, selectQuery, args), now);
+			cache.put(key, cached);
+		}
+		return cached.count;
+	}
+
+	/**
+	 * Discard all the cached totals.
+	 */
+	public void clear() {
+		cache.clear();
+	}
+
+	private static class CachedCount {
+
+		private final TotalCount count;
+
+		private final long timestamp;
+
+		public CachedCount(TotalCount count, long timestamp) {
+			this.count = count;
+			this.timestamp = timestamp;
+		}
+
+	}
+
+}
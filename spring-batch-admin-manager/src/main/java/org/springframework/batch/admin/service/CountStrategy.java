@@ -0,0 +1,46 @@
+/*
+ * Copyright 2009-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.admin.service;
+
+import org.springframework.jdbc.core.JdbcOperations;
+
+/**
+ * Strategy for computing the totals shown alongside paged listings by the
+ * searchable DAOs. An exact <code>SELECT COUNT(1)</code> over a large
+ * repository can cost more than reading the page itself, so implementations
+ * may cache the result ({@link CachingCountStrategy}) or give up counting
+ * beyond a threshold ({@link EstimatingCountStrategy}).
+ * 
+ * @author Dave Syer
+ * 
+ * @see ExactCountStrategy
+ */
+public interface CountStrategy {
+
+	/**
+	 * Count the rows matched by a query.
+	 * 
+	 * @param jdbcTemplate the {@link JdbcOperations} to use
+	 * @param countQuery a query returning the exact number of matching rows
+	 * @param selectQuery a query returning one (preferably narrow, indexed)
+	 * row per matching item, for strategies that only need to read some of
+	 * them
+	 * @param args the arguments for either query
+	 * @return the total
+	 */
+	TotalCount count(JdbcOperations jdbcTemplate, String countQuery, String selectQuery, Object... args);
+
+}
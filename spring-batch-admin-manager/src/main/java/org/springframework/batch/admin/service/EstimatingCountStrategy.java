@@ -0,0 +1,77 @@
+/*
+ * Copyright 2009-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.admin.service;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCountCallbackHandler;
+import org.springframework.util.Assert;
+
+/**
+ * {@link CountStrategy} that stops counting at a threshold. Up to the
+ * threshold the count is exact; beyond it the result is
+ * {@link TotalCount#moreThan(int) "more than"} the threshold. The cost is
+ * bounded by the threshold because at most that many rows (plus one) are read
+ * from the select query, with the limit applied portably through
+ * {@link java.sql.Statement#setMaxRows(int)}.
+ * 
+ * @author Dave Syer
+ * 
+ */
+public class EstimatingCountStrategy implements CountStrategy {
+
+	/**
+	 * Default value for the threshold.
+	 */
+	public static final int DEFAULT_THRESHOLD = 1000;
+
+	private final int threshold;
+
+	public EstimatingCountStrategy() {
+		this(DEFAULT_THRESHOLD);
+	}
+
+	/**
+	 * @param threshold the number of items above which the count is estimated
+	 */
+	public EstimatingCountStrategy(int threshold) {
+		Assert.isTrue(threshold > 0, "The threshold must be positive");
+		this.threshold = threshold;
+	}
+
+	@Override
+	public TotalCount count(JdbcOperations jdbcTemplate, final String countQuery, final String selectQuery,
+			final Object... args) {
+		RowCountCallbackHandler counter = new RowCountCallbackHandler();
+		jdbcTemplate.query(new PreparedStatementCreator() {
+			@Override
+			public PreparedStatement createPreparedStatement(Connection connection) throws SQLException {
+				PreparedStatement statement = connection.prepareStatement(selectQuery);
+				statement.setMaxRows(threshold + 1);
+				new ArgumentPreparedStatementSetter(args).setValues(statement);
+				return statement;
+			}
+		}, counter);
+		int rows = counter.getRowCount();
+		return rows > threshold ? TotalCount.moreThan(threshold) : TotalCount.exact(rows);
+	}
+
+}
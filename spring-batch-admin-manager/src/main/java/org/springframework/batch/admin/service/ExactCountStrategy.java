@@ -0,0 +1,34 @@
+/*
+ * Copyright 2009-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.admin.service;
+
+import org.springframework.jdbc.core.JdbcOperations;
+
+/**
+ * {@link CountStrategy} that always runs the exact count query. This is the
+ * default.
+ * 
+ * @author Dave Syer
+ * 
+ */
+public class ExactCountStrategy implements CountStrategy {
+
+	@Override
+	public TotalCount count(JdbcOperations jdbcTemplate, String countQuery, String selectQuery, Object... args) {
+		return TotalCount.exact(jdbcTemplate.queryForObject(countQuery, Integer.class, args));
+	}
+
+}
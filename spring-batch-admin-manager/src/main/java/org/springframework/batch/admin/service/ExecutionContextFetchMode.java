@@ -0,0 +1,48 @@
+/*
+ * Copyright 2009-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.admin.service;
+
+/**
+ * How much of the execution context to load with a job or step execution
+ * retrieved from the {@link JobService}. Whatever is requested is only
+ * deserialized when the context is first read, so a caller that never looks
+ * at the context does not pay for it even with {@link #FULL}.
+ * 
+ * @author Dave Syer
+ * 
+ */
+public enum ExecutionContextFetchMode {
+
+	/**
+	 * Do not load the execution context at all: the execution carries an empty
+	 * one.
+	 */
+	NONE,
+
+	/**
+	 * Load the execution context only if it is small enough to be stored
+	 * entirely in the SHORT_CONTEXT column, so the (possibly very large)
+	 * serialized context is never read. A context that did not fit is left
+	 * empty.
+	 */
+	SHORT,
+
+	/**
+	 * Load the whole execution context.
+	 */
+	FULL
+
+}
@@ -0,0 +1,270 @@
+/*
+ * Copyright 2009-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.admin.service;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.Properties;
+
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.converter.DefaultJobParametersConverter;
+import org.springframework.batch.core.converter.JobParametersConverter;
+import org.springframework.batch.core.repository.dao.AbstractJdbcBatchMetadataDao;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.incrementer.DataFieldMaxValueIncrementer;
+import org.springframework.util.Assert;
+
+/**
+ * JDBC implementation of {@link LaunchRequestDao}, backed by the
+ * JOB_LAUNCH_REQUEST table (see <code>schema-launch-queue.sql</code> in this
+ * package). Job parameters are stored in their properties form (as created by
+ * a {@link DefaultJobParametersConverter}, with dates to the millisecond).
+ * 
+ * @author Dave Syer
+ * 
+ */
+public class JdbcLaunchRequestDao extends AbstractJdbcBatchMetadataDao implements LaunchRequestDao {
+
+	private static final int MAX_VARCHAR_LENGTH = 2500;
+
+	private static final String FIELDS = "LAUNCH_REQUEST_ID, JOB_NAME, JOB_PARAMETERS, PRIORITY, STATUS, "
+			+ "CREATE_TIME, DISPATCH_TIME, JOB_EXECUTION_ID, MESSAGE, OWNER, LEASE_EXPIRES";
+
+	private static final String SAVE_LAUNCH_REQUEST = "INSERT into %PREFIX%JOB_LAUNCH_REQUEST (" + FIELDS
+			+ ") values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+	private static final String GET_LAUNCH_REQUEST = "SELECT " + FIELDS
+			+ " from %PREFIX%JOB_LAUNCH_REQUEST where LAUNCH_REQUEST_ID = ?";
+
+	private static final String FIND_QUEUED = "SELECT " + FIELDS
+			+ " from %PREFIX%JOB_LAUNCH_REQUEST where STATUS = 'QUEUED' order by PRIORITY desc, LAUNCH_REQUEST_ID";
+
+	private static final String COUNT_QUEUED = "SELECT COUNT(*) from %PREFIX%JOB_LAUNCH_REQUEST where STATUS = 'QUEUED'";
+
+	private static final String CLAIM = "UPDATE %PREFIX%JOB_LAUNCH_REQUEST set STATUS = 'LAUNCHING', DISPATCH_TIME = ?, "
+			+ "OWNER = ?, LEASE_EXPIRES = ? where LAUNCH_REQUEST_ID = ? and STATUS = 'QUEUED'";
+
+	private static final String UPDATE = "UPDATE %PREFIX%JOB_LAUNCH_REQUEST set STATUS = ?, JOB_EXECUTION_ID = ?, MESSAGE = ? "
+			+ "where LAUNCH_REQUEST_ID = ? and STATUS = 'LAUNCHING' and OWNER = ?";
+
+	private static final String REQUEUE_EXPIRED = "UPDATE %PREFIX%JOB_LAUNCH_REQUEST set STATUS = 'QUEUED' "
+			+ "where STATUS = 'LAUNCHING' and LEASE_EXPIRES < ?";
+
+	private static final String FROM_LAUNCHED_EXECUTIONS = "from %PREFIX%JOB_EXECUTION_PARAMS P where P.KEY_NAME = '"
+			+ LaunchRequest.LAUNCH_REQUEST_ID_KEY + "' and P.TYPE_CD = 'LONG' "
+			+ "and P.LONG_VAL = %PREFIX%JOB_LAUNCH_REQUEST.LAUNCH_REQUEST_ID";
+
+	private static final String RECOVER_EXPIRED = "UPDATE %PREFIX%JOB_LAUNCH_REQUEST set STATUS = 'LAUNCHED', "
+			+ "JOB_EXECUTION_ID = (SELECT MAX(P.JOB_EXECUTION_ID) " + FROM_LAUNCHED_EXECUTIONS + ") "
+			+ "where STATUS = 'LAUNCHING' and LEASE_EXPIRES < ? and exists (SELECT P.JOB_EXECUTION_ID "
+			+ FROM_LAUNCHED_EXECUTIONS + ")";
+
+	private DataFieldMaxValueIncrementer launchRequestIncrementer;
+
+	private static final String DATE_FORMAT = "yyyy-MM-dd'T'HH:mm:ss.SSSZ";
+
+	private JobParametersConverter jobParametersConverter;
+
+	/**
+	 * Setter for {@link DataFieldMaxValueIncrementer} to be used when
+	 * generating primary keys for {@link LaunchRequest} instances.
+	 * 
+	 * @param launchRequestIncrementer the {@link DataFieldMaxValueIncrementer}
+	 */
+	public void setLaunchRequestIncrementer(DataFieldMaxValueIncrementer launchRequestIncrementer) {
+		this.launchRequestIncrementer = launchRequestIncrementer;
+	}
+
+	/**
+	 * The converter for the job parameters of the requests. Defaults to a
+	 * {@link DefaultJobParametersConverter} with a date format that keeps the
+	 * milliseconds.
+	 * 
+	 * @param jobParametersConverter the converter to set
+	 */
+	public void setJobParametersConverter(JobParametersConverter jobParametersConverter) {
+		this.jobParametersConverter = jobParametersConverter;
+	}
+
+	@Override
+	public void afterPropertiesSet() throws Exception {
+		super.afterPropertiesSet();
+		Assert.notNull(launchRequestIncrementer, "The launchRequestIncrementer must not be null.");
+	}
+
+	/**
+	 * @see LaunchRequestDao#saveLaunchRequest(LaunchRequest)
+	 */
+	@Override
+	public void saveLaunchRequest(LaunchRequest launchRequest) {
+		Assert.notNull(launchRequest.getJobName(), "The job name must not be null.");
+		launchRequest.setId(launchRequestIncrementer.nextLongValue());
+		launchRequest.setCreateTime(new Date());
+		getJdbcTemplate().update(getQuery(SAVE_LAUNCH_REQUEST), launchRequest.getId(), launchRequest.getJobName(),
+				toString(launchRequest.getJobParameters()), launchRequest.getPriority(),
+				launchRequest.getStatus().name(), launchRequest.getCreateTime(), launchRequest.getDispatchTime(),
+				launchRequest.getJobExecutionId(), truncate(launchRequest.getMessage()), launchRequest.getOwner(),
+				launchRequest.getLeaseExpires());
+	}
+
+	/**
+	 * @see LaunchRequestDao#getLaunchRequest(Long)
+	 */
+	@Override
+	public LaunchRequest getLaunchRequest(Long id) {
+		List<LaunchRequest> result = getJdbcTemplate().query(getQuery(GET_LAUNCH_REQUEST),
+				new LaunchRequestRowMapper(), id);
+		return result.isEmpty() ? null : result.get(0);
+	}
+
+	/**
+	 * @see LaunchRequestDao#findQueuedLaunchRequests(int)
+	 */
+	@Override
+	public List<LaunchRequest> findQueuedLaunchRequests(final int count) {
+		return getJdbcTemplate().query(new PreparedStatementCreator() {
+			@Override
+			public PreparedStatement createPreparedStatement(Connection connection) throws SQLException {
+				PreparedStatement statement = connection.prepareStatement(getQuery(FIND_QUEUED));
+				statement.setMaxRows(count);
+				return statement;
+			}
+		}, new LaunchRequestRowMapper());
+	}
+
+	/**
+	 * @see LaunchRequestDao#countQueuedLaunchRequests()
+	 */
+	@Override
+	public int countQueuedLaunchRequests() {
+		return getJdbcTemplate().queryForObject(getQuery(COUNT_QUEUED), Integer.class);
+	}
+
+	/**
+	 * Claims with a conditional update rather than a locking select (e.g.
+	 * <code>FOR UPDATE SKIP LOCKED</code>), which is not portable. A
+	 * dispatcher that loses the race simply moves on to the next candidate.
+	 * 
+	 * @see LaunchRequestDao#claimLaunchRequest(Long, String, Date)
+	 */
+	@Override
+	public boolean claimLaunchRequest(Long id, String owner, Date leaseExpires) {
+		return getJdbcTemplate().update(getQuery(CLAIM), new Timestamp(System.currentTimeMillis()), owner,
+				new Timestamp(leaseExpires.getTime()), id) > 0;
+	}
+
+	/**
+	 * @see LaunchRequestDao#updateLaunchRequest(Long, String,
+	 * LaunchRequest.Status, Long, String)
+	 */
+	@Override
+	public boolean updateLaunchRequest(Long id, String owner, LaunchRequest.Status status, Long jobExecutionId,
+			String message) {
+		return getJdbcTemplate().update(getQuery(UPDATE), status.name(), jobExecutionId, truncate(message), id,
+				owner) > 0;
+	}
+
+	/**
+	 * The job executions are found through the job parameters in the batch
+	 * meta data tables, which have to share the table prefix.
+	 * 
+	 * @see LaunchRequestDao#requeueExpiredLaunchRequests(Date)
+	 */
+	@Override
+	public int requeueExpiredLaunchRequests(Date now) {
+		Timestamp timestamp = new Timestamp(now.getTime());
+		getJdbcTemplate().update(getQuery(RECOVER_EXPIRED), timestamp);
+		return getJdbcTemplate().update(getQuery(REQUEUE_EXPIRED), timestamp);
+	}
+
+	private String toString(JobParameters jobParameters) {
+		Properties properties = getJobParametersConverter().getProperties(jobParameters);
+		StringWriter writer = new StringWriter();
+		try {
+			properties.store(writer, null);
+		}
+		catch (IOException e) {
+			throw new IllegalStateException("Cannot store job parameters", e);
+		}
+		String value = writer.toString();
+		Assert.state(value.length() <= MAX_VARCHAR_LENGTH, "Job parameters too long to queue: " + jobParameters);
+		return value;
+	}
+
+	private JobParameters toJobParameters(String value) {
+		Properties properties = new Properties();
+		if (value != null) {
+			try {
+				properties.load(new StringReader(value));
+			}
+			catch (IOException e) {
+				throw new IllegalStateException("Cannot load job parameters", e);
+			}
+		}
+		return getJobParametersConverter().getJobParameters(properties);
+	}
+
+	/**
+	 * The default converter has a (non thread safe) date format, so a new one
+	 * is created each time.
+	 */
+	private JobParametersConverter getJobParametersConverter() {
+		if (jobParametersConverter != null) {
+			return jobParametersConverter;
+		}
+		DefaultJobParametersConverter converter = new DefaultJobParametersConverter();
+		converter.setDateFormat(new SimpleDateFormat(DATE_FORMAT));
+		return converter;
+	}
+
+	private String truncate(String message) {
+		return message != null && message.length() > MAX_VARCHAR_LENGTH ? message.substring(0, MAX_VARCHAR_LENGTH)
+				: message;
+	}
+
+	private class LaunchRequestRowMapper implements RowMapper<LaunchRequest> {
+
+		@Override
+		public LaunchRequest mapRow(ResultSet rs, int rowNum) throws SQLException {
+			LaunchRequest launchRequest = new LaunchRequest();
+			launchRequest.setId(rs.getLong(1));
+			launchRequest.setJobName(rs.getString(2));
+			launchRequest.setJobParameters(toJobParameters(rs.getString(3)));
+			launchRequest.setPriority(rs.getInt(4));
+			launchRequest.setStatus(LaunchRequest.Status.valueOf(rs.getString(5)));
+			launchRequest.setCreateTime(rs.getTimestamp(6));
+			launchRequest.setDispatchTime(rs.getTimestamp(7));
+			long jobExecutionId = rs.getLong(8);
+			launchRequest.setJobExecutionId(rs.wasNull() ? null : jobExecutionId);
+			launchRequest.setMessage(rs.getString(9));
+			launchRequest.setOwner(rs.getString(10));
+			launchRequest.setLeaseExpires(rs.getTimestamp(11));
+			return launchRequest;
+		}
+
+	}
+
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2009-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.admin.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.repository.ExecutionContextSerializer;
+import org.springframework.batch.core.repository.dao.JdbcExecutionContextDao;
+import org.springframework.batch.item.ExecutionContext;
+
+/**
+ * @author Dave Syer
+ * 
+ */
+public class JdbcSearchableExecutionContextDao extends JdbcExecutionContextDao implements
+		SearchableExecutionContextDao {
+
+	private static final String FIND_SHORT_JOB_EXECUTION_CONTEXT = "SELECT SHORT_CONTEXT "
+			+ "FROM %PREFIX%JOB_EXECUTION_CONTEXT WHERE JOB_EXECUTION_ID = ? AND SERIALIZED_CONTEXT IS NULL";
+
+	private static final String FIND_SHORT_STEP_EXECUTION_CONTEXT = "SELECT SHORT_CONTEXT "
+			+ "FROM %PREFIX%STEP_EXECUTION_CONTEXT WHERE STEP_EXECUTION_ID = ? AND SERIALIZED_CONTEXT IS NULL";
+
+	private ExecutionContextSerializer serializer;
+
+	@Override
+	public void setSerializer(ExecutionContextSerializer serializer) {
+		super.setSerializer(serializer);
+		this.serializer = serializer;
+	}
+
+	/**
+	 * @see SearchableExecutionContextDao#getShortExecutionContext(JobExecution)
+	 */
+	@Override
+	public ExecutionContext getShortExecutionContext(JobExecution jobExecution) {
+		return getShortExecutionContext(FIND_SHORT_JOB_EXECUTION_CONTEXT, jobExecution.getId());
+	}
+
+	/**
+	 * @see SearchableExecutionContextDao#getShortExecutionContext(StepExecution)
+	 */
+	@Override
+	public ExecutionContext getShortExecutionContext(StepExecution stepExecution) {
+		return getShortExecutionContext(FIND_SHORT_STEP_EXECUTION_CONTEXT, stepExecution.getId());
+	}
+
+	private ExecutionContext getShortExecutionContext(String query, Long id) {
+		List<String> results = getJdbcTemplate().queryForList(getQuery(query), String.class, id);
+		if (results.isEmpty() || results.get(0) == null) {
+			return new ExecutionContext();
+		}
+		try {
+			Map<String, Object> map = serializer.deserialize(new ByteArrayInputStream(results.get(0).getBytes(
+					"ISO-8859-1")));
+			return new ExecutionContext(map);
+		}
+		catch (IOException e) {
+			throw new IllegalArgumentException("Unable to deserialize the execution context", e);
+		}
+	}
+
+}
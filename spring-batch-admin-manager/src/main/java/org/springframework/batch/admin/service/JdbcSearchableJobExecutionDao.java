@@ -15,13 +15,21 @@
  */
 package org.springframework.batch.admin.service;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Properties;
 
 import javax.sql.DataSource;
 
@@ -29,16 +37,24 @@ import org.springframework.batch.core.BatchStatus;
 import org.springframework.batch.core.ExitStatus;
 import org.springframework.batch.core.JobExecution;
 import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.JobParameter;
+import org.springframework.batch.core.JobParameter.ParameterType;
 import org.springframework.batch.core.JobParameters;
 import org.springframework.batch.core.repository.dao.JdbcJobExecutionDao;
 import org.springframework.batch.item.database.Order;
 import org.springframework.batch.item.database.PagingQueryProvider;
 import org.springframework.batch.item.database.support.SqlPagingQueryProviderFactoryBean;
+import org.springframework.batch.support.DatabaseType;
 import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.support.incrementer.AbstractDataFieldMaxValueIncrementer;
 import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
 
 /**
  * @author Dave Syer
@@ -52,6 +68,20 @@ public class JdbcSearchableJobExecutionDao extends JdbcJobExecutionDao implement
 	private static final String GET_COUNT_BY_JOB_NAME = "SELECT COUNT(1) from %PREFIX%JOB_EXECUTION E, %PREFIX%JOB_INSTANCE I "
 			+ "where E.JOB_INSTANCE_ID=I.JOB_INSTANCE_ID and I.JOB_NAME=?";
 
+	private static final String GET_IDS = "SELECT E.JOB_EXECUTION_ID from %PREFIX%JOB_EXECUTION E";
+
+	private static final String GET_IDS_BY_JOB_NAME = "SELECT E.JOB_EXECUTION_ID from %PREFIX%JOB_EXECUTION E, %PREFIX%JOB_INSTANCE I "
+			+ "where E.JOB_INSTANCE_ID=I.JOB_INSTANCE_ID and I.JOB_NAME=?";
+
+	private static final String GET_COUNT_BY_STATUS = "SELECT E.STATUS, COUNT(1) from %PREFIX%JOB_EXECUTION E "
+			+ "group by E.STATUS";
+
+	private static final String GET_COUNT_BY_JOB_AND_STATUS = "SELECT I.JOB_NAME, E.STATUS, COUNT(1) from %PREFIX%JOB_EXECUTION E, %PREFIX%JOB_INSTANCE I "
+			+ "where E.JOB_INSTANCE_ID=I.JOB_INSTANCE_ID group by I.JOB_NAME, E.STATUS";
+
+	private static final String GET_COUNT_BY_STATUS_FOR_JOB_NAME = "SELECT E.STATUS, COUNT(1) from %PREFIX%JOB_EXECUTION E, %PREFIX%JOB_INSTANCE I "
+			+ "where E.JOB_INSTANCE_ID=I.JOB_INSTANCE_ID and I.JOB_NAME=? group by E.STATUS";
+
 	private static final String FIELDS = "E.JOB_EXECUTION_ID, E.START_TIME, E.END_TIME, E.STATUS, E.EXIT_CODE, E.EXIT_MESSAGE, "
 			+ "E.CREATE_TIME, E.LAST_UPDATED, E.VERSION, I.JOB_INSTANCE_ID, I.JOB_NAME";
 
@@ -59,12 +89,72 @@ public class JdbcSearchableJobExecutionDao extends JdbcJobExecutionDao implement
 			+ " from %PREFIX%JOB_EXECUTION E, %PREFIX%JOB_INSTANCE I "
 			+ "where E.JOB_INSTANCE_ID=I.JOB_INSTANCE_ID and E.END_TIME is NULL";
 
+	private static final String FIND_PARAMS_FROM_IDS = "SELECT JOB_EXECUTION_ID, KEY_NAME, TYPE_CD, "
+			+ "STRING_VAL, DATE_VAL, LONG_VAL, DOUBLE_VAL, IDENTIFYING from %PREFIX%JOB_EXECUTION_PARAMS "
+			+ "where JOB_EXECUTION_ID in (%IDS%)";
+
+	private static final String GET_REVISIONS_FROM_IDS = "SELECT E.JOB_EXECUTION_ID, "
+			+ "E.VERSION + COUNT(S.STEP_EXECUTION_ID) + COALESCE(SUM(S.VERSION), 0) from %PREFIX%JOB_EXECUTION E "
+			+ "left outer join %PREFIX%STEP_EXECUTION S on S.JOB_EXECUTION_ID=E.JOB_EXECUTION_ID "
+			+ "where E.JOB_EXECUTION_ID in (%IDS%) group by E.JOB_EXECUTION_ID, E.VERSION";
+
+	private static final String GET_STATUSES_FROM_IDS = "SELECT JOB_EXECUTION_ID, STATUS from %PREFIX%JOB_EXECUTION "
+			+ "where JOB_EXECUTION_ID in (%IDS%)";
+
+	private static final String FIND_EXECUTIONS = "SELECT " + FIELDS
+			+ " from %PREFIX%JOB_EXECUTION E, %PREFIX%JOB_INSTANCE I where E.JOB_INSTANCE_ID=I.JOB_INSTANCE_ID";
+
+	private static final String UPDATE_STATUS = "UPDATE %PREFIX%JOB_EXECUTION set STATUS = ?, END_TIME = ?, "
+			+ "LAST_UPDATED = ?, VERSION = VERSION + 1 where JOB_EXECUTION_ID = ? and VERSION = ?";
+
+	private static final String GET_STATE = "SELECT STATUS, VERSION, LAST_UPDATED from %PREFIX%JOB_EXECUTION "
+			+ "where JOB_EXECUTION_ID = ?";
+
+	private static final String SIGNAL_STOP = "UPDATE %PREFIX%JOB_EXECUTION set STATUS = ?, LAST_UPDATED = ?, "
+			+ "VERSION = VERSION + 1 where JOB_EXECUTION_ID = ? and VERSION = ? and STATUS in (?, ?)";
+
+	/**
+	 * Upper bound on the number of ids bound into a single IN clause (some
+	 * databases, e.g. Oracle, reject more than 1000).
+	 */
+	private static final int MAX_IN_CLAUSE_SIZE = 500;
+
+	/**
+	 * Strategies for loading the {@link JobParameters} of the job executions
+	 * returned by the finder methods in this DAO.
+	 */
+	public static enum JobParametersFetchMode {
+
+		/**
+		 * Load the parameters for all the executions in a result with one
+		 * additional query, after the executions themselves have been read.
+		 */
+		BATCH,
+
+		/**
+		 * Defer loading the parameters of each execution until they are
+		 * actually accessed (one query per execution that is inspected).
+		 */
+		LAZY
+
+	}
+
 	private PagingQueryProvider allExecutionsPagingQueryProvider;
 
 	private PagingQueryProvider byJobNamePagingQueryProvider;
 
+	private PagingQueryProvider allExecutionsReversePagingQueryProvider;
+
+	private PagingQueryProvider byJobNameReversePagingQueryProvider;
+
 	private DataSource dataSource;
 
+	private String databaseType;
+
+	private JobParametersFetchMode jobParametersFetchMode = JobParametersFetchMode.BATCH;
+
+	private CountStrategy countStrategy = new ExactCountStrategy();
+
 	/**
 	 * @param dataSource the dataSource to set
 	 */
@@ -72,6 +162,30 @@ public class JdbcSearchableJobExecutionDao extends JdbcJobExecutionDao implement
 		this.dataSource = dataSource;
 	}
 
+	/**
+	 * The strategy for loading job parameters for the executions returned by
+	 * the finder methods. Defaults to {@link JobParametersFetchMode#BATCH}.
+	 * Use {@link JobParametersFetchMode#LAZY} if the callers rarely look at
+	 * the parameters.
+	 * 
+	 * @param jobParametersFetchMode the fetch mode to set
+	 */
+	public void setJobParametersFetchMode(JobParametersFetchMode jobParametersFetchMode) {
+		this.jobParametersFetchMode = jobParametersFetchMode;
+	}
+
+	/**
+	 * The strategy for computing the totals returned by
+	 * {@link #getTotalJobExecutions()} and
+	 * {@link #getTotalJobExecutions(String)}. Defaults to an
+	 * {@link ExactCountStrategy}.
+	 * 
+	 * @param countStrategy the count strategy to set
+	 */
+	public void setCountStrategy(CountStrategy countStrategy) {
+		this.countStrategy = countStrategy;
+	}
+
 	/**
 	 * @see JdbcJobExecutionDao#afterPropertiesSet()
 	 */
@@ -90,8 +204,11 @@ public class JdbcSearchableJobExecutionDao extends JdbcJobExecutionDao implement
 			}
 		});
 
+		databaseType = DatabaseType.fromMetaData(dataSource).name();
 		allExecutionsPagingQueryProvider = getPagingQueryProvider();
 		byJobNamePagingQueryProvider = getPagingQueryProvider("I.JOB_NAME=?");
+		allExecutionsReversePagingQueryProvider = getPagingQueryProvider(null, null, Order.ASCENDING);
+		byJobNameReversePagingQueryProvider = getPagingQueryProvider(null, "I.JOB_NAME=?", Order.ASCENDING);
 
 		super.afterPropertiesSet();
 
@@ -120,13 +237,24 @@ public class JdbcSearchableJobExecutionDao extends JdbcJobExecutionDao implement
 	 * @throws Exception
 	 */
 	private PagingQueryProvider getPagingQueryProvider(String fromClause, String whereClause) throws Exception {
+		return getPagingQueryProvider(fromClause, whereClause, Order.DESCENDING);
+	}
+
+	/**
+	 * @return a {@link PagingQueryProvider} with a where clause to narrow the
+	 * query, sorted by id in the order provided
+	 * @throws Exception
+	 */
+	private PagingQueryProvider getPagingQueryProvider(String fromClause, String whereClause, Order order)
+			throws Exception {
 		SqlPagingQueryProviderFactoryBean factory = new SqlPagingQueryProviderFactoryBean();
 		factory.setDataSource(dataSource);
+		factory.setDatabaseType(databaseType);
 		fromClause = "%PREFIX%JOB_EXECUTION E, %PREFIX%JOB_INSTANCE I" + (fromClause == null ? "" : ", " + fromClause);
 		factory.setFromClause(getQuery(fromClause));
 		factory.setSelectClause(FIELDS);
 		Map<String, Order> sortKeys = new HashMap<String, Order>();
-		sortKeys.put("JOB_EXECUTION_ID", Order.DESCENDING);
+		sortKeys.put("JOB_EXECUTION_ID", order);
 		factory.setSortKeys(sortKeys);
 		whereClause = "E.JOB_INSTANCE_ID=I.JOB_INSTANCE_ID" + (whereClause == null ? "" : " and " + whereClause);
 		factory.setWhereClause(whereClause);
@@ -150,12 +278,65 @@ public class JdbcSearchableJobExecutionDao extends JdbcJobExecutionDao implement
 		return getJdbcTemplate().queryForObject(getQuery(GET_COUNT_BY_JOB_NAME), Integer.class, jobName);
 	}
 
+	/**
+	 * @see SearchableJobExecutionDao#getTotalJobExecutions()
+	 */
+	@Override
+	public TotalCount getTotalJobExecutions() {
+		return countStrategy.count(getJdbcTemplate(), getQuery(GET_COUNT), getQuery(GET_IDS));
+	}
+
+	/**
+	 * @see SearchableJobExecutionDao#getTotalJobExecutions(String)
+	 */
+	@Override
+	public TotalCount getTotalJobExecutions(String jobName) {
+		return countStrategy.count(getJdbcTemplate(), getQuery(GET_COUNT_BY_JOB_NAME), getQuery(GET_IDS_BY_JOB_NAME),
+				jobName);
+	}
+
+	/**
+	 * @see SearchableJobExecutionDao#countJobExecutionsByStatus()
+	 */
+	@Override
+	public Map<BatchStatus, Integer> countJobExecutionsByStatus() {
+		StatusCountCallbackHandler handler = new StatusCountCallbackHandler();
+		getJdbcTemplate().query(getQuery(GET_COUNT_BY_STATUS), handler);
+		return handler.getCounts();
+	}
+
+	/**
+	 * @see SearchableJobExecutionDao#countJobExecutionsByStatus(String)
+	 */
+	@Override
+	public Map<BatchStatus, Integer> countJobExecutionsByStatus(String jobName) {
+		StatusCountCallbackHandler handler = new StatusCountCallbackHandler();
+		getJdbcTemplate().query(getQuery(GET_COUNT_BY_STATUS_FOR_JOB_NAME), handler, jobName);
+		return handler.getCounts();
+	}
+
+	/**
+	 * @see SearchableJobExecutionDao#countJobExecutionsByJobAndStatus()
+	 */
+	@Override
+	public Map<String, Map<BatchStatus, Integer>> countJobExecutionsByJobAndStatus() {
+		final Map<String, Map<BatchStatus, Integer>> counts = new HashMap<String, Map<BatchStatus, Integer>>();
+		getJdbcTemplate().query(getQuery(GET_COUNT_BY_JOB_AND_STATUS), new RowCallbackHandler() {
+			public void processRow(ResultSet rs) throws SQLException {
+				String jobName = rs.getString(1);
+				counts.put(jobName, StatusCountCallbackHandler.add(counts.get(jobName), rs.getString(2), rs.getInt(3)));
+			}
+		});
+		return counts;
+	}
+
 	/**
 	 * @see SearchableJobExecutionDao#getRunningJobExecutions()
 	 */
 	@Override
 	public Collection<JobExecution> getRunningJobExecutions() {
-		return getJdbcTemplate().query(getQuery(GET_RUNNING_EXECUTIONS), new JobExecutionRowMapper());
+		return fetchJobParameters(getJdbcTemplate().query(getQuery(GET_RUNNING_EXECUTIONS),
+				new JobExecutionRowMapper()));
 	}
 
 	/**
@@ -164,14 +345,15 @@ public class JdbcSearchableJobExecutionDao extends JdbcJobExecutionDao implement
 	@Override
 	public List<JobExecution> getJobExecutions(String jobName, int start, int count) {
 		if (start <= 0) {
-			return getJdbcTemplate().query(byJobNamePagingQueryProvider.generateFirstPageQuery(count),
-					new JobExecutionRowMapper(), jobName);
+			return fetchJobParameters(getJdbcTemplate().query(
+					byJobNamePagingQueryProvider.generateFirstPageQuery(count), new JobExecutionRowMapper(), jobName));
 		}
 		try {
 			Long startAfterValue = getJdbcTemplate().queryForObject(
 					byJobNamePagingQueryProvider.generateJumpToItemQuery(start, count), Long.class, jobName);
-			return getJdbcTemplate().query(byJobNamePagingQueryProvider.generateRemainingPagesQuery(count),
-					new JobExecutionRowMapper(), jobName, startAfterValue);
+			return fetchJobParameters(getJdbcTemplate().query(
+					byJobNamePagingQueryProvider.generateRemainingPagesQuery(count), new JobExecutionRowMapper(),
+					jobName, startAfterValue));
 		}
 		catch (IncorrectResultSizeDataAccessException e) {
 			return Collections.emptyList();
@@ -184,20 +366,297 @@ public class JdbcSearchableJobExecutionDao extends JdbcJobExecutionDao implement
 	@Override
 	public List<JobExecution> getJobExecutions(int start, int count) {
 		if (start <= 0) {
-			return getJdbcTemplate().query(allExecutionsPagingQueryProvider.generateFirstPageQuery(count),
-					new JobExecutionRowMapper());
+			return fetchJobParameters(getJdbcTemplate().query(
+					allExecutionsPagingQueryProvider.generateFirstPageQuery(count), new JobExecutionRowMapper()));
 		}
 		try {
 			Long startAfterValue = getJdbcTemplate().queryForObject(
 					allExecutionsPagingQueryProvider.generateJumpToItemQuery(start, count), Long.class);
-			return getJdbcTemplate().query(allExecutionsPagingQueryProvider.generateRemainingPagesQuery(count),
-					new JobExecutionRowMapper(), startAfterValue);
+			return fetchJobParameters(getJdbcTemplate().query(
+					allExecutionsPagingQueryProvider.generateRemainingPagesQuery(count), new JobExecutionRowMapper(),
+					startAfterValue));
 		}
 		catch (IncorrectResultSizeDataAccessException e) {
 			return Collections.emptyList();
 		}
 	}
 
+	/**
+	 * @see SearchableJobExecutionDao#getJobExecutionsAfter(long, int)
+	 */
+	@Override
+	public List<JobExecution> getJobExecutionsAfter(long afterId, int count) {
+		return fetchJobParameters(getJdbcTemplate().query(
+				allExecutionsPagingQueryProvider.generateRemainingPagesQuery(count), new JobExecutionRowMapper(),
+				afterId));
+	}
+
+	/**
+	 * @see SearchableJobExecutionDao#getJobExecutionsAfter(String, long, int)
+	 */
+	@Override
+	public List<JobExecution> getJobExecutionsAfter(String jobName, long afterId, int count) {
+		return fetchJobParameters(getJdbcTemplate().query(
+				byJobNamePagingQueryProvider.generateRemainingPagesQuery(count), new JobExecutionRowMapper(),
+				jobName, afterId));
+	}
+
+	/**
+	 * @see SearchableJobExecutionDao#getJobExecutionsBefore(long, int)
+	 */
+	@Override
+	public List<JobExecution> getJobExecutionsBefore(long beforeId, int count) {
+		List<JobExecution> jobExecutions = getJdbcTemplate().query(
+				allExecutionsReversePagingQueryProvider.generateRemainingPagesQuery(count),
+				new JobExecutionRowMapper(), beforeId);
+		Collections.reverse(jobExecutions);
+		return fetchJobParameters(jobExecutions);
+	}
+
+	/**
+	 * @see SearchableJobExecutionDao#getJobExecutionsBefore(String, long, int)
+	 */
+	@Override
+	public List<JobExecution> getJobExecutionsBefore(String jobName, long beforeId, int count) {
+		List<JobExecution> jobExecutions = getJdbcTemplate().query(
+				byJobNameReversePagingQueryProvider.generateRemainingPagesQuery(count),
+				new JobExecutionRowMapper(), jobName, beforeId);
+		Collections.reverse(jobExecutions);
+		return fetchJobParameters(jobExecutions);
+	}
+
+	/**
+	 * @see SearchableJobExecutionDao#getJobExecutionRevisions(Collection)
+	 */
+	@Override
+	public Map<Long, Long> getJobExecutionRevisions(Collection<Long> jobExecutionIds) {
+		final Map<Long, Long> revisions = new HashMap<Long, Long>();
+		queryByIds(GET_REVISIONS_FROM_IDS, jobExecutionIds, new RowCallbackHandler() {
+			@Override
+			public void processRow(ResultSet rs) throws SQLException {
+				revisions.put(rs.getLong(1), rs.getLong(2));
+			}
+		});
+		return revisions;
+	}
+
+	/**
+	 * @see SearchableJobExecutionDao#getJobExecutionStatuses(Collection)
+	 */
+	@Override
+	public Map<Long, BatchStatus> getJobExecutionStatuses(Collection<Long> jobExecutionIds) {
+		final Map<Long, BatchStatus> statuses = new HashMap<Long, BatchStatus>();
+		queryByIds(GET_STATUSES_FROM_IDS, jobExecutionIds, new RowCallbackHandler() {
+			@Override
+			public void processRow(ResultSet rs) throws SQLException {
+				statuses.put(rs.getLong(1), BatchStatus.valueOf(rs.getString(2)));
+			}
+		});
+		return statuses;
+	}
+
+	/**
+	 * @see SearchableJobExecutionDao#findJobExecutions(JobExecutionCriteria,
+	 * long, int)
+	 */
+	@Override
+	public List<JobExecution> findJobExecutions(JobExecutionCriteria criteria, long afterId, final int count) {
+		final StringBuilder query = new StringBuilder(getQuery(FIND_EXECUTIONS));
+		final List<Object> args = new ArrayList<Object>();
+		query.append(" and E.JOB_EXECUTION_ID > ?");
+		args.add(afterId);
+		if (criteria.getJobName() != null) {
+			query.append(" and I.JOB_NAME = ?");
+			args.add(criteria.getJobName());
+		}
+		if (!criteria.getStatuses().isEmpty()) {
+			query.append(" and E.STATUS in (");
+			query.append(StringUtils.collectionToCommaDelimitedString(Collections.nCopies(criteria.getStatuses()
+					.size(), "?")));
+			query.append(")");
+			for (BatchStatus status : criteria.getStatuses()) {
+				args.add(status.name());
+			}
+		}
+		if (criteria.getCreatedBefore() != null) {
+			query.append(" and E.CREATE_TIME < ?");
+			args.add(criteria.getCreatedBefore());
+		}
+		query.append(" order by E.JOB_EXECUTION_ID");
+		return fetchJobParameters(getJdbcTemplate().query(new PreparedStatementCreator() {
+			@Override
+			public PreparedStatement createPreparedStatement(Connection connection) throws SQLException {
+				PreparedStatement statement = connection.prepareStatement(query.toString());
+				statement.setMaxRows(count);
+				new ArgumentPreparedStatementSetter(args.toArray()).setValues(statement);
+				return statement;
+			}
+		}, new JobExecutionRowMapper()));
+	}
+
+	/**
+	 * @see SearchableJobExecutionDao#updateJobExecutionStatuses(Collection,
+	 * BatchStatus, Date)
+	 */
+	@Override
+	public Collection<Long> updateJobExecutionStatuses(Collection<JobExecution> jobExecutions,
+			final BatchStatus status, final Date endTime) {
+		final List<JobExecution> executions = new ArrayList<JobExecution>(jobExecutions);
+		final Date lastUpdated = new Date();
+		int[] counts = getJdbcTemplate().batchUpdate(getQuery(UPDATE_STATUS), new BatchPreparedStatementSetter() {
+			@Override
+			public void setValues(PreparedStatement ps, int i) throws SQLException {
+				JobExecution jobExecution = executions.get(i);
+				Date end = endTime != null ? endTime : jobExecution.getEndTime();
+				ps.setString(1, status.name());
+				ps.setTimestamp(2, end == null ? null : new Timestamp(end.getTime()));
+				ps.setTimestamp(3, new Timestamp(lastUpdated.getTime()));
+				ps.setLong(4, jobExecution.getId());
+				ps.setInt(5, jobExecution.getVersion());
+			}
+
+			@Override
+			public int getBatchSize() {
+				return executions.size();
+			}
+		});
+		List<Long> updated = new ArrayList<Long>();
+		for (int i = 0; i < counts.length; i++) {
+			// Some drivers cannot report the row count of a statement in a batch
+			if (counts[i] > 0 || counts[i] == Statement.SUCCESS_NO_INFO) {
+				JobExecution jobExecution = executions.get(i);
+				jobExecution.setStatus(status);
+				if (endTime != null) {
+					jobExecution.setEndTime(endTime);
+				}
+				jobExecution.setLastUpdated(lastUpdated);
+				jobExecution.incrementVersion();
+				updated.add(jobExecution.getId());
+			}
+		}
+		return updated;
+	}
+
+	/**
+	 * @see SearchableJobExecutionDao#getJobExecutionState(Long)
+	 */
+	@Override
+	public JobExecution getJobExecutionState(final Long jobExecutionId) {
+		List<JobExecution> executions = getJdbcTemplate().query(getQuery(GET_STATE), new RowMapper<JobExecution>() {
+			@Override
+			public JobExecution mapRow(ResultSet rs, int rowNum) throws SQLException {
+				JobExecution jobExecution = new JobExecution(jobExecutionId);
+				jobExecution.setStatus(BatchStatus.valueOf(rs.getString(1)));
+				jobExecution.setVersion(rs.getInt(2));
+				jobExecution.setLastUpdated(rs.getTimestamp(3));
+				return jobExecution;
+			}
+		}, jobExecutionId);
+		return executions.isEmpty() ? null : executions.get(0);
+	}
+
+	/**
+	 * @see SearchableJobExecutionDao#signalStop(Long, int)
+	 */
+	@Override
+	public boolean signalStop(Long jobExecutionId, int version) {
+		Timestamp lastUpdated = new Timestamp(System.currentTimeMillis());
+		return getJdbcTemplate().update(getQuery(SIGNAL_STOP), BatchStatus.STOPPING.name(), lastUpdated,
+				jobExecutionId, version, BatchStatus.STARTING.name(), BatchStatus.STARTED.name()) > 0;
+	}
+
+	/**
+	 * Run a query with an IN clause on the ids provided, in chunks of at most
+	 * {@value #MAX_IN_CLAUSE_SIZE} ids.
+	 */
+	private void queryByIds(String query, Collection<Long> jobExecutionIds, RowCallbackHandler handler) {
+		List<Long> ids = new ArrayList<Long>(jobExecutionIds);
+		for (int from = 0; from < ids.size(); from += MAX_IN_CLAUSE_SIZE) {
+			List<Long> chunk = ids.subList(from, Math.min(from + MAX_IN_CLAUSE_SIZE, ids.size()));
+			String placeholders = StringUtils.collectionToCommaDelimitedString(Collections.nCopies(chunk.size(), "?"));
+			getJdbcTemplate().query(getQuery(query).replace("%IDS%", placeholders), handler, chunk.toArray());
+		}
+	}
+
+	/**
+	 * Populate the job parameters of executions mapped by a
+	 * {@link JobExecutionRowMapper}, according to the
+	 * {@link JobParametersFetchMode}. In batch mode this is one query for
+	 * every {@value #MAX_IN_CLAUSE_SIZE} executions, issued after the page
+	 * query has finished with its result set.
+	 * 
+	 * @param jobExecutions the executions to populate
+	 * @return the executions with their parameters (in the same order)
+	 */
+	private List<JobExecution> fetchJobParameters(List<JobExecution> jobExecutions) {
+
+		if (jobParametersFetchMode == JobParametersFetchMode.LAZY || jobExecutions.isEmpty()) {
+			return jobExecutions;
+		}
+
+		final Map<Long, Map<String, JobParameter>> parameters = new LinkedHashMap<Long, Map<String, JobParameter>>();
+		for (JobExecution jobExecution : jobExecutions) {
+			parameters.put(jobExecution.getId(), new LinkedHashMap<String, JobParameter>());
+		}
+
+		List<Long> ids = new ArrayList<Long>(parameters.keySet());
+		for (int from = 0; from < ids.size(); from += MAX_IN_CLAUSE_SIZE) {
+			List<Long> chunk = ids.subList(from, Math.min(from + MAX_IN_CLAUSE_SIZE, ids.size()));
+			String placeholders = StringUtils.collectionToCommaDelimitedString(Collections.nCopies(chunk.size(), "?"));
+			getJdbcTemplate().query(getQuery(FIND_PARAMS_FROM_IDS).replace("%IDS%", placeholders),
+					new RowCallbackHandler() {
+						@Override
+						public void processRow(ResultSet rs) throws SQLException {
+							parameters.get(rs.getLong(1)).put(rs.getString(2), mapJobParameter(rs));
+						}
+					}, chunk.toArray());
+		}
+
+		List<JobExecution> result = new ArrayList<JobExecution>(jobExecutions.size());
+		for (JobExecution jobExecution : jobExecutions) {
+			result.add(copy(jobExecution, new JobParameters(parameters.get(jobExecution.getId()))));
+		}
+
+		return result;
+
+	}
+
+	/**
+	 * Copy the fields populated by {@link JobExecutionRowMapper} into a new
+	 * {@link JobExecution} with the parameters provided.
+	 */
+	private static JobExecution copy(JobExecution source, JobParameters jobParameters) {
+		JobExecution jobExecution = new JobExecution(source.getJobInstance(), jobParameters);
+		jobExecution.setId(source.getId());
+		jobExecution.setStartTime(source.getStartTime());
+		jobExecution.setEndTime(source.getEndTime());
+		jobExecution.setStatus(source.getStatus());
+		jobExecution.setExitStatus(source.getExitStatus());
+		jobExecution.setCreateTime(source.getCreateTime());
+		jobExecution.setLastUpdated(source.getLastUpdated());
+		jobExecution.setVersion(source.getVersion());
+		return jobExecution;
+	}
+
+	/**
+	 * Convert a row from the JOB_EXECUTION_PARAMS table in the same way as
+	 * {@link JdbcJobExecutionDao#getJobParameters(Long)}.
+	 */
+	private static JobParameter mapJobParameter(ResultSet rs) throws SQLException {
+		ParameterType type = ParameterType.valueOf(rs.getString(3));
+		boolean identifying = "Y".equalsIgnoreCase(rs.getString(8));
+		if (type == ParameterType.STRING) {
+			return new JobParameter(rs.getString(4), identifying);
+		}
+		else if (type == ParameterType.LONG) {
+			return new JobParameter(rs.getLong(6), identifying);
+		}
+		else if (type == ParameterType.DOUBLE) {
+			return new JobParameter(rs.getDouble(7), identifying);
+		}
+		return new JobParameter(rs.getTimestamp(5), identifying);
+	}
+
 	@Override
 	public void saveJobExecution(JobExecution jobExecution) {
 		throw new UnsupportedOperationException("SearchableJobExecutionDao is read only");
@@ -229,7 +688,7 @@ public class JdbcSearchableJobExecutionDao extends JdbcJobExecutionDao implement
 			Long id = rs.getLong(1);
 			JobExecution jobExecution;
 			
-			JobParameters jobParameters = getJobParameters(id);
+			JobParameters jobParameters = new LazyJobParameters(id);
 
 			JobInstance jobInstance = new JobInstance(rs.getLong(10), rs.getString(11));
 			jobExecution = new JobExecution(jobInstance, jobParameters);
@@ -246,4 +705,113 @@ public class JdbcSearchableJobExecutionDao extends JdbcJobExecutionDao implement
 		}
 
 	}
+
+	/**
+	 * {@link JobParameters} for an execution that are loaded on first access.
+	 * All the public methods delegate to the loaded parameters, but note that
+	 * {@link JobParameters#equals(Object)} on a plain instance compares
+	 * internal state, so compare {@link #getParameters()} if symmetry is
+	 * needed.
+	 */
+	@SuppressWarnings("serial")
+	private class LazyJobParameters extends JobParameters {
+
+		private final Long jobExecutionId;
+
+		private volatile JobParameters delegate;
+
+		public LazyJobParameters(Long jobExecutionId) {
+			this.jobExecutionId = jobExecutionId;
+		}
+
+		private JobParameters getDelegate() {
+			if (delegate == null) {
+				delegate = getJobParameters(jobExecutionId);
+			}
+			return delegate;
+		}
+
+		@Override
+		public Long getLong(String key) {
+			return getDelegate().getLong(key);
+		}
+
+		@Override
+		public Long getLong(String key, long defaultValue) {
+			return getDelegate().getLong(key, defaultValue);
+		}
+
+		@Override
+		public String getString(String key) {
+			return getDelegate().getString(key);
+		}
+
+		@Override
+		public String getString(String key, String defaultValue) {
+			return getDelegate().getString(key, defaultValue);
+		}
+
+		@Override
+		public Double getDouble(String key) {
+			return getDelegate().getDouble(key);
+		}
+
+		@Override
+		public Double getDouble(String key, double defaultValue) {
+			return getDelegate().getDouble(key, defaultValue);
+		}
+
+		@Override
+		public Date getDate(String key) {
+			return getDelegate().getDate(key);
+		}
+
+		@Override
+		public Date getDate(String key, Date defaultValue) {
+			return getDelegate().getDate(key, defaultValue);
+		}
+
+		@Override
+		public Map<String, JobParameter> getParameters() {
+			return getDelegate().getParameters();
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return getDelegate().isEmpty();
+		}
+
+		@Override
+		public Properties toProperties() {
+			return getDelegate().toProperties();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (obj instanceof LazyJobParameters) {
+				obj = ((LazyJobParameters) obj).getDelegate();
+			}
+			return getDelegate().equals(obj);
+		}
+
+		@Override
+		public int hashCode() {
+			return getDelegate().hashCode();
+		}
+
+		@Override
+		public String toString() {
+			return getDelegate().toString();
+		}
+
+		/**
+		 * Serialize as plain {@link JobParameters} so that the DAO is not
+		 * serialized with them.
+		 */
+		private Object writeReplace() {
+			return new JobParameters(getParameters());
+		}
+
+	}
+
 }
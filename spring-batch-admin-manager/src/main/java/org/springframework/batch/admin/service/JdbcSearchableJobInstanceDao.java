@@ -15,8 +15,14 @@
  */
 package org.springframework.batch.admin.service;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import org.springframework.batch.core.repository.dao.JdbcJobExecutionDao;
 import org.springframework.batch.core.repository.dao.JdbcJobInstanceDao;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.support.incrementer.AbstractDataFieldMaxValueIncrementer;
 
 /**
@@ -28,6 +34,25 @@ public class JdbcSearchableJobInstanceDao extends JdbcJobInstanceDao implements
 	private static final String GET_COUNT_BY_JOB_NAME = "SELECT COUNT(1) from %PREFIX%JOB_INSTANCE "
 			+ "where JOB_NAME=?";
 
+	private static final String GET_IDS_BY_JOB_NAME = "SELECT JOB_INSTANCE_ID from %PREFIX%JOB_INSTANCE "
+			+ "where JOB_NAME=?";
+
+	private static final String FIND_JOB_NAMES_AFTER = "SELECT JOB_NAME, MAX(JOB_INSTANCE_ID) from %PREFIX%JOB_INSTANCE "
+			+ "where JOB_INSTANCE_ID > ? group by JOB_NAME order by JOB_NAME";
+
+	private CountStrategy countStrategy = new ExactCountStrategy();
+
+	/**
+	 * The strategy for computing the totals returned by
+	 * {@link #getTotalJobInstances(String)}. Defaults to an
+	 * {@link ExactCountStrategy}.
+	 * 
+	 * @param countStrategy the count strategy to set
+	 */
+	public void setCountStrategy(CountStrategy countStrategy) {
+		this.countStrategy = countStrategy;
+	}
+
 	/**
 	 * @see JdbcJobExecutionDao#afterPropertiesSet()
 	 */
@@ -53,4 +78,24 @@ public class JdbcSearchableJobInstanceDao extends JdbcJobInstanceDao implements
 		return getJdbcTemplate().queryForObject(getQuery(GET_COUNT_BY_JOB_NAME), Integer.class, name);
 	}
 
+	/**
+	 * @see SearchableJobInstanceDao#getTotalJobInstances(String)
+	 */
+	public TotalCount getTotalJobInstances(String name) {
+		return countStrategy.count(getJdbcTemplate(), getQuery(GET_COUNT_BY_JOB_NAME), getQuery(GET_IDS_BY_JOB_NAME),
+				name);
+	}
+
+	/**
+	 * @see SearchableJobInstanceDao#findJobNamesAfter(long)
+	 */
+	public Map<String, Long> findJobNamesAfter(long jobInstanceId) {
+		final Map<String, Long> result = new LinkedHashMap<String, Long>();
+		getJdbcTemplate().query(getQuery(FIND_JOB_NAMES_AFTER), new RowCallbackHandler() {
+			public void processRow(ResultSet rs) throws SQLException {
+				result.put(rs.getString(1), rs.getLong(2));
+			}
+		}, jobInstanceId);
+		return result;
+	}
 }
@@ -17,10 +17,12 @@ package org.springframework.batch.admin.service;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -30,18 +32,24 @@ import javax.sql.DataSource;
 
 import org.springframework.batch.core.BatchStatus;
 import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.JobParameters;
 import org.springframework.batch.core.StepExecution;
 import org.springframework.batch.core.repository.dao.JdbcJobExecutionDao;
 import org.springframework.batch.core.repository.dao.JdbcStepExecutionDao;
 import org.springframework.batch.item.database.Order;
 import org.springframework.batch.item.database.PagingQueryProvider;
 import org.springframework.batch.item.database.support.SqlPagingQueryProviderFactoryBean;
+import org.springframework.batch.support.DatabaseType;
 import org.springframework.batch.support.PatternMatcher;
 import org.springframework.dao.IncorrectResultSizeDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.support.incrementer.AbstractDataFieldMaxValueIncrementer;
 import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
 
 /**
  * @author Dave Syer
@@ -59,12 +67,48 @@ public class JdbcSearchableStepExecutionDao extends JdbcStepExecutionDao impleme
 	private static final String COUNT_STEP_EXECUTIONS_FOR_STEP_PATTERN = "SELECT COUNT(STEP_EXECUTION_ID) from %PREFIX%STEP_EXECUTION S, %PREFIX%JOB_EXECUTION E, %PREFIX%JOB_INSTANCE I"
 			+ " where S.JOB_EXECUTION_ID = E.JOB_EXECUTION_ID AND E.JOB_INSTANCE_ID = I.JOB_INSTANCE_ID AND I.JOB_NAME = ? AND S.STEP_NAME like ?";
 
+	private static final String COUNT_STEP_EXECUTIONS_BY_STATUS_FOR_STEP = "SELECT S.STATUS, COUNT(STEP_EXECUTION_ID) from %PREFIX%STEP_EXECUTION S, %PREFIX%JOB_EXECUTION E, %PREFIX%JOB_INSTANCE I "
+			+ "where S.JOB_EXECUTION_ID = E.JOB_EXECUTION_ID AND E.JOB_INSTANCE_ID = I.JOB_INSTANCE_ID AND I.JOB_NAME = ? AND S.STEP_NAME = ? group by S.STATUS";
+
+	private static final String COUNT_STEP_EXECUTIONS_BY_STATUS_FOR_STEP_PATTERN = "SELECT S.STATUS, COUNT(STEP_EXECUTION_ID) from %PREFIX%STEP_EXECUTION S, %PREFIX%JOB_EXECUTION E, %PREFIX%JOB_INSTANCE I"
+			+ " where S.JOB_EXECUTION_ID = E.JOB_EXECUTION_ID AND E.JOB_INSTANCE_ID = I.JOB_INSTANCE_ID AND I.JOB_NAME = ? AND S.STEP_NAME like ? group by S.STATUS";
+
+	private static final String COUNT_STEP_EXECUTIONS_BY_STEP_AND_STATUS = "SELECT I.JOB_NAME, S.STEP_NAME, S.STATUS, COUNT(STEP_EXECUTION_ID) from %PREFIX%STEP_EXECUTION S, %PREFIX%JOB_EXECUTION E, %PREFIX%JOB_INSTANCE I"
+			+ " where S.JOB_EXECUTION_ID = E.JOB_EXECUTION_ID AND E.JOB_INSTANCE_ID = I.JOB_INSTANCE_ID group by I.JOB_NAME, S.STEP_NAME, S.STATUS";
+
 	private static final String FIELDS = "S.STEP_EXECUTION_ID, S.STEP_NAME, S.START_TIME, S.END_TIME, S.STATUS, S.COMMIT_COUNT,"
 			+ " S.READ_COUNT, S.FILTER_COUNT, S.WRITE_COUNT, S.EXIT_CODE, S.EXIT_MESSAGE, S.READ_SKIP_COUNT, S.WRITE_SKIP_COUNT,"
-			+ " S.PROCESS_SKIP_COUNT, S.ROLLBACK_COUNT, S.LAST_UPDATED, S.VERSION";
+			+ " S.PROCESS_SKIP_COUNT, S.ROLLBACK_COUNT, S.LAST_UPDATED, S.VERSION, S.JOB_EXECUTION_ID";
+
+	private static final String STEP_EXECUTIONS_FOR_JOB_EXECUTIONS = "SELECT " + FIELDS
+			+ " from %PREFIX%STEP_EXECUTION S where S.JOB_EXECUTION_ID in (%IDS%) order by S.STEP_EXECUTION_ID";
+
+	private static final String STEP_EXECUTIONS_BY_IDS = "SELECT " + FIELDS
+			+ " from %PREFIX%STEP_EXECUTION S where S.STEP_EXECUTION_ID in (%IDS%)";
+
+	private static final String STEP_EXECUTION_WITH_PARENT = "SELECT " + FIELDS
+			+ ", J.STATUS, J.START_TIME, J.END_TIME, J.CREATE_TIME, J.LAST_UPDATED, I.JOB_INSTANCE_ID, I.JOB_NAME"
+			+ " from %PREFIX%STEP_EXECUTION S, %PREFIX%JOB_EXECUTION J, %PREFIX%JOB_INSTANCE I"
+			+ " where S.STEP_EXECUTION_ID = ? AND S.JOB_EXECUTION_ID = ?"
+			+ " AND S.JOB_EXECUTION_ID = J.JOB_EXECUTION_ID AND J.JOB_INSTANCE_ID = I.JOB_INSTANCE_ID";
+
+	/**
+	 * Upper bound on the number of ids bound into a single IN clause (some
+	 * databases, e.g. Oracle, reject more than 1000).
+	 */
+	private static final int MAX_IN_CLAUSE_SIZE = 500;
 
 	private DataSource dataSource;
 
+	private String databaseType;
+
+	/**
+	 * The paging query providers for each shape of the where clause used by
+	 * {@link #findStepExecutions(String, String, int, int)} (exact or pattern
+	 * match on the job and step names), built once up front.
+	 */
+	private final Map<String, PagingQueryProvider> pagingQueryProviders = new HashMap<String, PagingQueryProvider>();
+
 	/**
 	 * @param dataSource the dataSource to set
 	 */
@@ -92,6 +136,14 @@ public class JdbcSearchableStepExecutionDao extends JdbcStepExecutionDao impleme
 
 		super.afterPropertiesSet();
 
+		databaseType = DatabaseType.fromMetaData(dataSource).name();
+		for (String jobName : new String[] { "job", "job*" }) {
+			for (String stepName : new String[] { "step", "step*" }) {
+				String whereClause = getStepWhereClause(jobName, stepName);
+				pagingQueryProviders.put(whereClause, getPagingQueryProvider(whereClause));
+			}
+		}
+
 	}
 
 	public Collection<String> findStepNamesForJobExecution(String jobName, String excludesPattern) {
@@ -116,25 +168,9 @@ public class JdbcSearchableStepExecutionDao extends JdbcStepExecutionDao impleme
 
 	public Collection<StepExecution> findStepExecutions(String jobName, String stepName, int start, int count) {
 
-		String whereClause;
-
-		if (jobName.contains("*")) {
-			whereClause = "JOB_NAME like ?";
-			jobName = jobName.replace("*", "%");
-		}
-		else {
-			whereClause = "JOB_NAME = ?";
-		}
-
-		if (stepName.contains("*")) {
-			whereClause = whereClause + " AND STEP_NAME like ?";
-			stepName = stepName.replace("*", "%");
-		}
-		else {
-			whereClause = whereClause + " AND STEP_NAME = ?";
-		}
-
-		PagingQueryProvider queryProvider = getPagingQueryProvider(whereClause);
+		PagingQueryProvider queryProvider = getStepPagingQueryProvider(jobName, stepName);
+		jobName = jobName.replace("*", "%");
+		stepName = stepName.replace("*", "%");
 
 		List<StepExecution> stepExecutions;
 		if (start <= 0) {
@@ -157,6 +193,32 @@ public class JdbcSearchableStepExecutionDao extends JdbcStepExecutionDao impleme
 
 	}
 
+	/**
+	 * @see SearchableStepExecutionDao#findStepExecutionsAfter(String, String, long, int)
+	 */
+	public Collection<StepExecution> findStepExecutionsAfter(String jobName, String stepName, long afterId, int count) {
+		PagingQueryProvider queryProvider = getStepPagingQueryProvider(jobName, stepName);
+		return getJdbcTemplate().query(queryProvider.generateRemainingPagesQuery(count),
+				new StepExecutionRowMapper(), jobName.replace("*", "%"), stepName.replace("*", "%"), afterId);
+	}
+
+	/**
+	 * @return the cached {@link PagingQueryProvider} for the job and step
+	 * names provided (either of which may be a pattern with wildcards)
+	 */
+	private PagingQueryProvider getStepPagingQueryProvider(String jobName, String stepName) {
+		return pagingQueryProviders.get(getStepWhereClause(jobName, stepName));
+	}
+
+	/**
+	 * @return the where clause selecting step executions by job and step name
+	 * (either of which may be a pattern with wildcards)
+	 */
+	private String getStepWhereClause(String jobName, String stepName) {
+		String whereClause = jobName.contains("*") ? "JOB_NAME like ?" : "JOB_NAME = ?";
+		return whereClause + (stepName.contains("*") ? " AND STEP_NAME like ?" : " AND STEP_NAME = ?");
+	}
+
 	public int countStepExecutions(String jobName, String stepName) {
 		if (stepName.contains("*")) {
 			return getJdbcTemplate().queryForObject(getQuery(COUNT_STEP_EXECUTIONS_FOR_STEP_PATTERN), Integer.class, jobName,
@@ -165,6 +227,105 @@ public class JdbcSearchableStepExecutionDao extends JdbcStepExecutionDao impleme
 		return getJdbcTemplate().queryForObject(getQuery(COUNT_STEP_EXECUTIONS_FOR_STEP), Integer.class, jobName, stepName);
 	}
 
+	/**
+	 * @see SearchableStepExecutionDao#countStepExecutionsByStatus(String, String)
+	 */
+	public Map<BatchStatus, Integer> countStepExecutionsByStatus(String jobName, String stepName) {
+		StatusCountCallbackHandler handler = new StatusCountCallbackHandler();
+		if (stepName.contains("*")) {
+			getJdbcTemplate().query(getQuery(COUNT_STEP_EXECUTIONS_BY_STATUS_FOR_STEP_PATTERN), handler, jobName,
+					stepName.replace("*", "%"));
+		}
+		else {
+			getJdbcTemplate().query(getQuery(COUNT_STEP_EXECUTIONS_BY_STATUS_FOR_STEP), handler, jobName, stepName);
+		}
+		return handler.getCounts();
+	}
+
+	/**
+	 * @see SearchableStepExecutionDao#countStepExecutionsByStepAndStatus()
+	 */
+	public Map<String, Map<String, Map<BatchStatus, Integer>>> countStepExecutionsByStepAndStatus() {
+		final Map<String, Map<String, Map<BatchStatus, Integer>>> counts = new HashMap<String, Map<String, Map<BatchStatus, Integer>>>();
+		getJdbcTemplate().query(getQuery(COUNT_STEP_EXECUTIONS_BY_STEP_AND_STATUS), new RowCallbackHandler() {
+			public void processRow(ResultSet rs) throws SQLException {
+				String jobName = rs.getString(1);
+				String stepName = rs.getString(2);
+				Map<String, Map<BatchStatus, Integer>> steps = counts.get(jobName);
+				if (steps == null) {
+					steps = new HashMap<String, Map<BatchStatus, Integer>>();
+					counts.put(jobName, steps);
+				}
+				steps.put(stepName, StatusCountCallbackHandler.add(steps.get(stepName), rs.getString(3), rs.getInt(4)));
+			}
+		});
+		return counts;
+	}
+
+	/**
+	 * @see SearchableStepExecutionDao#addStepExecutions(Collection)
+	 */
+	public void addStepExecutions(Collection<JobExecution> jobExecutions) {
+
+		final Map<Long, JobExecution> parents = new LinkedHashMap<Long, JobExecution>();
+		for (JobExecution jobExecution : jobExecutions) {
+			Assert.notNull(jobExecution.getId(), "JobExecution must have an id to load its step executions");
+			parents.put(jobExecution.getId(), jobExecution);
+		}
+
+		List<Long> ids = new ArrayList<Long>(parents.keySet());
+		for (int from = 0; from < ids.size(); from += MAX_IN_CLAUSE_SIZE) {
+			List<Long> chunk = ids.subList(from, Math.min(from + MAX_IN_CLAUSE_SIZE, ids.size()));
+			String placeholders = StringUtils.collectionToCommaDelimitedString(Collections.nCopies(chunk.size(), "?"));
+			getJdbcTemplate().query(getQuery(STEP_EXECUTIONS_FOR_JOB_EXECUTIONS).replace("%IDS%", placeholders),
+					new RowMapper<StepExecution>() {
+						public StepExecution mapRow(ResultSet rs, int rowNum) throws SQLException {
+							JobExecution jobExecution = parents.get(rs.getLong(18));
+							StepExecution stepExecution = new StepExecution(rs.getString(2), jobExecution, rs.getLong(1));
+							return StepExecutionRowMapper.populate(stepExecution, rs);
+						}
+					}, chunk.toArray());
+		}
+
+	}
+
+	/**
+	 * @see SearchableStepExecutionDao#getStepExecution(Long, Long)
+	 */
+	public StepExecution getStepExecution(Long jobExecutionId, Long stepExecutionId) {
+		List<StepExecution> stepExecutions = getJdbcTemplate().query(getQuery(STEP_EXECUTION_WITH_PARENT),
+				new RowMapper<StepExecution>() {
+					public StepExecution mapRow(ResultSet rs, int rowNum) throws SQLException {
+						JobInstance jobInstance = new JobInstance(rs.getLong(24), rs.getString(25));
+						JobExecution jobExecution = new JobExecution(jobInstance, rs.getLong(18),
+								new JobParameters(), null);
+						jobExecution.setStatus(BatchStatus.valueOf(rs.getString(19)));
+						jobExecution.setStartTime(rs.getTimestamp(20));
+						jobExecution.setEndTime(rs.getTimestamp(21));
+						jobExecution.setCreateTime(rs.getTimestamp(22));
+						jobExecution.setLastUpdated(rs.getTimestamp(23));
+						StepExecution stepExecution = new StepExecution(rs.getString(2), jobExecution, rs.getLong(1));
+						return StepExecutionRowMapper.populate(stepExecution, rs);
+					}
+				}, stepExecutionId, jobExecutionId);
+		return stepExecutions.isEmpty() ? null : stepExecutions.get(0);
+	}
+
+	/**
+	 * @see SearchableStepExecutionDao#getStepExecutions(Collection)
+	 */
+	public Collection<StepExecution> getStepExecutions(Collection<Long> stepExecutionIds) {
+		List<StepExecution> result = new ArrayList<StepExecution>();
+		List<Long> ids = new ArrayList<Long>(stepExecutionIds);
+		for (int from = 0; from < ids.size(); from += MAX_IN_CLAUSE_SIZE) {
+			List<Long> chunk = ids.subList(from, Math.min(from + MAX_IN_CLAUSE_SIZE, ids.size()));
+			String placeholders = StringUtils.collectionToCommaDelimitedString(Collections.nCopies(chunk.size(), "?"));
+			result.addAll(getJdbcTemplate().query(getQuery(STEP_EXECUTIONS_BY_IDS).replace("%IDS%", placeholders),
+					new StepExecutionRowMapper(), chunk.toArray()));
+		}
+		return result;
+	}
+
 	/**
 	 * @return a {@link PagingQueryProvider} with a where clause to narrow the
 	 * query
@@ -173,6 +334,7 @@ public class JdbcSearchableStepExecutionDao extends JdbcStepExecutionDao impleme
 	private PagingQueryProvider getPagingQueryProvider(String whereClause) {
 		SqlPagingQueryProviderFactoryBean factory = new SqlPagingQueryProviderFactoryBean();
 		factory.setDataSource(dataSource);
+		factory.setDatabaseType(databaseType);
 		factory.setFromClause(getQuery("%PREFIX%STEP_EXECUTION S, %PREFIX%JOB_EXECUTION J, %PREFIX%JOB_INSTANCE I"));
 		factory.setSelectClause(FIELDS);
 		Map<String, Order> sortKeys = new HashMap<String, Order>();
@@ -193,8 +355,16 @@ public class JdbcSearchableStepExecutionDao extends JdbcStepExecutionDao impleme
 	private static class StepExecutionRowMapper implements RowMapper<StepExecution> {
 
 		public StepExecution mapRow(ResultSet rs, int rowNum) throws SQLException {
-			StepExecution stepExecution = new StepExecution(rs.getString(2), null);
+			StepExecution stepExecution = new StepExecution(rs.getString(2), new JobExecution(rs.getLong(18)));
 			stepExecution.setId(rs.getLong(1));
+			return populate(stepExecution, rs);
+		}
+
+		/**
+		 * Copy the columns listed in {@link JdbcSearchableStepExecutionDao#FIELDS}
+		 * (other than id and name) into the step execution.
+		 */
+		static StepExecution populate(StepExecution stepExecution, ResultSet rs) throws SQLException {
 			stepExecution.setStartTime(rs.getTimestamp(3));
 			stepExecution.setEndTime(rs.getTimestamp(4));
 			stepExecution.setStatus(BatchStatus.valueOf(rs.getString(5)));
@@ -0,0 +1,328 @@
+/*
+ * Copyright 2009-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.admin.service;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.util.Assert;
+
+/**
+ * Bounded, least recently used cache of job executions with their job
+ * instances and step executions (but not their execution contexts), so that
+ * repeated requests for the same execution do not have to load it from the
+ * repository every time.
+ * <p>
+ * Executions that can never change again ({@link BatchStatus#COMPLETED} and
+ * {@link BatchStatus#ABANDONED}) are served straight from the cache. The
+ * others (running, or failed and stopped executions that can still be
+ * abandoned) are revalidated first with a cheap query for their revision (see
+ * {@link SearchableJobExecutionDao#getJobExecutionRevisions(java.util.Collection)}
+ * ), and discarded if they have changed.
+ * <p>
+ * The size of the cache is measured in executions: each job execution counts
+ * as one, plus one for each of its step executions. Callers always get their
+ * own copy of a cached execution, so they are free to modify it.
+ * 
+ * @author Dave Syer
+ * 
+ */
+@ManagedResource
+public class JobExecutionCache {
+
+	/**
+	 * Default value for the {@link #setMaxSize(int) maximum size}.
+	 */
+	public static final int DEFAULT_MAX_SIZE = 10000;
+
+	private static final Set<BatchStatus> FINAL_STATUSES = EnumSet.of(BatchStatus.COMPLETED, BatchStatus.ABANDONED);
+
+	private final SearchableJobExecutionDao jobExecutionDao;
+
+	private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<Long, Entry>(16, 0.75f, true);
+
+	private int maxSize = DEFAULT_MAX_SIZE;
+
+	private int size = 0;
+
+	private long hitCount = 0;
+
+	private long missCount = 0;
+
+	private long revalidationCount = 0;
+
+	private long evictionCount = 0;
+
+	public JobExecutionCache(SearchableJobExecutionDao jobExecutionDao) {
+		Assert.notNull(jobExecutionDao, "A SearchableJobExecutionDao must be provided");
+		this.jobExecutionDao = jobExecutionDao;
+	}
+
+	/**
+	 * The maximum size of the cache (a job execution counts as one plus the
+	 * number of its step executions). Default is {@value #DEFAULT_MAX_SIZE}.
+	 * Set to 0 to disable the cache.
+	 * 
+	 * @param maxSize the maximum size to set
+	 */
+	@ManagedAttribute
+	public synchronized void setMaxSize(int maxSize) {
+		this.maxSize = maxSize;
+		evict();
+	}
+
+	@ManagedAttribute
+	public synchronized int getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * Get a copy of a cached job execution, if it is cached and up to date.
+	 * 
+	 * @param jobExecutionId the id of the job execution
+	 * @return a copy of the job execution (or null if it has to be loaded)
+	 */
+	public JobExecution get(Long jobExecutionId) {
+
+		Entry entry;
+		synchronized (this) {
+			entry = entries.get(jobExecutionId);
+			if (entry == null) {
+				missCount++;
+				return null;
+			}
+			if (entry.isFinal()) {
+				hitCount++;
+				return copy(entry.jobExecution);
+			}
+		}
+
+		Long revision = jobExecutionDao.getJobExecutionRevisions(Collections.singleton(jobExecutionId)).get(
+				jobExecutionId);
+
+		synchronized (this) {
+			revalidationCount++;
+			if (revision == null || revision != entry.revision) {
+				if (entries.get(jobExecutionId) == entry) {
+					remove(jobExecutionId);
+				}
+				missCount++;
+				return null;
+			}
+			hitCount++;
+			return copy(entry.jobExecution);
+		}
+
+	}
+
+	/**
+	 * Get a copy of a step execution of a cached job execution, if the job
+	 * execution is cached and up to date.
+	 * 
+	 * @param jobExecutionId the id of the job execution
+	 * @param stepExecutionId the id of the step execution
+	 * @return a copy of the step execution (or null if it has to be loaded)
+	 */
+	public StepExecution getStepExecution(Long jobExecutionId, Long stepExecutionId) {
+		synchronized (this) {
+			if (!entries.containsKey(jobExecutionId)) {
+				return null;
+			}
+		}
+		JobExecution jobExecution = get(jobExecutionId);
+		if (jobExecution == null) {
+			return null;
+		}
+		for (StepExecution stepExecution : jobExecution.getStepExecutions()) {
+			if (stepExecution.getId().equals(stepExecutionId)) {
+				return stepExecution;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Add a job execution (loaded with its job instance and step executions)
+	 * to the cache. A copy is stored, so the caller is free to modify it
+	 * afterwards.
+	 * 
+	 * @param jobExecution the job execution
+	 */
+	public synchronized void put(JobExecution jobExecution) {
+		if (maxSize <= 0 || jobExecution.getId() == null || jobExecution.getVersion() == null) {
+			return;
+		}
+		remove(jobExecution.getId());
+		Entry entry = new Entry(copy(jobExecution));
+		entries.put(jobExecution.getId(), entry);
+		size += entry.weight;
+		evict();
+	}
+
+	/**
+	 * Discard a job execution from the cache, e.g. because it is about to be
+	 * modified.
+	 * 
+	 * @param jobExecutionId the id of the job execution
+	 */
+	public synchronized void invalidate(Long jobExecutionId) {
+		remove(jobExecutionId);
+	}
+
+	/**
+	 * Discard all the cached job executions.
+	 */
+	@ManagedOperation
+	public synchronized void clear() {
+		entries.clear();
+		size = 0;
+	}
+
+	/**
+	 * @return the number of job executions in the cache
+	 */
+	@ManagedAttribute
+	public synchronized int getExecutionCount() {
+		return entries.size();
+	}
+
+	/**
+	 * @return the size of the cache (job and step executions)
+	 */
+	@ManagedAttribute
+	public synchronized int getSize() {
+		return size;
+	}
+
+	@ManagedAttribute
+	public synchronized long getHitCount() {
+		return hitCount;
+	}
+
+	@ManagedAttribute
+	public synchronized long getMissCount() {
+		return missCount;
+	}
+
+	/**
+	 * @return the number of times a cached execution had to be checked
+	 * against the repository
+	 */
+	@ManagedAttribute
+	public synchronized long getRevalidationCount() {
+		return revalidationCount;
+	}
+
+	@ManagedAttribute
+	public synchronized long getEvictionCount() {
+		return evictionCount;
+	}
+
+	/**
+	 * @return the proportion of requests served from the cache
+	 */
+	@ManagedAttribute
+	public synchronized double getHitRatio() {
+		long total = hitCount + missCount;
+		return total > 0 ? (double) hitCount / total : 0;
+	}
+
+	private void remove(Long jobExecutionId) {
+		Entry entry = entries.remove(jobExecutionId);
+		if (entry != null) {
+			size -= entry.weight;
+		}
+	}
+
+	private void evict() {
+		for (Iterator<Entry> iterator = entries.values().iterator(); size > maxSize && iterator.hasNext();) {
+			size -= iterator.next().weight;
+			iterator.remove();
+			evictionCount++;
+		}
+	}
+
+	/**
+	 * Copy a job execution with its step executions (but not the execution
+	 * contexts). The job instance and parameters are immutable so they are
+	 * shared.
+	 */
+	private static JobExecution copy(JobExecution original) {
+		JobExecution jobExecution = new JobExecution(original.getJobInstance(), original.getId(),
+				original.getJobParameters(), original.getJobConfigurationName());
+		jobExecution.setVersion(original.getVersion());
+		jobExecution.setStatus(original.getStatus());
+		jobExecution.setExitStatus(original.getExitStatus());
+		jobExecution.setCreateTime(original.getCreateTime());
+		jobExecution.setStartTime(original.getStartTime());
+		jobExecution.setEndTime(original.getEndTime());
+		jobExecution.setLastUpdated(original.getLastUpdated());
+		for (StepExecution step : original.getStepExecutions()) {
+			StepExecution stepExecution = new StepExecution(step.getStepName(), jobExecution, step.getId());
+			stepExecution.setVersion(step.getVersion());
+			stepExecution.setStatus(step.getStatus());
+			stepExecution.setExitStatus(step.getExitStatus());
+			stepExecution.setStartTime(step.getStartTime());
+			stepExecution.setEndTime(step.getEndTime());
+			stepExecution.setLastUpdated(step.getLastUpdated());
+			stepExecution.setReadCount(step.getReadCount());
+			stepExecution.setWriteCount(step.getWriteCount());
+			stepExecution.setFilterCount(step.getFilterCount());
+			stepExecution.setCommitCount(step.getCommitCount());
+			stepExecution.setRollbackCount(step.getRollbackCount());
+			stepExecution.setReadSkipCount(step.getReadSkipCount());
+			stepExecution.setProcessSkipCount(step.getProcessSkipCount());
+			stepExecution.setWriteSkipCount(step.getWriteSkipCount());
+		}
+		return jobExecution;
+	}
+
+	private static class Entry {
+
+		private final JobExecution jobExecution;
+
+		private final long revision;
+
+		private final int weight;
+
+		public Entry(JobExecution jobExecution) {
+			this.jobExecution = jobExecution;
+			this.weight = 1 + jobExecution.getStepExecutions().size();
+			// The same formula as the revisions in the repository
+			long revision = jobExecution.getVersion();
+			for (StepExecution stepExecution : jobExecution.getStepExecutions()) {
+				revision += 1 + (stepExecution.getVersion() == null ? 0 : stepExecution.getVersion());
+			}
+			this.revision = revision;
+		}
+
+		public boolean isFinal() {
+			return FINAL_STATUSES.contains(jobExecution.getStatus());
+		}
+
+	}
+
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2009-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.admin.service;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.Set;
+
+import org.springframework.batch.core.BatchStatus;
+
+/**
+ * Filter for the job executions affected by a bulk operation, e.g.
+ * {@link JobService#stopJobExecutions(JobExecutionCriteria)}. All the
+ * properties are optional (null or empty matches everything) and the
+ * conditions are combined with AND.
+ * 
+ * @author Dave Syer
+ * 
+ */
+public class JobExecutionCriteria {
+
+	private String jobName;
+
+	private Set<BatchStatus> statuses = EnumSet.noneOf(BatchStatus.class);
+
+	private Date createdBefore;
+
+	public JobExecutionCriteria() {
+	}
+
+	public JobExecutionCriteria(String jobName, Collection<BatchStatus> statuses, Date createdBefore) {
+		setJobName(jobName);
+		setStatuses(statuses);
+		setCreatedBefore(createdBefore);
+	}
+
+	/**
+	 * @return the job name to match (exact match, null for all jobs)
+	 */
+	public String getJobName() {
+		return jobName;
+	}
+
+	public void setJobName(String jobName) {
+		this.jobName = jobName;
+	}
+
+	/**
+	 * @return the statuses to match (empty for all statuses)
+	 */
+	public Set<BatchStatus> getStatuses() {
+		return Collections.unmodifiableSet(statuses);
+	}
+
+	public void setStatuses(Collection<BatchStatus> statuses) {
+		this.statuses = statuses == null || statuses.isEmpty() ? EnumSet.noneOf(BatchStatus.class) : EnumSet
+				.copyOf(statuses);
+	}
+
+	/**
+	 * @return the time before which matching executions were created (null
+	 * for any age)
+	 */
+	public Date getCreatedBefore() {
+		return createdBefore;
+	}
+
+	public void setCreatedBefore(Date createdBefore) {
+		this.createdBefore = createdBefore;
+	}
+
+	@Override
+	public String toString() {
+		return "jobName=" + jobName + ", statuses=" + statuses + ", createdBefore=" + createdBefore;
+	}
+
+}
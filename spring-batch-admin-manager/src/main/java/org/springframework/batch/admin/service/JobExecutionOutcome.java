@@ -0,0 +1,105 @@
+/*
+ * Copyright 2009-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.admin.service;
+
+import org.springframework.batch.core.BatchStatus;
+
+/**
+ * The result of a bulk operation, e.g.
+ * {@link JobService#stopJobExecutions(JobExecutionCriteria)}, for one of the
+ * job executions it matched.
+ * 
+ * @author Dave Syer
+ * 
+ */
+public class JobExecutionOutcome {
+
+	/**
+	 * What happened to a job execution.
+	 */
+	public static enum Result {
+
+		/**
+		 * The execution was updated.
+		 */
+		UPDATED,
+
+		/**
+		 * The execution was not updated because it changed in the repository
+		 * after it was selected (optimistic locking failure).
+		 */
+		CONFLICT,
+
+		/**
+		 * The execution could not be updated (see the message).
+		 */
+		FAILED
+
+	}
+
+	private final long jobExecutionId;
+
+	private final String jobName;
+
+	private final Result result;
+
+	private final BatchStatus status;
+
+	private final String message;
+
+	public JobExecutionOutcome(long jobExecutionId, String jobName, Result result, BatchStatus status, String message) {
+		this.jobExecutionId = jobExecutionId;
+		this.jobName = jobName;
+		this.result = result;
+		this.status = status;
+		this.message = message;
+	}
+
+	public long getJobExecutionId() {
+		return jobExecutionId;
+	}
+
+	public String getJobName() {
+		return jobName;
+	}
+
+	public Result getResult() {
+		return result;
+	}
+
+	/**
+	 * @return the status of the execution after the operation (as far as it
+	 * is known)
+	 */
+	public BatchStatus getStatus() {
+		return status;
+	}
+
+	/**
+	 * @return a description of the problem if the result is not
+	 * {@link Result#UPDATED} (otherwise null)
+	 */
+	public String getMessage() {
+		return message;
+	}
+
+	@Override
+	public String toString() {
+		return "JobExecutionOutcome: id=" + jobExecutionId + ", jobName=" + jobName + ", result=" + result
+				+ ", status=" + status + (message == null ? "" : ", message=" + message);
+	}
+
+}
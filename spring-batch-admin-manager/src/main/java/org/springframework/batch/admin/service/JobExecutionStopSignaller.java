@@ -0,0 +1,305 @@
+/*
+ * Copyright 2009-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.admin.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobExecutionListener;
+import org.springframework.batch.core.launch.JobExecutionNotRunningException;
+import org.springframework.batch.core.launch.NoSuchJobExecutionException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.util.Assert;
+
+/**
+ * Signals running job executions to stop by changing nothing but their status
+ * (and version) in the repository. A running job picks up the new status the
+ * next time it synchronizes with the repository, so there is no need to load
+ * and rewrite the whole execution, and no risk of overwriting the changes the
+ * job is making at the same time.
+ * <p>
+ * The update is conditional on the version of the execution, so it backs off
+ * (exponentially, up to a limit) and tries again when it races with the
+ * running job. The time it takes for a job to acknowledge a stop signal (i.e.
+ * to finish after being signalled) is measured, either when notified by the
+ * job as a {@link JobExecutionListener} or when {@link #checkAcknowledged()}
+ * finds it in the repository.
+ * 
+ * @author Dave Syer
+ * 
+ */
+@ManagedResource
+public class JobExecutionStopSignaller implements JobExecutionListener {
+
+	private static final Log logger = LogFactory.getLog(JobExecutionStopSignaller.class);
+
+	public static final int DEFAULT_MAX_ATTEMPTS = 5;
+
+	public static final long DEFAULT_INITIAL_BACK_OFF = 50;
+
+	public static final long DEFAULT_MAX_BACK_OFF = 1000;
+
+	private final SearchableJobExecutionDao jobExecutionDao;
+
+	private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+
+	private long initialBackOff = DEFAULT_INITIAL_BACK_OFF;
+
+	private long maxBackOff = DEFAULT_MAX_BACK_OFF;
+
+	/**
+	 * The time each pending signal was sent, by job execution id.
+	 */
+	private final ConcurrentMap<Long, Long> pending = new ConcurrentHashMap<Long, Long>();
+
+	private final AtomicLong signalCount = new AtomicLong();
+
+	private final AtomicLong conflictCount = new AtomicLong();
+
+	private final AtomicLong failureCount = new AtomicLong();
+
+	private long acknowledgedCount = 0;
+
+	private long totalAcknowledgeTime = 0;
+
+	private long maxAcknowledgeTime = 0;
+
+	private long latestAcknowledgeTime = -1;
+
+	public JobExecutionStopSignaller(SearchableJobExecutionDao jobExecutionDao) {
+		Assert.notNull(jobExecutionDao, "A SearchableJobExecutionDao must be provided");
+		this.jobExecutionDao = jobExecutionDao;
+	}
+
+	/**
+	 * The maximum number of attempts to update an execution that is being
+	 * updated concurrently by the job itself. Default is
+	 * {@value #DEFAULT_MAX_ATTEMPTS}.
+	 * 
+	 * @param maxAttempts the maximum number of attempts to set
+	 */
+	public void setMaxAttempts(int maxAttempts) {
+		Assert.isTrue(maxAttempts > 0, "There must be at least one attempt");
+		this.maxAttempts = maxAttempts;
+	}
+
+	/**
+	 * The time in milliseconds to wait after the first conflict. It doubles
+	 * with each subsequent conflict. Default is
+	 * {@value #DEFAULT_INITIAL_BACK_OFF}.
+	 * 
+	 * @param initialBackOff the initial back off to set
+	 */
+	public void setInitialBackOff(long initialBackOff) {
+		this.initialBackOff = initialBackOff;
+	}
+
+	/**
+	 * The maximum time in milliseconds to wait between attempts. Default is
+	 * {@value #DEFAULT_MAX_BACK_OFF}.
+	 * 
+	 * @param maxBackOff the maximum back off to set
+	 */
+	public void setMaxBackOff(long maxBackOff) {
+		this.maxBackOff = maxBackOff;
+	}
+
+	/**
+	 * Signal a job execution to stop. Signalling an execution that is
+	 * already stopping has no effect.
+	 * 
+	 * @param jobExecutionId the id of the job execution
+	 * @throws NoSuchJobExecutionException if the execution does not exist
+	 * @throws JobExecutionNotRunningException if the execution is not running
+	 * @throws OptimisticLockingFailureException if the execution could not be
+	 * updated in the maximum number of attempts
+	 */
+	public void signal(Long jobExecutionId) throws NoSuchJobExecutionException, JobExecutionNotRunningException {
+
+		long backOff = initialBackOff;
+
+		for (int attempt = 1;; attempt++) {
+
+			JobExecution state = jobExecutionDao.getJobExecutionState(jobExecutionId);
+			if (state == null) {
+				throw new NoSuchJobExecutionException("No JobExecution with id=" + jobExecutionId);
+			}
+			if (state.getStatus() == BatchStatus.STOPPING) {
+				logger.debug("JobExecution already signalled to stop: " + jobExecutionId);
+				return;
+			}
+			if (!state.getStatus().isRunning()) {
+				throw new JobExecutionNotRunningException("JobExecution is not running and therefore cannot be stopped");
+			}
+
+			long now = System.currentTimeMillis();
+			if (jobExecutionDao.signalStop(jobExecutionId, state.getVersion())) {
+				pending.put(jobExecutionId, now);
+				signalCount.incrementAndGet();
+				return;
+			}
+
+			conflictCount.incrementAndGet();
+			if (attempt >= maxAttempts) {
+				break;
+			}
+			logger.debug("JobExecution was updated concurrently (attempt " + attempt + "), retrying in " + backOff
+					+ "ms: " + jobExecutionId);
+			try {
+				Thread.sleep(backOff);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+			backOff = Math.min(backOff * 2, maxBackOff);
+
+		}
+
+		failureCount.incrementAndGet();
+		throw new OptimisticLockingFailureException("Could not signal JobExecution to stop (id=" + jobExecutionId
+				+ ") because it is being updated concurrently");
+
+	}
+
+	/**
+	 * Check the pending signals against the repository, with a single query
+	 * for their statuses, and record the ones that have been acknowledged.
+	 * This is only needed for jobs that do not notify this component when
+	 * they finish.
+	 */
+	public void checkAcknowledged() {
+		Collection<Long> ids = new ArrayList<Long>(pending.keySet());
+		if (ids.isEmpty()) {
+			return;
+		}
+		Map<Long, BatchStatus> statuses = jobExecutionDao.getJobExecutionStatuses(ids);
+		long now = System.currentTimeMillis();
+		for (Long id : ids) {
+			BatchStatus status = statuses.get(id);
+			if (status == null) {
+				// Deleted, so it will never be acknowledged
+				pending.remove(id);
+			}
+			else if (status != BatchStatus.STOPPING) {
+				acknowledge(id, now);
+			}
+		}
+	}
+
+	@Override
+	public void beforeJob(JobExecution jobExecution) {
+	}
+
+	@Override
+	public void afterJob(JobExecution jobExecution) {
+		acknowledge(jobExecution.getId(), System.currentTimeMillis());
+	}
+
+	private void acknowledge(Long jobExecutionId, long now) {
+		Long signalled = pending.remove(jobExecutionId);
+		if (signalled == null) {
+			return;
+		}
+		long duration = now - signalled;
+		synchronized (this) {
+			acknowledgedCount++;
+			totalAcknowledgeTime += duration;
+			maxAcknowledgeTime = Math.max(maxAcknowledgeTime, duration);
+			latestAcknowledgeTime = duration;
+		}
+	}
+
+	/**
+	 * @return the number of stop signals sent successfully
+	 */
+	@ManagedAttribute
+	public long getSignalCount() {
+		return signalCount.get();
+	}
+
+	/**
+	 * @return the number of attempts that failed because the execution was
+	 * updated concurrently
+	 */
+	@ManagedAttribute
+	public long getConflictCount() {
+		return conflictCount.get();
+	}
+
+	/**
+	 * @return the number of signals that could not be sent in the maximum
+	 * number of attempts
+	 */
+	@ManagedAttribute
+	public long getFailureCount() {
+		return failureCount.get();
+	}
+
+	/**
+	 * @return the number of signals that have not been acknowledged yet
+	 */
+	@ManagedAttribute
+	public int getPendingCount() {
+		return pending.size();
+	}
+
+	/**
+	 * @return the number of signals that have been acknowledged
+	 */
+	@ManagedAttribute
+	public synchronized long getAcknowledgedCount() {
+		return acknowledgedCount;
+	}
+
+	/**
+	 * @return the mean time in milliseconds from a signal to its
+	 * acknowledgement (or -1 if there are none yet)
+	 */
+	@ManagedAttribute
+	public synchronized double getMeanAcknowledgeTime() {
+		return acknowledgedCount > 0 ? (double) totalAcknowledgeTime / acknowledgedCount : -1;
+	}
+
+	/**
+	 * @return the maximum time in milliseconds from a signal to its
+	 * acknowledgement
+	 */
+	@ManagedAttribute
+	public synchronized long getMaxAcknowledgeTime() {
+		return maxAcknowledgeTime;
+	}
+
+	/**
+	 * @return the time in milliseconds from the latest signal to be
+	 * acknowledged to its acknowledgement (or -1 if there are none yet)
+	 */
+	@ManagedAttribute
+	public synchronized long getLatestAcknowledgeTime() {
+		return latestAcknowledgeTime;
+	}
+
+}
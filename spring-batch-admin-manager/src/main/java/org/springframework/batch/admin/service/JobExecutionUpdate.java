@@ -0,0 +1,149 @@
+/*
+ * Copyright 2009-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.admin.service;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.util.ObjectUtils;
+
+/**
+ * A compact summary of the state of a job execution and its steps, published
+ * by {@link JobExecutionUpdateNotifier} when something changes. Every update
+ * carries a sequence number, and so does each step summary (the sequence of
+ * the update in which that step last changed), so a client that has seen
+ * sequence N only needs the steps with a later sequence: see
+ * {@link #since(long)}.
+ * 
+ * @author Dave Syer
+ * 
+ */
+@SuppressWarnings("serial")
+public class JobExecutionUpdate implements Serializable {
+
+	private final long jobExecutionId;
+
+	private final long sequence;
+
+	private final String jobName;
+
+	private final String status;
+
+	private final String exitCode;
+
+	private final Date startTime;
+
+	private final Date endTime;
+
+	private final List<StepExecutionUpdate> stepExecutions;
+
+	public JobExecutionUpdate(long jobExecutionId, long sequence, String jobName, String status, String exitCode,
+			Date startTime, Date endTime, List<StepExecutionUpdate> stepExecutions) {
+		this.jobExecutionId = jobExecutionId;
+		this.sequence = sequence;
+		this.jobName = jobName;
+		this.status = status;
+		this.exitCode = exitCode;
+		this.startTime = startTime;
+		this.endTime = endTime;
+		this.stepExecutions = Collections.unmodifiableList(new ArrayList<StepExecutionUpdate>(stepExecutions));
+	}
+
+	public long getJobExecutionId() {
+		return jobExecutionId;
+	}
+
+	/**
+	 * @return the sequence number of this update (higher is more recent)
+	 */
+	public long getSequence() {
+		return sequence;
+	}
+
+	public String getJobName() {
+		return jobName;
+	}
+
+	public String getStatus() {
+		return status;
+	}
+
+	public String getExitCode() {
+		return exitCode;
+	}
+
+	public Date getStartTime() {
+		return startTime;
+	}
+
+	public Date getEndTime() {
+		return endTime;
+	}
+
+	/**
+	 * @return true if the job execution has finished (so there will be no more
+	 * updates)
+	 */
+	public boolean isFinished() {
+		return endTime != null;
+	}
+
+	/**
+	 * @return the step execution summaries included in this update
+	 */
+	public List<StepExecutionUpdate> getStepExecutions() {
+		return stepExecutions;
+	}
+
+	/**
+	 * @param sequence the sequence of the last update seen by a client
+	 * @return a copy of this update with only the steps that changed after
+	 * the sequence provided
+	 */
+	public JobExecutionUpdate since(long sequence) {
+		List<StepExecutionUpdate> changed = new ArrayList<StepExecutionUpdate>();
+		for (StepExecutionUpdate stepExecution : stepExecutions) {
+			if (stepExecution.getSequence() > sequence) {
+				changed.add(stepExecution);
+			}
+		}
+		return new JobExecutionUpdate(jobExecutionId, this.sequence, jobName, status, exitCode, startTime, endTime,
+				changed);
+	}
+
+	/**
+	 * @param other another update (possibly null)
+	 * @return true if the other update has the same job level state as this
+	 * one (ignoring the steps and the sequence)
+	 */
+	boolean hasSameState(JobExecutionUpdate other) {
+		return other != null && jobExecutionId == other.jobExecutionId
+				&& ObjectUtils.nullSafeEquals(status, other.status)
+				&& ObjectUtils.nullSafeEquals(exitCode, other.exitCode)
+				&& ObjectUtils.nullSafeEquals(startTime, other.startTime)
+				&& ObjectUtils.nullSafeEquals(endTime, other.endTime);
+	}
+
+	@Override
+	public String toString() {
+		return "JobExecutionUpdate: id=" + jobExecutionId + ", sequence=" + sequence + ", status=" + status
+				+ ", steps=" + stepExecutions;
+	}
+
+}
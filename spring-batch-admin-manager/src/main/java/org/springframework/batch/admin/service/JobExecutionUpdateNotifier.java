@@ -0,0 +1,448 @@
+/*
+ * Copyright 2009-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.admin.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.batch.admin.domain.StepExecutionProgress;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobExecutionListener;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.configuration.ListableJobLocator;
+import org.springframework.batch.core.job.AbstractJob;
+import org.springframework.batch.core.launch.NoSuchJobException;
+import org.springframework.batch.core.launch.NoSuchJobExecutionException;
+import org.springframework.batch.core.step.AbstractStep;
+import org.springframework.batch.core.step.NoSuchStepException;
+import org.springframework.batch.core.step.StepLocator;
+import org.springframework.util.Assert;
+
+/**
+ * Publishes {@link JobExecutionUpdate compact updates} of the job executions
+ * that clients are watching, so that any number of watchers of an execution
+ * cost one repository read per change instead of one per watcher per poll.
+ * <p>
+ * Changes are detected in two ways:
+ * <ul>
+ * <li>as a {@link JobExecutionListener} and {@link StepExecutionListener}, for
+ * jobs running in this process (the listener is attached to the jobs and
+ * steps in the {@link #setJobLocator(ListableJobLocator) job locator}), in
+ * which case the update is built from the execution in memory;</li>
+ * <li>by {@link #detectChanges()}, which should be called periodically and
+ * compares a cheap revision number (derived from the VERSION columns) of all
+ * the watched executions with one query, then reloads only the executions
+ * that changed. This catches progress within a step and jobs running
+ * elsewhere.</li>
+ * </ul>
+ * Watches are created on demand and dropped when nobody has asked about an
+ * execution for the {@link #setIdleTimeout(long) idle timeout}.
+ * 
+ * @author Dave Syer
+ * 
+ */
+public class JobExecutionUpdateNotifier implements JobExecutionListener, StepExecutionListener {
+
+	/**
+	 * Callback for a client waiting for the next update of an execution.
+	 */
+	public static interface Callback {
+
+		/**
+		 * @param update the update (containing only the steps that changed
+		 * since the sequence the client registered with)
+		 */
+		void update(JobExecutionUpdate update);
+
+	}
+
+	private static final Log logger = LogFactory.getLog(JobExecutionUpdateNotifier.class);
+
+	private final JobService jobService;
+
+	private ListableJobLocator jobLocator;
+
+	private long idleTimeout = 60000;
+
+	private final AtomicLong sequence = new AtomicLong();
+
+	private final ConcurrentMap<Long, Watch> watches = new ConcurrentHashMap<Long, Watch>();
+
+	private final Set<String> listenedJobs = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+	public JobExecutionUpdateNotifier(JobService jobService) {
+		Assert.notNull(jobService, "A JobService must be provided");
+		this.jobService = jobService;
+	}
+
+	/**
+	 * Optional locator for the jobs running in this process. If provided the
+	 * notifier registers itself as a listener with the jobs and their steps,
+	 * so that their state changes are published without reading the
+	 * repository.
+	 * 
+	 * @param jobLocator the job locator to set
+	 */
+	public void setJobLocator(ListableJobLocator jobLocator) {
+		this.jobLocator = jobLocator;
+	}
+
+	/**
+	 * The time in milliseconds after which an execution that nobody is
+	 * watching stops being tracked. Default 60000.
+	 * 
+	 * @param idleTimeout the idle timeout to set
+	 */
+	public void setIdleTimeout(long idleTimeout) {
+		this.idleTimeout = idleTimeout;
+	}
+
+	/**
+	 * Get the latest update of a job execution, if it is more recent than the
+	 * one the client has already seen.
+	 * 
+	 * @param jobExecutionId the id of the job execution
+	 * @param since the sequence of the last update seen (0 for none)
+	 * @return the update, or null if there is nothing new
+	 * @throws NoSuchJobExecutionException if the execution does not exist
+	 */
+	public JobExecutionUpdate getUpdate(long jobExecutionId, long since) throws NoSuchJobExecutionException {
+		return getWatch(jobExecutionId).getUpdate(since);
+	}
+
+	/**
+	 * Wait for an update of a job execution more recent than the one the
+	 * client has already seen. If there is one already it is returned
+	 * straight away and the callback is not registered; otherwise the callback
+	 * is called (once) when there is a change, unless it is
+	 * {@link #unregister(long, Callback) unregistered} first.
+	 * 
+	 * @param jobExecutionId the id of the job execution
+	 * @param since the sequence of the last update seen (0 for none)
+	 * @param callback the callback to notify
+	 * @return an update if one is already available, otherwise null
+	 * @throws NoSuchJobExecutionException if the execution does not exist
+	 */
+	public JobExecutionUpdate register(long jobExecutionId, long since, Callback callback)
+			throws NoSuchJobExecutionException {
+		return getWatch(jobExecutionId).register(since, callback);
+	}
+
+	/**
+	 * Stop waiting for an update (e.g. because the client gave up).
+	 * 
+	 * @param jobExecutionId the id of the job execution
+	 * @param callback the callback that was registered
+	 */
+	public void unregister(long jobExecutionId, Callback callback) {
+		Watch watch = watches.get(jobExecutionId);
+		if (watch != null) {
+			watch.unregister(callback);
+		}
+	}
+
+	/**
+	 * Check the watched executions for changes in the repository with one
+	 * query, reload the ones that changed and notify their watchers. Idle
+	 * watches are dropped. The watchers are the clients connected to this
+	 * process, so this has to run on every node, not just a leader.
+	 */
+	public void detectChanges() {
+
+		registerLocatedJobs();
+
+		long now = System.currentTimeMillis();
+		for (Watch watch : watches.values()) {
+			if (watch.isIdle(now)) {
+				watches.remove(watch.jobExecutionId, watch);
+			}
+		}
+		if (watches.isEmpty()) {
+			return;
+		}
+
+		Map<Long, Long> revisions = jobService.getJobExecutionRevisions(new ArrayList<Long>(watches.keySet()));
+		for (Watch watch : watches.values()) {
+			Long revision = revisions.get(watch.jobExecutionId);
+			if (revision == null) {
+				// Deleted from the repository
+				watches.remove(watch.jobExecutionId, watch);
+			}
+			else if (!revision.equals(watch.revision)) {
+				try {
+					watch.update(jobService.getJobExecution(watch.jobExecutionId,
+							ExecutionContextFetchMode.NONE));
+					watch.revision = revision;
+				}
+				catch (NoSuchJobExecutionException e) {
+					watches.remove(watch.jobExecutionId, watch);
+				}
+			}
+		}
+
+	}
+
+	/**
+	 * @return the number of job executions currently watched
+	 */
+	public int getWatchCount() {
+		return watches.size();
+	}
+
+	@Override
+	public void beforeJob(JobExecution jobExecution) {
+		publish(jobExecution);
+	}
+
+	@Override
+	public void afterJob(JobExecution jobExecution) {
+		publish(jobExecution);
+	}
+
+	@Override
+	public void beforeStep(StepExecution stepExecution) {
+		publish(stepExecution.getJobExecution());
+	}
+
+	@Override
+	public ExitStatus afterStep(StepExecution stepExecution) {
+		publish(stepExecution.getJobExecution());
+		return null;
+	}
+
+	/**
+	 * Publish the state of an execution in memory if anyone is watching it.
+	 */
+	private void publish(JobExecution jobExecution) {
+		if (jobExecution == null || jobExecution.getId() == null) {
+			return;
+		}
+		Watch watch = watches.get(jobExecution.getId());
+		if (watch == null) {
+			return;
+		}
+		try {
+			watch.update(jobExecution);
+		}
+		catch (RuntimeException e) {
+			logger.error("Could not publish update for job execution: " + jobExecution, e);
+		}
+	}
+
+	private Watch getWatch(long jobExecutionId) throws NoSuchJobExecutionException {
+		Watch watch = watches.get(jobExecutionId);
+		if (watch != null) {
+			return watch;
+		}
+		// Read the revision first so that a change while loading is detected
+		Long revision = jobService.getJobExecutionRevisions(Collections.singleton(jobExecutionId)).get(
+				jobExecutionId);
+		watch = new Watch(jobExecutionId, revision);
+		watch.update(jobService.getJobExecution(jobExecutionId, ExecutionContextFetchMode.NONE));
+		Watch existing = watches.putIfAbsent(jobExecutionId, watch);
+		return existing != null ? existing : watch;
+	}
+
+	/**
+	 * Register with any jobs in the job locator (and their steps) that are not
+	 * already listened to (no I/O).
+	 */
+	private void registerLocatedJobs() {
+		if (jobLocator == null) {
+			return;
+		}
+		for (String jobName : jobLocator.getJobNames()) {
+			if (listenedJobs.add(jobName)) {
+				listenTo(jobName);
+			}
+		}
+	}
+
+	private void listenTo(String jobName) {
+		try {
+			Job job = jobLocator.getJob(jobName);
+			if (job instanceof AbstractJob) {
+				((AbstractJob) job).registerJobExecutionListener(this);
+			}
+			if (job instanceof StepLocator) {
+				StepLocator stepLocator = (StepLocator) job;
+				for (String stepName : stepLocator.getStepNames()) {
+					Step step = stepLocator.getStep(stepName);
+					if (step instanceof AbstractStep) {
+						((AbstractStep) step).registerStepExecutionListener(this);
+					}
+				}
+			}
+		}
+		catch (NoSuchJobException e) {
+			// It was unregistered in the meantime
+			logger.debug("Job no longer available: " + jobName);
+		}
+		catch (NoSuchStepException e) {
+			logger.debug("Step no longer available in job: " + jobName);
+		}
+	}
+
+	/**
+	 * Build the next update of a job execution, reusing the summaries of the
+	 * steps that did not change.
+	 * 
+	 * @return the update, or null if nothing changed since the previous one
+	 */
+	private JobExecutionUpdate createUpdate(JobExecution jobExecution, JobExecutionUpdate previous) {
+
+		String jobName = jobExecution.getJobInstance() == null ? null : jobExecution.getJobInstance().getJobName();
+		Map<Long, StepExecutionUpdate> previousSteps = new LinkedHashMap<Long, StepExecutionUpdate>();
+		if (previous != null) {
+			for (StepExecutionUpdate step : previous.getStepExecutions()) {
+				previousSteps.put(step.getStepExecutionId(), step);
+			}
+		}
+
+		long next = sequence.incrementAndGet();
+		boolean changed = previous == null;
+		List<StepExecutionUpdate> steps = new ArrayList<StepExecutionUpdate>();
+		for (StepExecution stepExecution : new ArrayList<StepExecution>(jobExecution.getStepExecutions())) {
+			if (stepExecution.getId() == null) {
+				continue;
+			}
+			StepExecutionUpdate step = createStepUpdate(stepExecution, next, 0);
+			StepExecutionUpdate old = previousSteps.remove(stepExecution.getId());
+			if (step.hasSameState(old)) {
+				steps.add(old);
+				continue;
+			}
+			changed = true;
+			steps.add(createStepUpdate(stepExecution, next, getPercentComplete(jobName, stepExecution)));
+		}
+		// Steps known before but not in this execution (e.g. a partial view)
+		steps.addAll(previousSteps.values());
+
+		JobExecutionUpdate update = new JobExecutionUpdate(jobExecution.getId(), next, jobName, String
+				.valueOf(jobExecution.getStatus()), jobExecution.getExitStatus().getExitCode(),
+				jobExecution.getStartTime(), jobExecution.getEndTime(), steps);
+		if (!changed && update.hasSameState(previous)) {
+			return null;
+		}
+		return update;
+
+	}
+
+	private StepExecutionUpdate createStepUpdate(StepExecution stepExecution, long sequence, double percentComplete) {
+		return new StepExecutionUpdate(stepExecution.getId(), sequence, stepExecution.getStepName(),
+				String.valueOf(stepExecution.getStatus()), stepExecution.getExitStatus().getExitCode(),
+				stepExecution.getReadCount(), stepExecution.getWriteCount(), stepExecution.getCommitCount(),
+				stepExecution.getRollbackCount(), stepExecution.getSkipCount(), percentComplete);
+	}
+
+	private double getPercentComplete(String jobName, StepExecution stepExecution) {
+		if (stepExecution.getEndTime() != null) {
+			return 1;
+		}
+		if (jobName == null) {
+			return 0;
+		}
+		return new StepExecutionProgress(stepExecution, jobService.getStepExecutionHistory(jobName,
+				stepExecution.getStepName())).getEstimatedPercentComplete();
+	}
+
+	/**
+	 * The state for a single watched job execution.
+	 */
+	private class Watch {
+
+		private final long jobExecutionId;
+
+		/**
+		 * The repository revision the latest update was built from.
+		 */
+		private volatile Long revision;
+
+		private volatile long lastAccess = System.currentTimeMillis();
+
+		private JobExecutionUpdate latest;
+
+		/**
+		 * The waiting callbacks and the sequence each one has seen.
+		 */
+		private final Map<Callback, Long> callbacks = new LinkedHashMap<Callback, Long>();
+
+		public Watch(long jobExecutionId, Long revision) {
+			this.jobExecutionId = jobExecutionId;
+			this.revision = revision;
+		}
+
+		public synchronized JobExecutionUpdate getUpdate(long since) {
+			lastAccess = System.currentTimeMillis();
+			return latest.getSequence() > since ? latest.since(since) : null;
+		}
+
+		public synchronized JobExecutionUpdate register(long since, Callback callback) {
+			lastAccess = System.currentTimeMillis();
+			if (latest.getSequence() > since) {
+				return latest.since(since);
+			}
+			callbacks.put(callback, since);
+			return null;
+		}
+
+		public synchronized void unregister(Callback callback) {
+			lastAccess = System.currentTimeMillis();
+			callbacks.remove(callback);
+		}
+
+		public synchronized boolean isIdle(long now) {
+			return callbacks.isEmpty() && now - lastAccess > idleTimeout;
+		}
+
+		public void update(JobExecution jobExecution) {
+			JobExecutionUpdate update;
+			Map<Callback, Long> waiting;
+			synchronized (this) {
+				update = createUpdate(jobExecution, latest);
+				if (update == null) {
+					return;
+				}
+				latest = update;
+				waiting = new LinkedHashMap<Callback, Long>(callbacks);
+				callbacks.clear();
+			}
+			for (Map.Entry<Callback, Long> entry : waiting.entrySet()) {
+				try {
+					entry.getKey().update(update.since(entry.getValue()));
+				}
+				catch (RuntimeException e) {
+					logger.debug("Could not notify watcher of job execution " + jobExecutionId, e);
+				}
+			}
+		}
+
+	}
+
+}
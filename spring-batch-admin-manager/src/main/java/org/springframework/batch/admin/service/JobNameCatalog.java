@@ -0,0 +1,189 @@
+/*
+ * Copyright 2009-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.admin.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.batch.core.configuration.ListableJobLocator;
+import org.springframework.util.Assert;
+
+/**
+ * Catalog of all the job names known to the {@link JobService}: the jobs in
+ * the registry, the JSR-352 jobs and the jobs that only exist in the history
+ * (job instances in the repository). The registry and JSR-352 names are held
+ * in memory by their own sources. The historic names are cached here and
+ * brought up to date by {@link #refresh()}, which reads only the job instances
+ * near or above the highest id seen so far (a high watermark on the job
+ * instance id). So checking a name or listing the jobs does not go to the
+ * database, unless the name is not known at all (see {@link #exists(String)}).
+ * 
+ * @author Dave Syer
+ * 
+ */
+public class JobNameCatalog {
+
+	private static final Log logger = LogFactory.getLog(JobNameCatalog.class);
+
+	private final ListableJobLocator jobLocator;
+
+	private final JsrJobCatalog jsrJobCatalog;
+
+	private final SearchableJobInstanceDao jobInstanceDao;
+
+	private volatile Set<String> historicJobNames;
+
+	private long highWatermark = -1;
+
+	private long refreshWindow = 1000;
+
+	public JobNameCatalog(ListableJobLocator jobLocator, JsrJobCatalog jsrJobCatalog,
+			SearchableJobInstanceDao jobInstanceDao) {
+		Assert.notNull(jobLocator, "A ListableJobLocator must be provided");
+		Assert.notNull(jsrJobCatalog, "A JsrJobCatalog must be provided");
+		Assert.notNull(jobInstanceDao, "A SearchableJobInstanceDao must be provided");
+		this.jobLocator = jobLocator;
+		this.jsrJobCatalog = jsrJobCatalog;
+		this.jobInstanceDao = jobInstanceDao;
+	}
+
+	/**
+	 * The number of job instance ids below the high watermark that are read
+	 * again on every {@link #refresh()}. Ids are allocated before the instance
+	 * is committed, so an instance can become visible after one with a higher
+	 * id. Such an instance is still picked up as long as it commits within
+	 * this many ids of the watermark. Defaults to 1000.
+	 * 
+	 * @param refreshWindow the number of ids to read again (0 or more)
+	 */
+	public void setRefreshWindow(long refreshWindow) {
+		Assert.isTrue(refreshWindow >= 0, "The refresh window must not be negative");
+		this.refreshWindow = refreshWindow;
+	}
+
+	/**
+	 * Check if a job name is known, without going to the database (except to
+	 * load the historic names the first time).
+	 * 
+	 * @param jobName the job name
+	 * @return true if the job is registered, is a JSR-352 job or has instances
+	 */
+	public boolean contains(String jobName) {
+		return jobLocator.getJobNames().contains(jobName) || jsrJobCatalog.contains(jobName)
+				|| getHistoricJobNames().contains(jobName);
+	}
+
+	/**
+	 * Check if a job name is known, and if not, check the repository in case
+	 * the first instance was created since the last refresh. Only unknown
+	 * names cost a database query.
+	 * 
+	 * @param jobName the job name
+	 * @return true if the job is registered, is a JSR-352 job or has instances
+	 */
+	public boolean exists(String jobName) {
+		if (contains(jobName)) {
+			return true;
+		}
+		if (jobInstanceDao.countJobInstances(jobName) > 0) {
+			add(Collections.singleton(jobName), -1);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * All the job names: the registered jobs first, then the JSR-352 jobs and
+	 * then the remaining historic jobs in alphabetical order.
+	 * 
+	 * @return the job names (no duplicates)
+	 */
+	public List<String> getJobNames() {
+		Set<String> names = new LinkedHashSet<String>(jobLocator.getJobNames());
+		names.addAll(jsrJobCatalog.getJobNames());
+		names.addAll(getHistoricJobNames());
+		return new ArrayList<String>(names);
+	}
+
+	/**
+	 * Add the names of the jobs with instances created since the last refresh
+	 * (a cheap range query on the primary key of the job instance table). The
+	 * range starts {@link #setRefreshWindow(long) refresh window} ids below the
+	 * high watermark, to catch instances that were committed out of order.
+	 */
+	public void refresh() {
+		if (historicJobNames == null) {
+			getHistoricJobNames();
+			return;
+		}
+		long watermark;
+		synchronized (this) {
+			watermark = highWatermark;
+		}
+		Map<String, Long> names = jobInstanceDao.findJobNamesAfter(Math.max(-1, watermark - refreshWindow));
+		if (!names.isEmpty()) {
+			add(names.keySet(), Collections.max(names.values()));
+		}
+	}
+
+	/**
+	 * Discard the historic job names and read them all again.
+	 */
+	public void reload() {
+		Map<String, Long> names = jobInstanceDao.findJobNamesAfter(-1);
+		synchronized (this) {
+			historicJobNames = Collections.unmodifiableSet(new TreeSet<String>(names.keySet()));
+			highWatermark = names.isEmpty() ? -1 : Collections.max(names.values());
+		}
+	}
+
+	private Set<String> getHistoricJobNames() {
+		Set<String> result = historicJobNames;
+		if (result == null) {
+			synchronized (this) {
+				if (historicJobNames == null) {
+					reload();
+				}
+				result = historicJobNames;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Copy on write, so that readers never need to lock.
+	 */
+	private synchronized void add(Set<String> names, long watermark) {
+		Set<String> current = getHistoricJobNames();
+		if (!current.containsAll(names)) {
+			Set<String> updated = new TreeSet<String>(current);
+			updated.addAll(names);
+			historicJobNames = Collections.unmodifiableSet(updated);
+			logger.debug("Added historic job names: " + names);
+		}
+		if (watermark > highWatermark) {
+			highWatermark = watermark;
+		}
+	}
+
+}
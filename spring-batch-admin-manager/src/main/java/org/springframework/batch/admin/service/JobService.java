@@ -16,7 +16,11 @@
 package org.springframework.batch.admin.service;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
+import org.springframework.batch.admin.domain.StepExecutionHistory;
+import org.springframework.batch.core.BatchStatus;
 import org.springframework.batch.core.Job;
 import org.springframework.batch.core.JobExecution;
 import org.springframework.batch.core.JobInstance;
@@ -77,6 +81,32 @@ public interface JobService {
 	JobExecutionAlreadyRunningException, JobRestartException, JobInstanceAlreadyCompleteException,
 	JobParametersInvalidException;
 
+	/**
+	 * Put a request to launch a job in the durable launch queue, instead of
+	 * launching it immediately. The request is launched (as if by
+	 * {@link #launch(String, JobParameters)}) when there is capacity, even if
+	 * this process restarts in the meantime.
+	 * 
+	 * @param jobName the job name
+	 * @param params the {@link JobParameters}
+	 * @param priority the priority (requests with a higher priority are
+	 * launched first)
+	 * @return the queued {@link LaunchRequest}
+	 * 
+	 * @throws NoSuchJobException if the job cannot be launched here
+	 * @throws LaunchQueueDisabledException if the launch queue is not enabled
+	 */
+	LaunchRequest enqueue(String jobName, JobParameters params, int priority) throws NoSuchJobException,
+			LaunchQueueDisabledException;
+
+	/**
+	 * Get the current state of a queued launch request.
+	 * 
+	 * @param launchRequestId the id of the request
+	 * @return the {@link LaunchRequest} or null if there is none with this id
+	 */
+	LaunchRequest getLaunchRequest(Long launchRequestId);
+
 	/**
 	 * Get the last {@link JobParameters} used to execute a job successfully.
 	 * 
@@ -170,6 +200,13 @@ public interface JobService {
 	 */
 	int countJobs();
 
+	/**
+	 * Job names are cached, so jobs that only exist in the repository show up
+	 * in {@link #listJobs(int, int)} after a refresh. Bring the names up to
+	 * date with any job instances created since the last refresh.
+	 */
+	void refreshJobNames();
+
 	/**
 	 * Get a {@link JobInstance job instance} by id.
 	 * 
@@ -201,6 +238,18 @@ public interface JobService {
 	 */
 	int countJobInstances(String jobName) throws NoSuchJobException;
 
+	/**
+	 * The total number of job instances for a job, for display with a paged
+	 * listing. Depending on the configuration this may be cached or an
+	 * estimate, and should only be used where an approximate value is
+	 * acceptable.
+	 * 
+	 * @param jobName the name of the job
+	 * @return the number of job instances available
+	 * @throws NoSuchJobException
+	 */
+	TotalCount getTotalJobInstances(String jobName) throws NoSuchJobException;
+
 	/**
 	 * List the {@link JobExecution job executions} for a job in descending
 	 * order of creation (usually close to execution order).
@@ -213,6 +262,36 @@ public interface JobService {
 	 */
 	Collection<JobExecution> listJobExecutionsForJob(String jobName, int start, int count) throws NoSuchJobException;
 
+	/**
+	 * List the {@link JobExecution job executions} for a job that follow the
+	 * one with the given id in descending order of creation. This is the
+	 * keyset equivalent of {@link #listJobExecutionsForJob(String, int, int)}:
+	 * the client passes the id of the last execution it has seen instead of an
+	 * offset, so deep pages are as cheap as the first one.
+	 * 
+	 * @param jobName the job name
+	 * @param afterId the id of the last execution already seen
+	 * @param count the maximum number of executions to return
+	 * @return a collection of {@link JobExecution}
+	 * @throws NoSuchJobException
+	 */
+	Collection<JobExecution> listJobExecutionsForJobAfter(String jobName, long afterId, int count)
+			throws NoSuchJobException;
+
+	/**
+	 * List the {@link JobExecution job executions} for a job that precede the
+	 * one with the given id in descending order of creation (still sorted most
+	 * recent first).
+	 * 
+	 * @param jobName the job name
+	 * @param beforeId the id of the first execution already seen
+	 * @param count the maximum number of executions to return
+	 * @return a collection of {@link JobExecution}
+	 * @throws NoSuchJobException
+	 */
+	Collection<JobExecution> listJobExecutionsForJobBefore(String jobName, long beforeId, int count)
+			throws NoSuchJobException;
+
 	/**
 	 * Count the job executions in the repository for a job.
 	 * 
@@ -222,6 +301,35 @@ public interface JobService {
 	 */
 	int countJobExecutionsForJob(String jobName) throws NoSuchJobException;
 
+	/**
+	 * The total number of job executions for a job, for display with a paged
+	 * listing. Depending on the configuration this may be cached or an
+	 * estimate.
+	 * 
+	 * @param jobName the job name
+	 * @return the number of executions
+	 * @throws NoSuchJobException
+	 * @see #getTotalJobInstances(String)
+	 */
+	TotalCount getTotalJobExecutionsForJob(String jobName) throws NoSuchJobException;
+
+	/**
+	 * Count the job executions in the repository for a job, grouped by status.
+	 * 
+	 * @param jobName the job name
+	 * @return the number of executions for each status that has any
+	 * @throws NoSuchJobException
+	 */
+	Map<BatchStatus, Integer> countJobExecutionsForJobByStatus(String jobName) throws NoSuchJobException;
+
+	/**
+	 * Count the job executions in the repository for all jobs at once,
+	 * grouped by job name and status.
+	 * 
+	 * @return the number of executions for each job and status that has any
+	 */
+	Map<String, Map<BatchStatus, Integer>> countJobExecutionsByJobAndStatus();
+
 	/**
 	 * Get all the job executions for a given job instance. On a sunny day there
 	 * would be only one. If there have been failures and restarts there may be
@@ -245,6 +353,28 @@ public interface JobService {
 	 */
 	Collection<JobExecution> listJobExecutions(int start, int count);
 
+	/**
+	 * List the {@link JobExecution job executions} that follow the one with
+	 * the given id in descending order of creation. This is the keyset
+	 * equivalent of {@link #listJobExecutions(int, int)}.
+	 * 
+	 * @param afterId the id of the last execution already seen
+	 * @param count the maximum number of executions
+	 * @return a collection of {@link JobExecution}
+	 */
+	Collection<JobExecution> listJobExecutionsAfter(long afterId, int count);
+
+	/**
+	 * List the {@link JobExecution job executions} that precede the one with
+	 * the given id in descending order of creation (still sorted most recent
+	 * first).
+	 * 
+	 * @param beforeId the id of the first execution already seen
+	 * @param count the maximum number of executions
+	 * @return a collection of {@link JobExecution}
+	 */
+	Collection<JobExecution> listJobExecutionsBefore(long beforeId, int count);
+
 	/**
 	 * Count the maximum number of executions that could be returned by
 	 * {@link #listJobExecutions(int, int)}.
@@ -253,6 +383,22 @@ public interface JobService {
 	 */
 	int countJobExecutions();
 
+	/**
+	 * The total number of job executions, for display with a paged listing.
+	 * Depending on the configuration this may be cached or an estimate.
+	 * 
+	 * @return the number of job executions in the job repository
+	 * @see #getTotalJobInstances(String)
+	 */
+	TotalCount getTotalJobExecutions();
+
+	/**
+	 * Count the job executions in the repository grouped by status.
+	 * 
+	 * @return the number of job executions for each status that has any
+	 */
+	Map<BatchStatus, Integer> countJobExecutionsByStatus();
+
 	/**
 	 * Get a {@link JobExecution} by id.
 	 * 
@@ -263,6 +409,33 @@ public interface JobService {
 	 */
 	JobExecution getJobExecution(Long jobExecutionId) throws NoSuchJobExecutionException;
 
+	/**
+	 * Get a {@link JobExecution} by id, loading as much of its execution
+	 * context as the caller needs. Whatever is loaded is deserialized only
+	 * when the context is first read. The step executions are included, but
+	 * not their execution contexts.
+	 * 
+	 * @param jobExecutionId the job execution id
+	 * @param fetchMode how much of the execution context to load
+	 * @return the {@link JobExecution}
+	 * 
+	 * @throws NoSuchJobExecutionException
+	 */
+	JobExecution getJobExecution(Long jobExecutionId, ExecutionContextFetchMode fetchMode)
+			throws NoSuchJobExecutionException;
+
+	/**
+	 * Get a revision number for each of the job executions provided, which
+	 * increases whenever the execution or any of its step executions changes
+	 * in the repository. Use this to detect changes cheaply before loading an
+	 * execution with {@link #getJobExecution(Long)}.
+	 * 
+	 * @param jobExecutionIds the job execution ids
+	 * @return a map from job execution id to revision (executions that do not
+	 * exist are absent)
+	 */
+	Map<Long, Long> getJobExecutionRevisions(Collection<Long> jobExecutionIds);
+
 	/**
 	 * Get the {@link StepExecution step executions} for a given job execution
 	 * (by id).
@@ -289,6 +462,24 @@ public interface JobService {
 	Collection<StepExecution> listStepExecutionsForStep(String jobName, String stepName, int start, int count)
 			throws NoSuchStepException;
 
+	/**
+	 * List the {@link StepExecution step executions} for a step that follow
+	 * the one with the given id in descending order of creation. This is the
+	 * keyset equivalent of
+	 * {@link #listStepExecutionsForStep(String, String, int, int)}; it does
+	 * not check that the step exists, so an unknown step simply has no
+	 * executions.
+	 * @param jobName the name of the job associated with the step (or a pattern
+	 * with wildcards)
+	 * @param stepName the step name (or a pattern with wildcards)
+	 * @param afterId the id of the last step execution already seen
+	 * @param count the maximum number of executions to return
+	 * 
+	 * @return a collection of {@link StepExecution}
+	 */
+	Collection<StepExecution> listStepExecutionsForStepAfter(String jobName, String stepName, long afterId,
+			int count);
+
 	/**
 	 * Count the step executions in the repository for a given step name (or
 	 * pattern).
@@ -300,6 +491,37 @@ public interface JobService {
 	 */
 	int countStepExecutionsForStep(String jobName, String stepName) throws NoSuchStepException;
 
+	/**
+	 * Count the step executions in the repository for a given step name (or
+	 * pattern), grouped by status.
+	 * @param jobName the job name (or a pattern with wildcards)
+	 * @param stepName the step name (or a pattern with wildcards)
+	 * 
+	 * @return the number of executions for each status that has any
+	 */
+	Map<BatchStatus, Integer> countStepExecutionsForStepByStatus(String jobName, String stepName);
+
+	/**
+	 * Count the step executions in the repository for all jobs and steps at
+	 * once, grouped by job name, step name and status.
+	 * 
+	 * @return the number of executions for each job, step and status that has
+	 * any
+	 */
+	Map<String, Map<String, Map<BatchStatus, Integer>>> countStepExecutionsByStepAndStatus();
+
+	/**
+	 * Summarise the finished executions of a step (or steps matching a
+	 * pattern), e.g. to estimate the progress of a running execution. The
+	 * history is maintained incrementally, so repeated calls do not scan all
+	 * the executions in the repository.
+	 * 
+	 * @param jobName the job name (or a pattern with wildcards)
+	 * @param stepName the step name (or a pattern with wildcards)
+	 * @return the {@link StepExecutionHistory} for the step
+	 */
+	StepExecutionHistory getStepExecutionHistory(String jobName, String stepName);
+
 	/**
 	 * Locate a {@link StepExecution} from its id and that of its parent
 	 * {@link JobExecution}.
@@ -315,12 +537,56 @@ public interface JobService {
 	NoSuchJobExecutionException;
 
 	/**
-	 * Send a stop signal to all running job executions.
+	 * Locate a {@link StepExecution} from its id and that of its parent
+	 * {@link JobExecution}, loading as much of the step execution context as
+	 * the caller needs. The parent is only a shell with its id, status, dates
+	 * and {@link JobInstance} (not its parameters, context or other step
+	 * executions).
 	 * 
-	 * @return the number of executions affected
+	 * @param jobExecutionId the job execution id
+	 * @param stepExecutionId the step execution id
+	 * @param fetchMode how much of the step execution context to load
+	 * @return the {@link StepExecution}
+	 * 
+	 * @throws NoSuchStepExecutionException
+	 * @throws NoSuchJobExecutionException
+	 */
+	StepExecution getStepExecution(Long jobExecutionId, Long stepExecutionId, ExecutionContextFetchMode fetchMode)
+			throws NoSuchStepExecutionException, NoSuchJobExecutionException;
+
+	/**
+	 * Send a stop signal to all running job executions (including the ones
+	 * that are already stopping).
+	 * 
+	 * @return the number of running executions found, whether or not the
+	 * signal could be sent to all of them
 	 */
 	int stopAll();
 
+	/**
+	 * Send a stop signal to all the running job executions that match the
+	 * criteria provided. The executions are updated in the repository in one
+	 * batch, and an execution that changed since it was selected is not
+	 * updated (it is reported as a conflict). JSR-352 executions are stopped
+	 * through the JSR-352 job operator, concurrently.
+	 * 
+	 * @param criteria the criteria for the executions to stop (only the
+	 * running statuses are considered)
+	 * @return the outcome for each matching execution, oldest first
+	 */
+	List<JobExecutionOutcome> stopJobExecutions(JobExecutionCriteria criteria);
+
+	/**
+	 * Mark all the stopped or failed job executions that match the criteria
+	 * provided as abandoned, so they cannot be restarted. Works like
+	 * {@link #stopJobExecutions(JobExecutionCriteria)} otherwise.
+	 * 
+	 * @param criteria the criteria for the executions to abandon (only
+	 * STOPPING, STOPPED and FAILED are considered)
+	 * @return the outcome for each matching execution, oldest first
+	 */
+	List<JobExecutionOutcome> abandonJobExecutions(JobExecutionCriteria criteria);
+
 	/**
 	 * Check if a job has a {@link JobParametersIncrementer}.
 	 * 
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2009-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.admin.service;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternResolver;
+
+/**
+ * Catalog of the JSR-352 job names, i.e. the names of the job XML files under
+ * <code>META-INF/batch-jobs</code> on the classpath. Scanning the classpath
+ * means opening every jar, so the names are read once (on first use) and held
+ * in an immutable set until {@link #reload()} is called explicitly, e.g. after
+ * a new module has been deployed.
+ * 
+ * @author Dave Syer
+ * 
+ */
+public class JsrJobCatalog {
+
+	/**
+	 * The default location pattern for JSR-352 job XML files.
+	 */
+	public static final String DEFAULT_JOB_LOCATIONS = "classpath*:/META-INF/batch-jobs/**/*.xml";
+
+	private static final Log logger = LogFactory.getLog(JsrJobCatalog.class);
+
+	private final ResourcePatternResolver resourcePatternResolver;
+
+	private final String jobLocations;
+
+	private volatile Set<String> jobNames;
+
+	public JsrJobCatalog() {
+		this(new PathMatchingResourcePatternResolver(), DEFAULT_JOB_LOCATIONS);
+	}
+
+	/**
+	 * @param resourcePatternResolver the resolver used to scan for job XML
+	 * files
+	 * @param jobLocations the location pattern of the job XML files
+	 */
+	public JsrJobCatalog(ResourcePatternResolver resourcePatternResolver, String jobLocations) {
+		this.resourcePatternResolver = resourcePatternResolver;
+		this.jobLocations = jobLocations;
+	}
+
+	/**
+	 * The names of the JSR-352 jobs, scanning the classpath if this is the
+	 * first call since creation or the last {@link #reload()}.
+	 * 
+	 * @return an unmodifiable set of job names
+	 */
+	public Set<String> getJobNames() {
+		Set<String> result = jobNames;
+		if (result == null) {
+			synchronized (this) {
+				result = jobNames;
+				if (result == null) {
+					result = scan();
+					jobNames = result;
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Convenience method to check if a job is a JSR-352 job.
+	 * 
+	 * @param jobName the job name
+	 * @return true if there is a job XML file with that name
+	 */
+	public boolean contains(String jobName) {
+		return getJobNames().contains(jobName);
+	}
+
+	/**
+	 * Scan the classpath again and replace the cached job names.
+	 */
+	public void reload() {
+		Set<String> result = scan();
+		synchronized (this) {
+			jobNames = result;
+		}
+	}
+
+	private Set<String> scan() {
+
+		Set<String> names = new HashSet<String>();
+
+		try {
+			Resource[] resources = resourcePatternResolver.getResources(jobLocations);
+
+			for (Resource resource : resources) {
+				String jobXmlFileName = resource.getFilename();
+				names.add(jobXmlFileName.substring(0, jobXmlFileName.length() - 4));
+			}
+		}
+		catch (IOException e) {
+			logger.debug("Unable to list JSR-352 batch jobs", e);
+		}
+
+		logger.debug("Found JSR-352 batch jobs: " + names);
+
+		return Collections.unmodifiableSet(names);
+
+	}
+
+}
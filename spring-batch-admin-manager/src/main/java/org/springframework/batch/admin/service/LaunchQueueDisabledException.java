@@ -0,0 +1,34 @@
+/*
+ * Copyright 2009-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.admin.service;
+
+import org.springframework.batch.core.JobExecutionException;
+
+/**
+ * Thrown when a {@link LaunchRequest} is submitted but the durable launch
+ * queue is not enabled.
+ * 
+ * @author Dave Syer
+ * 
+ */
+@SuppressWarnings("serial")
+public class LaunchQueueDisabledException extends JobExecutionException {
+
+	public LaunchQueueDisabledException(String msg) {
+		super(msg);
+	}
+
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2009-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.admin.service;
+
+import java.util.Date;
+
+import org.springframework.batch.core.JobParameters;
+
+/**
+ * A request to launch a job, held in a durable queue in the repository until
+ * there is capacity to launch it.
+ * 
+ * @see JobService#enqueue(String, JobParameters, int)
+ * 
+ * @author Dave Syer
+ * 
+ */
+public class LaunchRequest {
+
+	/**
+	 * The name of the (non-identifying) job parameter that links a job
+	 * execution to the request it was launched from.
+	 */
+	public static final String LAUNCH_REQUEST_ID_KEY = "launch.request.id";
+
+	/**
+	 * The state of a launch request.
+	 */
+	public static enum Status {
+
+		/**
+		 * Waiting to be launched.
+		 */
+		QUEUED,
+
+		/**
+		 * Claimed by a dispatcher that is launching it.
+		 */
+		LAUNCHING,
+
+		/**
+		 * Launched (the job execution id is known).
+		 */
+		LAUNCHED,
+
+		/**
+		 * The launch failed (see the message).
+		 */
+		FAILED
+
+	}
+
+	private Long id;
+
+	private String jobName;
+
+	private JobParameters jobParameters = new JobParameters();
+
+	private int priority;
+
+	private Status status = Status.QUEUED;
+
+	private Date createTime;
+
+	private Date dispatchTime;
+
+	private Long jobExecutionId;
+
+	private String owner;
+
+	private Date leaseExpires;
+
+	private String message;
+
+	public LaunchRequest() {
+	}
+
+	public LaunchRequest(String jobName, JobParameters jobParameters, int priority) {
+		this.jobName = jobName;
+		this.jobParameters = jobParameters;
+		this.priority = priority;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public String getJobName() {
+		return jobName;
+	}
+
+	public void setJobName(String jobName) {
+		this.jobName = jobName;
+	}
+
+	public JobParameters getJobParameters() {
+		return jobParameters;
+	}
+
+	public void setJobParameters(JobParameters jobParameters) {
+		this.jobParameters = jobParameters;
+	}
+
+	/**
+	 * @return the priority (requests with a higher priority are launched
+	 * first)
+	 */
+	public int getPriority() {
+		return priority;
+	}
+
+	public void setPriority(int priority) {
+		this.priority = priority;
+	}
+
+	public Status getStatus() {
+		return status;
+	}
+
+	public void setStatus(Status status) {
+		this.status = status;
+	}
+
+	public Date getCreateTime() {
+		return createTime;
+	}
+
+	public void setCreateTime(Date createTime) {
+		this.createTime = createTime;
+	}
+
+	/**
+	 * @return the time the request was last claimed for launching (null if it
+	 * never was)
+	 */
+	public Date getDispatchTime() {
+		return dispatchTime;
+	}
+
+	public void setDispatchTime(Date dispatchTime) {
+		this.dispatchTime = dispatchTime;
+	}
+
+	/**
+	 * @return the id of the job execution that was launched (null until the
+	 * request is {@link Status#LAUNCHED})
+	 */
+	public Long getJobExecutionId() {
+		return jobExecutionId;
+	}
+
+	public void setJobExecutionId(Long jobExecutionId) {
+		this.jobExecutionId = jobExecutionId;
+	}
+
+	/**
+	 * @return the identifier of the dispatcher that last claimed the request
+	 * (null if it never was)
+	 */
+	public String getOwner() {
+		return owner;
+	}
+
+	public void setOwner(String owner) {
+		this.owner = owner;
+	}
+
+	/**
+	 * @return the time after which a claim that has no outcome can be
+	 * recovered
+	 */
+	public Date getLeaseExpires() {
+		return leaseExpires;
+	}
+
+	public void setLeaseExpires(Date leaseExpires) {
+		this.leaseExpires = leaseExpires;
+	}
+
+	public String getMessage() {
+		return message;
+	}
+
+	public void setMessage(String message) {
+		this.message = message;
+	}
+
+	@Override
+	public String toString() {
+		return "LaunchRequest: id=" + id + ", jobName=" + jobName + ", status=" + status + ", priority=" + priority
+				+ ", jobParameters=" + jobParameters;
+	}
+
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2009-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.admin.service;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Data access for the durable queue of {@link LaunchRequest launch requests}.
+ * 
+ * @author Dave Syer
+ * 
+ */
+public interface LaunchRequestDao {
+
+	/**
+	 * Save a new request in the queue, assigning its id and create time.
+	 * 
+	 * @param launchRequest the request to save
+	 */
+	void saveLaunchRequest(LaunchRequest launchRequest);
+
+	/**
+	 * @param id the id of a launch request
+	 * @return the request or null if there is none with this id
+	 */
+	LaunchRequest getLaunchRequest(Long id);
+
+	/**
+	 * Find the requests waiting in the queue, in the order they should be
+	 * launched (highest priority first, then oldest first).
+	 * 
+	 * @param count the maximum number of requests to return
+	 * @return the queued requests
+	 */
+	List<LaunchRequest> findQueuedLaunchRequests(int count);
+
+	/**
+	 * @return the number of requests waiting in the queue
+	 */
+	int countQueuedLaunchRequests();
+
+	/**
+	 * Claim a queued request for launching, moving it to
+	 * {@link LaunchRequest.Status#LAUNCHING} with a lease that expires at the
+	 * time provided. The claim is atomic, so if several dispatchers (e.g. on
+	 * different nodes) try to claim the same request only one of them
+	 * succeeds.
+	 * 
+	 * @param id the id of the request
+	 * @param owner the identifier of the claiming dispatcher
+	 * @param leaseExpires the time after which the claim can be recovered
+	 * @return true if the request was claimed, false if it was no longer
+	 * queued
+	 */
+	boolean claimLaunchRequest(Long id, String owner, Date leaseExpires);
+
+	/**
+	 * Record the outcome of launching a claimed request.
+	 * 
+	 * @param id the id of the request
+	 * @param owner the identifier of the dispatcher that claimed it
+	 * @param status {@link LaunchRequest.Status#LAUNCHED} or
+	 * {@link LaunchRequest.Status#FAILED}
+	 * @param jobExecutionId the id of the job execution launched (or null)
+	 * @param message a description of the failure (or null)
+	 * @return true if the request was updated, false if it is no longer
+	 * claimed by this owner (e.g. because the lease expired)
+	 */
+	boolean updateLaunchRequest(Long id, String owner, LaunchRequest.Status status, Long jobExecutionId,
+			String message);
+
+	/**
+	 * Put requests that were claimed but never marked as launched or failed
+	 * (e.g. because the claiming process stopped) back in the queue once their
+	 * lease has expired. A request that has a job execution already (with its
+	 * id in the {@link LaunchRequest#LAUNCH_REQUEST_ID_KEY} job parameter) was
+	 * launched, even if the outcome was not recorded, so it is marked as
+	 * launched instead.
+	 * 
+	 * @param now the current time
+	 * @return the number of requests put back
+	 */
+	int requeueExpiredLaunchRequests(Date now);
+
+}
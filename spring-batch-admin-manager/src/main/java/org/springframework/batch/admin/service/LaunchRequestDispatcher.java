@@ -0,0 +1,320 @@
+/*
+ * Copyright 2009-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.admin.service;
+
+import java.lang.management.ManagementFactory;
+import java.util.Date;
+import java.util.UUID;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.batch.admin.launch.LaunchScheduler;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.util.Assert;
+
+/**
+ * Drains the durable queue of {@link LaunchRequest launch requests}, launching
+ * them through the {@link JobService} as long as there is capacity. If a
+ * {@link #setLaunchScheduler(LaunchScheduler) LaunchScheduler} is provided,
+ * only as many requests as it can dispatch immediately are launched, so that
+ * nothing waits in memory (where it would be lost on a restart). Intended to
+ * be called periodically, e.g. from a scheduled task.
+ * <p>
+ * A request is claimed in the repository before it is launched, and the
+ * outcome is recorded afterwards. The claim is a lease held by this
+ * dispatcher's {@link #setNodeId(String) node id}, so several admin nodes can
+ * share the same queue: each one pulls only as many requests as it has
+ * capacity for, and a request is only ever claimed by one of them. Leases
+ * that expire without an outcome (because the node stopped while launching
+ * them) are put back in the queue by {@link #requeueExpired()}, which is
+ * intended to be called periodically on one node (e.g. the leader). Each job
+ * execution carries the id of its request in a non-identifying job parameter,
+ * so a request that was launched by a node that lost its lease before it
+ * could record the outcome is not launched again.
+ * 
+ * @author Dave Syer
+ * 
+ */
+@ManagedResource
+public class LaunchRequestDispatcher {
+
+	private static final Log logger = LogFactory.getLog(LaunchRequestDispatcher.class);
+
+	/**
+	 * Default value for the {@link #setMaxBatchSize(int) maximum batch size}.
+	 */
+	public static final int DEFAULT_MAX_BATCH_SIZE = 10;
+
+	/**
+	 * Default value for the {@link #setLeaseTime(long) lease time}.
+	 */
+	public static final long DEFAULT_LEASE_TIME = 5 * 60 * 1000;
+
+	private final JobService jobService;
+
+	private final LaunchRequestDao launchRequestDao;
+
+	private LaunchScheduler launchScheduler;
+
+	private volatile boolean enabled = true;
+
+	private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+
+	private long leaseTime = DEFAULT_LEASE_TIME;
+
+	private String nodeId = createNodeId();
+
+	private volatile int queueDepth = 0;
+
+	private long dispatchedCount = 0;
+
+	private long failedCount = 0;
+
+	private long requeuedCount = 0;
+
+	private long conflictCount = 0;
+
+	private long totalWaitTime = 0;
+
+	private long maxWaitTime = 0;
+
+	public LaunchRequestDispatcher(JobService jobService, LaunchRequestDao launchRequestDao) {
+		Assert.notNull(jobService, "A JobService must be provided");
+		Assert.notNull(launchRequestDao, "A LaunchRequestDao must be provided");
+		this.jobService = jobService;
+		this.launchRequestDao = launchRequestDao;
+	}
+
+	/**
+	 * The scheduler whose free capacity limits the number of requests launched
+	 * at once. Optional.
+	 * 
+	 * @param launchScheduler the {@link LaunchScheduler} to set
+	 */
+	public void setLaunchScheduler(LaunchScheduler launchScheduler) {
+		this.launchScheduler = launchScheduler;
+	}
+
+	/**
+	 * Flag to switch the dispatcher on and off (e.g. if the queue tables have
+	 * not been created). Default is true.
+	 * 
+	 * @param enabled the flag to set
+	 */
+	@ManagedAttribute
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	@ManagedAttribute
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * The maximum number of requests launched in one call to
+	 * {@link #dispatch()}. Default is {@value #DEFAULT_MAX_BATCH_SIZE}.
+	 * 
+	 * @param maxBatchSize the maximum batch size to set
+	 */
+	public void setMaxBatchSize(int maxBatchSize) {
+		this.maxBatchSize = maxBatchSize;
+	}
+
+	/**
+	 * The time in milliseconds after which a claimed request without an
+	 * outcome is put back in the queue. It has to be longer than it takes to
+	 * launch a job (not to run it). Default is {@value #DEFAULT_LEASE_TIME}.
+	 * 
+	 * @param leaseTime the lease time to set
+	 */
+	public void setLeaseTime(long leaseTime) {
+		this.leaseTime = leaseTime;
+	}
+
+	/**
+	 * The identifier that this dispatcher claims requests with. It has to be
+	 * unique among the nodes sharing the queue. Defaults to the name of the
+	 * JVM (process id and host name) with a random suffix.
+	 * 
+	 * @param nodeId the node id to set
+	 */
+	public void setNodeId(String nodeId) {
+		Assert.hasText(nodeId, "The node id must not be empty");
+		this.nodeId = nodeId;
+	}
+
+	@ManagedAttribute
+	public String getNodeId() {
+		return nodeId;
+	}
+
+	/**
+	 * @return the number of requests waiting in the queue (as of the last
+	 * dispatch)
+	 */
+	@ManagedAttribute
+	public int getQueueDepth() {
+		return queueDepth;
+	}
+
+	/**
+	 * @return the number of requests launched by this dispatcher
+	 */
+	@ManagedAttribute
+	public synchronized long getDispatchedCount() {
+		return dispatchedCount;
+	}
+
+	/**
+	 * @return the number of requests that failed to launch
+	 */
+	@ManagedAttribute
+	public synchronized long getFailedCount() {
+		return failedCount;
+	}
+
+	/**
+	 * @return the number of expired leases put back in the queue
+	 */
+	@ManagedAttribute
+	public synchronized long getRequeuedCount() {
+		return requeuedCount;
+	}
+
+	/**
+	 * @return the number of requests that another node claimed first
+	 */
+	@ManagedAttribute
+	public synchronized long getConflictCount() {
+		return conflictCount;
+	}
+
+	/**
+	 * @return the mean time in milliseconds that launched requests waited in
+	 * the queue
+	 */
+	@ManagedAttribute
+	public synchronized double getMeanWaitTime() {
+		return dispatchedCount == 0 ? 0 : (double) totalWaitTime / dispatchedCount;
+	}
+
+	/**
+	 * @return the maximum time in milliseconds that a launched request waited
+	 * in the queue
+	 */
+	@ManagedAttribute
+	public synchronized long getMaxWaitTime() {
+		return maxWaitTime;
+	}
+
+	/**
+	 * Launch as many queued requests as there is capacity for.
+	 * 
+	 * @return the number of requests launched
+	 */
+	@ManagedOperation
+	public synchronized int dispatch() {
+		if (!enabled) {
+			return 0;
+		}
+		int launched = 0;
+		int capacity = getCapacity();
+		if (capacity > 0) {
+			// Other nodes are likely to be looking at the same requests, so
+			// read more than we need and skip the ones they claim first
+			for (LaunchRequest request : launchRequestDao.findQueuedLaunchRequests(2 * capacity)) {
+				if (launched >= capacity) {
+					break;
+				}
+				if (!launchRequestDao.claimLaunchRequest(request.getId(), nodeId,
+						new Date(System.currentTimeMillis() + leaseTime))) {
+					conflictCount++;
+					continue;
+				}
+				if (launch(request)) {
+					launched++;
+				}
+			}
+		}
+		queueDepth = launchRequestDao.countQueuedLaunchRequests();
+		return launched;
+	}
+
+	/**
+	 * Put the requests whose lease expired without an outcome back in the
+	 * queue (or mark them as launched if they have a job execution).
+	 * 
+	 * @return the number of requests put back in the queue
+	 */
+	@ManagedOperation
+	public synchronized int requeueExpired() {
+		if (!enabled) {
+			return 0;
+		}
+		int requeued = launchRequestDao.requeueExpiredLaunchRequests(new Date());
+		if (requeued > 0) {
+			logger.info("Launch requests with expired leases put back in the queue: " + requeued);
+			requeuedCount += requeued;
+		}
+		return requeued;
+	}
+
+	private boolean launch(LaunchRequest request) {
+		JobExecution jobExecution;
+		JobParameters jobParameters = new JobParametersBuilder(request.getJobParameters()).addLong(
+				LaunchRequest.LAUNCH_REQUEST_ID_KEY, request.getId(), false).toJobParameters();
+		try {
+			jobExecution = jobService.launch(request.getJobName(), jobParameters);
+		}
+		catch (Exception e) {
+			logger.warn("Could not launch " + request, e);
+			update(request, LaunchRequest.Status.FAILED, null, e.toString());
+			failedCount++;
+			return false;
+		}
+		update(request, LaunchRequest.Status.LAUNCHED, jobExecution.getId(), null);
+		long wait = System.currentTimeMillis() - request.getCreateTime().getTime();
+		dispatchedCount++;
+		totalWaitTime += wait;
+		maxWaitTime = Math.max(maxWaitTime, wait);
+		return true;
+	}
+
+	private void update(LaunchRequest request, LaunchRequest.Status status, Long jobExecutionId, String message) {
+		if (!launchRequestDao.updateLaunchRequest(request.getId(), nodeId, status, jobExecutionId, message)) {
+			logger.warn("Lease expired while launching " + request
+					+ " (it may have been launched again by another node). Consider increasing the lease time.");
+		}
+	}
+
+	private int getCapacity() {
+		if (launchScheduler == null) {
+			return maxBatchSize;
+		}
+		return Math.min(maxBatchSize, launchScheduler.getAvailableCapacity());
+	}
+
+	private static String createNodeId() {
+		return ManagementFactory.getRuntimeMXBean().getName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+	}
+
+}
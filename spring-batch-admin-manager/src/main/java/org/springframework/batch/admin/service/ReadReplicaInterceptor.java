@@ -0,0 +1,164 @@
+/*
+ * Copyright 2009-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.admin.service;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Date;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.util.Assert;
+import org.springframework.util.PatternMatchUtils;
+
+/**
+ * Interceptor for a dao backed by a read replica (or any read-only copy of the
+ * repository) that sends everything except plain reads to an equivalent dao
+ * backed by the primary database. Reads fall back to the primary as well when
+ * the replica might not have caught up with it yet: when they are about an
+ * execution (passed as an argument) that is not fresh, or when they return a
+ * single execution or instance that is not fresh. An item is not fresh if the
+ * replica does not have it at all, if it is an execution that has not
+ * finished, or if it was updated more recently than the
+ * {@link #setMaxLag(long) maximum lag} of the replica.
+ * 
+ * @author Dave Syer
+ * 
+ */
+public class ReadReplicaInterceptor implements MethodInterceptor {
+
+	/**
+	 * Default value for the {@link #setMaxLag(long) maximum lag}.
+	 */
+	public static final long DEFAULT_MAX_LAG = 5000;
+
+	private final Object primary;
+
+	private final String[] readMethods;
+
+	private String[] primaryMethods = new String[0];
+
+	private long maxLag = DEFAULT_MAX_LAG;
+
+	/**
+	 * @param primary the dao backed by the primary database
+	 * @param readMethods the names of the methods that can be served by the
+	 * replica (optionally with wildcards, e.g. <code>get*</code>)
+	 */
+	public ReadReplicaInterceptor(Object primary, String... readMethods) {
+		Assert.notNull(primary, "A primary dao must be provided");
+		this.primary = primary;
+		this.readMethods = readMethods;
+	}
+
+	/**
+	 * The names of read methods that must always be served by the primary,
+	 * e.g. because their results are used for conditional updates.
+	 * 
+	 * @param primaryMethods the method names to set
+	 */
+	public void setPrimaryMethods(String... primaryMethods) {
+		this.primaryMethods = primaryMethods;
+	}
+
+	/**
+	 * The maximum time in milliseconds that the replica is expected to lag
+	 * behind the primary. Executions updated more recently than this are read
+	 * from the primary. Default is {@value #DEFAULT_MAX_LAG}.
+	 * 
+	 * @param maxLag the maximum lag to set
+	 */
+	public void setMaxLag(long maxLag) {
+		this.maxLag = maxLag;
+	}
+
+	@Override
+	public Object invoke(MethodInvocation invocation) throws Throwable {
+		Method method = invocation.getMethod();
+		String name = method.getName();
+		if (!PatternMatchUtils.simpleMatch(readMethods, name) || PatternMatchUtils.simpleMatch(primaryMethods, name)
+				|| !isFresh(invocation.getArguments())) {
+			return AopUtils.invokeJoinpointUsingReflection(primary, method, invocation.getArguments());
+		}
+		Object result = invocation.proceed();
+		if (isSingleItem(method.getReturnType()) && !isFresh(result)) {
+			return AopUtils.invokeJoinpointUsingReflection(primary, method, invocation.getArguments());
+		}
+		return result;
+	}
+
+	private boolean isSingleItem(Class<?> type) {
+		return JobExecution.class.isAssignableFrom(type) || StepExecution.class.isAssignableFrom(type)
+				|| JobInstance.class.isAssignableFrom(type);
+	}
+
+	/**
+	 * Check that the executions passed as arguments (if any) are fresh.
+	 */
+	private boolean isFresh(Object[] arguments) {
+		for (Object argument : arguments) {
+			if (argument instanceof Collection) {
+				for (Object item : (Collection<?>) argument) {
+					if (isExecution(item) && !isFresh(item)) {
+						return false;
+					}
+				}
+			}
+			else if (isExecution(argument) && !isFresh(argument)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean isExecution(Object item) {
+		return item instanceof JobExecution || item instanceof StepExecution;
+	}
+
+	/**
+	 * Check if the replica can be trusted to have an up to date copy of an item.
+	 */
+	private boolean isFresh(Object item) {
+		if (item == null) {
+			return false;
+		}
+		Date endTime = null;
+		Date lastUpdated = null;
+		if (item instanceof JobExecution) {
+			JobExecution jobExecution = (JobExecution) item;
+			endTime = jobExecution.getEndTime();
+			lastUpdated = jobExecution.getLastUpdated();
+		}
+		else if (item instanceof StepExecution) {
+			StepExecution stepExecution = (StepExecution) item;
+			endTime = stepExecution.getEndTime();
+			lastUpdated = stepExecution.getLastUpdated();
+		}
+		else {
+			return true;
+		}
+		if (endTime == null) {
+			return false;
+		}
+		Date updated = lastUpdated != null ? lastUpdated : endTime;
+		return updated.getTime() < System.currentTimeMillis() - maxLag;
+	}
+
+}
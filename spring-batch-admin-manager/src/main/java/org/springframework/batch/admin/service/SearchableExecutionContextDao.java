@@ -0,0 +1,51 @@
+/*
+ * Copyright 2009-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.admin.service;
+
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.repository.dao.ExecutionContextDao;
+import org.springframework.batch.item.ExecutionContext;
+
+/**
+ * @author Dave Syer
+ * 
+ */
+public interface SearchableExecutionContextDao extends ExecutionContextDao {
+
+	/**
+	 * Load the execution context of a job execution only if it was stored
+	 * entirely in the short context column.
+	 * 
+	 * @param jobExecution the job execution
+	 * @return the execution context, empty if there is none or if it was too
+	 * long to be stored in the short context column
+	 * @see ExecutionContextFetchMode#SHORT
+	 */
+	ExecutionContext getShortExecutionContext(JobExecution jobExecution);
+
+	/**
+	 * Load the execution context of a step execution only if it was stored
+	 * entirely in the short context column.
+	 * 
+	 * @param stepExecution the step execution
+	 * @return the execution context, empty if there is none or if it was too
+	 * long to be stored in the short context column
+	 * @see ExecutionContextFetchMode#SHORT
+	 */
+	ExecutionContext getShortExecutionContext(StepExecution stepExecution);
+
+}
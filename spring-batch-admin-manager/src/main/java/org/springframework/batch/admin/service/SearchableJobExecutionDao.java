@@ -16,8 +16,11 @@
 package org.springframework.batch.admin.service;
 
 import java.util.Collection;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
+import org.springframework.batch.core.BatchStatus;
 import org.springframework.batch.core.JobExecution;
 import org.springframework.batch.core.repository.dao.JobExecutionDao;
 
@@ -53,6 +56,55 @@ public interface SearchableJobExecutionDao extends JobExecutionDao {
 	 */
 	List<JobExecution> getJobExecutions(int start, int count);
 
+	/**
+	 * Get the {@link JobExecution JobExecutions} that follow the one with the
+	 * given id in reverse order of creation, i.e. those with a smaller id, most
+	 * recent first. Unlike {@link #getJobExecutions(int, int)} the cost does
+	 * not grow with the depth of the page because the database can seek
+	 * straight to the id.
+	 * 
+	 * @param afterId the id of the last execution already seen
+	 * @param count the maximum number of executions to return
+	 * @return the {@link JobExecution} instances requested
+	 */
+	List<JobExecution> getJobExecutionsAfter(long afterId, int count);
+
+	/**
+	 * Get the {@link JobExecution JobExecutions} for a specific job name that
+	 * follow the one with the given id in reverse order of creation.
+	 * 
+	 * @param jobName the name of the job
+	 * @param afterId the id of the last execution already seen
+	 * @param count the maximum number of executions to return
+	 * @return the {@link JobExecution} instances requested
+	 * @see #getJobExecutionsAfter(long, int)
+	 */
+	List<JobExecution> getJobExecutionsAfter(String jobName, long afterId, int count);
+
+	/**
+	 * Get the {@link JobExecution JobExecutions} that precede the one with the
+	 * given id in reverse order of creation, i.e. the nearest ones with a
+	 * larger id. The result is still sorted most recent first, so this is the
+	 * page before a page starting with the given id.
+	 * 
+	 * @param beforeId the id of the first execution already seen
+	 * @param count the maximum number of executions to return
+	 * @return the {@link JobExecution} instances requested
+	 */
+	List<JobExecution> getJobExecutionsBefore(long beforeId, int count);
+
+	/**
+	 * Get the {@link JobExecution JobExecutions} for a specific job name that
+	 * precede the one with the given id in reverse order of creation.
+	 * 
+	 * @param jobName the name of the job
+	 * @param beforeId the id of the first execution already seen
+	 * @param count the maximum number of executions to return
+	 * @return the {@link JobExecution} instances requested
+	 * @see #getJobExecutionsBefore(long, int)
+	 */
+	List<JobExecution> getJobExecutionsBefore(String jobName, long beforeId, int count);
+
 	/**
 	 * @param jobName the name of a job
 	 * @return the number of {@link JobExecution JobExecutions} belonging to
@@ -60,6 +112,54 @@ public interface SearchableJobExecutionDao extends JobExecutionDao {
 	 */
 	int countJobExecutions(String jobName);
 
+	/**
+	 * The total number of {@link JobExecution JobExecutions} for display with
+	 * a paged listing, computed according to the configured
+	 * {@link CountStrategy} (so possibly cached or estimated).
+	 * 
+	 * @return the total number of {@link JobExecution} instances
+	 */
+	TotalCount getTotalJobExecutions();
+
+	/**
+	 * The total number of {@link JobExecution JobExecutions} of a job for
+	 * display with a paged listing, computed according to the configured
+	 * {@link CountStrategy} (so possibly cached or estimated).
+	 * 
+	 * @param jobName the name of a job
+	 * @return the total number of {@link JobExecution JobExecutions}
+	 * belonging to this job
+	 */
+	TotalCount getTotalJobExecutions(String jobName);
+
+	/**
+	 * Count the {@link JobExecution JobExecutions} grouped by status in a
+	 * single aggregate query.
+	 * 
+	 * @return a map from status to the number of executions with that status
+	 * (statuses with no executions are absent)
+	 */
+	Map<BatchStatus, Integer> countJobExecutionsByStatus();
+
+	/**
+	 * Count the {@link JobExecution JobExecutions} of a job grouped by status
+	 * in a single aggregate query.
+	 * 
+	 * @param jobName the name of a job
+	 * @return a map from status to the number of executions of this job with
+	 * that status (statuses with no executions are absent)
+	 */
+	Map<BatchStatus, Integer> countJobExecutionsByStatus(String jobName);
+
+	/**
+	 * Count the {@link JobExecution JobExecutions} of all jobs grouped by job
+	 * name and status in a single aggregate query.
+	 * 
+	 * @return a map from job name to the number of executions with each
+	 * status (jobs and statuses with no executions are absent)
+	 */
+	Map<String, Map<BatchStatus, Integer>> countJobExecutionsByJobAndStatus();
+
 	/**
 	 * Find all the running executions (status less than STOPPING).
 	 * 
@@ -67,4 +167,81 @@ public interface SearchableJobExecutionDao extends JobExecutionDao {
 	 */
 	Collection<JobExecution> getRunningJobExecutions();
 
+	/**
+	 * Get a revision number for each of the job executions provided, which
+	 * increases whenever the execution or any of its step executions is
+	 * updated in the repository (it is derived from their versions and the
+	 * number of step executions). Comparing revisions is a cheap way to detect
+	 * changes without loading the executions.
+	 * 
+	 * @param jobExecutionIds the ids of the job executions
+	 * @return a map from job execution id to revision (executions that do not
+	 * exist are absent)
+	 */
+	Map<Long, Long> getJobExecutionRevisions(Collection<Long> jobExecutionIds);
+
+	/**
+	 * Get the current status of each of the job executions provided, without
+	 * loading the executions themselves.
+	 * 
+	 * @param jobExecutionIds the ids of the job executions
+	 * @return a map from job execution id to status (executions that do not
+	 * exist are absent)
+	 */
+	Map<Long, BatchStatus> getJobExecutionStatuses(Collection<Long> jobExecutionIds);
+
+	/**
+	 * Find a page of the job executions that match the criteria provided,
+	 * oldest first. Only the executions, their job instances and their job
+	 * parameters are loaded (there are no step executions or execution
+	 * context). The next page starts after the id of the last execution in
+	 * this one.
+	 * 
+	 * @param criteria the criteria to match
+	 * @param afterId the id of the last execution already seen (-1 for the
+	 * first page)
+	 * @param count the maximum number of executions to return
+	 * @return the matching job executions
+	 */
+	List<JobExecution> findJobExecutions(JobExecutionCriteria criteria, long afterId, int count);
+
+	/**
+	 * Update the status (and end time) of a set of job executions in one
+	 * batch. Each row is only updated if its version has not changed since the
+	 * execution was loaded, and the executions that were updated are brought up
+	 * to date (status, end time, last updated and version).
+	 * 
+	 * @param jobExecutions the job executions to update
+	 * @param status the new status
+	 * @param endTime the new end time (null to leave it unchanged)
+	 * @return the ids of the executions that were updated (the others were
+	 * changed concurrently)
+	 */
+	Collection<Long> updateJobExecutionStatuses(Collection<JobExecution> jobExecutions, BatchStatus status,
+			Date endTime);
+
+	/**
+	 * Get the status and version of a job execution, without loading anything
+	 * else. This is a cheap way to prepare a conditional update.
+	 * 
+	 * @param jobExecutionId the id of the job execution
+	 * @return a job execution with only its id, status, version and last
+	 * updated time (or null if it does not exist)
+	 */
+	JobExecution getJobExecutionState(Long jobExecutionId);
+
+	/**
+	 * Signal a running job execution to stop by setting its status to
+	 * {@link BatchStatus#STOPPING}. Only the status, the last updated time and
+	 * the version are written, and only if the execution is still starting or
+	 * started and its version is the one provided. The version is incremented
+	 * so that the job picks up the new status when it next synchronizes with
+	 * the repository.
+	 * 
+	 * @param jobExecutionId the id of the job execution
+	 * @param version the version the execution is expected to have
+	 * @return true if the execution was updated
+	 */
+	boolean signalStop(Long jobExecutionId, int version);
+
 }
@@ -15,6 +15,8 @@
  */
 package org.springframework.batch.admin.service;
 
+import java.util.Map;
+
 import org.springframework.batch.core.repository.dao.JobInstanceDao;
 
 /**
@@ -29,4 +31,25 @@ public interface SearchableJobInstanceDao extends JobInstanceDao {
 	 */
 	int countJobInstances(String name);
 
+	/**
+	 * The total number of job instances for display with a paged listing,
+	 * computed according to the configured {@link CountStrategy} (so possibly
+	 * cached or estimated).
+	 * 
+	 * @param name the name of the job instances
+	 * @return the number of instances
+	 */
+	TotalCount getTotalJobInstances(String name);
+
+	/**
+	 * Find the names of the jobs that have instances with an id greater than
+	 * the one provided, e.g. to bring a cached list of job names up to date
+	 * incrementally.
+	 * 
+	 * @param jobInstanceId the highest job instance id already seen (-1 for
+	 * all)
+	 * @return a map from job name to the highest id of its new instances
+	 */
+	Map<String, Long> findJobNamesAfter(long jobInstanceId);
+
 }
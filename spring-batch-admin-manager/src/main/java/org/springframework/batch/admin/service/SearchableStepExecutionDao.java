@@ -16,7 +16,10 @@
 package org.springframework.batch.admin.service;
 
 import java.util.Collection;
+import java.util.Map;
 
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
 import org.springframework.batch.core.StepExecution;
 import org.springframework.batch.core.repository.dao.StepExecutionDao;
 
@@ -45,7 +48,8 @@ public interface SearchableStepExecutionDao extends StepExecutionDao {
 
 	/**
 	 * Find all the step executions for a given step name, or step name pattern
-	 * (with wildcards specified as '*') sorted in descending order of id.
+	 * (with wildcards specified as '*') sorted in descending order of id. The
+	 * step executions carry a {@link JobExecution} with only its id populated.
 	 * @param jobName the job name or pattern
 	 * @param stepName
 	 *            the step name or pattern
@@ -58,6 +62,22 @@ public interface SearchableStepExecutionDao extends StepExecutionDao {
 	 */
 	Collection<StepExecution> findStepExecutions(String jobName, String stepName,
 			int start, int count);
+
+	/**
+	 * Find the step executions for a given step name, or step name pattern,
+	 * that follow the one with the given id in descending order of id, i.e.
+	 * those with a smaller id. The cost does not depend on how far into the
+	 * history the page is.
+	 * @param jobName the job name or pattern
+	 * @param stepName the step name or pattern
+	 * @param afterId the id of the last step execution already seen
+	 * @param count the maximum number of step executions to return
+	 * 
+	 * @return a collection of step executions
+	 * @see #findStepExecutions(String, String, int, int)
+	 */
+	Collection<StepExecution> findStepExecutionsAfter(String jobName, String stepName,
+			long afterId, int count);
 	
 	/**
 	 * Count all the step executions for a given step name pattern.
@@ -67,4 +87,59 @@ public interface SearchableStepExecutionDao extends StepExecutionDao {
 	 * @return the total number of step executions in the repository matching the pattern
 	 */
 	int countStepExecutions(String jobName, String stepName);
+
+	/**
+	 * Count the step executions for a given step name pattern grouped by
+	 * status in a single aggregate query.
+	 * @param jobName the job name pattern
+	 * @param stepName the step name pattern.
+	 * 
+	 * @return a map from status to the number of matching step executions with
+	 * that status (statuses with no executions are absent)
+	 */
+	Map<BatchStatus, Integer> countStepExecutionsByStatus(String jobName, String stepName);
+
+	/**
+	 * Count the step executions of all jobs grouped by job name, step name and
+	 * status in a single aggregate query.
+	 * 
+	 * @return a map from job name to step name to the number of step
+	 * executions with each status (names and statuses with no executions are
+	 * absent)
+	 */
+	Map<String, Map<String, Map<BatchStatus, Integer>>> countStepExecutionsByStepAndStatus();
+
+	/**
+	 * Retrieve the step executions for all the job executions provided and add
+	 * them to their parents. This is the bulk equivalent of
+	 * {@link #addStepExecutions(JobExecution)} and is intended for decorating a
+	 * page of job executions without issuing one query per execution.
+	 * 
+	 * @param jobExecutions the parent job executions (all must have an id)
+	 */
+	void addStepExecutions(Collection<JobExecution> jobExecutions);
+
+	/**
+	 * Retrieve a single step execution by id with one query, checking that it
+	 * belongs to the job execution provided. Instead of the full parent the
+	 * result is attached to a minimal {@link JobExecution} shell carrying only
+	 * the id, status and dates and the {@link org.springframework.batch.core.JobInstance}
+	 * (no job parameters, execution context or sibling step executions).
+	 * 
+	 * @param jobExecutionId the id of the parent job execution
+	 * @param stepExecutionId the step execution id
+	 * @return the step execution, or null if there is none with that id in the
+	 * job execution
+	 */
+	StepExecution getStepExecution(Long jobExecutionId, Long stepExecutionId);
+
+	/**
+	 * Retrieve the step executions with the ids provided, with as few queries
+	 * as possible. The step executions carry a {@link JobExecution} with only
+	 * its id populated.
+	 * 
+	 * @param stepExecutionIds the ids of the step executions
+	 * @return the step executions that exist, in no particular order
+	 */
+	Collection<StepExecution> getStepExecutions(Collection<Long> stepExecutionIds);
 }
@@ -15,22 +15,27 @@
  */
 package org.springframework.batch.admin.service;
 
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
-import java.util.HashSet;
-import java.util.Iterator;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import javax.batch.operations.JobOperator;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.springframework.batch.admin.domain.StepExecutionHistory;
+import org.springframework.batch.admin.launch.ScheduledJobLauncher;
 import org.springframework.batch.core.BatchStatus;
 import org.springframework.batch.core.Job;
 import org.springframework.batch.core.JobExecution;
@@ -51,9 +56,10 @@ import org.springframework.batch.core.repository.JobRestartException;
 import org.springframework.batch.core.repository.dao.ExecutionContextDao;
 import org.springframework.batch.core.step.NoSuchStepException;
 import org.springframework.batch.core.step.StepLocator;
+import org.springframework.batch.item.ExecutionContext;
 import org.springframework.beans.factory.DisposableBean;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.util.CollectionUtils;
 
@@ -72,6 +78,14 @@ public class SimpleJobService implements JobService, DisposableBean {
 	// 60 seconds
 	private static final int DEFAULT_SHUTDOWN_TIMEOUT = 60 * 1000;
 
+	// 1 second
+	private static final long SHUTDOWN_POLL_INTERVAL = 1000L;
+
+	private static final int DEFAULT_BULK_OPERATION_CONCURRENCY = 8;
+
+	// Job executions loaded at a time by the bulk operations
+	private static final int BULK_PAGE_SIZE = 500;
+
 	private final SearchableJobInstanceDao jobInstanceDao;
 
 	private final SearchableJobExecutionDao jobExecutionDao;
@@ -86,12 +100,28 @@ public class SimpleJobService implements JobService, DisposableBean {
 
 	private final ExecutionContextDao executionContextDao;
 
-	private Collection<JobExecution> activeExecutions = Collections.synchronizedList(new ArrayList<JobExecution>());
+	private StepExecutionHistoryStore stepExecutionHistoryStore;
+
+	private final ActiveJobExecutionRegistry activeExecutions = new ActiveJobExecutionRegistry();
 
 	private JobOperator jsrJobOperator;
 
 	private int shutdownTimeout = DEFAULT_SHUTDOWN_TIMEOUT;
 
+	private JsrJobCatalog jsrJobCatalog = new JsrJobCatalog();
+
+	private volatile JobNameCatalog jobNameCatalog;
+
+	private AsyncTaskExecutor bulkOperationTaskExecutor = createBulkOperationTaskExecutor();
+
+	private final JobExecutionStopSignaller stopSignaller;
+
+	private final JobExecutionCache jobExecutionCache;
+
+	private LaunchRequestDao launchRequestDao;
+
+	private LaunchRequestDispatcher launchRequestDispatcher;
+
 	/**
 	 * Timeout for shutdown waiting for jobs to finish processing.
 	 *
@@ -101,6 +131,93 @@ public class SimpleJobService implements JobService, DisposableBean {
 		this.shutdownTimeout = shutdownTimeout;
 	}
 
+	/**
+	 * The store used to maintain step execution histories. Defaults to one
+	 * backed by the step execution dao with no window.
+	 *
+	 * @param stepExecutionHistoryStore the store to set
+	 */
+	public void setStepExecutionHistoryStore(StepExecutionHistoryStore stepExecutionHistoryStore) {
+		this.stepExecutionHistoryStore = stepExecutionHistoryStore;
+	}
+
+	/**
+	 * The catalog of JSR-352 job names. Defaults to one that scans the
+	 * classpath once, on first use.
+	 *
+	 * @param jsrJobCatalog the catalog to set
+	 */
+	public void setJsrJobCatalog(JsrJobCatalog jsrJobCatalog) {
+		this.jsrJobCatalog = jsrJobCatalog;
+		this.jobNameCatalog = null;
+	}
+
+	/**
+	 * The task executor used to call the JSR-352 job operator concurrently in
+	 * bulk operations. Defaults to a {@link SimpleAsyncTaskExecutor} running
+	 * at most {@value #DEFAULT_BULK_OPERATION_CONCURRENCY} calls at a time.
+	 *
+	 * @param bulkOperationTaskExecutor the task executor to set
+	 */
+	public void setBulkOperationTaskExecutor(AsyncTaskExecutor bulkOperationTaskExecutor) {
+		this.bulkOperationTaskExecutor = bulkOperationTaskExecutor;
+	}
+
+	/**
+	 * The catalog of all job names (registered, JSR-352 and historic).
+	 * Defaults to one built from the job locator, the JSR-352 job catalog and
+	 * the job instance dao.
+	 *
+	 * @param jobNameCatalog the catalog to set
+	 */
+	public void setJobNameCatalog(JobNameCatalog jobNameCatalog) {
+		this.jobNameCatalog = jobNameCatalog;
+	}
+
+	/**
+	 * The component used to signal job executions to stop (e.g. to tune its
+	 * retries or export its metrics).
+	 *
+	 * @return the stop signaller
+	 */
+	public JobExecutionStopSignaller getStopSignaller() {
+		return stopSignaller;
+	}
+
+	/**
+	 * The cache of job executions loaded by this service (e.g. to change its
+	 * size or export its statistics).
+	 *
+	 * @return the job execution cache
+	 */
+	public JobExecutionCache getJobExecutionCache() {
+		return jobExecutionCache;
+	}
+
+	/**
+	 * The dao for the durable launch queue. Optional: without it (or if the
+	 * {@link #getLaunchRequestDispatcher() dispatcher} is disabled)
+	 * {@link #enqueue(String, JobParameters, int)} throws a
+	 * {@link LaunchQueueDisabledException}.
+	 *
+	 * @param launchRequestDao the dao to set
+	 */
+	public void setLaunchRequestDao(LaunchRequestDao launchRequestDao) {
+		this.launchRequestDao = launchRequestDao;
+		this.launchRequestDispatcher = launchRequestDao == null ? null : new LaunchRequestDispatcher(this,
+				launchRequestDao);
+	}
+
+	/**
+	 * The component that launches the requests in the durable launch queue
+	 * (e.g. to schedule it or export its metrics).
+	 *
+	 * @return the dispatcher (or null if there is no launch queue)
+	 */
+	public LaunchRequestDispatcher getLaunchRequestDispatcher() {
+		return launchRequestDispatcher;
+	}
+
 	public SimpleJobService(SearchableJobInstanceDao jobInstanceDao, SearchableJobExecutionDao jobExecutionDao,
 			SearchableStepExecutionDao stepExecutionDao, JobRepository jobRepository, JobLauncher jobLauncher,
 			ListableJobLocator jobLocator, ExecutionContextDao executionContextDao) {
@@ -118,6 +235,14 @@ public class SimpleJobService implements JobService, DisposableBean {
 		this.jobLauncher = jobLauncher;
 		this.jobLocator = jobLocator;
 		this.executionContextDao = executionContextDao;
+		if (stepExecutionDao != null) {
+			this.stepExecutionHistoryStore = new StepExecutionHistoryStore(stepExecutionDao);
+		}
+		this.stopSignaller = jobExecutionDao == null ? null : new JobExecutionStopSignaller(jobExecutionDao);
+		if (stopSignaller != null) {
+			activeExecutions.addJobExecutionListener(stopSignaller);
+		}
+		this.jobExecutionCache = jobExecutionDao == null ? null : new JobExecutionCache(jobExecutionDao);
 
 		if(jsrJobOperator == null) {
 			logger.warn("No JobOperator compatible with JSR-352 was provided.");
@@ -216,17 +341,17 @@ public class SimpleJobService implements JobService, DisposableBean {
 
 		JobExecution jobExecution = null;
 
-		JobExecution target = getJobExecution(jobExecutionId);
+		jobExecutionCache.invalidate(jobExecutionId);
+		JobExecution target = getJobExecution(jobExecutionId, ExecutionContextFetchMode.NONE);
 		JobInstance lastInstance = target.getJobInstance();
 
 		if(jobLocator.getJobNames().contains(lastInstance.getJobName())) {
 			Job job = jobLocator.getJob(lastInstance.getJobName());
+			boolean listened = activeExecutions.listenTo(job);
 
 			jobExecution = jobLauncher.run(job, target.getJobParameters());
 
-			if (jobExecution.isRunning()) {
-				activeExecutions.add(jobExecution);
-			}
+			activeExecutions.register(jobExecution, listened);
 		}
 		else {
 			if(jsrJobOperator != null) {
@@ -269,11 +394,10 @@ public class SimpleJobService implements JobService, DisposableBean {
 				jobParameters = job.getJobParametersIncrementer().getNext(jobParameters);
 			}
 
+			boolean listened = activeExecutions.listenTo(job);
 			jobExecution = jobLauncher.run(job, jobParameters);
 
-			if (jobExecution.isRunning()) {
-				activeExecutions.add(jobExecution);
-			}
+			activeExecutions.register(jobExecution, listened);
 		}
 		else {
 			if(jsrJobOperator != null) {
@@ -288,6 +412,25 @@ public class SimpleJobService implements JobService, DisposableBean {
 		return jobExecution;
 	}
 
+	@Override
+	public LaunchRequest enqueue(String jobName, JobParameters jobParameters, int priority) throws NoSuchJobException,
+			LaunchQueueDisabledException {
+		if (launchRequestDispatcher == null || !launchRequestDispatcher.isEnabled()) {
+			throw new LaunchQueueDisabledException("The launch queue is not enabled");
+		}
+		if (!isLaunchable(jobName)) {
+			throw new NoSuchJobException(String.format("Unable to find job %s to launch", String.valueOf(jobName)));
+		}
+		LaunchRequest launchRequest = new LaunchRequest(jobName, jobParameters, priority);
+		launchRequestDao.saveLaunchRequest(launchRequest);
+		return launchRequest;
+	}
+
+	@Override
+	public LaunchRequest getLaunchRequest(Long launchRequestId) {
+		return launchRequestDao == null ? null : launchRequestDao.getLaunchRequest(launchRequestId);
+	}
+
 	@Override
 	public JobParameters getLastJobParameters(String jobName) throws NoSuchJobException {
 
@@ -312,90 +455,233 @@ public class SimpleJobService implements JobService, DisposableBean {
 		return jobExecutionDao.getJobExecutions(start, count);
 	}
 
+	@Override
+	public Collection<JobExecution> listJobExecutionsAfter(long afterId, int count) {
+		return jobExecutionDao.getJobExecutionsAfter(afterId, count);
+	}
+
+	@Override
+	public Collection<JobExecution> listJobExecutionsBefore(long beforeId, int count) {
+		return jobExecutionDao.getJobExecutionsBefore(beforeId, count);
+	}
+
 	@Override
 	public int countJobExecutions() {
 		return jobExecutionDao.countJobExecutions();
 	}
 
+	@Override
+	public TotalCount getTotalJobExecutions() {
+		return jobExecutionDao.getTotalJobExecutions();
+	}
+
+	@Override
+	public Map<BatchStatus, Integer> countJobExecutionsByStatus() {
+		return jobExecutionDao.countJobExecutionsByStatus();
+	}
+
 	@Override
 	public Collection<String> listJobs(int start, int count) {
-		Collection<String> jobNames = new LinkedHashSet<String>(jobLocator.getJobNames());
-		jobNames.addAll(getJsrJobNames());
-		if (start + count > jobNames.size()) {
-			jobNames.addAll(jobInstanceDao.getJobNames());
-		}
+		List<String> jobNames = getJobNameCatalog().getJobNames();
 		if (start >= jobNames.size()) {
 			start = jobNames.size();
 		}
 		if (start + count >= jobNames.size()) {
 			count = jobNames.size() - start;
 		}
-		return new ArrayList<String>(jobNames).subList(start, start + count);
+		return jobNames.subList(start, start + count);
 	}
 
-	private Collection<String> getJsrJobNames() {
-
-		Set<String> jsr352JobNames = new HashSet<String>();
+	private Set<String> getJsrJobNames() {
+		return jsrJobCatalog.getJobNames();
+	}
 
-		try {
-			PathMatchingResourcePatternResolver pathMatchingResourcePatternResolver = new org.springframework.core.io.support.PathMatchingResourcePatternResolver();
-			Resource[] resources = pathMatchingResourcePatternResolver.getResources("classpath*:/META-INF/batch-jobs/**/*.xml");
+	private static AsyncTaskExecutor createBulkOperationTaskExecutor() {
+		SimpleAsyncTaskExecutor taskExecutor = new SimpleAsyncTaskExecutor("bulk-operation-");
+		taskExecutor.setConcurrencyLimit(DEFAULT_BULK_OPERATION_CONCURRENCY);
+		return taskExecutor;
+	}
 
-			for (Resource resource : resources) {
-				String jobXmlFileName = resource.getFilename();
-				jsr352JobNames.add(jobXmlFileName.substring(0, jobXmlFileName.length() - 4));
+	private JobNameCatalog getJobNameCatalog() {
+		JobNameCatalog result = jobNameCatalog;
+		if (result == null) {
+			synchronized (this) {
+				if (jobNameCatalog == null) {
+					jobNameCatalog = new JobNameCatalog(jobLocator, jsrJobCatalog, jobInstanceDao);
+				}
+				result = jobNameCatalog;
 			}
-		} catch (IOException e) {
-			logger.debug("Unable to list JSR-352 batch jobs", e);
 		}
+		return result;
+	}
 
-		return jsr352JobNames;
+	@Override
+	public void refreshJobNames() {
+		getJobNameCatalog().refresh();
 	}
 
 	@Override
 	public int countJobs() {
-		Collection<String> names = new HashSet<String>(jobLocator.getJobNames());
-		names.addAll(jobInstanceDao.getJobNames());
-		return names.size();
+		return getJobNameCatalog().getJobNames().size();
 	}
 
 	@Override
 	public int stopAll() {
-		Collection<JobExecution> result = jobExecutionDao.getRunningJobExecutions();
-		Collection<String> jsrJobNames = getJsrJobNames();
+		// STOPPING is included so that the count covers every running
+		// execution (the stop signal is sent again to the ones already
+		// stopping)
+		return updateJobExecutions(new JobExecutionCriteria(),
+				EnumSet.of(BatchStatus.STARTING, BatchStatus.STARTED, BatchStatus.STOPPING), BatchStatus.STOPPING)
+				.size();
+	}
+
+	@Override
+	public List<JobExecutionOutcome> stopJobExecutions(JobExecutionCriteria criteria) {
+		return updateJobExecutions(criteria, EnumSet.of(BatchStatus.STARTING, BatchStatus.STARTED),
+				BatchStatus.STOPPING);
+	}
+
+	@Override
+	public List<JobExecutionOutcome> abandonJobExecutions(JobExecutionCriteria criteria) {
+		return updateJobExecutions(criteria,
+				EnumSet.of(BatchStatus.STOPPING, BatchStatus.STOPPED, BatchStatus.FAILED), BatchStatus.ABANDONED);
+	}
+
+	/**
+	 * Move the job executions that match the criteria (and are in one of the
+	 * eligible statuses) to the target status: in one batch in the repository,
+	 * or through the JSR-352 job operator for JSR-352 jobs. The executions are
+	 * loaded and updated a page at a time, so the memory used does not depend
+	 * on the number of matches.
+	 */
+	private List<JobExecutionOutcome> updateJobExecutions(JobExecutionCriteria criteria, Set<BatchStatus> eligible,
+			final BatchStatus target) {
+
+		Set<BatchStatus> statuses = EnumSet.copyOf(eligible);
+		if (!criteria.getStatuses().isEmpty()) {
+			statuses.retainAll(criteria.getStatuses());
+		}
+		if (statuses.isEmpty()) {
+			return new ArrayList<JobExecutionOutcome>();
+		}
 
-		for (JobExecution jobExecution : result) {
-			if(jsrJobOperator != null && jsrJobNames.contains(jobExecution.getJobInstance().getJobName())) {
-				jsrJobOperator.stop(jobExecution.getId());
+		JobExecutionCriteria query = new JobExecutionCriteria(criteria.getJobName(), statuses,
+				criteria.getCreatedBefore());
+		Map<Long, JobExecutionOutcome> outcomes = new LinkedHashMap<Long, JobExecutionOutcome>();
+		Set<String> jsrJobNames = getJsrJobNames();
+		List<JobExecution> page;
+		long afterId = -1;
+		do {
+			// Paging on the id is not affected by the updates to the previous
+			// pages
+			page = jobExecutionDao.findJobExecutions(query, afterId, BULK_PAGE_SIZE);
+			if (!page.isEmpty()) {
+				updateJobExecutions(page, target, jsrJobNames, outcomes);
+				afterId = page.get(page.size() - 1).getId();
+			}
+		} while (page.size() == BULK_PAGE_SIZE);
+		logger.info("Updated " + outcomes.size() + " job executions to " + target + " (" + criteria + ")");
+
+		return new ArrayList<JobExecutionOutcome>(outcomes.values());
+
+	}
+
+	private void updateJobExecutions(List<JobExecution> candidates, final BatchStatus target,
+			Set<String> jsrJobNames, Map<Long, JobExecutionOutcome> outcomes) {
+
+		List<JobExecution> executions = new ArrayList<JobExecution>();
+		List<JobExecution> jsrExecutions = new ArrayList<JobExecution>();
+		for (JobExecution jobExecution : candidates) {
+			outcomes.put(jobExecution.getId(), null);
+			jobExecutionCache.invalidate(jobExecution.getId());
+			if (target == BatchStatus.STOPPING && !jobExecution.isRunning()) {
+				outcomes.put(jobExecution.getId(), outcome(jobExecution, JobExecutionOutcome.Result.FAILED,
+						"JobExecution is not running and therefore cannot be stopped"));
+			}
+			else if (jsrJobOperator != null && jsrJobNames.contains(jobExecution.getJobInstance().getJobName())) {
+				jsrExecutions.add(jobExecution);
 			}
 			else {
-				jobExecution.stop();
-				jobRepository.update(jobExecution);
+				executions.add(jobExecution);
+			}
+		}
+
+		if (!executions.isEmpty()) {
+			Collection<Long> updated = jobExecutionDao.updateJobExecutionStatuses(executions, target,
+					target == BatchStatus.ABANDONED ? new Date() : null);
+			for (JobExecution jobExecution : executions) {
+				outcomes.put(jobExecution.getId(), updated.contains(jobExecution.getId()) ? outcome(jobExecution,
+						JobExecutionOutcome.Result.UPDATED, null) : outcome(jobExecution,
+						JobExecutionOutcome.Result.CONFLICT, "JobExecution was updated concurrently"));
+			}
+		}
+
+		List<Future<JobExecutionOutcome>> futures = new ArrayList<Future<JobExecutionOutcome>>();
+		for (final JobExecution jobExecution : jsrExecutions) {
+			futures.add(bulkOperationTaskExecutor.submit(new Callable<JobExecutionOutcome>() {
+				@Override
+				public JobExecutionOutcome call() {
+					try {
+						if (target == BatchStatus.STOPPING) {
+							jsrJobOperator.stop(jobExecution.getId());
+						}
+						else {
+							jsrJobOperator.abandon(jobExecution.getId());
+						}
+						jobExecution.setStatus(target);
+						return outcome(jobExecution, JobExecutionOutcome.Result.UPDATED, null);
+					}
+					catch (RuntimeException e) {
+						logger.error("Could not update JSR-352 job execution: " + jobExecution.getId(), e);
+						return outcome(jobExecution, JobExecutionOutcome.Result.FAILED, e.getMessage());
+					}
+				}
+			}));
+		}
+		for (int i = 0; i < futures.size(); i++) {
+			JobExecution jobExecution = jsrExecutions.get(i);
+			JobExecutionOutcome outcome;
+			try {
+				outcome = futures.get(i).get();
 			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				outcome = outcome(jobExecution, JobExecutionOutcome.Result.FAILED, "Interrupted");
+			}
+			catch (ExecutionException e) {
+				outcome = outcome(jobExecution, JobExecutionOutcome.Result.FAILED, e.getCause().getMessage());
+			}
+			outcomes.put(jobExecution.getId(), outcome);
 		}
 
-		return result.size();
+	}
+
+	private JobExecutionOutcome outcome(JobExecution jobExecution, JobExecutionOutcome.Result result, String message) {
+		return new JobExecutionOutcome(jobExecution.getId(), jobExecution.getJobInstance().getJobName(), result,
+				jobExecution.getStatus(), message);
 	}
 
 	@Override
 	public JobExecution stop(Long jobExecutionId) throws NoSuchJobExecutionException, JobExecutionNotRunningException {
 
-		JobExecution jobExecution = getJobExecution(jobExecutionId);
+		JobExecution jobExecution = getJobExecution(jobExecutionId, ExecutionContextFetchMode.NONE);
 		if (!jobExecution.isRunning()) {
 			throw new JobExecutionNotRunningException("JobExecution is not running and therefore cannot be stopped");
 		}
 
 		logger.info("Stopping job execution: " + jobExecution);
 
-		Collection<String> jsrJobNames = getJsrJobNames();
+		Set<String> jsrJobNames = getJsrJobNames();
 
+		jobExecutionCache.invalidate(jobExecutionId);
 		if(jsrJobOperator != null && jsrJobNames.contains(jobExecution.getJobInstance().getJobName())) {
 			jsrJobOperator.stop(jobExecutionId);
-			jobExecution = getJobExecution(jobExecutionId);
+			jobExecution = getJobExecution(jobExecutionId, ExecutionContextFetchMode.NONE);
 		}
 		else {
+			// Only the status is written, so the running job is not disturbed
+			stopSignaller.signal(jobExecutionId);
 			jobExecution.stop();
-			jobRepository.update(jobExecution);
 		}
 		return jobExecution;
 
@@ -405,7 +691,7 @@ public class SimpleJobService implements JobService, DisposableBean {
 	public JobExecution abandon(Long jobExecutionId) throws NoSuchJobExecutionException,
 	JobExecutionAlreadyRunningException {
 
-		JobExecution jobExecution = getJobExecution(jobExecutionId);
+		JobExecution jobExecution = getJobExecution(jobExecutionId, ExecutionContextFetchMode.NONE);
 		if (jobExecution.getStatus().isLessThan(BatchStatus.STOPPING)) {
 			throw new JobExecutionAlreadyRunningException(
 					"JobExecution is running or complete and therefore cannot be aborted");
@@ -413,12 +699,13 @@ public class SimpleJobService implements JobService, DisposableBean {
 
 		logger.info("Aborting job execution: " + jobExecution);
 
-		Collection<String> jsrJobNames = getJsrJobNames();
+		Set<String> jsrJobNames = getJsrJobNames();
 
+		jobExecutionCache.invalidate(jobExecutionId);
 		JobInstance jobInstance = jobExecution.getJobInstance();
 		if(jsrJobOperator != null && jsrJobNames.contains(jobInstance.getJobName())) {
 			jsrJobOperator.abandon(jobExecutionId);
-			jobExecution = getJobExecution(jobExecutionId);
+			jobExecution = getJobExecution(jobExecutionId, ExecutionContextFetchMode.NONE);
 		}
 		else {
 			jobExecution.upgradeStatus(BatchStatus.ABANDONED);
@@ -436,25 +723,59 @@ public class SimpleJobService implements JobService, DisposableBean {
 		return jobExecutionDao.countJobExecutions(name);
 	}
 
+	@Override
+	public TotalCount getTotalJobExecutionsForJob(String name) throws NoSuchJobException {
+		checkJobExists(name);
+		return jobExecutionDao.getTotalJobExecutions(name);
+	}
+
+	@Override
+	public Map<BatchStatus, Integer> countJobExecutionsForJobByStatus(String name) throws NoSuchJobException {
+		checkJobExists(name);
+		return jobExecutionDao.countJobExecutionsByStatus(name);
+	}
+
+	@Override
+	public Map<String, Map<BatchStatus, Integer>> countJobExecutionsByJobAndStatus() {
+		return jobExecutionDao.countJobExecutionsByJobAndStatus();
+	}
+
 	@Override
 	public int countJobInstances(String name) throws NoSuchJobException {
 		return jobInstanceDao.countJobInstances(name);
 	}
 
+	@Override
+	public TotalCount getTotalJobInstances(String name) throws NoSuchJobException {
+		return jobInstanceDao.getTotalJobInstances(name);
+	}
+
+	@Override
+	public Map<Long, Long> getJobExecutionRevisions(Collection<Long> jobExecutionIds) {
+		return jobExecutionDao.getJobExecutionRevisions(jobExecutionIds);
+	}
+
 	@Override
 	public JobExecution getJobExecution(Long jobExecutionId) throws NoSuchJobExecutionException {
-		JobExecution jobExecution = jobExecutionDao.getJobExecution(jobExecutionId);
+		return getJobExecution(jobExecutionId, ExecutionContextFetchMode.FULL);
+	}
+
+	@Override
+	public JobExecution getJobExecution(Long jobExecutionId, ExecutionContextFetchMode fetchMode)
+			throws NoSuchJobExecutionException {
+		JobExecution jobExecution = jobExecutionCache.get(jobExecutionId);
 		if (jobExecution == null) {
-			throw new NoSuchJobExecutionException("There is no JobExecution with id=" + jobExecutionId);
-		}
-		jobExecution.setJobInstance(jobInstanceDao.getJobInstance(jobExecution));
-		try {
-			jobExecution.setExecutionContext(executionContextDao.getExecutionContext(jobExecution));
+			jobExecution = jobExecutionDao.getJobExecution(jobExecutionId);
+			if (jobExecution == null) {
+				throw new NoSuchJobExecutionException("There is no JobExecution with id=" + jobExecutionId);
+			}
+			jobExecution.setJobInstance(jobInstanceDao.getJobInstance(jobExecution));
+			stepExecutionDao.addStepExecutions(jobExecution);
+			jobExecutionCache.put(jobExecution);
 		}
-		catch (Exception e) {
-			logger.info("Cannot load execution context for job execution: " + jobExecution);
+		if (fetchMode != ExecutionContextFetchMode.NONE) {
+			jobExecution.setExecutionContext(new LazyExecutionContext(jobExecution, null, fetchMode));
 		}
-		stepExecutionDao.addStepExecutions(jobExecution);
 		return jobExecution;
 	}
 
@@ -464,26 +785,32 @@ public class SimpleJobService implements JobService, DisposableBean {
 		checkJobExists(name);
 		List<JobExecution> jobExecutions = jobExecutionDao.findJobExecutions(jobInstanceDao
 				.getJobInstance(jobInstanceId));
-		for (JobExecution jobExecution : jobExecutions) {
-			stepExecutionDao.addStepExecutions(jobExecution);
-		}
+		stepExecutionDao.addStepExecutions(jobExecutions);
 		return jobExecutions;
 	}
 
 	@Override
 	public StepExecution getStepExecution(Long jobExecutionId, Long stepExecutionId)
 			throws NoSuchJobExecutionException, NoSuchStepExecutionException {
-		JobExecution jobExecution = getJobExecution(jobExecutionId);
-		StepExecution stepExecution = stepExecutionDao.getStepExecution(jobExecution, stepExecutionId);
+		return getStepExecution(jobExecutionId, stepExecutionId, ExecutionContextFetchMode.FULL);
+	}
+
+	@Override
+	public StepExecution getStepExecution(Long jobExecutionId, Long stepExecutionId,
+			ExecutionContextFetchMode fetchMode) throws NoSuchJobExecutionException, NoSuchStepExecutionException {
+		StepExecution stepExecution = jobExecutionCache.getStepExecution(jobExecutionId, stepExecutionId);
 		if (stepExecution == null) {
+			stepExecution = stepExecutionDao.getStepExecution(jobExecutionId, stepExecutionId);
+		}
+		if (stepExecution == null) {
+			if (jobExecutionDao.getJobExecution(jobExecutionId) == null) {
+				throw new NoSuchJobExecutionException("There is no JobExecution with id=" + jobExecutionId);
+			}
 			throw new NoSuchStepExecutionException("There is no StepExecution with jobExecutionId=" + jobExecutionId
 					+ " and id=" + stepExecutionId);
 		}
-		try {
-			stepExecution.setExecutionContext(executionContextDao.getExecutionContext(stepExecution));
-		}
-		catch (Exception e) {
-			logger.info("Cannot load execution context for step execution: " + stepExecution);
+		if (fetchMode != ExecutionContextFetchMode.NONE) {
+			stepExecution.setExecutionContext(new LazyExecutionContext(null, stepExecution, fetchMode));
 		}
 		return stepExecution;
 	}
@@ -493,9 +820,25 @@ public class SimpleJobService implements JobService, DisposableBean {
 			throws NoSuchJobException {
 		checkJobExists(jobName);
 		List<JobExecution> jobExecutions = jobExecutionDao.getJobExecutions(jobName, start, count);
-		for (JobExecution jobExecution : jobExecutions) {
-			stepExecutionDao.addStepExecutions(jobExecution);
-		}
+		stepExecutionDao.addStepExecutions(jobExecutions);
+		return jobExecutions;
+	}
+
+	@Override
+	public Collection<JobExecution> listJobExecutionsForJobAfter(String jobName, long afterId, int count)
+			throws NoSuchJobException {
+		checkJobExists(jobName);
+		List<JobExecution> jobExecutions = jobExecutionDao.getJobExecutionsAfter(jobName, afterId, count);
+		stepExecutionDao.addStepExecutions(jobExecutions);
+		return jobExecutions;
+	}
+
+	@Override
+	public Collection<JobExecution> listJobExecutionsForJobBefore(String jobName, long beforeId, int count)
+			throws NoSuchJobException {
+		checkJobExists(jobName);
+		List<JobExecution> jobExecutions = jobExecutionDao.getJobExecutionsBefore(jobName, beforeId, count);
+		stepExecutionDao.addStepExecutions(jobExecutions);
 		return jobExecutions;
 	}
 
@@ -508,11 +851,32 @@ public class SimpleJobService implements JobService, DisposableBean {
 		return stepExecutionDao.findStepExecutions(jobName, stepName, start, count);
 	}
 
+	@Override
+	public Collection<StepExecution> listStepExecutionsForStepAfter(String jobName, String stepName, long afterId,
+			int count) {
+		return stepExecutionDao.findStepExecutionsAfter(jobName, stepName, afterId, count);
+	}
+
 	@Override
 	public int countStepExecutionsForStep(String jobName, String stepName) throws NoSuchStepException {
 		return stepExecutionDao.countStepExecutions(jobName, stepName);
 	}
 
+	@Override
+	public Map<BatchStatus, Integer> countStepExecutionsForStepByStatus(String jobName, String stepName) {
+		return stepExecutionDao.countStepExecutionsByStatus(jobName, stepName);
+	}
+
+	@Override
+	public Map<String, Map<String, Map<BatchStatus, Integer>>> countStepExecutionsByStepAndStatus() {
+		return stepExecutionDao.countStepExecutionsByStepAndStatus();
+	}
+
+	@Override
+	public StepExecutionHistory getStepExecutionHistory(String jobName, String stepName) {
+		return stepExecutionHistoryStore.getStepExecutionHistory(jobName, stepName);
+	}
+
 	@Override
 	public JobInstance getJobInstance(long jobInstanceId) throws NoSuchJobInstanceException {
 		JobInstance jobInstance = jobInstanceDao.getJobInstance(jobInstanceId);
@@ -549,28 +913,28 @@ public class SimpleJobService implements JobService, DisposableBean {
 	}
 
 	private void checkJobExists(String jobName) throws NoSuchJobException {
-		if(getJsrJobNames().contains(jobName)) {
-			return;
-		}
-		if (jobLocator.getJobNames().contains(jobName)) {
-			return;
-		}
-		if (jobInstanceDao.countJobInstances(jobName) > 0) {
+		if (getJobNameCatalog().exists(jobName)) {
 			return;
 		}
 		throw new NoSuchJobException("No Job with that name either current or historic: [" + jobName + "]");
 	}
 
 	/**
-	 * Stop all the active jobs and wait for them (up to a time out) to finish
-	 * processing.
+	 * Cancel the launches that are still queued, stop all the active jobs and
+	 * wait for them (up to a time out) to finish processing.
 	 */
 	@Override
 	public void destroy() throws Exception {
 
 		Exception firstException = null;
 
-		for (JobExecution jobExecution : activeExecutions) {
+		if (jobLauncher instanceof ScheduledJobLauncher) {
+			// The launches still queued will never run, so they are not waited
+			// for
+			((ScheduledJobLauncher) jobLauncher).cancelQueuedExecutions();
+		}
+
+		for (JobExecution jobExecution : activeExecutions.getJobExecutions()) {
 			try {
 				if (jobExecution.isRunning()) {
 					stop(jobExecution.getId());
@@ -587,12 +951,21 @@ public class SimpleJobService implements JobService, DisposableBean {
 			}
 		}
 
-		int count = 0;
-		int maxCount = (shutdownTimeout + 1000) / 1000;
-		while (!activeExecutions.isEmpty() && ++count < maxCount) {
-			logger.error("Waiting for " + activeExecutions.size() + " active executions to complete");
-			removeInactiveExecutions();
-			Thread.sleep(1000L);
+		removeInactiveExecutions();
+		long deadline = System.currentTimeMillis() + shutdownTimeout;
+		while (!activeExecutions.isEmpty()) {
+			long remaining = deadline - System.currentTimeMillis();
+			if (remaining <= 0) {
+				logger.error("Timed out waiting for " + activeExecutions.size() + " active executions to complete");
+				break;
+			}
+			logger.info("Waiting for " + activeExecutions.size() + " active executions to complete");
+			// Executions of jobs without listeners can only be detected by
+			// polling the repository
+			if (!activeExecutions.awaitCompletion(activeExecutions.isListening() ? remaining : Math.min(remaining,
+					SHUTDOWN_POLL_INTERVAL))) {
+				removeInactiveExecutions();
+			}
 		}
 
 		if (firstException != null) {
@@ -602,23 +975,213 @@ public class SimpleJobService implements JobService, DisposableBean {
 	}
 
 	/**
-	 * Check all the active executions and see if they are still actually
-	 * running. Remove the ones that have completed.
+	 * Check the active executions against the repository, with a single query
+	 * for their statuses, and remove the ones that have finished. Normally the
+	 * executions signal when they finish, so this is only a fallback for the
+	 * ones that cannot (e.g. jobs that do not accept listeners). The pending
+	 * stop signals are checked for acknowledgement in the same way. Only the
+	 * executions launched (or stopped) by this process are checked, so this
+	 * has to run on every node, not just a leader.
 	 */
 	@Scheduled(fixedDelay = 60000)
 	public void removeInactiveExecutions() {
+		Collection<Long> ids = activeExecutions.getJobExecutionIds();
+		if (!ids.isEmpty()) {
+			activeExecutions.update(jobExecutionDao.getJobExecutionStatuses(ids));
+		}
+		stopSignaller.checkAcknowledged();
+	}
 
-		for (Iterator<JobExecution> iterator = activeExecutions.iterator(); iterator.hasNext();) {
-			JobExecution jobExecution = iterator.next();
-			try {
-				jobExecution = getJobExecution(jobExecution.getId());
+	/**
+	 * Load the execution context of a job or step execution. The short
+	 * context can only be loaded on its own with a
+	 * {@link SearchableExecutionContextDao}, otherwise the whole context is
+	 * loaded.
+	 */
+	private ExecutionContext loadExecutionContext(JobExecution jobExecution, StepExecution stepExecution,
+			ExecutionContextFetchMode fetchMode) {
+		try {
+			if (fetchMode == ExecutionContextFetchMode.SHORT
+					&& executionContextDao instanceof SearchableExecutionContextDao) {
+				SearchableExecutionContextDao dao = (SearchableExecutionContextDao) executionContextDao;
+				return stepExecution != null ? dao.getShortExecutionContext(stepExecution) : dao
+						.getShortExecutionContext(jobExecution);
+			}
+			return stepExecution != null ? executionContextDao.getExecutionContext(stepExecution)
+					: executionContextDao.getExecutionContext(jobExecution);
+		}
+		catch (Exception e) {
+			logger.info("Cannot load execution context for " + (stepExecution != null ? "step execution: "
+					+ stepExecution : "job execution: " + jobExecution));
+			return new ExecutionContext();
+		}
+	}
+
+	/**
+	 * An {@link ExecutionContext} that is loaded (and deserialized) on first
+	 * access. All the public methods delegate to the loaded context.
+	 */
+	@SuppressWarnings("serial")
+	private class LazyExecutionContext extends ExecutionContext {
+
+		private final JobExecution jobExecution;
+
+		private final StepExecution stepExecution;
+
+		private final ExecutionContextFetchMode fetchMode;
+
+		private volatile ExecutionContext delegate;
+
+		public LazyExecutionContext(JobExecution jobExecution, StepExecution stepExecution,
+				ExecutionContextFetchMode fetchMode) {
+			this.jobExecution = jobExecution;
+			this.stepExecution = stepExecution;
+			this.fetchMode = fetchMode;
+		}
+
+		private ExecutionContext getDelegate() {
+			if (delegate == null) {
+				delegate = loadExecutionContext(jobExecution, stepExecution, fetchMode);
 			}
-			catch (NoSuchJobExecutionException e) {
-				logger.error("Unexpected exception loading JobExecution", e);
+			return delegate;
+		}
+
+		@Override
+		public void putString(String key, String value) {
+			getDelegate().putString(key, value);
+		}
+
+		@Override
+		public void putLong(String key, long value) {
+			getDelegate().putLong(key, value);
+		}
+
+		@Override
+		public void putInt(String key, int value) {
+			getDelegate().putInt(key, value);
+		}
+
+		@Override
+		public void putDouble(String key, double value) {
+			getDelegate().putDouble(key, value);
+		}
+
+		@Override
+		public void put(String key, Object value) {
+			getDelegate().put(key, value);
+		}
+
+		@Override
+		public boolean isDirty() {
+			return delegate != null && delegate.isDirty();
+		}
+
+		@Override
+		public String getString(String key) {
+			return getDelegate().getString(key);
+		}
+
+		@Override
+		public String getString(String key, String defaultString) {
+			return getDelegate().getString(key, defaultString);
+		}
+
+		@Override
+		public long getLong(String key) {
+			return getDelegate().getLong(key);
+		}
+
+		@Override
+		public long getLong(String key, long defaultLong) {
+			return getDelegate().getLong(key, defaultLong);
+		}
+
+		@Override
+		public int getInt(String key) {
+			return getDelegate().getInt(key);
+		}
+
+		@Override
+		public int getInt(String key, int defaultInt) {
+			return getDelegate().getInt(key, defaultInt);
+		}
+
+		@Override
+		public double getDouble(String key) {
+			return getDelegate().getDouble(key);
+		}
+
+		@Override
+		public double getDouble(String key, double defaultDouble) {
+			return getDelegate().getDouble(key, defaultDouble);
+		}
+
+		@Override
+		public Object get(String key) {
+			return getDelegate().get(key);
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return getDelegate().isEmpty();
+		}
+
+		@Override
+		public void clearDirtyFlag() {
+			if (delegate != null) {
+				delegate.clearDirtyFlag();
 			}
-			if (!jobExecution.isRunning()) {
-				iterator.remove();
+		}
+
+		@Override
+		public Set<Map.Entry<String, Object>> entrySet() {
+			return getDelegate().entrySet();
+		}
+
+		@Override
+		public boolean containsKey(String key) {
+			return getDelegate().containsKey(key);
+		}
+
+		@Override
+		public Object remove(String key) {
+			return getDelegate().remove(key);
+		}
+
+		@Override
+		public boolean containsValue(Object value) {
+			return getDelegate().containsValue(value);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (obj instanceof LazyExecutionContext) {
+				obj = ((LazyExecutionContext) obj).getDelegate();
 			}
+			return getDelegate().equals(obj);
+		}
+
+		@Override
+		public int hashCode() {
+			return getDelegate().hashCode();
+		}
+
+		@Override
+		public String toString() {
+			return getDelegate().toString();
+		}
+
+		@Override
+		public int size() {
+			return getDelegate().size();
+		}
+
+		/**
+		 * Serialize as a plain {@link ExecutionContext} so that the service is
+		 * not serialized with it.
+		 */
+		private Object writeReplace() {
+			return new ExecutionContext(getDelegate());
 		}
 
 	}
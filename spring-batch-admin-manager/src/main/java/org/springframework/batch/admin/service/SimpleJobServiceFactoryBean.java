@@ -18,12 +18,16 @@ package org.springframework.batch.admin.service;
 import static org.springframework.batch.support.DatabaseType.SYBASE;
 
 import java.sql.Types;
+import java.util.HashMap;
+import java.util.Map;
 
 import javax.sql.DataSource;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.batch.admin.service.JdbcSearchableJobExecutionDao.JobParametersFetchMode;
 import org.springframework.batch.core.configuration.JobLocator;
 import org.springframework.batch.core.configuration.ListableJobLocator;
 import org.springframework.batch.core.explore.JobExplorer;
@@ -45,10 +49,17 @@ import org.springframework.beans.factory.FactoryBean;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.jdbc.core.JdbcOperations;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
 import org.springframework.jdbc.support.lob.DefaultLobHandler;
 import org.springframework.jdbc.support.lob.LobHandler;
 import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.interceptor.NameMatchTransactionAttributeSource;
+import org.springframework.transaction.interceptor.RuleBasedTransactionAttribute;
+import org.springframework.transaction.interceptor.TransactionAttributeSource;
+import org.springframework.transaction.interceptor.TransactionInterceptor;
 import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
 import org.springframework.util.StringUtils;
 
 /**
@@ -61,10 +72,31 @@ import org.springframework.util.StringUtils;
 public class SimpleJobServiceFactoryBean implements FactoryBean<JobService>, InitializingBean {
 	private static final Log logger = LogFactory.getLog(SimpleJobServiceFactoryBean.class);
 
+	/**
+	 * The dao methods that only read from the database.
+	 */
+	private static final String[] READ_METHODS = { "get*", "count*", "find*", "is*", "addStepExecutions" };
+
+	/**
+	 * The dao methods that read data used for conditional updates or change
+	 * detection (a lagging replica would hide the latest changes), so they
+	 * always go to the primary database.
+	 */
+	private static final String[] PRIMARY_READ_METHODS = { "getJobExecutionState", "findJobExecutions",
+			"getJobExecutionRevisions" };
+
 	private DataSource dataSource;
 
 	private JdbcOperations jdbcTemplate;
 
+	private DataSource readDataSource;
+
+	private JdbcOperations readJdbcTemplate;
+
+	private PlatformTransactionManager readTransactionManager;
+
+	private long maxReplicaLag = ReadReplicaInterceptor.DEFAULT_MAX_LAG;
+
 	private String databaseType;
 
 	private String tablePrefix = AbstractJdbcBatchMetadataDao.DEFAULT_TABLE_PREFIX;
@@ -87,6 +119,26 @@ public class SimpleJobServiceFactoryBean implements FactoryBean<JobService>, Ini
 
 	private PlatformTransactionManager transactionManager;
 
+	private JobParametersFetchMode jobParametersFetchMode = JobParametersFetchMode.BATCH;
+
+	private CountStrategy countStrategy = new ExactCountStrategy();
+
+	private int stepExecutionHistoryWindowSize = 0;
+
+	private long stepExecutionHistoryWindowDuration = 0;
+
+	private JsrJobCatalog jsrJobCatalog;
+
+	private int jobExecutionCacheSize = JobExecutionCache.DEFAULT_MAX_SIZE;
+
+	private String isolationLevelForRead;
+
+	private int readTimeout = TransactionDefinition.TIMEOUT_DEFAULT;
+
+	private Map<String, Integer> readTimeouts = new HashMap<String, Integer>();
+
+	private int fetchSize = -1;
+
 	public void setTransactionManager(PlatformTransactionManager transactionManager) {
 		this.transactionManager = transactionManager;
 	}
@@ -196,6 +248,156 @@ public class SimpleJobServiceFactoryBean implements FactoryBean<JobService>, Ini
 		this.serializer = serializer;
 	}
 
+	/**
+	 * The strategy for loading the job parameters of job executions listed by
+	 * the service. Defaults to {@link JobParametersFetchMode#BATCH}.
+	 * 
+	 * @param jobParametersFetchMode the fetch mode to set
+	 */
+	public void setJobParametersFetchMode(JobParametersFetchMode jobParametersFetchMode) {
+		this.jobParametersFetchMode = jobParametersFetchMode;
+	}
+
+	/**
+	 * The strategy for computing the totals shown with paged listings of job
+	 * executions and instances. Defaults to an {@link ExactCountStrategy}; on
+	 * large repositories consider a {@link CachingCountStrategy} and/or an
+	 * {@link EstimatingCountStrategy}.
+	 * 
+	 * @param countStrategy the count strategy to set
+	 */
+	public void setCountStrategy(CountStrategy countStrategy) {
+		this.countStrategy = countStrategy;
+	}
+
+	/**
+	 * The maximum number of recent finished executions used to compute step
+	 * execution histories (e.g. for progress estimates). Defaults to 0,
+	 * meaning all of them.
+	 * 
+	 * @param stepExecutionHistoryWindowSize the window size to set
+	 * @see StepExecutionHistoryStore#setWindowSize(int)
+	 */
+	public void setStepExecutionHistoryWindowSize(int stepExecutionHistoryWindowSize) {
+		this.stepExecutionHistoryWindowSize = stepExecutionHistoryWindowSize;
+	}
+
+	/**
+	 * The maximum age in milliseconds of the finished executions used to
+	 * compute step execution histories. Defaults to 0, meaning no limit.
+	 * 
+	 * @param stepExecutionHistoryWindowDuration the window duration to set
+	 * @see StepExecutionHistoryStore#setWindowDuration(long)
+	 */
+	public void setStepExecutionHistoryWindowDuration(long stepExecutionHistoryWindowDuration) {
+		this.stepExecutionHistoryWindowDuration = stepExecutionHistoryWindowDuration;
+	}
+
+	/**
+	 * The catalog of JSR-352 job names. Provide one to share it with other
+	 * components, e.g. to {@link JsrJobCatalog#reload() reload} it when new
+	 * jobs are deployed. The default scans the classpath once, on first use.
+	 * 
+	 * @param jsrJobCatalog the catalog to set
+	 */
+	public void setJsrJobCatalog(JsrJobCatalog jsrJobCatalog) {
+		this.jsrJobCatalog = jsrJobCatalog;
+	}
+
+	/**
+	 * The maximum size of the cache of job executions (each job execution
+	 * counts as one plus the number of its step executions). Default is
+	 * {@value JobExecutionCache#DEFAULT_MAX_SIZE}; 0 disables the cache.
+	 * 
+	 * @param jobExecutionCacheSize the cache size to set
+	 * @see JobExecutionCache
+	 */
+	public void setJobExecutionCacheSize(int jobExecutionCacheSize) {
+		this.jobExecutionCacheSize = jobExecutionCacheSize;
+	}
+
+	/**
+	 * A read-only data source for the queries of the daos, e.g. a read replica
+	 * of the primary database or a separate connection pool. Writes, and reads
+	 * of executions that might not have been replicated yet, still go to the
+	 * primary {@link #setDataSource(DataSource) data source}. The job
+	 * repository, and therefore launching, stopping and abandoning jobs, is
+	 * not affected. Default is null, meaning all queries go to the primary.
+	 * 
+	 * @param readDataSource the read data source to set
+	 * @see ReadReplicaInterceptor
+	 */
+	public void setReadDataSource(DataSource readDataSource) {
+		this.readDataSource = readDataSource;
+	}
+
+	/**
+	 * The maximum time in milliseconds that the
+	 * {@link #setReadDataSource(DataSource) read data source} is expected to
+	 * lag behind the primary. Executions updated more recently than this are
+	 * read from the primary. Default is
+	 * {@value ReadReplicaInterceptor#DEFAULT_MAX_LAG}.
+	 * 
+	 * @param maxReplicaLag the maximum lag to set
+	 */
+	public void setMaxReplicaLag(long maxReplicaLag) {
+		this.maxReplicaLag = maxReplicaLag;
+	}
+
+	/**
+	 * The transaction isolation level for reads by the daos, e.g.
+	 * <code>ISOLATION_READ_COMMITTED</code> (see {@link TransactionDefinition}
+	 * for the names). If set, the read methods of the daos run in read-only
+	 * transactions at this level (unless they join an existing transaction),
+	 * so that long scans of the execution tables do not hold locks that slow
+	 * down the commits of running jobs. Use
+	 * <code>ISOLATION_DEFAULT</code> for read-only transactions at the default
+	 * isolation level of the database (e.g. read committed snapshot on SQL
+	 * Server if the database is configured for it). Default is null, meaning
+	 * no transactions are started. Requires a transaction manager.
+	 * 
+	 * @param isolationLevelForRead the isolation level name to set
+	 */
+	public void setIsolationLevelForRead(String isolationLevelForRead) {
+		this.isolationLevelForRead = isolationLevelForRead;
+	}
+
+	/**
+	 * The timeout in seconds for the read-only transactions (and therefore
+	 * for the statements they issue). Default is the timeout of the
+	 * transaction manager (usually none).
+	 * 
+	 * @param readTimeout the timeout to set
+	 * @see #setIsolationLevelForRead(String)
+	 */
+	public void setReadTimeout(int readTimeout) {
+		this.readTimeout = readTimeout;
+	}
+
+	/**
+	 * Timeouts in seconds for the read-only transactions of specific dao
+	 * methods, overriding the {@link #setReadTimeout(int) default}. The keys
+	 * are method names, optionally with a wildcard (e.g.
+	 * <code>countJobExecutions*</code>), and should only match read methods.
+	 * 
+	 * @param readTimeouts the timeouts to set
+	 * @see #setIsolationLevelForRead(String)
+	 */
+	public void setReadTimeouts(Map<String, Integer> readTimeouts) {
+		this.readTimeouts = readTimeouts;
+	}
+
+	/**
+	 * The JDBC fetch size for the queries issued by the daos. Large values
+	 * reduce the number of round trips needed for long listings. Default is
+	 * -1, meaning the default of the driver.
+	 * 
+	 * @param fetchSize the fetch size to set
+	 */
+	public void setFetchSize(int fetchSize) {
+		this.fetchSize = fetchSize;
+	}
+
 	public void afterPropertiesSet() throws Exception {
 
 		Assert.notNull(dataSource, "DataSource must not be null.");
@@ -204,7 +406,20 @@ public class SimpleJobServiceFactoryBean implements FactoryBean<JobService>, Ini
 		Assert.notNull(jobLauncher, "JobLauncher must not be null.");
 		Assert.notNull(jobExplorer, "JobExplorer must not be null.");
 
-		jdbcTemplate = new JdbcTemplate(dataSource);
+		if (isolationLevelForRead != null) {
+			Assert.notNull(transactionManager, "A transaction manager is required for read-only transactions.");
+		}
+
+		JdbcTemplate template = new JdbcTemplate(dataSource);
+		template.setFetchSize(fetchSize);
+		jdbcTemplate = template;
+
+		if (readDataSource != null) {
+			JdbcTemplate readTemplate = new JdbcTemplate(readDataSource);
+			readTemplate.setFetchSize(fetchSize);
+			readJdbcTemplate = readTemplate;
+			readTransactionManager = new DataSourceTransactionManager(readDataSource);
+		}
 
 		if (incrementerFactory == null) {
 			incrementerFactory = new DefaultDataFieldMaxValueIncrementerFactory(dataSource);
@@ -233,29 +448,70 @@ public class SimpleJobServiceFactoryBean implements FactoryBean<JobService>, Ini
 	}
 
 	protected SearchableJobInstanceDao createJobInstanceDao() throws Exception {
+		return readFromReplica(createJobInstanceDao(jdbcTemplate),
+				readDataSource == null ? null : createJobInstanceDao(readJdbcTemplate));
+	}
+
+	protected SearchableJobExecutionDao createJobExecutionDao() throws Exception {
+		return readFromReplica(createJobExecutionDao(dataSource, jdbcTemplate),
+				readDataSource == null ? null : createJobExecutionDao(readDataSource, readJdbcTemplate));
+	}
+
+	protected SearchableStepExecutionDao createStepExecutionDao() throws Exception {
+		return readFromReplica(createStepExecutionDao(dataSource, jdbcTemplate),
+				readDataSource == null ? null : createStepExecutionDao(readDataSource, readJdbcTemplate));
+	}
+
+	protected ExecutionContextDao createExecutionContextDao() throws Exception {
+		return readFromReplica(createExecutionContextDao(jdbcTemplate),
+				readDataSource == null ? null : createExecutionContextDao(readJdbcTemplate));
+	}
+
+	/**
+	 * The launch queue is always read and written on the primary data source,
+	 * because requests are claimed as soon as they are found.
+	 */
+	protected LaunchRequestDao createLaunchRequestDao() throws Exception {
+		JdbcLaunchRequestDao dao = new JdbcLaunchRequestDao();
+		dao.setJdbcTemplate(jdbcTemplate);
+		dao.setLaunchRequestIncrementer(incrementerFactory.getIncrementer(databaseType, tablePrefix
+				+ "JOB_LAUNCH_REQUEST_SEQ"));
+		dao.setTablePrefix(tablePrefix);
+		dao.afterPropertiesSet();
+		return dao;
+	}
+
+	private SearchableJobInstanceDao createJobInstanceDao(JdbcOperations jdbcTemplate) throws Exception {
 		JdbcSearchableJobInstanceDao dao = new JdbcSearchableJobInstanceDao();
 		dao.setJdbcTemplate(jdbcTemplate);
 		dao.setJobIncrementer(incrementerFactory.getIncrementer(databaseType, tablePrefix + "JOB_SEQ"));
 		dao.setTablePrefix(tablePrefix);
+		dao.setCountStrategy(countStrategy);
 		dao.afterPropertiesSet();
 		return dao;
 	}
 
-	protected SearchableJobExecutionDao createJobExecutionDao() throws Exception {
+	private SearchableJobExecutionDao createJobExecutionDao(DataSource dataSource, JdbcOperations jdbcTemplate)
+			throws Exception {
 		JdbcSearchableJobExecutionDao dao = new JdbcSearchableJobExecutionDao();
 		dao.setDataSource(dataSource);
+		dao.setJdbcTemplate(jdbcTemplate);
 		dao.setJobExecutionIncrementer(incrementerFactory.getIncrementer(databaseType, tablePrefix
 				+ "JOB_EXECUTION_SEQ"));
 		dao.setTablePrefix(tablePrefix);
 		dao.setClobTypeToUse(determineClobTypeToUse(this.databaseType));
 		dao.setExitMessageLength(maxVarCharLength);
+		dao.setJobParametersFetchMode(jobParametersFetchMode);
+		dao.setCountStrategy(countStrategy);
 		dao.afterPropertiesSet();
 		return dao;
 	}
 
-	protected SearchableStepExecutionDao createStepExecutionDao() throws Exception {
+	private SearchableStepExecutionDao createStepExecutionDao(DataSource dataSource, JdbcOperations jdbcTemplate)
+			throws Exception {
 		JdbcSearchableStepExecutionDao dao = new JdbcSearchableStepExecutionDao();
 		dao.setDataSource(dataSource);
+		dao.setJdbcTemplate(jdbcTemplate);
 		dao.setStepExecutionIncrementer(incrementerFactory.getIncrementer(databaseType, tablePrefix
 				+ "STEP_EXECUTION_SEQ"));
 		dao.setTablePrefix(tablePrefix);
@@ -265,8 +521,8 @@ public class SimpleJobServiceFactoryBean implements FactoryBean<JobService>, Ini
 		return dao;
 	}
 
-	protected ExecutionContextDao createExecutionContextDao() throws Exception {
-		JdbcExecutionContextDao dao = new JdbcExecutionContextDao();
+	private ExecutionContextDao createExecutionContextDao(JdbcOperations jdbcTemplate) throws Exception {
+		JdbcSearchableExecutionContextDao dao = new JdbcSearchableExecutionContextDao();
 		dao.setJdbcTemplate(jdbcTemplate);
 		dao.setTablePrefix(tablePrefix);
 		dao.setClobTypeToUse(determineClobTypeToUse(this.databaseType));
@@ -280,6 +536,69 @@ public class SimpleJobServiceFactoryBean implements FactoryBean<JobService>, Ini
 		return dao;
 	}
 
+	/**
+	 * Combine a dao backed by the primary data source with one backed by the
+	 * {@link #setReadDataSource(DataSource) read data source} (if there is
+	 * one), and wrap them in read-only transactions if required.
+	 * 
+	 * @param primary the dao backed by the primary data source
+	 * @param replica the dao backed by the read data source (or null)
+	 * @return a dao that sends queries to the right place
+	 */
+	@SuppressWarnings("unchecked")
+	protected <T> T readFromReplica(T primary, T replica) {
+		T dao = readOnly(primary, transactionManager);
+		if (replica == null) {
+			return dao;
+		}
+		ReadReplicaInterceptor interceptor = new ReadReplicaInterceptor(dao, READ_METHODS);
+		interceptor.setPrimaryMethods(PRIMARY_READ_METHODS);
+		interceptor.setMaxLag(maxReplicaLag);
+		ProxyFactory factory = new ProxyFactory();
+		factory.setTarget(readOnly(replica, readTransactionManager));
+		factory.setInterfaces(ClassUtils.getAllInterfaces(replica));
+		factory.addAdvice(interceptor);
+		return (T) factory.getProxy();
+	}
+
+	/**
+	 * Wrap a dao so that its read methods run in read-only transactions, if
+	 * an {@link #setIsolationLevelForRead(String) isolation level} has been
+	 * set.
+	 * 
+	 * @param dao the dao to wrap
+	 * @param transactionManager the transaction manager for its data source
+	 * @return a proxy for the dao (or the dao itself)
+	 */
+	@SuppressWarnings("unchecked")
+	protected <T> T readOnly(T dao, PlatformTransactionManager transactionManager) {
+		if (isolationLevelForRead == null) {
+			return dao;
+		}
+		ProxyFactory factory = new ProxyFactory(dao);
+		factory.addAdvice(new TransactionInterceptor(transactionManager, createReadTransactionAttributeSource()));
+		return (T) factory.getProxy();
+	}
+
+	private TransactionAttributeSource createReadTransactionAttributeSource() {
+		NameMatchTransactionAttributeSource source = new NameMatchTransactionAttributeSource();
+		for (String method : READ_METHODS) {
+			source.addTransactionalMethod(method, createReadTransactionAttribute(readTimeout));
+		}
+		for (Map.Entry<String, Integer> entry : readTimeouts.entrySet()) {
+			source.addTransactionalMethod(entry.getKey(), createReadTransactionAttribute(entry.getValue()));
+		}
+		return source;
+	}
+
+	private RuleBasedTransactionAttribute createReadTransactionAttribute(int timeout) {
+		RuleBasedTransactionAttribute attribute = new RuleBasedTransactionAttribute();
+		attribute.setReadOnly(true);
+		attribute.setIsolationLevelName(isolationLevelForRead);
+		attribute.setTimeout(timeout);
+		return attribute;
+	}
+
 	private int determineClobTypeToUse(String databaseType) {
 		if (SYBASE == DatabaseType.valueOf(databaseType.toUpperCase())) {
 			return Types.LONGVARCHAR;
@@ -299,8 +618,19 @@ public class SimpleJobServiceFactoryBean implements FactoryBean<JobService>, Ini
 		jobParametersConverter.afterPropertiesSet();
 		JsrJobOperator jsrJobOperator = new JsrJobOperator(jobExplorer, jobRepository, jobParametersConverter, transactionManager);
 		jsrJobOperator.afterPropertiesSet();
-		return new SimpleJobService(createJobInstanceDao(), createJobExecutionDao(), createStepExecutionDao(),
-				jobRepository, jobLauncher, jobLocator, createExecutionContextDao(), jsrJobOperator);
+		SearchableStepExecutionDao stepExecutionDao = createStepExecutionDao();
+		StepExecutionHistoryStore stepExecutionHistoryStore = new StepExecutionHistoryStore(stepExecutionDao);
+		stepExecutionHistoryStore.setWindowSize(stepExecutionHistoryWindowSize);
+		stepExecutionHistoryStore.setWindowDuration(stepExecutionHistoryWindowDuration);
+		SimpleJobService jobService = new SimpleJobService(createJobInstanceDao(), createJobExecutionDao(),
+				stepExecutionDao, jobRepository, jobLauncher, jobLocator, createExecutionContextDao(), jsrJobOperator);
+		jobService.setStepExecutionHistoryStore(stepExecutionHistoryStore);
+		jobService.setLaunchRequestDao(createLaunchRequestDao());
+		jobService.getJobExecutionCache().setMaxSize(jobExecutionCacheSize);
+		if (jsrJobCatalog != null) {
+			jobService.setJsrJobCatalog(jsrJobCatalog);
+		}
+		return jobService;
 	}
 
 	/**
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2009-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.admin.service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+/**
+ * Collects the rows of a "select STATUS, COUNT(...) ... group by STATUS" query
+ * into a map from {@link BatchStatus} to count.
+ *
+ * @author Dave Syer
+ *
+ */
+class StatusCountCallbackHandler implements RowCallbackHandler {
+
+	private final Map<BatchStatus, Integer> counts = new EnumMap<BatchStatus, Integer>(BatchStatus.class);
+
+	public void processRow(ResultSet rs) throws SQLException {
+		add(counts, rs.getString(1), rs.getInt(2));
+	}
+
+	/**
+	 * Add the count for a status to a map of counts, for queries that group by
+	 * other columns as well as the status.
+	 * 
+	 * @param counts the counts to add to (or null to create a new map)
+	 * @param status the status name
+	 * @param count the count to add
+	 * @return the counts
+	 */
+	static Map<BatchStatus, Integer> add(Map<BatchStatus, Integer> counts, String status, int count) {
+		if (counts == null) {
+			counts = new EnumMap<BatchStatus, Integer>(BatchStatus.class);
+		}
+		BatchStatus key = BatchStatus.valueOf(status);
+		Integer previous = counts.get(key);
+		counts.put(key, (previous == null ? 0 : previous) + count);
+		return counts;
+	}
+
+	public Map<BatchStatus, Integer> getCounts() {
+		return counts;
+	}
+
+}
@@ -0,0 +1,287 @@
+/*
+ * Copyright 2009-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.admin.service;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.springframework.batch.admin.domain.StepExecutionHistory;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.util.Assert;
+
+/**
+ * In-memory store of {@link StepExecutionHistory} aggregates, one per job and
+ * step name (or pattern), so that progress estimates do not have to read the
+ * whole history of a step on every request. Each aggregate is brought up to
+ * date incrementally when it is requested: only the step executions created
+ * since the last request, plus any that were still running at the time, are
+ * read from the repository.
+ * <p>
+ * By default every finished execution contributes to the history. A bounded
+ * window can be configured with {@link #setWindowSize(int)} (the most recent N
+ * finished executions) and/or {@link #setWindowDuration(long)} (executions that
+ * finished in the last T milliseconds). A windowed history is cheaper to build
+ * in the first place because only the start of the history is read.
+ * <p>
+ * At most {@link #setMaxEntries(int) a fixed number} of aggregates are kept,
+ * the least recently requested being discarded first.
+ *
+ * @author Dave Syer
+ *
+ */
+public class StepExecutionHistoryStore {
+
+	private static final int PAGE_SIZE = 100;
+
+	/**
+	 * Default value for the {@link #setMaxEntries(int) maximum number of
+	 * entries}.
+	 */
+	public static final int DEFAULT_MAX_ENTRIES = 1000;
+
+	private final SearchableStepExecutionDao stepExecutionDao;
+
+	private volatile int maxEntries = DEFAULT_MAX_ENTRIES;
+
+	/**
+	 * The aggregates in access order, so the eldest is the least recently
+	 * requested.
+	 */
+	private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+			return size() > maxEntries;
+		}
+	};
+
+	private int windowSize = 0;
+
+	private long windowDuration = 0;
+
+	public StepExecutionHistoryStore(SearchableStepExecutionDao stepExecutionDao) {
+		Assert.notNull(stepExecutionDao, "A SearchableStepExecutionDao must be provided");
+		this.stepExecutionDao = stepExecutionDao;
+	}
+
+	/**
+	 * The maximum number of (most recent) finished executions to include in a
+	 * history. Default is 0, meaning no limit.
+	 *
+	 * @param windowSize the window size to set
+	 */
+	public void setWindowSize(int windowSize) {
+		this.windowSize = windowSize;
+		clear();
+	}
+
+	/**
+	 * The maximum age in milliseconds (measured from the end time) of the
+	 * finished executions to include in a history. Default is 0, meaning no
+	 * limit.
+	 *
+	 * @param windowDuration the window duration to set
+	 */
+	public void setWindowDuration(long windowDuration) {
+		this.windowDuration = windowDuration;
+		clear();
+	}
+
+	/**
+	 * The maximum number of job and step names (or patterns) to keep a
+	 * history for. Default is {@value #DEFAULT_MAX_ENTRIES}.
+	 *
+	 * @param maxEntries the maximum number of entries to set
+	 */
+	public void setMaxEntries(int maxEntries) {
+		this.maxEntries = maxEntries;
+		clear();
+	}
+
+	/**
+	 * Get the history of the finished executions of a step, bringing it up to
+	 * date with the repository first.
+	 *
+	 * @param jobName the job name (or a pattern with wildcards)
+	 * @param stepName the step name (or a pattern with wildcards)
+	 * @return a copy of the {@link StepExecutionHistory} for the step
+	 */
+	public StepExecutionHistory getStepExecutionHistory(String jobName, String stepName) {
+		String key = jobName + "/" + stepName;
+		Entry entry;
+		synchronized (entries) {
+			entry = entries.get(key);
+			if (entry == null) {
+				entry = new Entry(jobName, stepName);
+				entries.put(key, entry);
+			}
+		}
+		return entry.refresh();
+	}
+
+	/**
+	 * Discard all the accumulated histories, so that they are rebuilt from
+	 * the repository on the next request.
+	 */
+	public void clear() {
+		synchronized (entries) {
+			entries.clear();
+		}
+	}
+
+	private boolean isWindowed() {
+		return windowSize > 0 || windowDuration > 0;
+	}
+
+	/**
+	 * The state for a single job and step name.
+	 */
+	private class Entry {
+
+		private final String jobName;
+
+		private final String stepName;
+
+		/**
+		 * The highest step execution id examined so far.
+		 */
+		private long highWatermark = -1;
+
+		/**
+		 * The ids of step executions at or below the high watermark that were
+		 * not finished when last examined.
+		 */
+		private final Set<Long> running = new TreeSet<Long>();
+
+		/**
+		 * The running totals when there is no window.
+		 */
+		private final StepExecutionHistory cumulative;
+
+		/**
+		 * The finished executions in the window (if there is one) by id.
+		 */
+		private final TreeMap<Long, StepExecution> window = new TreeMap<Long, StepExecution>();
+
+		public Entry(String jobName, String stepName) {
+			this.jobName = jobName;
+			this.stepName = stepName;
+			this.cumulative = new StepExecutionHistory(stepName);
+		}
+
+		public synchronized StepExecutionHistory refresh() {
+
+			if (!running.isEmpty()) {
+				// Re-read them all at once: any that are missing were deleted
+				Collection<StepExecution> current = stepExecutionDao.getStepExecutions(new TreeSet<Long>(running));
+				running.clear();
+				for (StepExecution stepExecution : current) {
+					if (stepExecution.getEndTime() != null) {
+						add(stepExecution);
+					}
+					else {
+						running.add(stepExecution.getId());
+					}
+				}
+			}
+
+			TreeMap<Long, StepExecution> fresh = readNewerThan(highWatermark);
+			for (StepExecution stepExecution : fresh.values()) {
+				if (stepExecution.getEndTime() != null) {
+					add(stepExecution);
+				}
+				else {
+					running.add(stepExecution.getId());
+				}
+			}
+			if (!fresh.isEmpty()) {
+				highWatermark = fresh.lastKey();
+			}
+
+			if (!isWindowed()) {
+				return new StepExecutionHistory(cumulative);
+			}
+
+			expire();
+			StepExecutionHistory history = new StepExecutionHistory(stepName);
+			for (StepExecution stepExecution : window.values()) {
+				history.append(stepExecution);
+			}
+			return history;
+
+		}
+
+		/**
+		 * Read the step executions with ids higher than the one provided,
+		 * newest first. On the first read of a windowed history stop as soon as
+		 * the window is full.
+		 */
+		private TreeMap<Long, StepExecution> readNewerThan(long id) {
+			TreeMap<Long, StepExecution> result = new TreeMap<Long, StepExecution>();
+			int finished = 0;
+			long cutoff = System.currentTimeMillis() - windowDuration;
+			for (int start = 0;; start += PAGE_SIZE) {
+				Collection<StepExecution> page = stepExecutionDao.findStepExecutions(jobName, stepName, start,
+						PAGE_SIZE);
+				for (StepExecution stepExecution : page) {
+					if (stepExecution.getId() <= id) {
+						return result;
+					}
+					result.put(stepExecution.getId(), stepExecution);
+					if (id < 0 && stepExecution.getEndTime() != null) {
+						finished++;
+						if (windowSize > 0 && finished >= windowSize || windowDuration > 0
+								&& stepExecution.getEndTime().getTime() < cutoff) {
+							return result;
+						}
+					}
+				}
+				if (page.size() < PAGE_SIZE) {
+					return result;
+				}
+			}
+		}
+
+		private void add(StepExecution stepExecution) {
+			if (!isWindowed()) {
+				cumulative.append(stepExecution);
+				return;
+			}
+			window.put(stepExecution.getId(), stepExecution);
+			while (windowSize > 0 && window.size() > windowSize) {
+				window.remove(window.firstKey());
+			}
+		}
+
+		private void expire() {
+			if (windowDuration <= 0) {
+				return;
+			}
+			long cutoff = System.currentTimeMillis() - windowDuration;
+			for (Iterator<StepExecution> iterator = window.values().iterator(); iterator.hasNext();) {
+				if (iterator.next().getEndTime().getTime() < cutoff) {
+					iterator.remove();
+				}
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2009-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.admin.service;
+
+import java.io.Serializable;
+
+import org.springframework.util.ObjectUtils;
+
+/**
+ * A compact summary of the state of a step execution: status, counts and
+ * estimated progress. Part of a {@link JobExecutionUpdate}.
+ * 
+ * @author Dave Syer
+ * 
+ */
+@SuppressWarnings("serial")
+public class StepExecutionUpdate implements Serializable {
+
+	private final long stepExecutionId;
+
+	private final long sequence;
+
+	private final String stepName;
+
+	private final String status;
+
+	private final String exitCode;
+
+	private final int readCount;
+
+	private final int writeCount;
+
+	private final int commitCount;
+
+	private final int rollbackCount;
+
+	private final int skipCount;
+
+	private final double percentComplete;
+
+	public StepExecutionUpdate(long stepExecutionId, long sequence, String stepName, String status, String exitCode,
+			int readCount, int writeCount, int commitCount, int rollbackCount, int skipCount, double percentComplete) {
+		this.stepExecutionId = stepExecutionId;
+		this.sequence = sequence;
+		this.stepName = stepName;
+		this.status = status;
+		this.exitCode = exitCode;
+		this.readCount = readCount;
+		this.writeCount = writeCount;
+		this.commitCount = commitCount;
+		this.rollbackCount = rollbackCount;
+		this.skipCount = skipCount;
+		this.percentComplete = percentComplete;
+	}
+
+	public long getStepExecutionId() {
+		return stepExecutionId;
+	}
+
+	/**
+	 * @return the sequence number of the update in which this step last
+	 * changed
+	 */
+	public long getSequence() {
+		return sequence;
+	}
+
+	public String getStepName() {
+		return stepName;
+	}
+
+	public String getStatus() {
+		return status;
+	}
+
+	public String getExitCode() {
+		return exitCode;
+	}
+
+	public int getReadCount() {
+		return readCount;
+	}
+
+	public int getWriteCount() {
+		return writeCount;
+	}
+
+	public int getCommitCount() {
+		return commitCount;
+	}
+
+	public int getRollbackCount() {
+		return rollbackCount;
+	}
+
+	public int getSkipCount() {
+		return skipCount;
+	}
+
+	/**
+	 * @return the estimated fraction of the step that is complete (between 0
+	 * and 1)
+	 */
+	public double getPercentComplete() {
+		return percentComplete;
+	}
+
+	/**
+	 * @param other another summary (possibly null)
+	 * @return true if the other summary has the same status and counts as
+	 * this one (ignoring the sequence and the progress estimate)
+	 */
+	boolean hasSameState(StepExecutionUpdate other) {
+		return other != null && stepExecutionId == other.stepExecutionId
+				&& ObjectUtils.nullSafeEquals(status, other.status)
+				&& ObjectUtils.nullSafeEquals(exitCode, other.exitCode) && readCount == other.readCount
+				&& writeCount == other.writeCount && commitCount == other.commitCount
+				&& rollbackCount == other.rollbackCount && skipCount == other.skipCount;
+	}
+
+	@Override
+	public String toString() {
+		return "StepExecutionUpdate: id=" + stepExecutionId + ", name=" + stepName + ", status=" + status
+				+ ", sequence=" + sequence;
+	}
+
+}
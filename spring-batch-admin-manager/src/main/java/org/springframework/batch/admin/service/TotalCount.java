@@ -0,0 +1,91 @@
+/*
+ * Copyright 2009-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.admin.service;
+
+import java.io.Serializable;
+
+/**
+ * The total number of items available to a paged listing. Depending on the
+ * {@link CountStrategy} in use this is either the exact number, or an estimate
+ * meaning "more than {@link #getValue()}" which callers should render as such
+ * instead of as a precise total.
+ * 
+ * @author Dave Syer
+ * 
+ */
+@SuppressWarnings("serial")
+public final class TotalCount implements Serializable {
+
+	private final int value;
+
+	private final boolean estimated;
+
+	private TotalCount(int value, boolean estimated) {
+		this.value = value;
+		this.estimated = estimated;
+	}
+
+	/**
+	 * @param value the exact number of items
+	 * @return a {@link TotalCount} with the exact value provided
+	 */
+	public static TotalCount exact(int value) {
+		return new TotalCount(value, false);
+	}
+
+	/**
+	 * @param value a lower bound on the number of items
+	 * @return a {@link TotalCount} meaning that there are more than the value
+	 * provided
+	 */
+	public static TotalCount moreThan(int value) {
+		return new TotalCount(value, true);
+	}
+
+	/**
+	 * @return the number of items, or a lower bound if {@link #isEstimated()}
+	 */
+	public int getValue() {
+		return value;
+	}
+
+	/**
+	 * @return true if there are more items than {@link #getValue()}
+	 */
+	public boolean isEstimated() {
+		return estimated;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (!(obj instanceof TotalCount)) {
+			return false;
+		}
+		TotalCount other = (TotalCount) obj;
+		return value == other.value && estimated == other.estimated;
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * value + (estimated ? 1 : 0);
+	}
+
+	@Override
+	public String toString() {
+		return estimated ? "more than " + value : String.valueOf(value);
+	}
+
+}
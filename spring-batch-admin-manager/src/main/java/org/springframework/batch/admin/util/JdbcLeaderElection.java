@@ -0,0 +1,262 @@
+/*
+ * Copyright 2009-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.admin.util;
+
+import java.lang.management.ManagementFactory;
+import java.sql.Timestamp;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.batch.core.repository.dao.AbstractJdbcBatchMetadataDao;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+/**
+ * A {@link LeaderElection} backed by a lease table in the database (see
+ * <code>schema-leader.sql</code> in this package). The leader holds a lease
+ * that it renews on every {@link #heartbeat()}, which should be scheduled at
+ * a fraction of the {@link #setLeaseTime(long) lease time} (e.g. a third).
+ * The other nodes try to take the lease on their heartbeats, so if the leader
+ * stops renewing one of them takes over within a lease time and a heartbeat.
+ * A leader that shuts down cleanly releases the lease straight away.
+ * <p>
+ * A node only considers itself the leader until its own lease expires, so if
+ * it cannot renew (e.g. because the database is not available) it stops
+ * before anyone else can start. Leases are compared with the clocks of the
+ * nodes, so they should be synchronized to well within the lease time.
+ * <p>
+ * If the election is not {@link #setEnabled(boolean) enabled} (e.g. because
+ * there is only one node) this node is always the leader.
+ * 
+ * @author Dave Syer
+ * 
+ */
+@ManagedResource
+public class JdbcLeaderElection implements LeaderElection, InitializingBean, DisposableBean {
+
+	private static final Log logger = LogFactory.getLog(JdbcLeaderElection.class);
+
+	/**
+	 * Default value for the {@link #setLeaseTime(long) lease time}.
+	 */
+	public static final long DEFAULT_LEASE_TIME = 15000;
+
+	/**
+	 * Default value for the {@link #setName(String) election name}.
+	 */
+	public static final String DEFAULT_NAME = "admin";
+
+	private static final String RENEW_OR_TAKE = "UPDATE %PREFIX%ADMIN_LEADER set OWNER = ?, EXPIRES = ? "
+			+ "where LEADER_NAME = ? and (OWNER = ? or EXPIRES < ?)";
+
+	private static final String INSERT = "INSERT into %PREFIX%ADMIN_LEADER (LEADER_NAME, OWNER, EXPIRES) values (?, ?, ?)";
+
+	private static final String DELETE = "DELETE from %PREFIX%ADMIN_LEADER where LEADER_NAME = ? and OWNER = ?";
+
+	private JdbcTemplate jdbcTemplate;
+
+	private String tablePrefix = AbstractJdbcBatchMetadataDao.DEFAULT_TABLE_PREFIX;
+
+	private String name = DEFAULT_NAME;
+
+	private String nodeId = ManagementFactory.getRuntimeMXBean().getName() + "-"
+			+ UUID.randomUUID().toString().substring(0, 8);
+
+	private long leaseTime = DEFAULT_LEASE_TIME;
+
+	private volatile boolean enabled = true;
+
+	/**
+	 * The local time until which this node is the leader (0 if it is not).
+	 */
+	private volatile long leaseExpires = 0;
+
+	private long electedCount = 0;
+
+	public void setDataSource(DataSource dataSource) {
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+	}
+
+	/**
+	 * Public setter for the table prefix property. This will be prefixed to
+	 * the name of the leader table. Defaults to
+	 * {@link AbstractJdbcBatchMetadataDao#DEFAULT_TABLE_PREFIX}.
+	 * 
+	 * @param tablePrefix the tablePrefix to set
+	 */
+	public void setTablePrefix(String tablePrefix) {
+		this.tablePrefix = tablePrefix;
+	}
+
+	/**
+	 * The name of the election, so that independent groups of nodes can share
+	 * a table. Default is {@value #DEFAULT_NAME}.
+	 * 
+	 * @param name the name to set
+	 */
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * The identifier that this node holds the lease with. It has to be unique
+	 * among the nodes taking part in the election. Defaults to the name of the
+	 * JVM (process id and host name) with a random suffix.
+	 * 
+	 * @param nodeId the node id to set
+	 */
+	public void setNodeId(String nodeId) {
+		Assert.hasText(nodeId, "The node id must not be empty");
+		this.nodeId = nodeId;
+	}
+
+	@ManagedAttribute
+	public String getNodeId() {
+		return nodeId;
+	}
+
+	/**
+	 * The time in milliseconds after which a lease that was not renewed can
+	 * be taken by another node. It has to be longer than the interval between
+	 * heartbeats. Default is {@value #DEFAULT_LEASE_TIME}.
+	 * 
+	 * @param leaseTime the lease time to set
+	 */
+	public void setLeaseTime(long leaseTime) {
+		this.leaseTime = leaseTime;
+	}
+
+	/**
+	 * Flag to switch the election on and off (e.g. if the table has not been
+	 * created). Default is true.
+	 * 
+	 * @param enabled the flag to set
+	 */
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public void afterPropertiesSet() throws Exception {
+		Assert.notNull(jdbcTemplate, "A DataSource must be provided");
+		Assert.state(leaseTime > 0, "The lease time must be positive");
+	}
+
+	/**
+	 * @see LeaderElection#isLeader()
+	 */
+	@Override
+	@ManagedAttribute
+	public boolean isLeader() {
+		return !enabled || System.currentTimeMillis() < leaseExpires;
+	}
+
+	/**
+	 * @return the number of times this node has been elected
+	 */
+	@ManagedAttribute
+	public synchronized long getElectedCount() {
+		return electedCount;
+	}
+
+	/**
+	 * Renew the lease if this node is the leader, or try to take it if it has
+	 * expired.
+	 * 
+	 * @return true if this node is the leader afterwards
+	 */
+	@ManagedOperation
+	public synchronized boolean heartbeat() {
+		if (!enabled) {
+			return true;
+		}
+		long now = System.currentTimeMillis();
+		Timestamp expires = new Timestamp(now + leaseTime);
+		boolean leader;
+		try {
+			leader = jdbcTemplate.update(getQuery(RENEW_OR_TAKE), nodeId, expires, name, nodeId, new Timestamp(now)) > 0
+					|| insert(expires);
+		}
+		catch (DataAccessException e) {
+			// Keep the current lease (if any) until it expires
+			logger.warn("Could not renew leadership: " + e);
+			return isLeader();
+		}
+		if (leader && !isLeader()) {
+			logger.info("Node elected leader: " + nodeId);
+			electedCount++;
+		}
+		else if (!leader && isLeader()) {
+			logger.info("Node no longer leader: " + nodeId);
+		}
+		leaseExpires = leader ? expires.getTime() : 0;
+		return leader;
+	}
+
+	/**
+	 * Give up the leadership (if this node has it), so that another node can
+	 * take over on its next heartbeat.
+	 */
+	@ManagedOperation
+	public synchronized void release() {
+		if (!enabled || leaseExpires == 0) {
+			return;
+		}
+		leaseExpires = 0;
+		try {
+			jdbcTemplate.update(getQuery(DELETE), name, nodeId);
+		}
+		catch (DataAccessException e) {
+			logger.warn("Could not release leadership: " + e);
+		}
+	}
+
+	/**
+	 * Release the leadership on shutdown.
+	 * 
+	 * @see DisposableBean#destroy()
+	 */
+	@Override
+	public void destroy() throws Exception {
+		release();
+	}
+
+	private boolean insert(Timestamp expires) {
+		try {
+			jdbcTemplate.update(getQuery(INSERT), name, nodeId, expires);
+			return true;
+		}
+		catch (DataIntegrityViolationException e) {
+			// Another node holds the lease
+			return false;
+		}
+	}
+
+	private String getQuery(String base) {
+		return StringUtils.replace(base, "%PREFIX%", tablePrefix);
+	}
+
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2009-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.admin.util;
+
+/**
+ * Elects one of the nodes that share a repository to run the background tasks
+ * that only need to run once for the whole cluster.
+ * 
+ * @author Dave Syer
+ * 
+ * @see LeaderOnlyTask
+ * 
+ */
+public interface LeaderElection {
+
+	/**
+	 * Check whether this node is the leader, without waiting.
+	 * 
+	 * @return true if this node currently holds the leadership
+	 */
+	boolean isLeader();
+
+}
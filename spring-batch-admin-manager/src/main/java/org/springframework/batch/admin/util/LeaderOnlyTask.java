@@ -0,0 +1,57 @@
+/*
+ * Copyright 2009-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.admin.util;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.util.Assert;
+
+/**
+ * A {@link Runnable} that only runs its delegate if this node is the leader,
+ * so that a task scheduled on every node is effectively a singleton across
+ * the cluster. The followers skip their turns, and take over as soon as one
+ * of them is elected.
+ * 
+ * @author Dave Syer
+ * 
+ */
+public class LeaderOnlyTask implements Runnable {
+
+	private static final Log logger = LogFactory.getLog(LeaderOnlyTask.class);
+
+	private final LeaderElection leaderElection;
+
+	private final Runnable task;
+
+	public LeaderOnlyTask(LeaderElection leaderElection, Runnable task) {
+		Assert.notNull(leaderElection, "A LeaderElection must be provided");
+		Assert.notNull(task, "A task must be provided");
+		this.leaderElection = leaderElection;
+		this.task = task;
+	}
+
+	@Override
+	public void run() {
+		if (!leaderElection.isLeader()) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Not the leader, skipping: " + task);
+			}
+			return;
+		}
+		task.run();
+	}
+
+}
@@ -19,6 +19,7 @@ package org.springframework.batch.admin.web;
 import java.util.TimeZone;
 
 import org.springframework.batch.admin.service.JobService;
+import org.springframework.batch.admin.service.TotalCount;
 import org.springframework.batch.admin.web.resource.DetailedJobInfoResourceAssembler;
 import org.springframework.batch.admin.web.resource.FileInfoResourceAssembler;
 import org.springframework.batch.admin.web.resource.JobExecutionInfoResourceAssembler;
@@ -27,6 +28,8 @@ import org.springframework.batch.admin.web.resource.StepExecutionInfoResourceAss
 import org.springframework.batch.admin.web.resource.StepExecutionProgressInfoResourceAssembler;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.Pageable;
+import org.springframework.hateoas.PagedResources.PageMetadata;
 
 
 /**
@@ -62,4 +65,17 @@ public abstract class AbstractBatchJobsController {
 	public void setTimeZone(TimeZone timeZone) {
 		this.timeZone = timeZone;
 	}
+
+	/**
+	 * @param pageable the page request
+	 * @param total the total number of elements (possibly estimated)
+	 * @return {@link PageMetadata} for the page, which is an
+	 * {@link EstimatedPageMetadata} if the total is an estimate
+	 */
+	protected PageMetadata getPageMetadata(Pageable pageable, TotalCount total) {
+		if (total.isEstimated()) {
+			return new EstimatedPageMetadata(pageable.getPageSize(), pageable.getPageNumber(), total.getValue());
+		}
+		return new PageMetadata(pageable.getPageSize(), pageable.getPageNumber(), total.getValue());
+	}
 }
@@ -18,12 +18,23 @@ package org.springframework.batch.admin.web;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 
+import javax.servlet.http.HttpServletRequest;
+
 import org.springframework.batch.admin.domain.JobExecutionInfo;
 import org.springframework.batch.admin.domain.JobExecutionInfoResource;
 import org.springframework.batch.admin.domain.NoSuchBatchJobException;
 import org.springframework.batch.admin.domain.support.JobParametersExtractor;
+import org.springframework.batch.admin.service.ExecutionContextFetchMode;
+import org.springframework.batch.admin.service.JobExecutionCriteria;
+import org.springframework.batch.admin.service.JobExecutionOutcome;
+import org.springframework.batch.admin.service.JobExecutionUpdate;
+import org.springframework.batch.admin.service.JobExecutionUpdateNotifier;
+import org.springframework.batch.admin.service.LaunchQueueDisabledException;
+import org.springframework.batch.admin.service.LaunchRequest;
+import org.springframework.batch.admin.service.NoSuchLaunchRequestException;
 import org.springframework.batch.core.BatchStatus;
 import org.springframework.batch.core.Job;
 import org.springframework.batch.core.JobExecution;
@@ -40,15 +51,19 @@ import org.springframework.batch.core.repository.JobRestartException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Pageable;
 import org.springframework.hateoas.ExposesResourceFor;
+import org.springframework.hateoas.Link;
 import org.springframework.hateoas.PagedResources;
-import org.springframework.hateoas.PagedResources.PageMetadata;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.UnsatisfiedServletRequestParameterException;
+import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 /**
  * Controller for batch job executions.
@@ -66,6 +81,15 @@ public class BatchJobExecutionsController extends AbstractBatchJobsController {
 	@Autowired
 	private ListableJobLocator jobLocator;
 
+	private JobExecutionUpdateNotifier updateNotifier;
+
+	private volatile JobExecutionUpdateNotifier fallbackNotifier;
+
+	@Autowired(required = false)
+	public void setUpdateNotifier(JobExecutionUpdateNotifier updateNotifier) {
+		this.updateNotifier = updateNotifier;
+	}
+
 	/**
 	 * List all job executions in a given range. If no pagination is provided,
 	 * the default {@code PageRequest(0, 20)} is passed in. See {@link org.springframework.data.web.PageableHandlerMethodArgumentResolver}
@@ -88,9 +112,54 @@ public class BatchJobExecutionsController extends AbstractBatchJobsController {
 			resources.add(jobExecutionInfoResource);
 		}
 
-		return new PagedResources<JobExecutionInfoResource>(resources,
-				new PageMetadata(pageable.getPageSize(), pageable.getPageNumber(),
-						jobService.countJobExecutions()));
+		return new PagedResources<JobExecutionInfoResource>(resources, getPageMetadata(pageable,
+				jobService.getTotalJobExecutions()));
+	}
+
+	/**
+	 * List the job executions that follow (i.e. are older than) the one with
+	 * the given id. Unlike the offset based {@link #list(Pageable)} the cost of
+	 * a page does not grow with its depth, and no total count is computed. The
+	 * response carries "next" and "prev" links to continue the traversal.
+	 *
+	 * @param after the id of the last job execution already seen
+	 * @param size the page size
+	 * @return Collection of JobExecutionInfoResource
+	 */
+	@RequestMapping(value = { "" }, method = RequestMethod.GET, params = { "after", "!before" })
+	@ResponseStatus(HttpStatus.OK)
+	public PagedResources<JobExecutionInfoResource> listAfter(@RequestParam("after") long after,
+			@RequestParam(value = "size", defaultValue = "20") int size) {
+		return getKeysetPage(null, jobService.listJobExecutionsAfter(after, size), size, after, null);
+	}
+
+	/**
+	 * List the job executions that precede (i.e. are newer than) the one with
+	 * the given id, still sorted most recent first.
+	 *
+	 * @param before the id of the first job execution already seen
+	 * @param size the page size
+	 * @return Collection of JobExecutionInfoResource
+	 * @see #listAfter(long, int)
+	 */
+	@RequestMapping(value = { "" }, method = RequestMethod.GET, params = { "before", "!after" })
+	@ResponseStatus(HttpStatus.OK)
+	public PagedResources<JobExecutionInfoResource> listBefore(@RequestParam("before") long before,
+			@RequestParam(value = "size", defaultValue = "20") int size) {
+		return getKeysetPage(null, jobService.listJobExecutionsBefore(before, size), size, null, before);
+	}
+
+	/**
+	 * Reject a keyset page request with both an "after" and a "before" cursor
+	 * (with or without a job name), instead of silently ignoring one of them.
+	 *
+	 * @param request the current request
+	 * @throws UnsatisfiedServletRequestParameterException always
+	 */
+	@RequestMapping(value = { "" }, method = RequestMethod.GET, params = { "after", "before" })
+	public void listAfterAndBefore(HttpServletRequest request) throws UnsatisfiedServletRequestParameterException {
+		throw new UnsatisfiedServletRequestParameterException(new String[] { "after", "!before" },
+				request.getParameterMap());
 	}
 
 	/**
@@ -111,9 +180,54 @@ public class BatchJobExecutionsController extends AbstractBatchJobsController {
 				result.add(jobExecutionInfoResourceAssembler.toResource(new JobExecutionInfo(jobExecution, timeZone)));
 			}
 
-			return new PagedResources<JobExecutionInfoResource>(result,
-					new PageMetadata(pageable.getPageSize(), pageable.getPageNumber(),
-							jobService.countJobExecutionsForJob(jobName)));
+			return new PagedResources<JobExecutionInfoResource>(result, getPageMetadata(pageable,
+					jobService.getTotalJobExecutionsForJob(jobName)));
+		}
+		catch (NoSuchJobException e) {
+			throw new NoSuchBatchJobException(jobName);
+		}
+	}
+
+	/**
+	 * Return the job executions for a given job that follow (i.e. are older
+	 * than) the one with the given id.
+	 *
+	 * @param jobName name of the job
+	 * @param after the id of the last job execution already seen
+	 * @param size the page size
+	 * @return Collection of JobExecutionInfo
+	 * @see #listAfter(long, int)
+	 */
+	@RequestMapping(value = "", method = RequestMethod.GET, params = { "jobname", "after", "!before" })
+	@ResponseStatus(HttpStatus.OK)
+	public PagedResources<JobExecutionInfoResource> executionsForJobAfter(@RequestParam("jobname") String jobName,
+			@RequestParam("after") long after, @RequestParam(value = "size", defaultValue = "20") int size) {
+		try {
+			return getKeysetPage(jobName, jobService.listJobExecutionsForJobAfter(jobName, after, size), size,
+					after, null);
+		}
+		catch (NoSuchJobException e) {
+			throw new NoSuchBatchJobException(jobName);
+		}
+	}
+
+	/**
+	 * Return the job executions for a given job that precede (i.e. are newer
+	 * than) the one with the given id.
+	 *
+	 * @param jobName name of the job
+	 * @param before the id of the first job execution already seen
+	 * @param size the page size
+	 * @return Collection of JobExecutionInfo
+	 * @see #listBefore(long, int)
+	 */
+	@RequestMapping(value = "", method = RequestMethod.GET, params = { "jobname", "before", "!after" })
+	@ResponseStatus(HttpStatus.OK)
+	public PagedResources<JobExecutionInfoResource> executionsForJobBefore(@RequestParam("jobname") String jobName,
+			@RequestParam("before") long before, @RequestParam(value = "size", defaultValue = "20") int size) {
+		try {
+			return getKeysetPage(jobName, jobService.listJobExecutionsForJobBefore(jobName, before, size),
+					size, null, before);
 		}
 		catch (NoSuchJobException e) {
 			throw new NoSuchBatchJobException(jobName);
@@ -162,6 +276,111 @@ public class BatchJobExecutionsController extends AbstractBatchJobsController {
 		jobService.launch(name, params);
 	}
 
+	/**
+	 * Put a request to launch a Job in the durable launch queue. It is
+	 * launched when there is capacity (poll the request to find the job
+	 * execution).
+	 *
+	 * @param name the name of the job
+	 * @param jobParameters the job parameters in comma delimited form
+	 * @param priority the priority (higher is launched first)
+	 * @return the queued LaunchRequest
+	 * @throws LaunchQueueDisabledException if the launch queue is not enabled
+	 */
+	@RequestMapping(value = "", method = RequestMethod.POST, params = { "jobname", "queue=true" })
+	@ResponseStatus(HttpStatus.ACCEPTED)
+	@ModelAttribute("launchRequest")
+	public LaunchRequest enqueueJob(@RequestParam("jobname") String name,
+			@RequestParam(value = "jobParameters", required = false) String jobParameters,
+			@RequestParam(value = "priority", defaultValue = "0") int priority) throws LaunchQueueDisabledException {
+		JobParameters params = new JobParameters();
+		if (jobParameters != null) {
+			params = new JobParametersExtractor().fromString(jobParameters);
+		}
+		try {
+			return jobService.enqueue(name, params, priority);
+		}
+		catch (NoSuchJobException e) {
+			throw new NoSuchBatchJobException(name);
+		}
+	}
+
+	/**
+	 * Poll a request in the durable launch queue, e.g. to find the job
+	 * execution once it has been launched.
+	 *
+	 * @param launchRequestId the id of the request
+	 * @return the LaunchRequest
+	 * @throws NoSuchLaunchRequestException if there is no request with this id
+	 */
+	@RequestMapping(value = "/requests/{launchRequestId}", method = RequestMethod.GET)
+	@ResponseStatus(HttpStatus.OK)
+	@ModelAttribute("launchRequest")
+	public LaunchRequest getLaunchRequest(@PathVariable long launchRequestId) throws NoSuchLaunchRequestException {
+		LaunchRequest launchRequest = jobService.getLaunchRequest(launchRequestId);
+		if (launchRequest == null) {
+			throw new NoSuchLaunchRequestException(String.format("Could not find launch request with id %s",
+					String.valueOf(launchRequestId)));
+		}
+		return launchRequest;
+	}
+
+	/**
+	 * Build a page of job executions retrieved by id (most recent first) with
+	 * links to the neighbouring pages. The links point back to the current
+	 * request path, so clients can follow them without knowing how the cursor is
+	 * encoded. There is no "next" link from a short page that was read
+	 * forwards, and no "prev" link from a short page that was read backwards,
+	 * because the traversal has reached an end.
+	 *
+	 * @param jobName the job name the executions are filtered by (or null)
+	 * @param jobExecutions the executions in the page
+	 * @param size the requested page size
+	 * @param after the cursor the page was read forwards from (or null)
+	 * @param before the cursor the page was read backwards from (or null)
+	 * @return the page
+	 */
+	private PagedResources<JobExecutionInfoResource> getKeysetPage(String jobName,
+			Collection<JobExecution> jobExecutions, int size, Long after, Long before) {
+
+		Collection<JobExecutionInfoResource> resources = new ArrayList<JobExecutionInfoResource>();
+		Long first = null;
+		Long last = null;
+		for (JobExecution jobExecution : jobExecutions) {
+			if (first == null) {
+				first = jobExecution.getId();
+			}
+			last = jobExecution.getId();
+			resources.add(jobExecutionInfoResourceAssembler.toResource(new JobExecutionInfo(jobExecution, timeZone)));
+		}
+
+		boolean full = jobExecutions.size() >= size;
+		List<Link> links = new ArrayList<Link>();
+		if (last != null && (after == null || full)) {
+			links.add(new Link(getCursorHref(jobName, "after", last, size), Link.REL_NEXT));
+		}
+		else if (last == null && before != null) {
+			links.add(new Link(getCursorHref(jobName, "after", before + 1, size), Link.REL_NEXT));
+		}
+		if (first != null && (before == null || full)) {
+			links.add(new Link(getCursorHref(jobName, "before", first, size), Link.REL_PREVIOUS));
+		}
+		else if (first == null && after != null) {
+			links.add(new Link(getCursorHref(jobName, "before", after - 1, size), Link.REL_PREVIOUS));
+		}
+
+		return new PagedResources<JobExecutionInfoResource>(resources, null, links);
+
+	}
+
+	private String getCursorHref(String jobName, String cursor, long id, int size) {
+		ServletUriComponentsBuilder builder = ServletUriComponentsBuilder.fromCurrentRequestUri();
+		if (jobName != null) {
+			builder.queryParam("jobname", jobName);
+		}
+		return builder.queryParam(cursor, id).queryParam("size", size).build().toUriString();
+	}
+
 	/**
 	 * Check if the {@link org.springframework.batch.core.JobInstance} corresponds to the given {@link org.springframework.batch.core.JobExecution}
 	 * has any of the JobExecutions in {@link org.springframework.batch.core.BatchStatus#COMPLETED} status
@@ -198,7 +417,7 @@ public class BatchJobExecutionsController extends AbstractBatchJobsController {
 		final JobExecution jobExecution;
 
 		try {
-			jobExecution = jobService.getJobExecution(executionId);
+			jobExecution = jobService.getJobExecution(executionId, ExecutionContextFetchMode.FULL);
 		}
 		catch (org.springframework.batch.core.launch.NoSuchJobExecutionException e) {
 			throw new NoSuchJobExecutionException(String.format("Could not find jobExecution with id %s", String.valueOf(executionId)));
@@ -217,6 +436,89 @@ public class BatchJobExecutionsController extends AbstractBatchJobsController {
 		return getJobExecutionInfoResource(jobExecution, job.isRestartable());
 	}
 
+	/**
+	 * Long poll for changes to a job execution. The response is sent as soon as
+	 * the execution has changed since the update with the given sequence number
+	 * (immediately if it already has), and contains only the job state and the
+	 * step executions that changed. If nothing changes before the timeout the
+	 * latest update is sent without any step executions, so the client can
+	 * simply poll again with the same sequence number. Start with
+	 * {@code since=0} to get the full state.
+	 *
+	 * @param executionId Id of the {@link org.springframework.batch.core.JobExecution}
+	 * @param since the sequence number of the last update the client has seen
+	 * @param timeout the maximum time to wait in milliseconds
+	 * @return the next JobExecutionUpdate (deferred)
+	 * @throws NoSuchJobExecutionException Thrown if the {@link org.springframework.batch.core.JobExecution} does not exist
+	 */
+	@RequestMapping(value = "/{executionId}/updates", method = RequestMethod.GET)
+	@ResponseStatus(HttpStatus.OK)
+	@ModelAttribute("jobExecutionUpdate")
+	public DeferredResult<JobExecutionUpdate> getJobExecutionUpdates(@PathVariable final long executionId,
+			@RequestParam(value = "since", defaultValue = "0") final long since,
+			@RequestParam(value = "timeout", defaultValue = "30000") long timeout)
+			throws NoSuchJobExecutionException {
+
+		final JobExecutionUpdateNotifier notifier = getUpdateNotifier();
+		final DeferredResult<JobExecutionUpdate> result = new DeferredResult<JobExecutionUpdate>(timeout);
+		final JobExecutionUpdateNotifier.Callback callback = new JobExecutionUpdateNotifier.Callback() {
+			@Override
+			public void update(JobExecutionUpdate update) {
+				result.setResult(update);
+			}
+		};
+
+		JobExecutionUpdate update;
+		try {
+			update = notifier.register(executionId, since, callback);
+		}
+		catch (NoSuchJobExecutionException e) {
+			throw new NoSuchJobExecutionException(String.format("Could not find jobExecution with id %s", String.valueOf(executionId)));
+		}
+		if (update != null) {
+			result.setResult(update);
+			return result;
+		}
+
+		result.onTimeout(new Runnable() {
+			@Override
+			public void run() {
+				notifier.unregister(executionId, callback);
+				try {
+					// Nothing new: the latest sequence and no step executions
+					JobExecutionUpdate latest = notifier.getUpdate(executionId, 0);
+					result.setResult(latest == null ? null : latest.since(latest.getSequence()));
+				}
+				catch (NoSuchJobExecutionException e) {
+					result.setErrorResult(e);
+				}
+			}
+		});
+		result.onCompletion(new Runnable() {
+			@Override
+			public void run() {
+				notifier.unregister(executionId, callback);
+			}
+		});
+		return result;
+
+	}
+
+	/**
+	 * Without a shared notifier (scheduled to detect changes) one is created
+	 * on demand, and changes are only checked for when a client asks.
+	 */
+	private JobExecutionUpdateNotifier getUpdateNotifier() {
+		if (updateNotifier != null) {
+			return updateNotifier;
+		}
+		if (fallbackNotifier == null) {
+			fallbackNotifier = new JobExecutionUpdateNotifier(jobService);
+		}
+		fallbackNotifier.detectChanges();
+		return fallbackNotifier;
+	}
+
 	private JobExecutionInfoResource getJobExecutionInfoResource(JobExecution jobExecution,
 			boolean restartable) {
 
@@ -269,7 +571,7 @@ public class BatchJobExecutionsController extends AbstractBatchJobsController {
 
 		final JobExecution jobExecution;
 		try {
-			jobExecution = jobService.getJobExecution(jobExecutionId);
+			jobExecution = jobService.getJobExecution(jobExecutionId, ExecutionContextFetchMode.NONE);
 		}
 		catch (org.springframework.batch.core.launch.NoSuchJobExecutionException e) {
 			throw new NoSuchJobExecutionException(String.format("Could not find jobExecution with id %s", String.valueOf(jobExecutionId)));
@@ -316,11 +618,59 @@ public class BatchJobExecutionsController extends AbstractBatchJobsController {
 	}
 
 	/**
-	 * Stop all job executions.
+	 * Stop all job executions. Only matches when no filter is provided (see
+	 * {@link #stopJobExecutions(String, List, Long)}).
 	 */
-	@RequestMapping(value = { "" }, method = RequestMethod.PUT, params = "stop=true")
+	@RequestMapping(value = { "" }, method = RequestMethod.PUT, params = { "stop=true", "!jobname", "!status",
+			"!olderThan" })
 	@ResponseStatus(HttpStatus.OK)
 	public void stopAll() {
 		jobService.stopAll();
 	}
+
+	/**
+	 * Stop the running job executions that match the filters provided, in
+	 * bulk. At least one filter is expected: without any the request is
+	 * handled by {@link #stopAll()}.
+	 *
+	 * @param jobName the name of the job (optional)
+	 * @param statuses the statuses to match (optional, only STARTING and
+	 * STARTED executions can be stopped)
+	 * @param olderThan minimum age in milliseconds since creation (optional)
+	 * @return the outcome for each matching execution
+	 */
+	@RequestMapping(value = { "" }, method = RequestMethod.PUT, params = "stop=true")
+	@ResponseStatus(HttpStatus.OK)
+	@ModelAttribute("jobExecutionOutcomes")
+	public List<JobExecutionOutcome> stopJobExecutions(
+			@RequestParam(value = "jobname", required = false) String jobName,
+			@RequestParam(value = "status", required = false) List<BatchStatus> statuses,
+			@RequestParam(value = "olderThan", required = false) Long olderThan) {
+		return jobService.stopJobExecutions(createCriteria(jobName, statuses, olderThan));
+	}
+
+	/**
+	 * Abandon the stopped or failed job executions that match the filters
+	 * provided, in bulk.
+	 *
+	 * @param jobName the name of the job (optional)
+	 * @param statuses the statuses to match (optional, only STOPPING, STOPPED
+	 * and FAILED executions can be abandoned)
+	 * @param olderThan minimum age in milliseconds since creation (optional)
+	 * @return the outcome for each matching execution
+	 */
+	@RequestMapping(value = { "" }, method = RequestMethod.PUT, params = "abandon=true")
+	@ResponseStatus(HttpStatus.OK)
+	@ModelAttribute("jobExecutionOutcomes")
+	public List<JobExecutionOutcome> abandonJobExecutions(
+			@RequestParam(value = "jobname", required = false) String jobName,
+			@RequestParam(value = "status", required = false) List<BatchStatus> statuses,
+			@RequestParam(value = "olderThan", required = false) Long olderThan) {
+		return jobService.abandonJobExecutions(createCriteria(jobName, statuses, olderThan));
+	}
+
+	private JobExecutionCriteria createCriteria(String jobName, List<BatchStatus> statuses, Long olderThan) {
+		return new JobExecutionCriteria(jobName, statuses, olderThan == null ? null : new Date(
+				System.currentTimeMillis() - olderThan));
+	}
 }
@@ -24,6 +24,7 @@ import org.springframework.batch.admin.domain.JobExecutionInfo;
 import org.springframework.batch.admin.domain.JobInstanceInfoResource;
 import org.springframework.batch.admin.domain.NoSuchBatchJobException;
 import org.springframework.batch.admin.domain.NoSuchBatchJobInstanceException;
+import org.springframework.batch.admin.service.TotalCount;
 import org.springframework.batch.core.JobExecution;
 import org.springframework.batch.core.JobInstance;
 import org.springframework.batch.core.launch.NoSuchJobException;
@@ -98,7 +99,7 @@ public class BatchJobInstancesController extends AbstractBatchJobsController {
 
 		try {
 			List<JobInstanceInfo> result = new ArrayList<JobInstanceInfo>();
-			long total = jobService.countJobInstances(jobName);
+			TotalCount total = jobService.getTotalJobInstances(jobName);
 
 			Collection<JobInstance> jobInstances = jobService.listJobInstances(jobName, pageable.getOffset(), pageable.getPageSize());
 			for (JobInstance jobInstance : jobInstances) {
@@ -107,7 +108,17 @@ public class BatchJobInstancesController extends AbstractBatchJobsController {
 				result.add(new JobInstanceInfo(jobInstance, jobExecutions));
 			}
 
-			return assembler.toResource(new PageImpl<JobInstanceInfo>(result, pageable, total), jobInstanceInfoResourceAssembler);
+			if (!total.isEstimated()) {
+				return assembler.toResource(new PageImpl<JobInstanceInfo>(result, pageable, total.getValue()),
+						jobInstanceInfoResourceAssembler);
+			}
+			// There are more instances than the estimate, so make sure the
+			// assembler offers a next page and then report the estimate
+			long known = Math.max(total.getValue(), pageable.getOffset() + result.size()) + 1;
+			PagedResources<JobInstanceInfoResource> resources = assembler.toResource(new PageImpl<JobInstanceInfo>(
+					result, pageable, known), jobInstanceInfoResourceAssembler);
+			return new PagedResources<JobInstanceInfoResource>(resources.getContent(), getPageMetadata(pageable,
+					total), resources.getLinks());
 		}
 		catch (NoSuchJobException e) {
 			throw new NoSuchBatchJobException(jobName);
@@ -24,6 +24,7 @@ import org.springframework.batch.admin.domain.StepExecutionInfo;
 import org.springframework.batch.admin.domain.StepExecutionInfoResource;
 import org.springframework.batch.admin.domain.StepExecutionProgressInfo;
 import org.springframework.batch.admin.domain.StepExecutionProgressInfoResource;
+import org.springframework.batch.admin.service.ExecutionContextFetchMode;
 import org.springframework.batch.admin.service.NoSuchStepExecutionException;
 import org.springframework.batch.core.StepExecution;
 import org.springframework.batch.core.launch.NoSuchJobExecutionException;
@@ -94,7 +95,7 @@ public class BatchStepExecutionsController extends AbstractBatchJobsController {
 	public StepExecutionInfoResource details(@PathVariable long jobExecutionId,
 			@PathVariable long stepExecutionId) throws NoSuchStepExecutionException, NoSuchJobExecutionException {
 		try {
-			StepExecution stepExecution = jobService.getStepExecution(jobExecutionId, stepExecutionId);
+			StepExecution stepExecution = jobService.getStepExecution(jobExecutionId, stepExecutionId, ExecutionContextFetchMode.FULL);
 			return this.stepExecutionInfoResourceAssembler.toResource(new StepExecutionInfo(stepExecution,
 					this.timeZone));
 		}
@@ -120,14 +121,14 @@ public class BatchStepExecutionsController extends AbstractBatchJobsController {
 	public StepExecutionProgressInfoResource progress(@PathVariable long jobExecutionId,
 			@PathVariable long stepExecutionId) throws NoSuchStepExecutionException, NoSuchJobExecutionException {
 		try {
-			StepExecution stepExecution = jobService.getStepExecution(jobExecutionId, stepExecutionId);
+			StepExecution stepExecution = jobService.getStepExecution(jobExecutionId, stepExecutionId, ExecutionContextFetchMode.SHORT);
 			String stepName = stepExecution.getStepName();
 			if (stepName.contains(":partition")) {
 				// assume we want to compare all partitions
 				stepName = stepName.replaceAll("(:partition).*", "$1*");
 			}
 			String jobName = stepExecution.getJobExecution().getJobInstance().getJobName();
-			StepExecutionHistory stepExecutionHistory = computeHistory(jobName, stepName);
+			StepExecutionHistory stepExecutionHistory = jobService.getStepExecutionHistory(jobName, stepName);
 			return progressInfoResourceAssembler.toResource(new StepExecutionProgressInfo(stepExecution,
 					stepExecutionHistory, timeZone));
 		}
@@ -138,22 +139,4 @@ public class BatchStepExecutionsController extends AbstractBatchJobsController {
 			throw new NoSuchJobExecutionException(String.format("Could not find jobExecution with id %s", String.valueOf(jobExecutionId)));
 		}
 	}
-
-	/**
-	 * Compute step execution history for the given jobs step.
-	 * 
-	 * @param jobName the name of the job
-	 * @param stepName the name of the step
-	 * @return the step execution history for the given step
-	 */
-	private StepExecutionHistory computeHistory(String jobName, String stepName) {
-		int total = jobService.countStepExecutionsForStep(jobName, stepName);
-		StepExecutionHistory stepExecutionHistory = new StepExecutionHistory(stepName);
-		for (int i = 0; i < total; i += 1000) {
-			for (StepExecution stepExecution : jobService.listStepExecutionsForStep(jobName, stepName, i, 1000)) {
-				stepExecutionHistory.append(stepExecution);
-			}
-		}
-		return stepExecutionHistory;
-	}
 }
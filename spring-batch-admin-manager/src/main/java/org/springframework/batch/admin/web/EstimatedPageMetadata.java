@@ -0,0 +1,63 @@
+/*
+ * Copyright 2009-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.batch.admin.web;
+
+import javax.xml.bind.annotation.XmlAttribute;
+
+import org.springframework.hateoas.PagedResources.PageMetadata;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * {@link PageMetadata} for a listing whose total was estimated: the total
+ * number of elements (and therefore of pages) is a lower bound, and clients
+ * should present it as "more than N".
+ *
+ * @author Dave Syer
+ * @see org.springframework.batch.admin.service.TotalCount
+ */
+public class EstimatedPageMetadata extends PageMetadata {
+
+	@XmlAttribute
+	@JsonProperty
+	private boolean totalElementsEstimated = true;
+
+	protected EstimatedPageMetadata() {
+	}
+
+	/**
+	 * @param size the page size
+	 * @param number the page number
+	 * @param totalElements a lower bound on the total number of elements
+	 */
+	public EstimatedPageMetadata(long size, long number, long totalElements) {
+		super(size, number, totalElements);
+	}
+
+	/**
+	 * @return true (the total is a lower bound)
+	 */
+	public boolean isTotalElementsEstimated() {
+		return totalElementsEstimated;
+	}
+
+	@Override
+	public String toString() {
+		return super.toString() + " (estimated)";
+	}
+
+}
@@ -29,6 +29,7 @@ import org.springframework.batch.admin.domain.JobExecutionInfo;
 import org.springframework.batch.admin.domain.JobInfo;
 import org.springframework.batch.admin.domain.support.JobParametersExtractor;
 import org.springframework.batch.admin.service.JobService;
+import org.springframework.batch.admin.service.TotalCount;
 import org.springframework.batch.core.JobExecution;
 import org.springframework.batch.core.JobInstance;
 import org.springframework.batch.core.JobParameters;
@@ -180,7 +181,7 @@ public class JobController {
 			}
 
 			model.addAttribute("jobInstances", jobInstances);
-			int total = jobService.countJobInstances(jobName);
+			TotalCount total = jobService.getTotalJobInstances(jobName);
 			TableUtils.addPagination(model, total, startJobInstance, pageSize, "JobInstance");
 			int count = jobService.countJobExecutionsForJob(jobName);
 			model.addAttribute("jobInfo", new JobInfo(jobName, count, launchable, jobService.isIncrementable(jobName)));
@@ -35,7 +35,9 @@ import org.apache.commons.logging.LogFactory;
 import org.springframework.batch.admin.domain.JobExecutionInfo;
 import org.springframework.batch.admin.domain.JobInfo;
 import org.springframework.batch.admin.domain.StepExecutionInfo;
+import org.springframework.batch.admin.service.ExecutionContextFetchMode;
 import org.springframework.batch.admin.service.JobService;
+import org.springframework.batch.admin.service.TotalCount;
 import org.springframework.batch.core.JobExecution;
 import org.springframework.batch.core.JobInstance;
 import org.springframework.batch.core.JobParametersInvalidException;
@@ -123,7 +125,7 @@ public class JobExecutionController {
 			errors.reject("job.execution.not.running", "Job exection with id=" + jobExecutionId + " is not running.");
 			JobExecution jobExecution;
 			try {
-				jobExecution = jobService.getJobExecution(jobExecutionId);
+				jobExecution = jobService.getJobExecution(jobExecutionId, ExecutionContextFetchMode.NONE);
 				model.addAttribute(new JobExecutionInfo(jobExecution, timeZone));
 			}
 			catch (NoSuchJobExecutionException e1) {
@@ -152,7 +154,7 @@ public class JobExecutionController {
 			errors.reject("job.execution.running", "Job exection with id=" + jobExecutionId + " is running.");
 			JobExecution jobExecution;
 			try {
-				jobExecution = jobService.getJobExecution(jobExecutionId);
+				jobExecution = jobService.getJobExecution(jobExecutionId, ExecutionContextFetchMode.NONE);
 				model.addAttribute(new JobExecutionInfo(jobExecution, timeZone));
 			}
 			catch (NoSuchJobExecutionException e1) {
@@ -169,7 +171,7 @@ public class JobExecutionController {
 	Collection<JobExecutionInfo> list(ModelMap model, @RequestParam(defaultValue = "0") int startJobExecution,
 			@RequestParam(defaultValue = "20") int pageSize) {
 
-		int total = jobService.countJobExecutions();
+		TotalCount total = jobService.getTotalJobExecutions();
 		TableUtils.addPagination(model, total, startJobExecution, pageSize, "JobExecution");
 
 		Collection<JobExecutionInfo> result = new ArrayList<JobExecutionInfo>();
@@ -282,9 +284,9 @@ public class JobExecutionController {
 			Errors errors, @RequestParam(defaultValue = "0") int startJobExecution,
 			@RequestParam(defaultValue = "20") int pageSize) {
 
-		int total = startJobExecution;
+		TotalCount total;
 		try {
-			total = jobService.countJobExecutionsForJob(jobName);
+			total = jobService.getTotalJobExecutionsForJob(jobName);
 		}
 		catch (NoSuchJobException e) {
 			errors.reject("no.such.job", new Object[] { jobName }, "There is no such job (" + jobName + ")");
@@ -319,7 +321,7 @@ public class JobExecutionController {
 			Errors errors) {
 
 		try {
-			JobExecution jobExecution = jobService.getJobExecution(jobExecutionId);
+			JobExecution jobExecution = jobService.getJobExecution(jobExecutionId, ExecutionContextFetchMode.NONE);
 			model.addAttribute(new JobExecutionInfo(jobExecution, timeZone));
 			String jobName = jobExecution.getJobInstance().getJobName();
 //			Collection<String> stepNames = new HashSet<String>(jobService.getStepNamesForJob(jobName));
@@ -371,7 +373,7 @@ public class JobExecutionController {
 	public String getExecutionContext(Model model, @PathVariable Long jobExecutionId, @ModelAttribute("date") Date date,
 									  Errors errors) {
 		try {
-			JobExecution jobExecution = jobService.getJobExecution(jobExecutionId);
+			JobExecution jobExecution = jobService.getJobExecution(jobExecutionId, ExecutionContextFetchMode.FULL);
 			Map<String, Object> executionMap = new HashMap<String, Object>();
 
 			for (Map.Entry<String, Object> entry : jobExecution.getExecutionContext().entrySet()) {
@@ -21,6 +21,8 @@ import org.apache.commons.logging.LogFactory;
 
 import org.springframework.batch.admin.domain.NoSuchBatchJobException;
 import org.springframework.batch.admin.domain.NoSuchBatchJobInstanceException;
+import org.springframework.batch.admin.service.LaunchQueueDisabledException;
+import org.springframework.batch.admin.service.NoSuchLaunchRequestException;
 import org.springframework.batch.admin.service.NoSuchStepExecutionException;
 import org.springframework.batch.core.JobParametersInvalidException;
 import org.springframework.batch.core.launch.JobExecutionNotRunningException;
@@ -32,6 +34,7 @@ import org.springframework.hateoas.VndErrors;
 import org.springframework.http.HttpStatus;
 import org.springframework.util.StringUtils;
 import org.springframework.web.bind.MissingServletRequestParameterException;
+import org.springframework.web.bind.UnsatisfiedServletRequestParameterException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseBody;
@@ -71,6 +74,22 @@ public class RestControllerAdvice {
 		return new VndErrors(logref, e.getMessage());
 	}
 
+	/**
+	 * Handles the case where client submitted an ill valued request (parameters
+	 * that cannot be used together).
+	 *
+	 * @param e exception to be handled
+	 *
+	 * @return VndErrors see {@link VndErrors}
+	 */
+	@ExceptionHandler
+	@ResponseStatus(HttpStatus.BAD_REQUEST)
+	@ResponseBody
+	public VndErrors onUnsatisfiedServletRequestParameterException(UnsatisfiedServletRequestParameterException e) {
+		String logref = logDebug(e);
+		return new VndErrors(logref, e.getMessage());
+	}
+
 	/**
 	 * Handles the general error case. Report server-side error.
 	 *
@@ -111,6 +130,30 @@ public class RestControllerAdvice {
 		return new VndErrors(logref, e.getMessage());
 	}
 
+	@ResponseBody
+	@ExceptionHandler
+	@ResponseStatus(HttpStatus.NOT_FOUND)
+	public VndErrors onNoSuchLaunchRequestException(NoSuchLaunchRequestException e) {
+		String logref = logDebug(e);
+		return new VndErrors(logref, e.getMessage());
+	}
+
+	/**
+	 * Handles requests to queue a launch when the launch queue is not enabled
+	 * in this deployment.
+	 *
+	 * @param e exception to be handled
+	 *
+	 * @return VndErrors see {@link VndErrors}
+	 */
+	@ResponseBody
+	@ExceptionHandler
+	@ResponseStatus(HttpStatus.BAD_REQUEST)
+	public VndErrors onLaunchQueueDisabledException(LaunchQueueDisabledException e) {
+		String logref = logDebug(e);
+		return new VndErrors(logref, e.getMessage());
+	}
+
 	private String logDebug(Throwable t) {
 		logger.debug("Caught exception while handling a request", t);
 		// TODO: use a more semantically correct VndError 'logref'
@@ -29,6 +29,7 @@ import org.springframework.batch.admin.domain.JobExecutionInfo;
 import org.springframework.batch.admin.domain.StepExecutionHistory;
 import org.springframework.batch.admin.domain.StepExecutionInfo;
 import org.springframework.batch.admin.domain.StepExecutionProgress;
+import org.springframework.batch.admin.service.ExecutionContextFetchMode;
 import org.springframework.batch.admin.service.JobService;
 import org.springframework.batch.admin.service.NoSuchStepExecutionException;
 import org.springframework.batch.core.JobExecution;
@@ -84,7 +85,7 @@ public class StepExecutionController {
 			for (StepExecution stepExecution : jobService.getStepExecutions(jobExecutionId)) {
 				result.add(new StepExecutionInfo(stepExecution, timeZone));
 			}
-			JobExecution jobExecution = jobService.getJobExecution(jobExecutionId);
+			JobExecution jobExecution = jobService.getJobExecution(jobExecutionId, ExecutionContextFetchMode.NONE);
 			model.addAttribute(new JobExecutionInfo(jobExecution, timeZone));
 		}
 		catch (NoSuchJobExecutionException e) {
@@ -102,7 +103,7 @@ public class StepExecutionController {
 			@ModelAttribute("date") Date date, Errors errors) {
 
 		try {
-			StepExecution stepExecution = jobService.getStepExecution(jobExecutionId, stepExecutionId);
+			StepExecution stepExecution = jobService.getStepExecution(jobExecutionId, stepExecutionId, ExecutionContextFetchMode.NONE);
 			model.addAttribute(new StepExecutionInfo(stepExecution, timeZone));
 		}
 		catch (NoSuchStepExecutionException e) {
@@ -123,7 +124,7 @@ public class StepExecutionController {
 			@ModelAttribute("date") Date date, Errors errors) {
 
 		try {
-			StepExecution stepExecution = jobService.getStepExecution(jobExecutionId, stepExecutionId);
+			StepExecution stepExecution = jobService.getStepExecution(jobExecutionId, stepExecutionId, ExecutionContextFetchMode.NONE);
 			model.addAttribute(new StepExecutionInfo(stepExecution, timeZone));
 			String stepName = stepExecution.getStepName();
 			if (stepName.contains(":partition")) {
@@ -131,7 +132,7 @@ public class StepExecutionController {
 				stepName = stepName.replaceAll("(:partition).*", "$1*");
 			}
 			String jobName = stepExecution.getJobExecution().getJobInstance().getJobName();
-			StepExecutionHistory stepExecutionHistory = computeHistory(jobName, stepName);
+			StepExecutionHistory stepExecutionHistory = jobService.getStepExecutionHistory(jobName, stepName);
 			model.addAttribute(stepExecutionHistory);
 			model.addAttribute(new StepExecutionProgress(stepExecution, stepExecutionHistory));
 		}
@@ -148,22 +149,11 @@ public class StepExecutionController {
 
 	}
 
-	private StepExecutionHistory computeHistory(String jobName, String stepName) {
-		int total = jobService.countStepExecutionsForStep(jobName, stepName);
-		StepExecutionHistory stepExecutionHistory = new StepExecutionHistory(stepName);
-		for (int i = 0; i < total; i += 1000) {
-			for (StepExecution stepExecution : jobService.listStepExecutionsForStep(jobName, stepName, i, 1000)) {
-				stepExecutionHistory.append(stepExecution);
-			}
-		}
-		return stepExecutionHistory;
-	}
-
 	@RequestMapping(value = "/jobs/executions/{jobExecutionId}/steps/{stepExecutionId}/execution-context", method = RequestMethod.GET)
 	public String getStepExecutionContext(Model model, @PathVariable Long jobExecutionId, @PathVariable Long stepExecutionId,
 										  @ModelAttribute("date") Date date, Errors errors) {
 		try {
-			StepExecution stepExecution = jobService.getStepExecution(jobExecutionId, stepExecutionId);
+			StepExecution stepExecution = jobService.getStepExecution(jobExecutionId, stepExecutionId, ExecutionContextFetchMode.FULL);
 			Map<String, Object> executionMap = new HashMap<String, Object>();
 
 			for (Map.Entry<String, Object> entry : stepExecution.getExecutionContext().entrySet()) {
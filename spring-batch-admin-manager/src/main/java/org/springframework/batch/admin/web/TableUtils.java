@@ -17,15 +17,38 @@ package org.springframework.batch.admin.web;
 
 import java.util.Map;
 
+import org.springframework.batch.admin.service.TotalCount;
+
 public class TableUtils {
 
 	public static void addPagination(Map<String, Object> model, int total,
 			int start, int number, String suffix) {
-		model.put("total" + suffix + "s", total);
+		addPagination(model, TotalCount.exact(total), start, number, suffix);
+	}
+
+	/**
+	 * Add pagination attributes to the model. If the total is an estimate the
+	 * model also gets a <code>total&lt;suffix&gt;sEstimated</code> flag, so
+	 * views can render "more than N", and the next page is always offered
+	 * because the end of the listing is not known.
+	 * 
+	 * @param model the model to add to
+	 * @param total the total number of items
+	 * @param start the index of the first item in the page
+	 * @param number the page size
+	 * @param suffix the suffix for the model attribute names
+	 */
+	public static void addPagination(Map<String, Object> model, TotalCount total,
+			int start, int number, String suffix) {
+		int count = total.getValue();
+		model.put("total" + suffix + "s", count);
+		if (total.isEstimated()) {
+			model.put("total" + suffix + "sEstimated", true);
+		}
 		model.put("start" + suffix, start + 1);
 		int end = start + number;
-		model.put("end" + suffix, end > total ? total : end);
-		if (end < total) {
+		model.put("end" + suffix, end > count && !total.isEstimated() ? count : end);
+		if (end < count || total.isEstimated()) {
 			model.put("next" + suffix, end);
 		}
 		if (start > 0) {
@@ -0,0 +1,13 @@
+-- Optional schema for JobLauncherSynchronizer: change the BATCH_ prefix to
+-- match the batch meta data tables, and TIMESTAMP to DATETIME on SQL Server
+-- and Sybase.
+
+-- Supports the count of running executions for a job name
+CREATE INDEX JOB_EXEC_INST_END_IDX ON BATCH_JOB_EXECUTION (JOB_INSTANCE_ID, END_TIME);
+
+-- Lease table for JdbcJobLaunchMutex
+CREATE TABLE BATCH_JOB_LAUNCH_LOCK (
+	JOB_NAME VARCHAR(100) NOT NULL PRIMARY KEY,
+	OWNER VARCHAR(100) NOT NULL,
+	EXPIRES TIMESTAMP NOT NULL
+);
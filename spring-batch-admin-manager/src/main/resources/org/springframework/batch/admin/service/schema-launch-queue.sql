@@ -0,0 +1,24 @@
+-- Durable launch queue for JdbcLaunchRequestDao (HSQLDB syntax: change the
+-- BATCH_ prefix to match the batch meta data tables, and declare the sequence
+-- the same way as BATCH_JOB_SEQ in the Spring Batch schema for the platform).
+
+CREATE TABLE BATCH_JOB_LAUNCH_REQUEST (
+	LAUNCH_REQUEST_ID BIGINT NOT NULL PRIMARY KEY,
+	JOB_NAME VARCHAR(100) NOT NULL,
+	JOB_PARAMETERS VARCHAR(2500),
+	PRIORITY INTEGER NOT NULL,
+	STATUS VARCHAR(10) NOT NULL,
+	CREATE_TIME TIMESTAMP NOT NULL,
+	DISPATCH_TIME TIMESTAMP,
+	JOB_EXECUTION_ID BIGINT,
+	MESSAGE VARCHAR(2500),
+	OWNER VARCHAR(100),
+	LEASE_EXPIRES TIMESTAMP
+);
+
+-- Supports finding queued requests and expired leases
+CREATE INDEX JOB_LAUNCH_REQ_STATUS_IDX ON BATCH_JOB_LAUNCH_REQUEST (STATUS, PRIORITY, LAUNCH_REQUEST_ID);
+
+CREATE TABLE BATCH_JOB_LAUNCH_REQUEST_SEQ (
+	ID BIGINT IDENTITY
+);
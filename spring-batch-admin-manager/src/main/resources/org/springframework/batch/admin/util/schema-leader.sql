@@ -0,0 +1,9 @@
+-- Optional schema for JdbcLeaderElection: change the BATCH_ prefix to match
+-- the batch meta data tables, and TIMESTAMP to DATETIME on SQL Server and
+-- Sybase.
+
+CREATE TABLE BATCH_ADMIN_LEADER (
+	LEADER_NAME VARCHAR(100) NOT NULL PRIMARY KEY,
+	OWNER VARCHAR(100) NOT NULL,
+	EXPIRES TIMESTAMP NOT NULL
+);
@@ -59,7 +59,7 @@
 		<#if startJobExecution??>
 			<ul class="controlLinks">
 				<#assign executions_url><@spring.url relativeUrl="${servletPath}/jobs/executions"/></#assign>
-				<li>Rows: ${startJobExecution}-${endJobExecution} of ${totalJobExecutions}</li> 
+				<li>Rows: ${startJobExecution}-${endJobExecution} of <#if totalJobExecutionsEstimated??>more than </#if>${totalJobExecutions}</li> 
 				<#if nextJobExecution??><li><a href="${executions_url}?startJobExecution=${nextJobExecution?c}&pageSize=${pageSize!20}">Next</a></li></#if>
 				<#if previousJobExecution??><li><a href="${executions_url}?startJobExecution=${previousJobExecution?c}&pageSize=${pageSize!20}">Previous</a></li></#if>
 				<!-- TODO: enable pageSize editing -->
@@ -68,7 +68,7 @@
 				</tbody>
 			</table>
 			<ul class="controlLinks">
-				<li>Rows: ${startJobInstance}-${endJobInstance} of ${totalJobInstances}</li> 
+				<li>Rows: ${startJobInstance}-${endJobInstance} of <#if totalJobInstancesEstimated??>more than </#if>${totalJobInstances}</li> 
 				<#assign job_url><@spring.url relativeUrl="${servletPath}/jobs/${jobInfo.name}"/></#assign>
 				<#if nextJobInstance??><li><a href="${job_url}?startJobInstance=${nextJobInstance?c}&pageSize=${pageSize!20}">Next</a></li></#if>
 				<#if previousJobInstance??><li><a href="${job_url}?startJobInstance=${previousJobInstance?c}&pageSize=${pageSize!20}">Previous</a></li></#if>
@@ -19,7 +19,8 @@
 	"page" : {
 		"start" : ${startJobExecution?c},
 		"end" : ${endJobExecution?c},
-		"total" : ${totalJobExecutions?c}<#if nextJobExecution??>, 
+		"total" : ${totalJobExecutions?c}<#if totalJobExecutionsEstimated??>,
+		"totalEstimated" : true</#if><#if nextJobExecution??>, 
 		"next" : "${baseUrl}${executions_url}?startJobExecution=${nextJobExecution?c}&pageSize=${pageSize!20}"</#if><#if previousJobExecution??>,
 		"previous" : "${baseUrl}${executions_url}?startJobExecution=${previousJobExecution?c}&pageSize=${pageSize!20}"</#if>
 	}
@@ -22,7 +22,8 @@
     "page" : {
         "start" : ${startJobInstance?c},
         "end" : ${endJobInstance?c},
-        "total" : ${totalJobInstances?c}<#if nextJobInstance??>, 
+        "total" : ${totalJobInstances?c}<#if totalJobInstancesEstimated??>,
+        "totalEstimated" : true</#if><#if nextJobInstance??>, 
         "next" : "${baseUrl}${executions_url}?startJobInstance=${nextJobInstance?c}&pageSize=${pageSize!20}"</#if><#if previousJobInstance??>,
         "previous" : "${baseUrl}${executions_url}?startJobInstance=${previousJobInstance?c}&pageSize=${pageSize!20}"</#if>
     }
@@ -53,8 +53,8 @@ public class BatchMBeanExporterNoStepsIntegrationTests {
 	
 	@Before
 	public void init() throws Exception {
-		exporter.getJobCount();
-		exporter.getStepCount();
+		// Executions created directly in the repository are only found by a sweep
+		exporter.refresh();
 	}
 	
 	@Test
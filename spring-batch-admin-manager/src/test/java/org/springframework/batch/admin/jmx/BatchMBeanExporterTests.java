@@ -21,6 +21,7 @@ import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.anyObject;
 import static org.mockito.Mockito.isA;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 import java.util.Arrays;
@@ -34,7 +35,13 @@ import javax.management.ObjectName;
 import org.junit.Test;
 
 import org.springframework.batch.admin.service.JobService;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobExecutionListener;
+import org.springframework.batch.core.configuration.support.MapJobRegistry;
+import org.springframework.batch.core.configuration.support.ReferenceJobFactory;
+import org.springframework.batch.core.job.SimpleJob;
 import org.springframework.batch.test.MetaDataInstanceFactory;
+import org.springframework.test.util.ReflectionTestUtils;
 
 /**
  * @author Dave Syer
@@ -101,6 +108,43 @@ public class BatchMBeanExporterTests {
 		assertTrue(jobCalled.get());
 	}
 
+	@Test
+	public void testCountsDoNotQueryRepository() throws Exception {
+		JobService jobService = mock(JobService.class);
+		exporter.setJobService(jobService);
+		exporter.setServer(mock(MBeanServer.class));
+		assertEquals(0, exporter.getJobCount());
+		assertEquals(0, exporter.getStepCount());
+		verifyZeroInteractions(jobService);
+	}
+
+	@Test
+	public void testRegistrationFromJobLocatorAndListener() throws Exception {
+		JobService jobService = mock(JobService.class);
+		exporter.setJobService(jobService);
+		MBeanServer server = mock(MBeanServer.class);
+		exporter.setServer(server);
+		when(server.registerMBean(anyObject(), isA(ObjectName.class))).thenReturn(new ObjectInstance(new ObjectName(exporter.getBeanKeyForJobExecution("job")), SimpleJobExecutionMetrics.class.getName()));
+		MapJobRegistry jobRegistry = new MapJobRegistry();
+		SimpleJob job = new SimpleJob("job");
+		jobRegistry.register(new ReferenceJobFactory(job));
+		exporter.setJobLocator(jobRegistry);
+		exporter.start();
+
+		assertEquals(1, exporter.getJobCount());
+		assertEquals(0, exporter.getStepCount());
+
+		JobExecution jobExecution = MetaDataInstanceFactory.createJobExecutionWithStepExecutions(123L, Arrays.asList("step"));
+		// The exporter is registered as a listener with the job
+		((JobExecutionListener) ReflectionTestUtils.getField(job, "listener")).afterJob(jobExecution);
+		assertEquals(1, exporter.getStepCount());
+		assertEquals("job/step", exporter.getStepNames()[0]);
+
+		jobRegistry.register(new ReferenceJobFactory(new SimpleJob("bar")));
+		assertEquals(2, exporter.getJobCount());
+		exporter.stop();
+	}
+
 	public static class MyStepExecutionMetrics extends SimpleStepExecutionMetrics {
 		public MyStepExecutionMetrics(String jobName, String stepName) {
 			super(null, jobName, stepName);
@@ -20,10 +20,11 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.mockito.Mockito.when;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.Map;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -88,11 +89,6 @@ public class SimpleJobExecutionMetricsTests {
 		when(jobService.listJobExecutionsForJob("job", 0, total)).thenReturn(Arrays.asList(earlierExecution, jobExecution));
 	}
 
-	private void prepareServiceWithMultipleJobExecutions() throws Exception {
-		when(jobService.listJobExecutionsForJob("job", 0, 100)).thenReturn(Arrays.asList(jobExecution, earlierExecution));
-		when(jobService.listJobExecutionsForJob("job", 100, 100)).thenReturn(new ArrayList<JobExecution>());
-	}
-
 	@Test
 	public void testGetJobExecutionCount() throws Exception {
 		when(jobService.countJobExecutionsForJob("job")).thenReturn(10);
@@ -101,8 +97,12 @@ public class SimpleJobExecutionMetricsTests {
 
 	@Test
 	public void testGetJobExecutionFailureCount() throws Exception {
-		prepareServiceWithMultipleJobExecutions();
-		assertEquals(1, metrics.getFailureCount());
+		Map<BatchStatus, Integer> counts = new HashMap<BatchStatus, Integer>();
+		counts.put(BatchStatus.COMPLETED, 3);
+		counts.put(BatchStatus.FAILED, 1);
+		counts.put(BatchStatus.ABANDONED, 2);
+		when(jobService.countJobExecutionsForJobByStatus("job")).thenReturn(counts);
+		assertEquals(3, metrics.getFailureCount());
 	}
 
 	@Test
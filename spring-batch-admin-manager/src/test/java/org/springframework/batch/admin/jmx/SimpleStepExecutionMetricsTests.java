@@ -3,8 +3,8 @@ package org.springframework.batch.admin.jmx;
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.when;
 
-import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 
 import org.junit.Before;
@@ -43,11 +43,6 @@ public class SimpleStepExecutionMetricsTests {
 		when(jobService.listStepExecutionsForStep("job", "step", 0, 4)).thenReturn(Arrays.asList(stepExecution));
 	}
 
-	private void prepareServiceWithMultipleStepExecutions() throws Exception {
-		when(jobService.listStepExecutionsForStep("job", "step", 0, 100)).thenReturn(Arrays.asList(stepExecution));
-		when(jobService.listStepExecutionsForStep("job", "step", 100, 100)).thenReturn(new ArrayList<StepExecution>());
-	}
-
 	private void prepareServiceWithMultipleStepExecutions(int total) throws Exception {
 		when(jobService.listStepExecutionsForStep("job", "step", 0, total)).thenReturn(Arrays.asList(stepExecution));
 	}
@@ -60,7 +55,8 @@ public class SimpleStepExecutionMetricsTests {
 
 	@Test
 	public void testGetStepExecutionFailureCount() throws Exception {
-		prepareServiceWithMultipleStepExecutions();
+		when(jobService.countStepExecutionsForStepByStatus("job", "step")).thenReturn(
+				Collections.singletonMap(BatchStatus.COMPLETED, 1));
 		assertEquals(0, metrics.getFailureCount());		
 	}
 
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2009-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.batch.admin.jmx;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import org.springframework.batch.admin.service.JobService;
+import org.springframework.batch.admin.util.LeaderElection;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+
+/**
+ * @author Dave Syer
+ *
+ */
+public class SnapshotExecutionMetricsFactoryTests {
+
+	private SnapshotExecutionMetricsFactory factory;
+
+	@Mock
+	private JobService jobService;
+
+	private JobExecution jobExecution;
+
+	private JobExecution earlierExecution;
+
+	@Before
+	public void init() throws Exception {
+		MockitoAnnotations.initMocks(this);
+
+		earlierExecution = MetaDataInstanceFactory.createJobExecutionWithStepExecutions(122L, Arrays.asList("step"));
+		earlierExecution.setStatus(BatchStatus.FAILED);
+		earlierExecution.setExitStatus(ExitStatus.FAILED);
+		earlierExecution.setStartTime(new Date());
+		earlierExecution.setEndTime(new Date(earlierExecution.getStartTime().getTime() + 100));
+
+		jobExecution = MetaDataInstanceFactory.createJobExecutionWithStepExecutions(123L, Arrays.asList("step"));
+		jobExecution.setStatus(BatchStatus.COMPLETED);
+		jobExecution.setExitStatus(ExitStatus.COMPLETED);
+		jobExecution.setCreateTime(new Date(earlierExecution.getCreateTime().getTime() + 1));
+		jobExecution.setStartTime(new Date());
+		jobExecution.setEndTime(new Date(jobExecution.getStartTime().getTime() + 300));
+		StepExecution stepExecution = jobExecution.getStepExecutions().iterator().next();
+		stepExecution.setExitStatus(ExitStatus.COMPLETED.addExitDescription("Foo"));
+
+		Map<BatchStatus, Integer> counts = new HashMap<BatchStatus, Integer>();
+		counts.put(BatchStatus.COMPLETED, 1);
+		counts.put(BatchStatus.FAILED, 1);
+		when(jobService.countJobExecutionsByJobAndStatus()).thenReturn(Collections.singletonMap("job", counts));
+		when(jobService.listJobExecutionsForJob("job", 0, 10)).thenReturn(Arrays.asList(jobExecution, earlierExecution));
+
+		factory = new SnapshotExecutionMetricsFactory(jobService);
+
+	}
+
+	@Test
+	public void testJobMetrics() throws Exception {
+		JobExecutionMetrics metrics = factory.createMetricsForJob("job");
+		assertEquals(2, metrics.getExecutionCount());
+		assertEquals(1, metrics.getFailureCount());
+		assertEquals(123L, metrics.getLatestExecutionId());
+		assertEquals("COMPLETED", metrics.getLatestStatus());
+		assertEquals("Foo", metrics.getLatestStepExitDescription());
+		assertEquals("step", metrics.getLatestStepName());
+		assertEquals(300, metrics.getLatestDuration(), 0.01);
+		assertEquals(200, metrics.getMeanDuration(), 0.01);
+		assertEquals(300, metrics.getMaxDuration(), 0.01);
+		assertFalse(metrics.isJobRunning());
+	}
+
+	@Test
+	public void testMetricsServedFromSnapshot() throws Exception {
+		JobExecutionMetrics metrics = factory.createMetricsForJob("job");
+		for (int i = 0; i < 5; i++) {
+			metrics.getLatestStatus();
+			metrics.getExecutionCount();
+			metrics.getMeanDuration();
+		}
+		verify(jobService, times(1)).countJobExecutionsByJobAndStatus();
+		verify(jobService, times(1)).listJobExecutionsForJob("job", 0, 10);
+	}
+
+	@Test
+	public void testUnchangedJobNotReloaded() throws Exception {
+		JobExecutionMetrics metrics = factory.createMetricsForJob("job");
+		assertEquals(2, metrics.getExecutionCount());
+		factory.refresh();
+		factory.refresh();
+		verify(jobService, times(3)).countJobExecutionsByJobAndStatus();
+		// The counts did not change and nothing was running
+		verify(jobService, times(1)).listJobExecutionsForJob("job", 0, 10);
+	}
+
+	@Test
+	public void testRegistrationKeepsSnapshot() throws Exception {
+		JobExecutionMetrics metrics = factory.createMetricsForJob("job");
+		assertEquals(2, metrics.getExecutionCount());
+		factory.createMetricsForJob("other");
+		// The next reader refreshes, but only the new job is loaded
+		assertEquals(2, metrics.getExecutionCount());
+		verify(jobService, times(2)).countJobExecutionsByJobAndStatus();
+		verify(jobService, times(1)).listJobExecutionsForJob("job", 0, 10);
+	}
+
+	@Test
+	public void testStaleSnapshotRefreshed() throws Exception {
+		factory.setMaxStaleness(-1);
+		JobExecutionMetrics metrics = factory.createMetricsForJob("job");
+		metrics.getLatestStatus();
+		metrics.getLatestStatus();
+		verify(jobService, times(2)).countJobExecutionsByJobAndStatus();
+	}
+
+	@Test
+	public void testFollowerServesStaleSnapshot() throws Exception {
+		factory.setMaxStaleness(-1);
+		factory.setLeaderElection(new LeaderElection() {
+			public boolean isLeader() {
+				return false;
+			}
+		});
+		JobExecutionMetrics metrics = factory.createMetricsForJob("job");
+		metrics.getLatestStatus();
+		metrics.getLatestStatus();
+		verify(jobService, times(1)).countJobExecutionsByJobAndStatus();
+		factory.setFollowerMaxStaleness(-1);
+		metrics.getLatestStatus();
+		verify(jobService, times(2)).countJobExecutionsByJobAndStatus();
+	}
+
+	@Test
+	public void testExplicitRefresh() throws Exception {
+		JobExecutionMetrics metrics = factory.createMetricsForJob("job");
+		assertEquals(2, metrics.getExecutionCount());
+		when(jobService.countJobExecutionsByJobAndStatus()).thenReturn(
+				Collections.singletonMap("job", Collections.singletonMap(BatchStatus.COMPLETED, 5)));
+		assertEquals(2, metrics.getExecutionCount());
+		factory.refresh();
+		assertEquals(5, metrics.getExecutionCount());
+	}
+
+	@Test
+	public void testStepMetrics() throws Exception {
+		StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution();
+		stepExecution.setStartTime(new Date());
+		stepExecution.setEndTime(new Date(stepExecution.getStartTime().getTime() + 100));
+		stepExecution.setReadCount(10);
+		Map<String, Map<BatchStatus, Integer>> stepCounts = Collections.singletonMap("step",
+				Collections.singletonMap(BatchStatus.COMPLETED, 1));
+		when(jobService.countStepExecutionsByStepAndStatus()).thenReturn(Collections.singletonMap("job", stepCounts));
+		when(jobService.listStepExecutionsForStep("job", "step", 0, 10)).thenReturn(Arrays.asList(stepExecution));
+		StepExecutionMetrics metrics = factory.createMetricsForStep("job", "step");
+		assertEquals(1, metrics.getExecutionCount());
+		assertEquals(0, metrics.getFailureCount());
+		assertEquals(10, metrics.getLatestReadCount());
+		assertEquals(100, metrics.getLatestDuration(), 0.01);
+		assertEquals(100, metrics.getMeanDuration(), 0.01);
+	}
+
+	@Test
+	public void testStepMetricsNoExecutions() throws Exception {
+		StepExecutionMetrics metrics = factory.createMetricsForStep("job", "step");
+		assertEquals(0, metrics.getExecutionCount());
+		assertEquals(-1, metrics.getLatestExecutionId());
+		assertEquals("NONE", metrics.getLatestExitCode());
+	}
+
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2009-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.admin.launch;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+
+/**
+ * @author Dave Syer
+ * 
+ */
+public class JdbcJobLaunchMutexTests {
+
+	private EmbeddedDatabase database;
+
+	private JdbcJobLaunchMutex mutex = new JdbcJobLaunchMutex();
+
+	@Before
+	public void init() throws Exception {
+		database = new EmbeddedDatabaseBuilder().setName("jobLaunchMutex")
+				.addScript("classpath:/org/springframework/batch/core/schema-hsqldb.sql")
+				.addScript("classpath:/org/springframework/batch/admin/launch/schema-launch-lock.sql").build();
+		mutex.setDataSource(database);
+		mutex.afterPropertiesSet();
+	}
+
+	@After
+	public void close() {
+		database.shutdown();
+	}
+
+	@Test
+	public void testLockAndUnlock() throws Exception {
+		String token = mutex.tryLock("job");
+		assertNotNull(token);
+		assertNull(mutex.tryLock("job"));
+		assertNotNull(mutex.tryLock("other"));
+		mutex.unlock("job", token);
+		assertNotNull(mutex.tryLock("job"));
+	}
+
+	@Test
+	public void testUnlockWithWrongToken() throws Exception {
+		String token = mutex.tryLock("job");
+		mutex.unlock("job", "foo");
+		assertNull(mutex.tryLock("job"));
+		mutex.unlock("job", token);
+		assertNotNull(mutex.tryLock("job"));
+	}
+
+	@Test
+	public void testExpiredLeaseTaken() throws Exception {
+		mutex.setLeaseTime(-1000);
+		String token = mutex.tryLock("job");
+		mutex.setLeaseTime(JdbcJobLaunchMutex.DEFAULT_LEASE_TIME);
+		String other = mutex.tryLock("job");
+		assertNotNull(other);
+		// The original owner can no longer release it
+		mutex.unlock("job", token);
+		assertNull(mutex.tryLock("job"));
+		mutex.unlock("job", other);
+		assertNotNull(mutex.tryLock("job"));
+	}
+
+}
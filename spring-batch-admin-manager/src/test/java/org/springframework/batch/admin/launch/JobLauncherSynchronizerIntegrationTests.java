@@ -16,6 +16,7 @@
 package org.springframework.batch.admin.launch;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.fail;
 
 import java.util.ArrayList;
@@ -61,6 +62,12 @@ public class JobLauncherSynchronizerIntegrationTests {
 	@Autowired
 	private JobExplorer jobExplorer;
 
+	@Autowired
+	private JobLauncherSynchronizer synchronizer;
+
+	@Autowired
+	private JobLaunchMutex launchMutex;
+
 	@Test
 	public void testLaunch() throws Exception {
 		jobRepositoryTestUtils.removeJobExecutions();
@@ -121,6 +128,34 @@ public class JobLauncherSynchronizerIntegrationTests {
 		}
 	}
 
+	@Test
+	public void testLaunchWithLaunchInProgressElsewhere() throws Exception {
+		jobRepositoryTestUtils.removeJobExecutions();
+		long rejected = synchronizer.getRejectedCount();
+		String token = launchMutex.tryLock("test-job");
+		assertNotNull(token);
+		try {
+			jobLauncher.run(job, new JobParametersBuilder().addLong("timestamp", System.currentTimeMillis())
+					.toJobParameters());
+			fail("Expected: JobExecutionAlreadyRunningException");
+		}
+		catch (JobExecutionAlreadyRunningException e) {
+			// expected
+		}
+		finally {
+			launchMutex.unlock("test-job", token);
+		}
+		assertEquals(rejected + 1, synchronizer.getRejectedCount());
+		assertEquals(0, jobExplorer.getJobInstances("test-job", 0, 10).size());
+		// ...and the lock is released after a successful launch
+		jobLauncher.run(job, new JobParametersBuilder().addLong("timestamp", System.currentTimeMillis())
+				.toJobParameters());
+		token = launchMutex.tryLock("test-job");
+		assertNotNull(token);
+		launchMutex.unlock("test-job", token);
+		jobRepositoryTestUtils.removeJobExecutions();
+	}
+
 	@Test
 	public void testLaunchWithJobRunningButFails() throws Exception {
 
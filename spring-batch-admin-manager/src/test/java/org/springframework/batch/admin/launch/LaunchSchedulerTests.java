@@ -0,0 +1,261 @@
+/*
+ * Copyright 2009-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.admin.launch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.job.SimpleJob;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * @author Dave Syer
+ * 
+ */
+public class LaunchSchedulerTests {
+
+	private LaunchScheduler scheduler = new LaunchScheduler();
+
+	/**
+	 * Tasks handed to the delegate and not yet run.
+	 */
+	private List<Runnable> running = new ArrayList<Runnable>();
+
+	/**
+	 * The job names of the tasks in the order they finished (which is the
+	 * order they were dispatched if the oldest always finishes first).
+	 */
+	private List<String> started = new ArrayList<String>();
+
+	@Before
+	public void init() {
+		scheduler.setTaskExecutor(new TaskExecutor() {
+			public void execute(Runnable task) {
+				running.add(task);
+			}
+		});
+	}
+
+	@Test
+	public void testConcurrencyLimit() throws Exception {
+		scheduler.setConcurrencyLimit(2);
+		launch("foo", "bar", "spam");
+		assertEquals(2, running.size());
+		assertEquals(1, scheduler.getQueueSize());
+		assertEquals(0, scheduler.getAvailableCapacity());
+		finish();
+		assertEquals(0, scheduler.getQueueSize());
+		assertEquals(2, scheduler.getActiveCount());
+		assertEquals(3, scheduler.getDispatchedCount());
+		finishAll();
+		assertEquals("[foo, bar, spam]", started.toString());
+		assertEquals(0, scheduler.getActiveCount());
+	}
+
+	@Test
+	public void testJobConcurrencyLimit() throws Exception {
+		scheduler.setJobConcurrencyLimits(Collections.singletonMap("foo", 1));
+		launch("foo", "foo", "bar");
+		assertEquals(2, running.size());
+		assertEquals(1, scheduler.getQueueSize());
+		finishAll();
+		assertEquals("[foo, bar, foo]", started.toString());
+	}
+
+	@Test
+	public void testGroupConcurrencyLimit() throws Exception {
+		Map<String, String> groups = new HashMap<String, String>();
+		groups.put("foo", "bulk");
+		groups.put("bar", "bulk");
+		scheduler.setJobGroups(groups);
+		scheduler.setGroupConcurrencyLimits(Collections.singletonMap("bulk", 1));
+		launch("foo", "bar", "spam");
+		assertEquals(2, running.size());
+		finishAll();
+		assertEquals("[foo, spam, bar]", started.toString());
+	}
+
+	@Test
+	public void testPriorityLanes() throws Exception {
+		scheduler.setConcurrencyLimit(1);
+		scheduler.setJobPriorities(Collections.singletonMap("urgent", 1));
+		launch("foo", "bar", "urgent");
+		finishAll();
+		assertEquals("[foo, urgent, bar]", started.toString());
+	}
+
+	@Test
+	public void testWeightedFairQueuing() throws Exception {
+		scheduler.setConcurrencyLimit(0);
+		Map<String, String> groups = new HashMap<String, String>();
+		groups.put("bulk", "bulk");
+		groups.put("ui", "ui");
+		scheduler.setJobGroups(groups);
+		scheduler.setGroupWeights(Collections.singletonMap("ui", 2));
+		launch("bulk", "bulk", "bulk", "bulk", "ui", "ui", "ui", "ui");
+		scheduler.setConcurrencyLimit(1);
+		finishAll();
+		// The ui group gets two launches for every one in the bulk group
+		assertEquals("[ui, bulk, ui, ui, bulk, ui, bulk, bulk]", started.toString());
+	}
+
+	@Test
+	public void testRejectedLaunchRetriedOnDispatch() throws Exception {
+		final List<Boolean> accept = new ArrayList<Boolean>(Collections.singletonList(false));
+		scheduler.setTaskExecutor(new TaskExecutor() {
+			public void execute(Runnable task) {
+				if (!accept.get(0)) {
+					throw new TaskRejectedException("Planned");
+				}
+				running.add(task);
+			}
+		});
+		launch("foo", "bar");
+		assertEquals(0, running.size());
+		assertEquals(2, scheduler.getQueueSize());
+		assertEquals(0, scheduler.getActiveCount());
+		accept.set(0, true);
+		scheduler.dispatch();
+		assertEquals(0, scheduler.getQueueSize());
+		finishAll();
+		assertEquals("[foo, bar]", started.toString());
+	}
+
+	@Test
+	public void testScheduledJobLauncher() throws Exception {
+		scheduler.setJobConcurrencyLimits(Collections.singletonMap("job", 1));
+		JobRepository jobRepository = mock(JobRepository.class);
+		when(jobRepository.createJobExecution(eq("job"), any(JobParameters.class))).thenReturn(
+				MetaDataInstanceFactory.createJobExecution(1L), MetaDataInstanceFactory.createJobExecution(2L));
+		ScheduledJobLauncher launcher = new ScheduledJobLauncher();
+		launcher.setJobRepository(jobRepository);
+		launcher.setLaunchScheduler(scheduler);
+		launcher.afterPropertiesSet();
+		SimpleJob job = new SimpleJob("job");
+		job.setJobRepository(jobRepository);
+		JobExecution first = launcher.run(job, new JobParameters());
+		JobExecution second = launcher.run(job, new JobParameters());
+		assertEquals(1, running.size());
+		assertEquals(1, scheduler.getQueueSize());
+		assertEquals(ExitStatus.UNKNOWN.getExitCode(), first.getExitStatus().getExitCode());
+		assertEquals(ScheduledJobLauncher.QUEUED, second.getExitStatus().getExitCode());
+		assertEquals("[2]", launcher.getQueuedExecutionIds().toString());
+		verify(jobRepository).update(second);
+	}
+
+	@Test
+	public void testScheduledJobLauncherCancelsQueuedExecutions() throws Exception {
+		scheduler.setConcurrencyLimit(0);
+		JobRepository jobRepository = mock(JobRepository.class);
+		JobExecution jobExecution = MetaDataInstanceFactory.createJobExecution();
+		when(jobRepository.createJobExecution(eq("job"), any(JobParameters.class))).thenReturn(jobExecution);
+		ScheduledJobLauncher launcher = new ScheduledJobLauncher();
+		launcher.setJobRepository(jobRepository);
+		launcher.setLaunchScheduler(scheduler);
+		launcher.afterPropertiesSet();
+		SimpleJob job = new SimpleJob("job");
+		job.setJobRepository(jobRepository);
+		launcher.run(job, new JobParameters());
+		launcher.destroy();
+		assertEquals(BatchStatus.FAILED, jobExecution.getStatus());
+		assertNotNull(jobExecution.getEndTime());
+		assertTrue(launcher.getQueuedExecutionIds().isEmpty());
+		// Dispatched after all: it must not start
+		scheduler.setConcurrencyLimit(1);
+		finishAll();
+		assertEquals(BatchStatus.FAILED, jobExecution.getStatus());
+	}
+
+	@Test
+	public void testCapacityLimitedByThreadPool() throws Exception {
+		ThreadPoolTaskExecutor pool = new ThreadPoolTaskExecutor();
+		pool.setCorePoolSize(2);
+		pool.setMaxPoolSize(2);
+		pool.afterPropertiesSet();
+		scheduler.setTaskExecutor(pool);
+		assertEquals(2, scheduler.getAvailableCapacity());
+		final CountDownLatch latch = new CountDownLatch(1);
+		try {
+			// Work that did not come through the scheduler
+			pool.execute(new Runnable() {
+				public void run() {
+					try {
+						latch.await();
+					}
+					catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+			});
+			long timeout = System.currentTimeMillis() + 5000;
+			while (pool.getActiveCount() == 0 && System.currentTimeMillis() < timeout) {
+				Thread.sleep(10);
+			}
+			assertEquals(1, scheduler.getAvailableCapacity());
+		}
+		finally {
+			latch.countDown();
+			pool.shutdown();
+		}
+	}
+
+	private void launch(String... jobNames) {
+		for (final String jobName : jobNames) {
+			scheduler.execute(jobName, new Runnable() {
+				public void run() {
+					started.add(jobName);
+				}
+			});
+		}
+	}
+
+	/**
+	 * Run the oldest task that was handed to the delegate to completion.
+	 */
+	private void finish() {
+		running.remove(0).run();
+	}
+
+	private void finishAll() {
+		while (!running.isEmpty()) {
+			finish();
+		}
+	}
+
+}
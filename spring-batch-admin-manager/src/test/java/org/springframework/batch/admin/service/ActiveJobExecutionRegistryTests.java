@@ -0,0 +1,108 @@
+/*
+ * Copyright 2009-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.admin.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.job.SimpleJob;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+
+/**
+ * @author Dave Syer
+ * 
+ */
+public class ActiveJobExecutionRegistryTests {
+
+	private ActiveJobExecutionRegistry registry = new ActiveJobExecutionRegistry();
+
+	private ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+
+	@After
+	public void close() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void testRegisterAndComplete() {
+		JobExecution jobExecution = MetaDataInstanceFactory.createJobExecution(123L);
+		registry.register(jobExecution, true);
+		assertEquals(1, registry.size());
+		assertTrue(registry.isListening());
+		registry.afterJob(jobExecution);
+		assertTrue(registry.isEmpty());
+	}
+
+	@Test
+	public void testFinishedExecutionIgnored() {
+		JobExecution jobExecution = MetaDataInstanceFactory.createJobExecution(123L);
+		jobExecution.setEndTime(new Date());
+		registry.register(jobExecution, true);
+		assertTrue(registry.isEmpty());
+	}
+
+	@Test
+	public void testListenToOnce() {
+		SimpleJob job = new SimpleJob("job");
+		assertTrue(registry.listenTo(job));
+		assertTrue(registry.listenTo(job));
+		assertFalse(registry.listenTo(new JobSupport("job")));
+	}
+
+	@Test
+	public void testUpdateFromStatuses() {
+		registry.register(MetaDataInstanceFactory.createJobExecution(1L), false);
+		registry.register(MetaDataInstanceFactory.createJobExecution(2L), false);
+		registry.register(MetaDataInstanceFactory.createJobExecution(3L), false);
+		assertFalse(registry.isListening());
+		registry.update(Collections.singletonMap(2L, BatchStatus.STARTED));
+		assertEquals("[2]", registry.getJobExecutionIds().toString());
+	}
+
+	@Test
+	public void testAwaitSignalled() throws Exception {
+		final JobExecution jobExecution = MetaDataInstanceFactory.createJobExecution(123L);
+		registry.register(jobExecution, true);
+		executor.schedule(new Runnable() {
+			@Override
+			public void run() {
+				registry.afterJob(jobExecution);
+			}
+		}, 50, TimeUnit.MILLISECONDS);
+		long start = System.currentTimeMillis();
+		assertTrue(registry.awaitCompletion(5000L));
+		assertTrue(System.currentTimeMillis() - start < 5000L);
+	}
+
+	@Test
+	public void testAwaitTimeout() throws Exception {
+		registry.register(MetaDataInstanceFactory.createJobExecution(123L), true);
+		assertFalse(registry.awaitCompletion(10L));
+		assertEquals(1, registry.size());
+	}
+
+}
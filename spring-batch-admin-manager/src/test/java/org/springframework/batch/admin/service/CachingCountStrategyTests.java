@@ -0,0 +1,62 @@
+/*
+ * Copyright 2009-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.admin.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcOperations;
+
+/**
+ * @author Dave Syer
+ *
+ */
+public class CachingCountStrategyTests {
+
+	private JdbcOperations jdbcTemplate = mock(JdbcOperations.class);
+
+	@Test
+	public void testCountCached() {
+		when(jdbcTemplate.queryForObject("COUNT", Integer.class, "foo")).thenReturn(3);
+		CachingCountStrategy strategy = new CachingCountStrategy(new ExactCountStrategy(), 60000L);
+		assertEquals(TotalCount.exact(3), strategy.count(jdbcTemplate, "COUNT", "SELECT", "foo"));
+		when(jdbcTemplate.queryForObject("COUNT", Integer.class, "foo")).thenReturn(4);
+		assertEquals(TotalCount.exact(3), strategy.count(jdbcTemplate, "COUNT", "SELECT", "foo"));
+		verify(jdbcTemplate, times(1)).queryForObject("COUNT", Integer.class, "foo");
+	}
+
+	@Test
+	public void testCountCachedByArguments() {
+		when(jdbcTemplate.queryForObject("COUNT", Integer.class, "foo")).thenReturn(3);
+		when(jdbcTemplate.queryForObject("COUNT", Integer.class, "bar")).thenReturn(5);
+		CachingCountStrategy strategy = new CachingCountStrategy(new ExactCountStrategy(), 60000L);
+		assertEquals(TotalCount.exact(3), strategy.count(jdbcTemplate, "COUNT", "SELECT", "foo"));
+		assertEquals(TotalCount.exact(5), strategy.count(jdbcTemplate, "COUNT", "SELECT", "bar"));
+	}
+
+	@Test
+	public void testCountExpired() {
+		when(jdbcTemplate.queryForObject("COUNT", Integer.class, "foo")).thenReturn(3).thenReturn(4);
+		CachingCountStrategy strategy = new CachingCountStrategy(new ExactCountStrategy(), 0L);
+		assertEquals(TotalCount.exact(3), strategy.count(jdbcTemplate, "COUNT", "SELECT", "foo"));
+		assertEquals(TotalCount.exact(4), strategy.count(jdbcTemplate, "COUNT", "SELECT", "foo"));
+	}
+
+}
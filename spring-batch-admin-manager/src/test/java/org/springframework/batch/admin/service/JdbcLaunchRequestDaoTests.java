@@ -0,0 +1,160 @@
+/*
+ * Copyright 2009-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.admin.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Date;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.support.incrementer.HsqlMaxValueIncrementer;
+
+/**
+ * @author Dave Syer
+ * 
+ */
+public class JdbcLaunchRequestDaoTests {
+
+	private EmbeddedDatabase database;
+
+	private JdbcLaunchRequestDao dao = new JdbcLaunchRequestDao();
+
+	@Before
+	public void init() throws Exception {
+		database = new EmbeddedDatabaseBuilder().setName("launchRequestDao")
+				.addScript("classpath:/org/springframework/batch/core/schema-hsqldb.sql")
+				.addScript("classpath:/org/springframework/batch/admin/service/schema-launch-queue.sql").build();
+		dao.setJdbcTemplate(new JdbcTemplate(database));
+		dao.setLaunchRequestIncrementer(new HsqlMaxValueIncrementer(database, "BATCH_JOB_LAUNCH_REQUEST_SEQ", "ID"));
+		dao.afterPropertiesSet();
+	}
+
+	@After
+	public void close() {
+		database.shutdown();
+	}
+
+	@Test
+	public void testSaveAndGet() throws Exception {
+		JobParameters jobParameters = new JobParametersBuilder().addString("foo", "bar, spam=bucket")
+				.addLong("run.id", 12L).addDate("date", new Date(1000L)).toJobParameters();
+		LaunchRequest request = new LaunchRequest("job", jobParameters, 3);
+		dao.saveLaunchRequest(request);
+		assertNotNull(request.getId());
+		LaunchRequest result = dao.getLaunchRequest(request.getId());
+		assertEquals("job", result.getJobName());
+		assertEquals(jobParameters, result.getJobParameters());
+		assertEquals(3, result.getPriority());
+		assertEquals(LaunchRequest.Status.QUEUED, result.getStatus());
+		assertNotNull(result.getCreateTime());
+		assertNull(result.getDispatchTime());
+		assertNull(result.getJobExecutionId());
+	}
+
+	@Test
+	public void testGetMissing() throws Exception {
+		assertNull(dao.getLaunchRequest(123L));
+	}
+
+	@Test
+	public void testFindQueuedByPriority() throws Exception {
+		save("first", 0);
+		save("second", 0);
+		save("urgent", 1);
+		List<LaunchRequest> queued = dao.findQueuedLaunchRequests(2);
+		assertEquals(2, queued.size());
+		assertEquals("urgent", queued.get(0).getJobName());
+		assertEquals("first", queued.get(1).getJobName());
+		assertEquals(3, dao.countQueuedLaunchRequests());
+	}
+
+	@Test
+	public void testClaimAndUpdate() throws Exception {
+		LaunchRequest request = save("job", 0);
+		assertTrue(dao.claimLaunchRequest(request.getId(), "node1", lease(60000)));
+		assertFalse(dao.claimLaunchRequest(request.getId(), "node2", lease(60000)));
+		assertEquals(0, dao.countQueuedLaunchRequests());
+		LaunchRequest claimed = dao.getLaunchRequest(request.getId());
+		assertNotNull(claimed.getDispatchTime());
+		assertEquals("node1", claimed.getOwner());
+		assertNotNull(claimed.getLeaseExpires());
+		assertFalse(dao.updateLaunchRequest(request.getId(), "node2", LaunchRequest.Status.LAUNCHED, 11L, null));
+		assertTrue(dao.updateLaunchRequest(request.getId(), "node1", LaunchRequest.Status.LAUNCHED, 11L, null));
+		LaunchRequest result = dao.getLaunchRequest(request.getId());
+		assertEquals(LaunchRequest.Status.LAUNCHED, result.getStatus());
+		assertEquals(11L, result.getJobExecutionId().longValue());
+	}
+
+	@Test
+	public void testRequeueExpiredLeases() throws Exception {
+		LaunchRequest request = save("job", 0);
+		dao.claimLaunchRequest(request.getId(), "node1", lease(60000));
+		assertEquals(0, dao.requeueExpiredLaunchRequests(new Date()));
+		assertEquals(1, dao.requeueExpiredLaunchRequests(lease(120000)));
+		assertEquals(LaunchRequest.Status.QUEUED, dao.getLaunchRequest(request.getId()).getStatus());
+		// Another node takes over and the original owner can no longer
+		// record an outcome
+		assertTrue(dao.claimLaunchRequest(request.getId(), "node2", lease(60000)));
+		assertFalse(dao.updateLaunchRequest(request.getId(), "node1", LaunchRequest.Status.LAUNCHED, 11L, null));
+		assertEquals("node2", dao.getLaunchRequest(request.getId()).getOwner());
+	}
+
+	@Test
+	public void testExpiredLeaseWithJobExecutionNotRequeued() throws Exception {
+		LaunchRequest request = save("job", 0);
+		dao.claimLaunchRequest(request.getId(), "node1", lease(60000));
+		// The job was launched, but the lease expired before the outcome was
+		// recorded
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+		jdbcTemplate.update("INSERT into BATCH_JOB_INSTANCE (JOB_INSTANCE_ID, VERSION, JOB_NAME, JOB_KEY) "
+				+ "values (1, 0, 'job', 'key')");
+		jdbcTemplate.update("INSERT into BATCH_JOB_EXECUTION (JOB_EXECUTION_ID, VERSION, JOB_INSTANCE_ID, "
+				+ "CREATE_TIME, STATUS) values (11, 0, 1, ?, 'STARTING')", new Date());
+		jdbcTemplate.update("INSERT into BATCH_JOB_EXECUTION_PARAMS (JOB_EXECUTION_ID, TYPE_CD, KEY_NAME, "
+				+ "LONG_VAL, IDENTIFYING) values (11, 'LONG', ?, ?, 'N')", LaunchRequest.LAUNCH_REQUEST_ID_KEY,
+				request.getId());
+		LaunchRequest other = save("other", 0);
+		dao.claimLaunchRequest(other.getId(), "node1", lease(60000));
+		assertEquals(1, dao.requeueExpiredLaunchRequests(lease(120000)));
+		LaunchRequest result = dao.getLaunchRequest(request.getId());
+		assertEquals(LaunchRequest.Status.LAUNCHED, result.getStatus());
+		assertEquals(11L, result.getJobExecutionId().longValue());
+		assertEquals(LaunchRequest.Status.QUEUED, dao.getLaunchRequest(other.getId()).getStatus());
+	}
+
+	private Date lease(long millis) {
+		return new Date(System.currentTimeMillis() + millis);
+	}
+
+	private LaunchRequest save(String jobName, int priority) {
+		LaunchRequest request = new LaunchRequest(jobName, new JobParameters(), priority);
+		dao.saveLaunchRequest(request);
+		return request;
+	}
+
+}
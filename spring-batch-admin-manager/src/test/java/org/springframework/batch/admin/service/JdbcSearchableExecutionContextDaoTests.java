@@ -0,0 +1,116 @@
+/*
+ * Copyright 2009-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.admin.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.repository.dao.XStreamExecutionContextStringSerializer;
+import org.springframework.batch.test.JobRepositoryTestUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.transaction.AfterTransaction;
+import org.springframework.test.context.transaction.BeforeTransaction;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+
+/**
+ * @author Dave Syer
+ *
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration("/test-config.xml")
+public class JdbcSearchableExecutionContextDaoTests {
+
+	private JdbcSearchableExecutionContextDao dao;
+
+	@Autowired
+	private JobRepositoryTestUtils jobRepositoryUtils;
+
+	@Autowired
+	private JobRepository jobRepository;
+
+	private List<JobExecution> list;
+
+	@Autowired
+	public void setDataSource(DataSource dataSource) throws Exception {
+		dao = new JdbcSearchableExecutionContextDao();
+		dao.setJdbcTemplate(new JdbcTemplate(dataSource));
+		XStreamExecutionContextStringSerializer serializer = new XStreamExecutionContextStringSerializer();
+		serializer.afterPropertiesSet();
+		dao.setSerializer(serializer);
+		dao.afterPropertiesSet();
+	}
+
+	@BeforeTransaction
+	public void prepareExecutions() throws Exception {
+		jobRepositoryUtils.removeJobExecutions();
+		list = jobRepositoryUtils.createJobExecutions(1);
+	}
+
+	@AfterTransaction
+	public void removeExecutions() throws Exception {
+		jobRepositoryUtils.removeJobExecutions(list);
+	}
+
+	@Test
+	@Transactional
+	public void testShortJobExecutionContext() throws Exception {
+		JobExecution jobExecution = list.get(0);
+		jobExecution.getExecutionContext().putString("foo", "bar");
+		jobRepository.updateExecutionContext(jobExecution);
+		assertEquals("bar", dao.getShortExecutionContext(jobExecution).getString("foo"));
+	}
+
+	@Test
+	@Transactional
+	public void testLongJobExecutionContext() throws Exception {
+		JobExecution jobExecution = list.get(0);
+		String value = StringUtils.arrayToDelimitedString(new String[3000], "x");
+		jobExecution.getExecutionContext().putString("foo", value);
+		jobRepository.updateExecutionContext(jobExecution);
+		assertTrue(dao.getShortExecutionContext(jobExecution).isEmpty());
+		assertEquals(value, dao.getExecutionContext(jobExecution).getString("foo"));
+	}
+
+	@Test
+	@Transactional
+	public void testShortStepExecutionContext() throws Exception {
+		StepExecution stepExecution = list.get(0).getStepExecutions().iterator().next();
+		stepExecution.getExecutionContext().putLong("count", 123L);
+		jobRepository.updateExecutionContext(stepExecution);
+		assertEquals(123L, dao.getShortExecutionContext(stepExecution).getLong("count"));
+	}
+
+	@Test
+	@Transactional
+	public void testMissingExecutionContext() throws Exception {
+		JobExecution jobExecution = new JobExecution(-1L);
+		assertTrue(dao.getShortExecutionContext(jobExecution).isEmpty());
+	}
+
+}
@@ -16,15 +16,25 @@
 package org.springframework.batch.admin.service;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 import javax.sql.DataSource;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.springframework.batch.admin.service.JdbcSearchableJobExecutionDao.JobParametersFetchMode;
+import org.springframework.batch.core.BatchStatus;
 import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.repository.JobRepository;
 import org.springframework.batch.test.JobRepositoryTestUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.context.ContextConfiguration;
@@ -46,6 +56,9 @@ public class JdbcSearchableJobExecutionDaoTests {
 	@Autowired
 	private JobRepositoryTestUtils jobRepositoryUtils;
 
+	@Autowired
+	private JobRepository jobRepository;
+
 	private List<JobExecution> list;
 
 	@Autowired
@@ -80,6 +93,30 @@ public class JdbcSearchableJobExecutionDaoTests {
 		assertNotNull(jobExecutions.get(0).getJobInstance());
 	}
 
+	@Test
+	@Transactional
+	public void testGetJobExecutionsWithJobParameters() {
+		List<JobExecution> jobExecutions = dao.getJobExecutions(0, 10);
+		assertEquals(3, jobExecutions.size());
+		for (JobExecution jobExecution : jobExecutions) {
+			assertFalse(jobExecution.getJobParameters().isEmpty());
+			assertEquals(dao.getJobExecution(jobExecution.getId()).getJobParameters(), jobExecution
+					.getJobParameters());
+		}
+	}
+
+	@Test
+	@Transactional
+	public void testGetJobExecutionsWithLazyJobParameters() {
+		dao.setJobParametersFetchMode(JobParametersFetchMode.LAZY);
+		List<JobExecution> jobExecutions = dao.getJobExecutions("job", 0, 10);
+		assertEquals(3, jobExecutions.size());
+		for (JobExecution jobExecution : jobExecutions) {
+			assertEquals(dao.getJobExecution(jobExecution.getId()).getJobParameters().getParameters(), jobExecution
+					.getJobParameters().getParameters());
+		}
+	}
+
 	@Test
 	@Transactional
 	public void testGetJobExecutionsPaged() {
@@ -118,6 +155,51 @@ public class JdbcSearchableJobExecutionDaoTests {
 		assertEquals(3, dao.countJobExecutions("job"));
 	}
 
+	@Test
+	@Transactional
+	public void testGetTotalJobExecutions() {
+		assertEquals(TotalCount.exact(3), dao.getTotalJobExecutions());
+		assertEquals(TotalCount.exact(3), dao.getTotalJobExecutions("job"));
+	}
+
+	@Test
+	@Transactional
+	public void testGetTotalJobExecutionsEstimated() {
+		dao.setCountStrategy(new EstimatingCountStrategy(2));
+		assertEquals(TotalCount.moreThan(2), dao.getTotalJobExecutions());
+		assertEquals(TotalCount.moreThan(2), dao.getTotalJobExecutions("job"));
+		assertEquals(TotalCount.exact(0), dao.getTotalJobExecutions("other"));
+		dao.setCountStrategy(new EstimatingCountStrategy(3));
+		assertEquals(TotalCount.exact(3), dao.getTotalJobExecutions());
+	}
+
+	@Test
+	@Transactional
+	public void testCountJobExecutionsByStatus() {
+		JobExecution jobExecution = list.get(0);
+		jobExecution.setStatus(BatchStatus.FAILED);
+		jobRepository.update(jobExecution);
+		Map<BatchStatus, Integer> counts = dao.countJobExecutionsByStatus();
+		assertEquals(2, counts.size());
+		assertEquals(1, counts.get(BatchStatus.FAILED).intValue());
+		assertEquals(3, counts.get(BatchStatus.FAILED) + counts.get(list.get(1).getStatus()));
+	}
+
+	@Test
+	@Transactional
+	public void testCountJobExecutionsByStatusAndName() {
+		assertEquals(3, dao.countJobExecutionsByStatus("job").get(list.get(0).getStatus()).intValue());
+		assertEquals(0, dao.countJobExecutionsByStatus("other").size());
+	}
+
+	@Test
+	@Transactional
+	public void testCountJobExecutionsByJobAndStatus() {
+		Map<String, Map<BatchStatus, Integer>> counts = dao.countJobExecutionsByJobAndStatus();
+		assertEquals(3, counts.get("job").get(list.get(0).getStatus()).intValue());
+		assertFalse(counts.containsKey("other"));
+	}
+
 	@Test
 	@Transactional
 	public void testGetJobExecutionsByNamePaged() {
@@ -126,6 +208,129 @@ public class JdbcSearchableJobExecutionDaoTests {
 		assertEquals(list.get(0), jobExecutions.get(0));
 	}
 
+	@Test
+	@Transactional
+	public void testGetJobExecutionsAfter() {
+		List<JobExecution> jobExecutions = dao.getJobExecutionsAfter(list.get(2).getId(), 10);
+		assertEquals(2, jobExecutions.size());
+		assertEquals(list.get(1), jobExecutions.get(0));
+		assertEquals(list.get(0), jobExecutions.get(1));
+		assertFalse(jobExecutions.get(0).getJobParameters().isEmpty());
+		assertEquals(0, dao.getJobExecutionsAfter(list.get(0).getId(), 10).size());
+	}
+
+	@Test
+	@Transactional
+	public void testGetJobExecutionsBefore() {
+		List<JobExecution> jobExecutions = dao.getJobExecutionsBefore(list.get(0).getId(), 1);
+		assertEquals(1, jobExecutions.size());
+		assertEquals(list.get(1), jobExecutions.get(0));
+		jobExecutions = dao.getJobExecutionsBefore(list.get(0).getId(), 10);
+		assertEquals(2, jobExecutions.size());
+		assertEquals(list.get(2), jobExecutions.get(0));
+		assertEquals(list.get(1), jobExecutions.get(1));
+	}
+
+	@Test
+	@Transactional
+	public void testGetJobExecutionsAfterAndBeforeByName() throws Exception {
+		list.addAll(jobRepositoryUtils.createJobExecutions("other", new String[] {"step"}, 1));
+		List<JobExecution> jobExecutions = dao.getJobExecutionsAfter("job", list.get(3).getId(), 10);
+		assertEquals(3, jobExecutions.size());
+		assertEquals(list.get(2), jobExecutions.get(0));
+		assertEquals(0, dao.getJobExecutionsBefore("job", list.get(2).getId(), 10).size());
+		assertEquals(1, dao.getJobExecutionsBefore("other", list.get(2).getId(), 10).size());
+	}
+
+	@Test
+	@Transactional
+	public void testGetJobExecutionRevisions() throws Exception {
+		JobExecution jobExecution = list.get(0);
+		Map<Long, Long> revisions = dao.getJobExecutionRevisions(Arrays.asList(jobExecution.getId(),
+				list.get(1).getId(), -1L));
+		assertEquals(2, revisions.size());
+		assertFalse(revisions.containsKey(-1L));
+		jobExecution.setStatus(BatchStatus.STOPPING);
+		jobRepository.update(jobExecution);
+		Map<Long, Long> updated = dao.getJobExecutionRevisions(Arrays.asList(jobExecution.getId(), list.get(1)
+				.getId()));
+		assertTrue(updated.get(jobExecution.getId()) > revisions.get(jobExecution.getId()));
+		assertEquals(revisions.get(list.get(1).getId()), updated.get(list.get(1).getId()));
+	}
+
+	@Test
+	@Transactional
+	public void testFindJobExecutionsByCriteria() throws Exception {
+		JobExecution jobExecution = list.get(0);
+		jobExecution.setStatus(BatchStatus.FAILED);
+		jobRepository.update(jobExecution);
+		assertEquals(1, dao.findJobExecutions(new JobExecutionCriteria("job", Arrays.asList(BatchStatus.FAILED),
+				null), -1, 100).size());
+		assertEquals(0, dao.findJobExecutions(new JobExecutionCriteria("foo", Arrays.asList(BatchStatus.FAILED),
+				null), -1, 100).size());
+		assertEquals(0, dao.findJobExecutions(new JobExecutionCriteria(null, null, new Date(0)), -1, 100).size());
+		assertEquals(list.size(), dao.findJobExecutions(new JobExecutionCriteria(), -1, 100).size());
+	}
+
+	@Test
+	@Transactional
+	public void testFindJobExecutionsByCriteriaInPages() throws Exception {
+		List<JobExecution> first = dao.findJobExecutions(new JobExecutionCriteria(), -1, 1);
+		assertEquals(1, first.size());
+		assertNotNull(first.get(0).getJobParameters());
+		List<JobExecution> rest = dao.findJobExecutions(new JobExecutionCriteria(), first.get(0).getId(), 100);
+		assertEquals(list.size() - 1, rest.size());
+		assertTrue(rest.get(0).getId() > first.get(0).getId());
+	}
+
+	@Test
+	@Transactional
+	public void testUpdateJobExecutionStatusesWithVersionCheck() throws Exception {
+		List<JobExecution> jobExecutions = dao.findJobExecutions(new JobExecutionCriteria(), -1, 100);
+		JobExecution stale = jobExecutions.get(1);
+		for (JobExecution current : list) {
+			if (current.getId().equals(stale.getId())) {
+				current.setStatus(BatchStatus.STOPPING);
+				jobRepository.update(current);
+			}
+		}
+		Date endTime = new Date();
+		Collection<Long> updated = dao.updateJobExecutionStatuses(jobExecutions, BatchStatus.ABANDONED, endTime);
+		assertEquals(jobExecutions.size() - 1, updated.size());
+		assertFalse(updated.contains(stale.getId()));
+		JobExecution abandoned = dao.getJobExecution(jobExecutions.get(0).getId());
+		assertEquals(BatchStatus.ABANDONED, abandoned.getStatus());
+		assertEquals(jobExecutions.get(0).getVersion(), abandoned.getVersion());
+		assertEquals(BatchStatus.STOPPING, dao.getJobExecution(stale.getId()).getStatus());
+	}
+
+	@Test
+	@Transactional
+	public void testGetJobExecutionStatuses() throws Exception {
+		JobExecution jobExecution = list.get(0);
+		jobExecution.setStatus(BatchStatus.STOPPING);
+		jobRepository.update(jobExecution);
+		Map<Long, BatchStatus> statuses = dao.getJobExecutionStatuses(Arrays.asList(jobExecution.getId(), -1L));
+		assertEquals(1, statuses.size());
+		assertEquals(BatchStatus.STOPPING, statuses.get(jobExecution.getId()));
+	}
+
+	@Test
+	@Transactional
+	public void testSignalStop() throws Exception {
+		Long id = list.get(0).getId();
+		JobExecution state = dao.getJobExecutionState(id);
+		assertEquals(BatchStatus.STARTING, state.getStatus());
+		assertFalse(dao.signalStop(id, state.getVersion() + 1));
+		assertTrue(dao.signalStop(id, state.getVersion()));
+		JobExecution stopping = dao.getJobExecution(id);
+		assertEquals(BatchStatus.STOPPING, stopping.getStatus());
+		assertEquals(state.getVersion() + 1, stopping.getVersion().intValue());
+		// Only running executions can be signalled
+		assertFalse(dao.signalStop(id, stopping.getVersion()));
+		assertNull(dao.getJobExecutionState(-1L));
+	}
+
 	@Test
 	@Transactional
 	public void testGetJobExecutionsPastEnd() {
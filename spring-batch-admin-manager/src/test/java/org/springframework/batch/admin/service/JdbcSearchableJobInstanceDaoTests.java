@@ -18,6 +18,7 @@ package org.springframework.batch.admin.service;
 import static org.junit.Assert.assertEquals;
 
 import java.util.List;
+import java.util.Map;
 
 import javax.sql.DataSource;
 
@@ -88,4 +89,16 @@ public class JdbcSearchableJobInstanceDaoTests {
 		assertEquals(list.get(0), jobInstances.get(0));
 	}
 
+	@Test
+	@Transactional
+	public void testFindJobNamesAfter() {
+		long max = 0;
+		for (JobExecution jobExecution : list) {
+			max = Math.max(max, jobExecution.getJobId());
+		}
+		Map<String, Long> names = dao.findJobNamesAfter(-1);
+		assertEquals(Long.valueOf(max), names.get("job"));
+		assertEquals(0, dao.findJobNamesAfter(max).size());
+	}
+
 }
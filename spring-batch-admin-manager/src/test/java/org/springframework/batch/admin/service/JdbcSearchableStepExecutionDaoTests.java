@@ -16,14 +16,23 @@
 package org.springframework.batch.admin.service;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import javax.sql.DataSource;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.springframework.batch.core.BatchStatus;
 import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
 import org.springframework.batch.test.JobRepositoryTestUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.context.ContextConfiguration;
@@ -108,12 +117,94 @@ public class JdbcSearchableStepExecutionDaoTests {
 		assertEquals(1, dao.findStepExecutions("job", "s*", 2, 2).size());
 	}
 
+	@Test
+	@Transactional
+	public void testFindStepExecutionsAfter() {
+		List<StepExecution> stepExecutions = new ArrayList<StepExecution>(dao.findStepExecutions("job", "step", 0, 3));
+		assertEquals(3, stepExecutions.size());
+		Collection<StepExecution> after = dao.findStepExecutionsAfter("job", "s*", stepExecutions.get(0).getId(), 1);
+		assertEquals(1, after.size());
+		assertEquals(stepExecutions.get(1).getId(), after.iterator().next().getId());
+		assertEquals(0, dao.findStepExecutionsAfter("job", "step", stepExecutions.get(2).getId(), 10).size());
+	}
+
+	@Test
+	@Transactional
+	public void testFindStepExecutionsByJobPattern() throws Exception {
+		list.addAll(jobRepositoryUtils.createJobExecutions("other", new String[] {"step"}, 2));
+		assertEquals(5, dao.findStepExecutions("*", "step", 0, 10).size());
+		assertEquals(5, dao.findStepExecutions("*", "s*", 0, 10).size());
+		assertEquals(2, dao.findStepExecutions("oth*", "step", 0, 10).size());
+	}
+
 	@Test
 	@Transactional
 	public void testFindStepExecutionsPastEnd() {
 		assertEquals(0, dao.findStepExecutions("job", "step", 100, 100).size());
 	}
 
+	@Test
+	@Transactional
+	public void testAddStepExecutionsToManyJobExecutions() {
+		List<JobExecution> jobExecutions = new ArrayList<JobExecution>();
+		for (JobExecution jobExecution : list) {
+			jobExecutions.add(jobExecutionDao.getJobExecution(jobExecution.getId()));
+		}
+		dao.addStepExecutions(jobExecutions);
+		for (JobExecution jobExecution : jobExecutions) {
+			assertEquals(1, jobExecution.getStepExecutions().size());
+			StepExecution stepExecution = jobExecution.getStepExecutions().iterator().next();
+			assertEquals("step", stepExecution.getStepName());
+			assertSame(jobExecution, stepExecution.getJobExecution());
+		}
+	}
+
+	@Test
+	@Transactional
+	public void testGetStepExecutionWithParentShell() {
+		JobExecution jobExecution = list.get(0);
+		StepExecution expected = jobExecution.getStepExecutions().iterator().next();
+		StepExecution stepExecution = dao.getStepExecution(jobExecution.getId(), expected.getId());
+		assertEquals(expected.getId(), stepExecution.getId());
+		assertEquals("step", stepExecution.getStepName());
+		assertEquals(jobExecution.getId(), stepExecution.getJobExecutionId());
+		assertEquals("job", stepExecution.getJobExecution().getJobInstance().getJobName());
+		assertEquals(jobExecution.getJobId(), stepExecution.getJobExecution().getJobId());
+		assertEquals(jobExecution.getStatus(), stepExecution.getJobExecution().getStatus());
+		// No siblings, only the step execution itself
+		assertEquals(1, stepExecution.getJobExecution().getStepExecutions().size());
+	}
+
+	@Test
+	@Transactional
+	public void testGetStepExecutionWithWrongParent() {
+		StepExecution stepExecution = list.get(0).getStepExecutions().iterator().next();
+		assertNull(dao.getStepExecution(list.get(1).getId(), stepExecution.getId()));
+		assertNull(dao.getStepExecution(list.get(0).getId(), -1L));
+	}
+
+	@Test
+	@Transactional
+	public void testGetStepExecutionsByIds() {
+		List<Long> ids = new ArrayList<Long>();
+		for (JobExecution jobExecution : list) {
+			ids.add(jobExecution.getStepExecutions().iterator().next().getId());
+		}
+		ids.add(-1L);
+		Collection<StepExecution> stepExecutions = dao.getStepExecutions(ids);
+		assertEquals(list.size(), stepExecutions.size());
+		for (StepExecution stepExecution : stepExecutions) {
+			assertEquals("step", stepExecution.getStepName());
+			assertNotNull(stepExecution.getJobExecutionId());
+		}
+	}
+
+	@Test
+	@Transactional
+	public void testAddStepExecutionsToNoJobExecutions() {
+		dao.addStepExecutions(Collections.<JobExecution> emptyList());
+	}
+
 	@Test
 	@Transactional
 	public void testCountStepExecutionsByName() {
@@ -140,4 +231,33 @@ public class JdbcSearchableStepExecutionDaoTests {
 		assertEquals(3, dao.countStepExecutions("job", "s*"));
 	}
 
+	@Test
+	@Transactional
+	public void testCountStepExecutionsByStatus() throws Exception {
+		StepExecution stepExecution = list.get(0).getStepExecutions().iterator().next();
+		stepExecution.setStatus(BatchStatus.FAILED);
+		dao.updateStepExecution(stepExecution);
+		Map<BatchStatus, Integer> counts = dao.countStepExecutionsByStatus("job", "step");
+		assertEquals(2, counts.size());
+		assertEquals(1, counts.get(BatchStatus.FAILED).intValue());
+	}
+
+	@Test
+	@Transactional
+	public void testCountStepExecutionsByStatusWithPattern() throws Exception {
+		list.addAll(jobRepositoryUtils.createJobExecutions("other", new String[] {"step"}, 2));
+		Map<BatchStatus, Integer> counts = dao.countStepExecutionsByStatus("job", "s*");
+		assertEquals(1, counts.size());
+		assertEquals(3, counts.values().iterator().next().intValue());
+	}
+
+	@Test
+	@Transactional
+	public void testCountStepExecutionsByStepAndStatus() throws Exception {
+		list.addAll(jobRepositoryUtils.createJobExecutions("other", new String[] {"step"}, 2));
+		Map<String, Map<String, Map<BatchStatus, Integer>>> counts = dao.countStepExecutionsByStepAndStatus();
+		assertEquals(3, counts.get("job").get("step").values().iterator().next().intValue());
+		assertEquals(2, counts.get("other").get("step").values().iterator().next().intValue());
+	}
+
 }
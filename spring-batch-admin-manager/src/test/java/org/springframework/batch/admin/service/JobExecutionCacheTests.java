@@ -0,0 +1,144 @@
+/*
+ * Copyright 2009-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.admin.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+
+/**
+ * @author Dave Syer
+ *
+ */
+public class JobExecutionCacheTests {
+
+	private SearchableJobExecutionDao jobExecutionDao = mock(SearchableJobExecutionDao.class);
+
+	private JobExecutionCache cache = new JobExecutionCache(jobExecutionDao);
+
+	@Test
+	public void testMiss() {
+		assertNull(cache.get(123L));
+		assertEquals(1, cache.getMissCount());
+	}
+
+	@Test
+	public void testCompletedExecutionServedFromCache() {
+		JobExecution jobExecution = createJobExecution(123L, BatchStatus.COMPLETED, "step1", "step2");
+		cache.put(jobExecution);
+		assertEquals(3, cache.getSize());
+		JobExecution cached = cache.get(123L);
+		assertNotSame(jobExecution, cached);
+		assertEquals(BatchStatus.COMPLETED, cached.getStatus());
+		assertEquals(2, cached.getStepExecutions().size());
+		assertEquals(jobExecution.getJobInstance(), cached.getJobInstance());
+		assertEquals(1, cache.getHitCount());
+		verify(jobExecutionDao, never()).getJobExecutionRevisions(anyCollectionOf(Long.class));
+	}
+
+	@Test
+	public void testCopiesAreIndependent() {
+		cache.put(createJobExecution(123L, BatchStatus.COMPLETED, "step"));
+		cache.get(123L).setStatus(BatchStatus.ABANDONED);
+		assertEquals(BatchStatus.COMPLETED, cache.get(123L).getStatus());
+	}
+
+	@Test
+	public void testRunningExecutionRevalidated() {
+		JobExecution jobExecution = createJobExecution(123L, BatchStatus.STARTED, "step");
+		cache.put(jobExecution);
+		// version 1 plus 1 step execution with version 2
+		when(jobExecutionDao.getJobExecutionRevisions(Collections.singleton(123L))).thenReturn(
+				Collections.singletonMap(123L, 4L));
+		assertNotNull(cache.get(123L));
+		assertEquals(1, cache.getRevalidationCount());
+		when(jobExecutionDao.getJobExecutionRevisions(Collections.singleton(123L))).thenReturn(
+				Collections.singletonMap(123L, 5L));
+		assertNull(cache.get(123L));
+		assertEquals(0, cache.getExecutionCount());
+		assertEquals(0, cache.getSize());
+	}
+
+	@Test
+	public void testStepExecution() {
+		JobExecution jobExecution = createJobExecution(123L, BatchStatus.COMPLETED, "step1", "step2");
+		cache.put(jobExecution);
+		Long id = jobExecution.getStepExecutions().iterator().next().getId();
+		StepExecution stepExecution = cache.getStepExecution(123L, id);
+		assertEquals(id, stepExecution.getId());
+		assertEquals(123L, stepExecution.getJobExecutionId().longValue());
+		assertNull(cache.getStepExecution(123L, -1L));
+		assertNull(cache.getStepExecution(124L, id));
+	}
+
+	@Test
+	public void testInvalidate() {
+		cache.put(createJobExecution(123L, BatchStatus.COMPLETED, "step"));
+		cache.invalidate(123L);
+		assertNull(cache.get(123L));
+		assertEquals(0, cache.getSize());
+	}
+
+	@Test
+	public void testLeastRecentlyUsedEvicted() {
+		cache.setMaxSize(4);
+		cache.put(createJobExecution(1L, BatchStatus.COMPLETED, "step"));
+		cache.put(createJobExecution(2L, BatchStatus.COMPLETED, "step"));
+		cache.get(1L);
+		cache.put(createJobExecution(3L, BatchStatus.COMPLETED, "step"));
+		assertEquals(2, cache.getExecutionCount());
+		assertEquals(1, cache.getEvictionCount());
+		assertNotNull(cache.get(1L));
+		assertNull(cache.get(2L));
+		assertNotNull(cache.get(3L));
+	}
+
+	@Test
+	public void testDisabled() {
+		cache.setMaxSize(0);
+		cache.put(createJobExecution(123L, BatchStatus.COMPLETED, "step"));
+		assertNull(cache.get(123L));
+	}
+
+	private JobExecution createJobExecution(Long id, BatchStatus status, String... stepNames) {
+		JobExecution jobExecution = MetaDataInstanceFactory.createJobExecutionWithStepExecutions(id,
+				Arrays.asList(stepNames));
+		jobExecution.setVersion(1);
+		jobExecution.setStatus(status);
+		long stepId = id * 100;
+		for (StepExecution stepExecution : jobExecution.getStepExecutions()) {
+			stepExecution.setId(stepId++);
+			stepExecution.setVersion(2);
+		}
+		return jobExecution;
+	}
+
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2009-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.admin.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.launch.JobExecutionNotRunningException;
+import org.springframework.batch.core.launch.NoSuchJobExecutionException;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+/**
+ * @author Dave Syer
+ *
+ */
+public class JobExecutionStopSignallerTests {
+
+	private SearchableJobExecutionDao jobExecutionDao = mock(SearchableJobExecutionDao.class);
+
+	private JobExecutionStopSignaller signaller = new JobExecutionStopSignaller(jobExecutionDao);
+
+	@Test
+	public void testSignal() throws Exception {
+		when(jobExecutionDao.getJobExecutionState(123L)).thenReturn(createState(123L, BatchStatus.STARTED, 2));
+		when(jobExecutionDao.signalStop(123L, 2)).thenReturn(true);
+		signaller.signal(123L);
+		assertEquals(1, signaller.getSignalCount());
+		assertEquals(1, signaller.getPendingCount());
+		assertEquals(0, signaller.getConflictCount());
+	}
+
+	@Test
+	public void testSignalRetriedAfterConflict() throws Exception {
+		signaller.setInitialBackOff(1);
+		when(jobExecutionDao.getJobExecutionState(123L)).thenReturn(createState(123L, BatchStatus.STARTED, 2),
+				createState(123L, BatchStatus.STARTED, 3));
+		when(jobExecutionDao.signalStop(123L, 2)).thenReturn(false);
+		when(jobExecutionDao.signalStop(123L, 3)).thenReturn(true);
+		signaller.signal(123L);
+		assertEquals(1, signaller.getSignalCount());
+		assertEquals(1, signaller.getConflictCount());
+	}
+
+	@Test
+	public void testSignalFailsAfterMaxAttempts() throws Exception {
+		signaller.setInitialBackOff(1);
+		signaller.setMaxAttempts(3);
+		when(jobExecutionDao.getJobExecutionState(123L)).thenReturn(createState(123L, BatchStatus.STARTED, 2));
+		try {
+			signaller.signal(123L);
+			fail("Expected OptimisticLockingFailureException");
+		}
+		catch (OptimisticLockingFailureException e) {
+			// expected
+		}
+		verify(jobExecutionDao, times(3)).signalStop(123L, 2);
+		assertEquals(3, signaller.getConflictCount());
+		assertEquals(1, signaller.getFailureCount());
+		assertEquals(0, signaller.getPendingCount());
+	}
+
+	@Test
+	public void testSignalAlreadyStopping() throws Exception {
+		when(jobExecutionDao.getJobExecutionState(123L)).thenReturn(createState(123L, BatchStatus.STOPPING, 2));
+		signaller.signal(123L);
+		verify(jobExecutionDao, never()).signalStop(123L, 2);
+		assertEquals(0, signaller.getSignalCount());
+	}
+
+	@Test(expected = JobExecutionNotRunningException.class)
+	public void testSignalNotRunning() throws Exception {
+		when(jobExecutionDao.getJobExecutionState(123L)).thenReturn(createState(123L, BatchStatus.COMPLETED, 2));
+		signaller.signal(123L);
+	}
+
+	@Test(expected = NoSuchJobExecutionException.class)
+	public void testSignalNoSuchExecution() throws Exception {
+		signaller.signal(123L);
+	}
+
+	@Test
+	public void testAcknowledgedByListener() throws Exception {
+		testSignal();
+		assertEquals(-1, signaller.getMeanAcknowledgeTime(), 0.01);
+		Thread.sleep(10);
+		signaller.afterJob(createState(123L, BatchStatus.STOPPED, 4));
+		assertEquals(0, signaller.getPendingCount());
+		assertEquals(1, signaller.getAcknowledgedCount());
+		assertTrue(signaller.getLatestAcknowledgeTime() >= 10);
+		assertEquals(signaller.getLatestAcknowledgeTime(), signaller.getMaxAcknowledgeTime());
+		// Only pending signals are acknowledged
+		signaller.afterJob(createState(123L, BatchStatus.STOPPED, 4));
+		assertEquals(1, signaller.getAcknowledgedCount());
+	}
+
+	@Test
+	public void testAcknowledgedInRepository() throws Exception {
+		testSignal();
+		when(jobExecutionDao.getJobExecutionStatuses(Arrays.asList(123L))).thenReturn(
+				Collections.singletonMap(123L, BatchStatus.STOPPING));
+		signaller.checkAcknowledged();
+		assertEquals(1, signaller.getPendingCount());
+		when(jobExecutionDao.getJobExecutionStatuses(Arrays.asList(123L))).thenReturn(
+				Collections.singletonMap(123L, BatchStatus.STOPPED));
+		signaller.checkAcknowledged();
+		assertEquals(0, signaller.getPendingCount());
+		assertEquals(1, signaller.getAcknowledgedCount());
+	}
+
+	private JobExecution createState(Long id, BatchStatus status, int version) {
+		JobExecution jobExecution = new JobExecution(id);
+		jobExecution.setStatus(status);
+		jobExecution.setVersion(version);
+		return jobExecution;
+	}
+
+}
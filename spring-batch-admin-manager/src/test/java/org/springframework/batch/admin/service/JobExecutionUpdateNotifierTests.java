@@ -0,0 +1,180 @@
+/*
+ * Copyright 2009-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.admin.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.batch.admin.domain.StepExecutionHistory;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+
+/**
+ * @author Dave Syer
+ *
+ */
+public class JobExecutionUpdateNotifierTests {
+
+	private JobService jobService = mock(JobService.class);
+
+	private JobExecutionUpdateNotifier notifier = new JobExecutionUpdateNotifier(jobService);
+
+	private JobExecution jobExecution;
+
+	private List<JobExecutionUpdate> updates = new ArrayList<JobExecutionUpdate>();
+
+	private JobExecutionUpdateNotifier.Callback callback = new JobExecutionUpdateNotifier.Callback() {
+		@Override
+		public void update(JobExecutionUpdate update) {
+			updates.add(update);
+		}
+	};
+
+	@Before
+	public void init() throws Exception {
+		jobExecution = MetaDataInstanceFactory.createJobExecutionWithStepExecutions(123L, Arrays.asList("foo",
+				"bar"));
+		jobExecution.setStatus(BatchStatus.STARTED);
+		jobExecution.setStartTime(new Date());
+		when(jobService.getJobExecution(123L, ExecutionContextFetchMode.NONE)).thenReturn(jobExecution);
+		revision(1L);
+		when(jobService.getStepExecutionHistory(anyString(), anyString())).thenReturn(
+				new StepExecutionHistory("step"));
+	}
+
+	@Test
+	public void testInitialUpdate() throws Exception {
+		JobExecutionUpdate update = notifier.register(123L, 0, callback);
+		assertNotNull(update);
+		assertEquals("STARTED", update.getStatus());
+		assertEquals(2, update.getStepExecutions().size());
+		assertEquals(1, notifier.getWatchCount());
+		assertNull(notifier.getUpdate(123L, update.getSequence()));
+	}
+
+	@Test
+	public void testChangeDetected() throws Exception {
+		long sequence = notifier.register(123L, 0, callback).getSequence();
+		assertNull(notifier.register(123L, sequence, callback));
+		getStepExecution("bar").setReadCount(10);
+		revision(2L);
+		notifier.detectChanges();
+		assertEquals(1, updates.size());
+		JobExecutionUpdate update = updates.get(0);
+		assertEquals(1, update.getStepExecutions().size());
+		assertEquals("bar", update.getStepExecutions().get(0).getStepName());
+		assertEquals(10, update.getStepExecutions().get(0).getReadCount());
+		// The full state is still available to a new client
+		assertEquals(2, notifier.getUpdate(123L, 0).getStepExecutions().size());
+	}
+
+	@Test
+	public void testNoReloadWithoutChange() throws Exception {
+		long sequence = notifier.register(123L, 0, callback).getSequence();
+		assertNull(notifier.register(123L, sequence, callback));
+		notifier.detectChanges();
+		notifier.detectChanges();
+		assertEquals(0, updates.size());
+		verify(jobService, times(1)).getJobExecution(123L, ExecutionContextFetchMode.NONE);
+	}
+
+	@Test
+	public void testNoUpdateWithoutStateChange() throws Exception {
+		long sequence = notifier.register(123L, 0, callback).getSequence();
+		assertNull(notifier.register(123L, sequence, callback));
+		// e.g. only the execution context changed
+		revision(2L);
+		notifier.detectChanges();
+		assertEquals(0, updates.size());
+		verify(jobService, times(2)).getJobExecution(123L, ExecutionContextFetchMode.NONE);
+	}
+
+	@Test
+	public void testListenerPublishesWithoutRepository() throws Exception {
+		long sequence = notifier.register(123L, 0, callback).getSequence();
+		assertNull(notifier.register(123L, sequence, callback));
+		StepExecution stepExecution = getStepExecution("foo");
+		stepExecution.setStatus(BatchStatus.COMPLETED);
+		stepExecution.setEndTime(new Date());
+		notifier.afterStep(stepExecution);
+		assertEquals(1, updates.size());
+		StepExecutionUpdate update = updates.get(0).getStepExecutions().get(0);
+		assertEquals("COMPLETED", update.getStatus());
+		assertEquals(1, update.getPercentComplete(), 0.01);
+		verify(jobService, times(1)).getJobExecution(123L, ExecutionContextFetchMode.NONE);
+	}
+
+	@Test
+	public void testUnregister() throws Exception {
+		long sequence = notifier.register(123L, 0, callback).getSequence();
+		assertNull(notifier.register(123L, sequence, callback));
+		notifier.unregister(123L, callback);
+		jobExecution.setStatus(BatchStatus.STOPPING);
+		notifier.beforeJob(jobExecution);
+		assertEquals(0, updates.size());
+		assertEquals("STOPPING", notifier.getUpdate(123L, sequence).getStatus());
+	}
+
+	@Test
+	public void testIdleWatchExpired() throws Exception {
+		notifier.setIdleTimeout(-1);
+		notifier.getUpdate(123L, 0);
+		assertEquals(1, notifier.getWatchCount());
+		notifier.detectChanges();
+		assertEquals(0, notifier.getWatchCount());
+	}
+
+	@Test
+	public void testDeletedExecutionDropped() throws Exception {
+		notifier.getUpdate(123L, 0);
+		when(jobService.getJobExecutionRevisions(anyCollectionOf(Long.class))).thenReturn(
+				Collections.<Long, Long> emptyMap());
+		notifier.detectChanges();
+		assertEquals(0, notifier.getWatchCount());
+	}
+
+	private void revision(long revision) {
+		when(jobService.getJobExecutionRevisions(anyCollectionOf(Long.class))).thenReturn(
+				Collections.singletonMap(123L, revision));
+	}
+
+	private StepExecution getStepExecution(String stepName) {
+		for (StepExecution stepExecution : jobExecution.getStepExecutions()) {
+			if (stepExecution.getStepName().equals(stepName)) {
+				return stepExecution;
+			}
+		}
+		throw new IllegalStateException("No such step: " + stepName);
+	}
+
+}
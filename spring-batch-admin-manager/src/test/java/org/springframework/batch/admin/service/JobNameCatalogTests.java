@@ -0,0 +1,127 @@
+/*
+ * Copyright 2009-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.admin.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.batch.core.configuration.ListableJobLocator;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.ResourcePatternResolver;
+
+/**
+ * @author Dave Syer
+ * 
+ */
+public class JobNameCatalogTests {
+
+	private ListableJobLocator jobLocator = mock(ListableJobLocator.class);
+
+	private SearchableJobInstanceDao jobInstanceDao = mock(SearchableJobInstanceDao.class);
+
+	private JobNameCatalog catalog;
+
+	@Before
+	public void init() throws Exception {
+		ResourcePatternResolver resolver = mock(ResourcePatternResolver.class);
+		when(resolver.getResources("jsr")).thenReturn(new Resource[0]);
+		catalog = new JobNameCatalog(jobLocator, new JsrJobCatalog(resolver, "jsr"), jobInstanceDao);
+		when(jobLocator.getJobNames()).thenReturn(Arrays.asList("foo"));
+		when(jobInstanceDao.findJobNamesAfter(-1)).thenReturn(jobNames("bar", 3L));
+	}
+
+	@Test
+	public void testJobNamesMerged() {
+		when(jobLocator.getJobNames()).thenReturn(Arrays.asList("foo", "bar"));
+		assertEquals("[foo, bar]", catalog.getJobNames().toString());
+	}
+
+	@Test
+	public void testHistoricNamesLoadedOnce() {
+		assertTrue(catalog.contains("foo"));
+		assertTrue(catalog.contains("bar"));
+		assertFalse(catalog.contains("spam"));
+		assertEquals("[foo, bar]", catalog.getJobNames().toString());
+		verify(jobInstanceDao, times(1)).findJobNamesAfter(-1);
+	}
+
+	@Test
+	public void testRefreshFromHighWatermark() {
+		catalog.setRefreshWindow(0);
+		assertFalse(catalog.contains("spam"));
+		when(jobInstanceDao.findJobNamesAfter(3)).thenReturn(jobNames("spam", 5L));
+		catalog.refresh();
+		assertTrue(catalog.contains("spam"));
+		when(jobInstanceDao.findJobNamesAfter(5)).thenReturn(Collections.<String, Long> emptyMap());
+		catalog.refresh();
+		verify(jobInstanceDao, times(1)).findJobNamesAfter(5);
+		assertEquals("[foo, bar, spam]", catalog.getJobNames().toString());
+	}
+
+	@Test
+	public void testRefreshRescansWindowBelowHighWatermark() {
+		catalog.setRefreshWindow(10);
+		when(jobInstanceDao.findJobNamesAfter(-1)).thenReturn(jobNames("bar", 30L));
+		assertFalse(catalog.contains("spam"));
+		// An instance with an id below the watermark that was committed late
+		when(jobInstanceDao.findJobNamesAfter(20)).thenReturn(jobNames("spam", 25L));
+		catalog.refresh();
+		assertTrue(catalog.contains("spam"));
+		// The watermark does not go backwards
+		catalog.refresh();
+		verify(jobInstanceDao, times(2)).findJobNamesAfter(20);
+		assertEquals("[foo, bar, spam]", catalog.getJobNames().toString());
+	}
+
+	@Test
+	public void testExistsChecksRepositoryForUnknownNames() {
+		when(jobInstanceDao.countJobInstances("spam")).thenReturn(1);
+		assertTrue(catalog.exists("foo"));
+		assertFalse(catalog.exists("bucket"));
+		assertTrue(catalog.exists("spam"));
+		assertTrue(catalog.exists("spam"));
+		verify(jobInstanceDao, times(1)).countJobInstances("spam");
+		verify(jobInstanceDao, times(0)).countJobInstances("foo");
+	}
+
+	@Test
+	public void testReload() {
+		assertTrue(catalog.contains("bar"));
+		when(jobInstanceDao.findJobNamesAfter(-1)).thenReturn(jobNames("spam", 4L));
+		catalog.reload();
+		assertFalse(catalog.contains("bar"));
+		assertTrue(catalog.contains("spam"));
+	}
+
+	private Map<String, Long> jobNames(String name, Long id) {
+		Map<String, Long> result = new LinkedHashMap<String, Long>();
+		result.put(name, id);
+		return result;
+	}
+
+}
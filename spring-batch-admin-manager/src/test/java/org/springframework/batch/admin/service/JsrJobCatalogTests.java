@@ -0,0 +1,82 @@
+/*
+ * Copyright 2009-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.admin.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.ResourcePatternResolver;
+
+/**
+ * @author Dave Syer
+ * 
+ */
+public class JsrJobCatalogTests {
+
+	private ResourcePatternResolver resolver = mock(ResourcePatternResolver.class);
+
+	private JsrJobCatalog catalog = new JsrJobCatalog(resolver, JsrJobCatalog.DEFAULT_JOB_LOCATIONS);
+
+	@Test
+	public void testDefaultCatalogScansClasspath() {
+		assertTrue(new JsrJobCatalog().contains("jsr352-job"));
+	}
+
+	@Test
+	public void testClasspathScannedOnce() throws Exception {
+		when(resolver.getResources(JsrJobCatalog.DEFAULT_JOB_LOCATIONS)).thenReturn(new Resource[] { job("foo") });
+		assertTrue(catalog.contains("foo"));
+		assertFalse(catalog.contains("bar"));
+		assertEquals(1, catalog.getJobNames().size());
+		verify(resolver, times(1)).getResources(JsrJobCatalog.DEFAULT_JOB_LOCATIONS);
+	}
+
+	@Test
+	public void testReload() throws Exception {
+		when(resolver.getResources(JsrJobCatalog.DEFAULT_JOB_LOCATIONS)).thenReturn(new Resource[] { job("foo") });
+		assertTrue(catalog.contains("foo"));
+		when(resolver.getResources(JsrJobCatalog.DEFAULT_JOB_LOCATIONS)).thenReturn(
+				new Resource[] { job("foo"), job("bar") });
+		assertFalse(catalog.contains("bar"));
+		catalog.reload();
+		assertTrue(catalog.contains("bar"));
+		assertEquals(2, catalog.getJobNames().size());
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testJobNamesNotModifiable() throws Exception {
+		when(resolver.getResources(JsrJobCatalog.DEFAULT_JOB_LOCATIONS)).thenReturn(new Resource[0]);
+		catalog.getJobNames().add("foo");
+	}
+
+	private Resource job(final String name) {
+		return new ByteArrayResource(new byte[0]) {
+			@Override
+			public String getFilename() {
+				return name + ".xml";
+			}
+		};
+	}
+
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2009-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.admin.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.batch.admin.launch.LaunchScheduler;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.launch.NoSuchJobException;
+
+/**
+ * @author Dave Syer
+ * 
+ */
+public class LaunchRequestDispatcherTests {
+
+	private JobService jobService = mock(JobService.class);
+
+	private LaunchRequestDao launchRequestDao = mock(LaunchRequestDao.class);
+
+	private LaunchRequestDispatcher dispatcher = new LaunchRequestDispatcher(jobService, launchRequestDao);
+
+	@Before
+	public void init() {
+		dispatcher.setNodeId("node");
+	}
+
+	@Test
+	public void testDispatch() throws Exception {
+		LaunchRequest request = createRequest(1L, "job");
+		when(launchRequestDao.findQueuedLaunchRequests(20)).thenReturn(Arrays.asList(request));
+		when(launchRequestDao.claimLaunchRequest(eq(1L), eq("node"), any(Date.class))).thenReturn(true);
+		when(jobService.launch(eq("job"), any(JobParameters.class))).thenReturn(new JobExecution(123L));
+		when(launchRequestDao.countQueuedLaunchRequests()).thenReturn(4);
+		assertEquals(1, dispatcher.dispatch());
+		verify(launchRequestDao).updateLaunchRequest(1L, "node", LaunchRequest.Status.LAUNCHED, 123L, null);
+		assertEquals(4, dispatcher.getQueueDepth());
+		assertEquals(1, dispatcher.getDispatchedCount());
+		assertEquals(1000, dispatcher.getMaxWaitTime(), 500);
+		ArgumentCaptor<JobParameters> jobParameters = ArgumentCaptor.forClass(JobParameters.class);
+		verify(jobService).launch(eq("job"), jobParameters.capture());
+		assertEquals(1L, jobParameters.getValue().getLong(LaunchRequest.LAUNCH_REQUEST_ID_KEY).longValue());
+		assertFalse(jobParameters.getValue().getParameters().get(LaunchRequest.LAUNCH_REQUEST_ID_KEY)
+				.isIdentifying());
+	}
+
+	@Test
+	public void testDispatchClaimedElsewhere() throws Exception {
+		when(launchRequestDao.findQueuedLaunchRequests(20)).thenReturn(Arrays.asList(createRequest(1L, "job")));
+		assertEquals(0, dispatcher.dispatch());
+		verify(jobService, never()).launch(anyString(), any(JobParameters.class));
+		assertEquals(1, dispatcher.getConflictCount());
+	}
+
+	@Test
+	public void testDispatchSkipsConflictsUpToCapacity() throws Exception {
+		LaunchScheduler scheduler = new LaunchScheduler();
+		scheduler.setConcurrencyLimit(1);
+		dispatcher.setLaunchScheduler(scheduler);
+		when(launchRequestDao.findQueuedLaunchRequests(2)).thenReturn(
+				Arrays.asList(createRequest(1L, "foo"), createRequest(2L, "bar")));
+		when(launchRequestDao.claimLaunchRequest(eq(2L), eq("node"), any(Date.class))).thenReturn(true);
+		when(jobService.launch(eq("bar"), any(JobParameters.class))).thenReturn(new JobExecution(123L));
+		assertEquals(1, dispatcher.dispatch());
+		verify(jobService, never()).launch(eq("foo"), any(JobParameters.class));
+		assertEquals(1, dispatcher.getConflictCount());
+	}
+
+	@Test
+	public void testDispatchLeaseLost() throws Exception {
+		LaunchRequest request = createRequest(1L, "job");
+		when(launchRequestDao.findQueuedLaunchRequests(20)).thenReturn(Arrays.asList(request));
+		when(launchRequestDao.claimLaunchRequest(eq(1L), eq("node"), any(Date.class))).thenReturn(true);
+		when(jobService.launch(eq("job"), any(JobParameters.class))).thenReturn(new JobExecution(123L));
+		// the update is rejected because the lease expired: only logged
+		assertEquals(1, dispatcher.dispatch());
+	}
+
+	@Test
+	public void testDispatchFails() throws Exception {
+		LaunchRequest request = createRequest(1L, "job");
+		when(launchRequestDao.findQueuedLaunchRequests(20)).thenReturn(Arrays.asList(request));
+		when(launchRequestDao.claimLaunchRequest(eq(1L), eq("node"), any(Date.class))).thenReturn(true);
+		when(jobService.launch(eq("job"), any(JobParameters.class))).thenThrow(new NoSuchJobException("job"));
+		assertEquals(0, dispatcher.dispatch());
+		verify(launchRequestDao).updateLaunchRequest(eq(1L), eq("node"), eq(LaunchRequest.Status.FAILED),
+				eq((Long) null), anyString());
+		assertEquals(1, dispatcher.getFailedCount());
+	}
+
+	@Test
+	public void testDispatchLimitedBySchedulerCapacity() throws Exception {
+		LaunchScheduler scheduler = new LaunchScheduler();
+		scheduler.setConcurrencyLimit(0);
+		dispatcher.setLaunchScheduler(scheduler);
+		assertEquals(0, dispatcher.dispatch());
+		verify(launchRequestDao, never()).findQueuedLaunchRequests(any(Integer.class));
+		scheduler.setConcurrencyLimit(2);
+		when(launchRequestDao.findQueuedLaunchRequests(4)).thenReturn(Collections.<LaunchRequest> emptyList());
+		dispatcher.dispatch();
+		verify(launchRequestDao).findQueuedLaunchRequests(4);
+	}
+
+	@Test
+	public void testExpiredLeasesRequeued() throws Exception {
+		when(launchRequestDao.requeueExpiredLaunchRequests(any(Date.class))).thenReturn(2);
+		assertEquals(2, dispatcher.requeueExpired());
+		assertEquals(2, dispatcher.getRequeuedCount());
+		dispatcher.dispatch();
+		verify(launchRequestDao).requeueExpiredLaunchRequests(any(Date.class));
+	}
+
+	@Test
+	public void testDisabled() throws Exception {
+		dispatcher.setEnabled(false);
+		assertEquals(0, dispatcher.dispatch());
+		assertEquals(0, dispatcher.requeueExpired());
+		verify(launchRequestDao, never()).requeueExpiredLaunchRequests(any(Date.class));
+		verify(launchRequestDao, never()).findQueuedLaunchRequests(any(Integer.class));
+	}
+
+	private LaunchRequest createRequest(Long id, String jobName) {
+		LaunchRequest request = new LaunchRequest(jobName, new JobParameters(), 0);
+		request.setId(id);
+		request.setCreateTime(new Date(System.currentTimeMillis() - 1000));
+		return request;
+	}
+
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2009-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.admin.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.Date;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+
+/**
+ * @author Dave Syer
+ *
+ */
+public class ReadReplicaInterceptorTests {
+
+	private SearchableJobExecutionDao primary = mock(SearchableJobExecutionDao.class);
+
+	private SearchableJobExecutionDao replica = mock(SearchableJobExecutionDao.class);
+
+	private SearchableStepExecutionDao primaryStepDao = mock(SearchableStepExecutionDao.class);
+
+	private SearchableStepExecutionDao replicaStepDao = mock(SearchableStepExecutionDao.class);
+
+	private SearchableJobExecutionDao dao;
+
+	private SearchableStepExecutionDao stepDao;
+
+	@Before
+	public void init() {
+		dao = createProxy(SearchableJobExecutionDao.class, primary, replica);
+		stepDao = createProxy(SearchableStepExecutionDao.class, primaryStepDao, replicaStepDao);
+	}
+
+	@Test
+	public void testQueryFromReplica() {
+		when(replica.countJobExecutions()).thenReturn(3);
+		assertEquals(3, dao.countJobExecutions());
+		verifyZeroInteractions(primary);
+	}
+
+	@Test
+	public void testWriteToPrimary() {
+		when(primary.signalStop(123L, 1)).thenReturn(true);
+		assertTrue(dao.signalStop(123L, 1));
+		verifyZeroInteractions(replica);
+	}
+
+	@Test
+	public void testPrimaryMethod() {
+		JobExecution jobExecution = createJobExecution(123L, true, 60000L);
+		when(primary.getJobExecutionState(123L)).thenReturn(jobExecution);
+		assertSame(jobExecution, dao.getJobExecutionState(123L));
+		verifyZeroInteractions(replica);
+	}
+
+	@Test
+	public void testFreshExecutionFromReplica() {
+		JobExecution jobExecution = createJobExecution(123L, true, 60000L);
+		when(replica.getJobExecution(123L)).thenReturn(jobExecution);
+		assertSame(jobExecution, dao.getJobExecution(123L));
+		verify(primary, never()).getJobExecution(123L);
+	}
+
+	@Test
+	public void testMissingExecutionFromPrimary() {
+		JobExecution jobExecution = createJobExecution(123L, true, 0L);
+		when(primary.getJobExecution(123L)).thenReturn(jobExecution);
+		assertSame(jobExecution, dao.getJobExecution(123L));
+	}
+
+	@Test
+	public void testRunningExecutionFromPrimary() {
+		JobExecution running = createJobExecution(123L, false, 60000L);
+		JobExecution jobExecution = createJobExecution(123L, false, 0L);
+		when(replica.getJobExecution(123L)).thenReturn(running);
+		when(primary.getJobExecution(123L)).thenReturn(jobExecution);
+		assertSame(jobExecution, dao.getJobExecution(123L));
+	}
+
+	@Test
+	public void testRecentlyUpdatedExecutionFromPrimary() {
+		JobExecution recent = createJobExecution(123L, true, 100L);
+		JobExecution jobExecution = createJobExecution(123L, true, 0L);
+		when(replica.getJobExecution(123L)).thenReturn(recent);
+		when(primary.getJobExecution(123L)).thenReturn(jobExecution);
+		assertSame(jobExecution, dao.getJobExecution(123L));
+	}
+
+	@Test
+	public void testQueryAboutRunningExecutionFromPrimary() {
+		JobExecution running = createJobExecution(123L, false, 60000L);
+		stepDao.addStepExecutions(running);
+		verify(primaryStepDao).addStepExecutions(running);
+		verifyZeroInteractions(replicaStepDao);
+	}
+
+	@Test
+	public void testQueryAboutFinishedExecutionFromReplica() {
+		JobExecution finished = createJobExecution(123L, true, 60000L);
+		StepExecution stepExecution = new StepExecution("step", finished, 11L);
+		stepExecution.setEndTime(finished.getEndTime());
+		when(replicaStepDao.getStepExecution(finished, 11L)).thenReturn(stepExecution);
+		assertSame(stepExecution, stepDao.getStepExecution(finished, 11L));
+		verifyZeroInteractions(primaryStepDao);
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> T createProxy(Class<T> type, T primary, T replica) {
+		ReadReplicaInterceptor interceptor = new ReadReplicaInterceptor(primary, "get*", "count*", "find*",
+				"addStepExecutions");
+		interceptor.setPrimaryMethods("getJobExecutionState");
+		ProxyFactory factory = new ProxyFactory(type, interceptor);
+		factory.setTarget(replica);
+		return (T) factory.getProxy();
+	}
+
+	private JobExecution createJobExecution(Long id, boolean finished, long age) {
+		JobExecution jobExecution = new JobExecution(id);
+		Date updated = new Date(System.currentTimeMillis() - age);
+		jobExecution.setLastUpdated(updated);
+		if (finished) {
+			jobExecution.setEndTime(updated);
+		}
+		return jobExecution;
+	}
+
+}
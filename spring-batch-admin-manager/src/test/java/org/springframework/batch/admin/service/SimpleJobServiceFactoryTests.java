@@ -16,8 +16,13 @@
 package org.springframework.batch.admin.service;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 import org.junit.Test;
 
 import org.springframework.batch.core.configuration.support.MapJobRegistry;
@@ -26,7 +31,10 @@ import org.springframework.batch.core.launch.support.SimpleJobLauncher;
 import org.springframework.batch.core.repository.JobRepository;
 import org.springframework.batch.core.repository.support.MapJobRepositoryFactoryBean;
 import org.springframework.batch.support.transaction.ResourcelessTransactionManager;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
 import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.transaction.TransactionDefinition;
 
 /**
  * @author Michael Minella
@@ -87,4 +95,44 @@ public class SimpleJobServiceFactoryTests {
 		factoryBean.afterPropertiesSet();
 	}
 
+	@Test
+	public void testReadOnlyTransactions() throws Exception {
+		EmbeddedDatabase dataSource = new EmbeddedDatabaseBuilder().setName("readOnlyTransactions")
+				.addScript("classpath:org/springframework/batch/core/schema-hsqldb.sql").build();
+		final List<TransactionDefinition> definitions = new ArrayList<TransactionDefinition>();
+		DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource) {
+			@Override
+			protected void doBegin(Object transaction, TransactionDefinition definition) {
+				definitions.add(definition);
+				super.doBegin(transaction, definition);
+			}
+		};
+
+		factoryBean = new SimpleJobServiceFactoryBean();
+		factoryBean.setDataSource(dataSource);
+		factoryBean.setTransactionManager(transactionManager);
+		factoryBean.setJobRepository((JobRepository) new MapJobRepositoryFactoryBean(new ResourcelessTransactionManager()).getObject());
+		factoryBean.setJobLocator(new MapJobRegistry());
+		factoryBean.setJobLauncher(new SimpleJobLauncher());
+		factoryBean.setJobExplorer(new MapJobExplorerFactoryBean(new MapJobRepositoryFactoryBean(new ResourcelessTransactionManager())).getObject());
+		factoryBean.setIsolationLevelForRead("ISOLATION_READ_COMMITTED");
+		factoryBean.setReadTimeouts(Collections.singletonMap("countJobExecutions", 5));
+		factoryBean.setFetchSize(100);
+		factoryBean.afterPropertiesSet();
+		JobService jobService = factoryBean.getObject();
+
+		assertEquals(0, jobService.countJobExecutions());
+		assertEquals(1, definitions.size());
+		assertTrue(definitions.get(0).isReadOnly());
+		assertEquals(TransactionDefinition.ISOLATION_READ_COMMITTED, definitions.get(0).getIsolationLevel());
+		assertEquals(5, definitions.get(0).getTimeout());
+
+		assertEquals(0, jobService.listJobExecutions(0, 10).size());
+		assertEquals(2, definitions.size());
+		assertTrue(definitions.get(1).isReadOnly());
+		assertEquals(TransactionDefinition.TIMEOUT_DEFAULT, definitions.get(1).getTimeout());
+
+		dataSource.shutdown();
+	}
+
 }
\ No newline at end of file
@@ -18,9 +18,15 @@ package org.springframework.batch.admin.service;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.isA;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -32,7 +38,9 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
 import javax.batch.api.chunk.AbstractItemReader;
@@ -41,6 +49,7 @@ import javax.batch.operations.JobOperator;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
@@ -56,6 +65,8 @@ import org.springframework.batch.core.configuration.ListableJobLocator;
 import org.springframework.batch.core.explore.JobExplorer;
 import org.springframework.batch.core.job.SimpleJob;
 import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.core.launch.NoSuchJobException;
+import org.springframework.batch.core.launch.NoSuchJobExecutionException;
 import org.springframework.batch.core.launch.support.RunIdIncrementer;
 import org.springframework.batch.core.repository.JobRepository;
 import org.springframework.batch.core.repository.dao.ExecutionContextDao;
@@ -279,6 +290,35 @@ public class SimpleJobServiceTests {
 		assertNotNull(service.launch("job", jobParameters));
 	}
 
+	@Test
+	public void testEnqueue() throws Exception {
+		LaunchRequestDao launchRequestDao = mock(LaunchRequestDao.class);
+		service.setLaunchRequestDao(launchRequestDao);
+		when(jobLocator.getJobNames()).thenReturn(Arrays.asList("job"));
+		JobParameters jobParameters = new JobParametersBuilder().addString("foo", "bar").toJobParameters();
+		LaunchRequest request = service.enqueue("job", jobParameters, 2);
+		assertEquals(jobParameters, request.getJobParameters());
+		assertEquals(2, request.getPriority());
+		verify(launchRequestDao).saveLaunchRequest(request);
+		verify(jobLauncher, never()).run(isA(Job.class), isA(JobParameters.class));
+		assertNotNull(service.getLaunchRequestDispatcher());
+	}
+
+	@Test(expected = LaunchQueueDisabledException.class)
+	public void testEnqueueWithQueueDisabled() throws Exception {
+		service.setLaunchRequestDao(mock(LaunchRequestDao.class));
+		service.getLaunchRequestDispatcher().setEnabled(false);
+		when(jobLocator.getJobNames()).thenReturn(Arrays.asList("job"));
+		service.enqueue("job", new JobParameters(), 0);
+	}
+
+	@Test(expected = NoSuchJobException.class)
+	public void testEnqueueNoSuchJob() throws Exception {
+		service.setLaunchRequestDao(mock(LaunchRequestDao.class));
+		when(jobLocator.getJobNames()).thenReturn(Arrays.asList("job"));
+		service.enqueue("foo", new JobParameters(), 0);
+	}
+
 	/**
 	 * Test method for {@link SimpleJobService#launch(String, JobParameters)}.
 	 */
@@ -378,7 +418,7 @@ public class SimpleJobServiceTests {
 	@Test
 	public void testListJobsNotLaunchable() throws Exception {
 		when(jobLocator.getJobNames()).thenReturn(Arrays.asList("job1", "job2"));
-		when(jobInstanceDao.getJobNames()).thenReturn(Arrays.asList("job3", "job2"));
+		when(jobInstanceDao.findJobNamesAfter(-1L)).thenReturn(jobNames("job2", "job3"));
 
 		assertEquals(4, service.listJobs(0, 5).size());
 	}
@@ -389,9 +429,24 @@ public class SimpleJobServiceTests {
 	@Test
 	public void testCountJobs() throws Exception {
 		when(jobLocator.getJobNames()).thenReturn(Arrays.asList("job1", "job2"));
-		when(jobInstanceDao.getJobNames()).thenReturn(Arrays.asList("job3", "job2"));
+		when(jobInstanceDao.findJobNamesAfter(-1L)).thenReturn(jobNames("job2", "job3"));
+
+		// The JSR-352 job on the classpath is included
+		assertEquals(4, service.countJobs());
+	}
 
+	@Test
+	public void testJobNamesRefreshedIncrementally() throws Exception {
+		when(jobLocator.getJobNames()).thenReturn(Arrays.asList("job1"));
+		// The refresh reads again from the start of the trailing window
+		when(jobInstanceDao.findJobNamesAfter(-1L)).thenReturn(jobNames("job2"), jobNames("job2", "job3"));
 		assertEquals(3, service.countJobs());
+		service.refreshJobNames();
+		assertEquals(4, service.countJobs());
+		// Known names are checked without a query
+		assertEquals(0, service.countJobExecutionsForJob("job3"));
+		verify(jobInstanceDao, never()).countJobInstances("job3");
+		verify(jobInstanceDao, never()).getJobNames();
 	}
 
 	/**
@@ -418,10 +473,15 @@ public class SimpleJobServiceTests {
 		JobExecution jobExecution = MetaDataInstanceFactory.createJobExecution(123L);
 		when(jobExecutionDao.getJobExecution(123L)).thenReturn(jobExecution);
 		when(jobInstanceDao.getJobInstance(jobExecution)).thenReturn(jobExecution.getJobInstance());
-		jobRepository.update(jobExecution);
+		jobExecution.setVersion(1);
+		when(jobExecutionDao.getJobExecutionState(123L)).thenReturn(jobExecution);
+		when(jobExecutionDao.signalStop(123L, jobExecution.getVersion())).thenReturn(true);
 		service.stop(123L);
 
 		assertEquals(BatchStatus.STOPPING, jobExecution.getStatus());
+		verify(jobExecutionDao).signalStop(123L, jobExecution.getVersion());
+		verify(jobRepository, never()).update(jobExecution);
+		assertEquals(1, service.getStopSignaller().getPendingCount());
 	}
 
 	/**
@@ -466,6 +526,24 @@ public class SimpleJobServiceTests {
 		verify(stepExecutionDao).addStepExecutions(jobExecution);
 	}
 
+	@Test
+	public void testGetCompletedJobExecutionFromCache() throws Exception {
+		JobExecution jobExecution = MetaDataInstanceFactory.createJobExecution(123L);
+		jobExecution.setVersion(1);
+		jobExecution.setStatus(BatchStatus.COMPLETED);
+		when(jobExecutionDao.getJobExecution(123L)).thenReturn(jobExecution);
+		when(jobInstanceDao.getJobInstance(jobExecution)).thenReturn(jobExecution.getJobInstance());
+
+		JobExecution first = service.getJobExecution(123L, ExecutionContextFetchMode.NONE);
+		JobExecution second = service.getJobExecution(123L, ExecutionContextFetchMode.NONE);
+		assertNotSame(first, second);
+		assertEquals(BatchStatus.COMPLETED, second.getStatus());
+		assertNotNull(second.getJobInstance());
+
+		verify(jobExecutionDao, times(1)).getJobExecution(123L);
+		assertEquals(1, service.getJobExecutionCache().getHitCount());
+	}
+
 	@Test
 	public void testGetStepNamesFromJobExecution() throws Exception {
 		when(jobLocator.getJob("job")).thenReturn(null);
@@ -512,6 +590,54 @@ public class SimpleJobServiceTests {
 		verify(stepExecutionDao).addStepExecutions(jobExecution);
 	}
 
+	@Test
+	public void testGetJobExecutionLoadsContextOnFirstAccess() throws Exception {
+		JobExecution jobExecution = MetaDataInstanceFactory.createJobExecution(123L);
+		when(jobExecutionDao.getJobExecution(123L)).thenReturn(jobExecution);
+		when(jobInstanceDao.getJobInstance(jobExecution)).thenReturn(jobExecution.getJobInstance());
+		ExecutionContext context = new ExecutionContext();
+		context.putString("foo", "bar");
+		when(executionContextDao.getExecutionContext(jobExecution)).thenReturn(context);
+
+		JobExecution result = service.getJobExecution(123L);
+		verify(executionContextDao, never()).getExecutionContext(jobExecution);
+		assertEquals("bar", result.getExecutionContext().getString("foo"));
+		assertEquals(1, result.getExecutionContext().size());
+		verify(executionContextDao, times(1)).getExecutionContext(jobExecution);
+	}
+
+	@Test
+	public void testGetJobExecutionWithoutContext() throws Exception {
+		JobExecution jobExecution = MetaDataInstanceFactory.createJobExecution(123L);
+		when(jobExecutionDao.getJobExecution(123L)).thenReturn(jobExecution);
+		when(jobInstanceDao.getJobInstance(jobExecution)).thenReturn(jobExecution.getJobInstance());
+
+		JobExecution result = service.getJobExecution(123L, ExecutionContextFetchMode.NONE);
+		assertTrue(result.getExecutionContext().isEmpty());
+		verify(executionContextDao, never()).getExecutionContext(jobExecution);
+	}
+
+	@Test
+	public void testGetStepExecutionWithShortContext() throws Exception {
+		SearchableExecutionContextDao searchableExecutionContextDao = mock(SearchableExecutionContextDao.class);
+		service = new SimpleJobService(jobInstanceDao, jobExecutionDao, stepExecutionDao, jobRepository,
+				jobLauncher, jobLocator, searchableExecutionContextDao, jsrJobOperator);
+		JobExecution jobExecution = MetaDataInstanceFactory.createJobExecution(123L);
+		StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution(jobExecution, "step", 1234L);
+		when(jobExecutionDao.getJobExecution(123L)).thenReturn(jobExecution);
+		when(jobInstanceDao.getJobInstance(jobExecution)).thenReturn(jobExecution.getJobInstance());
+		when(stepExecutionDao.getStepExecution(123L, 1234L)).thenReturn(stepExecution);
+		ExecutionContext context = new ExecutionContext();
+		context.putString("foo", "bar");
+		when(searchableExecutionContextDao.getShortExecutionContext(stepExecution)).thenReturn(context);
+
+		StepExecution result = service.getStepExecution(123L, 1234L, ExecutionContextFetchMode.SHORT);
+		assertEquals("bar", result.getExecutionContext().getString("foo"));
+		verify(searchableExecutionContextDao, never()).getExecutionContext(stepExecution);
+		verify(searchableExecutionContextDao, never()).getExecutionContext(jobExecution);
+		verify(searchableExecutionContextDao, never()).getShortExecutionContext(jobExecution);
+	}
+
 	/**
 	 * Test method for {@link SimpleJobService#getJobExecutionsForJobInstance(String, Long)}.
 	 */
@@ -527,7 +653,8 @@ public class SimpleJobServiceTests {
 		when(jobExecutionDao.findJobExecutions(jobInstance)).thenReturn(Arrays.asList(jobExecution));
 
 		assertEquals(1, service.getJobExecutionsForJobInstance("job", jobInstance.getId()).size());
-		verify(stepExecutionDao).addStepExecutions(jobExecution);
+		verify(stepExecutionDao).addStepExecutions(Arrays.asList(jobExecution));
+		verify(stepExecutionDao, times(0)).addStepExecutions(jobExecution);
 	}
 
 	/**
@@ -542,13 +669,23 @@ public class SimpleJobServiceTests {
 		when(executionContextDao.getExecutionContext(jobExecution)).thenReturn(new ExecutionContext());
 		stepExecutionDao.addStepExecutions(jobExecution);
 		StepExecution stepExecution = jobExecution.getStepExecutions().iterator().next();
-		Long stepExecutionId = stepExecution.getId();
-		when(stepExecutionDao.getStepExecution(jobExecution, stepExecutionId)).thenReturn(stepExecution);
+		when(stepExecutionDao.getStepExecution(123L, 1234L)).thenReturn(stepExecution);
 		when(executionContextDao.getExecutionContext(stepExecution)).thenReturn(new ExecutionContext());
 
 		assertNotNull(service.getStepExecution(123L, 1234L));
 	}
 
+	@Test(expected = NoSuchStepExecutionException.class)
+	public void testGetStepExecutionNotInJobExecution() throws Exception {
+		when(jobExecutionDao.getJobExecution(123L)).thenReturn(MetaDataInstanceFactory.createJobExecution(123L));
+		service.getStepExecution(123L, 1234L);
+	}
+
+	@Test(expected = NoSuchJobExecutionException.class)
+	public void testGetStepExecutionNoJobExecution() throws Exception {
+		service.getStepExecution(123L, 1234L);
+	}
+
 	@Test
 	public void testGetStepExecutionWithUnserializableExecutionContent() throws Exception {
 		JobExecution jobExecution = MetaDataInstanceFactory.createJobExecutionWithStepExecutions(123L, Arrays
@@ -558,8 +695,7 @@ public class SimpleJobServiceTests {
 		when(executionContextDao.getExecutionContext(jobExecution)).thenReturn(new ExecutionContext());
 		stepExecutionDao.addStepExecutions(jobExecution);
 		StepExecution stepExecution = jobExecution.getStepExecutions().iterator().next();
-		Long stepExecutionId = stepExecution.getId();
-		when(stepExecutionDao.getStepExecution(jobExecution, stepExecutionId)).thenReturn(stepExecution);
+		when(stepExecutionDao.getStepExecution(123L, 1234L)).thenReturn(stepExecution);
 		when(executionContextDao.getExecutionContext(stepExecution)).thenThrow(
 				new IllegalStateException("Expected"));
 
@@ -591,10 +727,11 @@ public class SimpleJobServiceTests {
 		String jobName = "job";
 		when(jobLocator.getJobNames()).thenReturn(Collections.<String> emptyList());
 		when(jobInstanceDao.countJobInstances(jobName)).thenReturn(1);
-		when(jobExecutionDao.getJobExecutions("job", 0, 4)).thenReturn(
-				Arrays.asList(MetaDataInstanceFactory.createJobExecution(123L), MetaDataInstanceFactory
-						.createJobExecution(124L)));
+		List<JobExecution> jobExecutions = Arrays.asList(MetaDataInstanceFactory.createJobExecution(123L),
+				MetaDataInstanceFactory.createJobExecution(124L));
+		when(jobExecutionDao.getJobExecutions("job", 0, 4)).thenReturn(jobExecutions);
 		assertEquals(2, service.listJobExecutionsForJob("job", 0, 4).size());
+		verify(stepExecutionDao).addStepExecutions(jobExecutions);
 	}
 
 	/**
@@ -622,14 +759,97 @@ public class SimpleJobServiceTests {
 
 		testLaunch();
 
-		JobExecution jobExecution = MetaDataInstanceFactory.createJobExecution();
-		when(jobExecutionDao.getJobExecution(123L)).thenReturn(jobExecution);
-		when(jobInstanceDao.getJobInstance(jobExecution)).thenReturn(null);
-		when(executionContextDao.getExecutionContext(jobExecution)).thenReturn(new ExecutionContext());
+		when(jobExecutionDao.getJobExecutionStatuses(Arrays.asList(123L))).thenReturn(
+				Collections.singletonMap(123L, BatchStatus.COMPLETED));
 
 		service.removeInactiveExecutions();
+		service.removeInactiveExecutions();
 
-		verify(stepExecutionDao).addStepExecutions(jobExecution);
+		// One query for the statuses and nothing left to check the second time
+		verify(jobExecutionDao, times(1)).getJobExecutionStatuses(Arrays.asList(123L));
+		verify(jobExecutionDao, never()).getJobExecution(123L);
+	}
+
+	@Test
+	public void testStopJobExecutionsInBulk() throws Exception {
+		JobExecution first = MetaDataInstanceFactory.createJobExecution("job", 11L, 1L);
+		JobExecution second = MetaDataInstanceFactory.createJobExecution("job", 12L, 2L);
+		JobExecution jsr = MetaDataInstanceFactory.createJobExecution("jsr352-job", 13L, 3L);
+		JobExecution finished = MetaDataInstanceFactory.createJobExecution("job", 14L, 4L);
+		finished.setEndTime(new Date());
+		JobExecutionCriteria criteria = new JobExecutionCriteria("job", null, null);
+		when(jobExecutionDao.findJobExecutions(isA(JobExecutionCriteria.class), eq(-1L), anyInt())).thenReturn(
+				Arrays.asList(first, second, jsr, finished));
+		when(jobExecutionDao.updateJobExecutionStatuses(Arrays.asList(first, second), BatchStatus.STOPPING, null))
+				.thenReturn(Arrays.asList(1L));
+
+		List<JobExecutionOutcome> outcomes = service.stopJobExecutions(criteria);
+
+		assertEquals(4, outcomes.size());
+		assertEquals(JobExecutionOutcome.Result.UPDATED, outcomes.get(0).getResult());
+		assertEquals(JobExecutionOutcome.Result.CONFLICT, outcomes.get(1).getResult());
+		assertEquals(JobExecutionOutcome.Result.UPDATED, outcomes.get(2).getResult());
+		assertEquals(BatchStatus.STOPPING, outcomes.get(2).getStatus());
+		assertEquals(JobExecutionOutcome.Result.FAILED, outcomes.get(3).getResult());
+		verify(jsrJobOperator).stop(3L);
+		verify(jobRepository, never()).update(first);
+	}
+
+	@Test
+	public void testStopJobExecutionsInPages() throws Exception {
+		List<JobExecution> page = new ArrayList<JobExecution>();
+		for (long i = 1; i <= 500; i++) {
+			page.add(MetaDataInstanceFactory.createJobExecution("job", i, i));
+		}
+		JobExecution last = MetaDataInstanceFactory.createJobExecution("job", 501L, 501L);
+		when(jobExecutionDao.findJobExecutions(isA(JobExecutionCriteria.class), eq(-1L), eq(500))).thenReturn(page);
+		when(jobExecutionDao.findJobExecutions(isA(JobExecutionCriteria.class), eq(500L), eq(500))).thenReturn(
+				Arrays.asList(last));
+		when(jobExecutionDao.updateJobExecutionStatuses(page, BatchStatus.STOPPING, null)).thenReturn(
+				Arrays.asList(1L));
+
+		List<JobExecutionOutcome> outcomes = service.stopJobExecutions(new JobExecutionCriteria());
+
+		assertEquals(501, outcomes.size());
+		verify(jobExecutionDao).updateJobExecutionStatuses(Arrays.asList(last), BatchStatus.STOPPING, null);
+	}
+
+	@Test
+	public void testStopAllCountsRunningExecutions() throws Exception {
+		JobExecution started = MetaDataInstanceFactory.createJobExecution("job", 11L, 1L);
+		JobExecution stopping = MetaDataInstanceFactory.createJobExecution("job", 12L, 2L);
+		stopping.setStatus(BatchStatus.STOPPING);
+		when(jobExecutionDao.findJobExecutions(isA(JobExecutionCriteria.class), eq(-1L), anyInt())).thenReturn(
+				Arrays.asList(started, stopping));
+		when(jobExecutionDao.updateJobExecutionStatuses(Arrays.asList(started, stopping), BatchStatus.STOPPING, null))
+				.thenReturn(Arrays.asList(1L));
+
+		assertEquals(2, service.stopAll());
+		ArgumentCaptor<JobExecutionCriteria> criteria = ArgumentCaptor.forClass(JobExecutionCriteria.class);
+		verify(jobExecutionDao).findJobExecutions(criteria.capture(), eq(-1L), anyInt());
+		assertTrue(criteria.getValue().getStatuses().contains(BatchStatus.STOPPING));
+	}
+
+	@Test
+	public void testAbandonJobExecutionsWithIneligibleStatus() throws Exception {
+		List<JobExecutionOutcome> outcomes = service.abandonJobExecutions(new JobExecutionCriteria(null, Arrays
+				.asList(BatchStatus.STARTED), null));
+		assertTrue(outcomes.isEmpty());
+		verifyNoMoreInteractions(jobExecutionDao);
+	}
+
+	@Test
+	public void testAbandonJobExecutionsWithJsrFailure() throws Exception {
+		JobExecution jsr = MetaDataInstanceFactory.createJobExecution("jsr352-job", 13L, 3L);
+		jsr.setStatus(BatchStatus.FAILED);
+		when(jobExecutionDao.findJobExecutions(isA(JobExecutionCriteria.class), eq(-1L), anyInt())).thenReturn(
+				Arrays.asList(jsr));
+		doThrow(new IllegalStateException("Planned")).when(jsrJobOperator).abandon(3L);
+
+		List<JobExecutionOutcome> outcomes = service.abandonJobExecutions(new JobExecutionCriteria());
+
+		assertEquals(JobExecutionOutcome.Result.FAILED, outcomes.get(0).getResult());
+		assertEquals("Planned", outcomes.get(0).getMessage());
 	}
 
 	@Test
@@ -651,11 +871,33 @@ public class SimpleJobServiceTests {
 
 		when(jobExecutionDao.getJobExecution(123L)).thenReturn(jobExecution);
 		when(jobInstanceDao.getJobInstance(jobExecution)).thenReturn(null);
-		when(executionContextDao.getExecutionContext(jobExecution)).thenReturn(new ExecutionContext());
+		when(jobExecutionDao.getJobExecutionStatuses(Arrays.asList(123L))).thenReturn(
+				Collections.singletonMap(123L, BatchStatus.COMPLETED));
 
 		service.destroy();
 
-		verify(stepExecutionDao, times(2)).addStepExecutions(jobExecution);
+		verify(stepExecutionDao, times(1)).addStepExecutions(jobExecution);
+		verify(jobExecutionDao, times(1)).getJobExecutionStatuses(Arrays.asList(123L));
+	}
+
+	@Test
+	public void testDestroyTimesOutWithActives() throws Exception {
+
+		testLaunch();
+
+		JobExecution jobExecution = MetaDataInstanceFactory.createJobExecution();
+		when(jobExecutionDao.getJobExecution(123L)).thenReturn(jobExecution);
+		when(jobInstanceDao.getJobInstance(jobExecution)).thenReturn(jobExecution.getJobInstance());
+		jobExecution.setVersion(1);
+		when(jobExecutionDao.getJobExecutionState(123L)).thenReturn(jobExecution);
+		when(jobExecutionDao.signalStop(123L, jobExecution.getVersion())).thenReturn(true);
+		when(jobExecutionDao.getJobExecutionStatuses(Arrays.asList(123L))).thenReturn(
+				Collections.singletonMap(123L, BatchStatus.STOPPING));
+		service.setShutdownTimeout(100);
+
+		long start = System.currentTimeMillis();
+		service.destroy();
+		assertTrue(System.currentTimeMillis() - start < 1000L);
 	}
 
 	public static class JsrItemReader extends AbstractItemReader {
@@ -682,4 +924,13 @@ public class SimpleJobServiceTests {
 			writtenItems.addAll(items);
 		}
 	}
+
+	private Map<String, Long> jobNames(String... names) {
+		Map<String, Long> result = new LinkedHashMap<String, Long>();
+		long id = 0;
+		for (String name : names) {
+			result.put(name, id++);
+		}
+		return result;
+	}
 }
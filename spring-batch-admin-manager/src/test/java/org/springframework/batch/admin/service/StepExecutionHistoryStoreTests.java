@@ -0,0 +1,149 @@
+/*
+ * Copyright 2009-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.admin.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.TreeSet;
+
+import org.junit.Test;
+import org.springframework.batch.admin.domain.StepExecutionHistory;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+
+/**
+ * @author Dave Syer
+ *
+ */
+public class StepExecutionHistoryStoreTests {
+
+	private SearchableStepExecutionDao stepExecutionDao = mock(SearchableStepExecutionDao.class);
+
+	private StepExecutionHistoryStore store = new StepExecutionHistoryStore(stepExecutionDao);
+
+	@Test
+	public void testInitialHistory() {
+		when(stepExecutionDao.findStepExecutions("job", "step", 0, 100)).thenReturn(
+				Arrays.asList(createStepExecution(2L, true), createStepExecution(1L, true)));
+		StepExecutionHistory history = store.getStepExecutionHistory("job", "step");
+		assertEquals("step", history.getStepName());
+		assertEquals(2, history.getCount());
+	}
+
+	@Test
+	public void testIncrementalHistory() {
+		when(stepExecutionDao.findStepExecutions("job", "step", 0, 100)).thenReturn(
+				Arrays.asList(createStepExecution(1L, true)));
+		assertEquals(1, store.getStepExecutionHistory("job", "step").getCount());
+		when(stepExecutionDao.findStepExecutions("job", "step", 0, 100)).thenReturn(
+				Arrays.asList(createStepExecution(3L, true), createStepExecution(2L, true),
+						createStepExecution(1L, true)));
+		// Only the new executions are added
+		assertEquals(3, store.getStepExecutionHistory("job", "step").getCount());
+		assertEquals(3, store.getStepExecutionHistory("job", "step").getCount());
+	}
+
+	@Test
+	public void testRunningExecutionAddedWhenFinished() {
+		StepExecution running = createStepExecution(1L, false);
+		when(stepExecutionDao.findStepExecutions("job", "step", 0, 100)).thenReturn(Arrays.asList(running));
+		assertEquals(0, store.getStepExecutionHistory("job", "step").getCount());
+		StepExecution finished = createStepExecution(1L, true);
+		when(stepExecutionDao.getStepExecutions(Collections.singleton(1L))).thenReturn(
+				Collections.singletonList(finished));
+		assertEquals(1, store.getStepExecutionHistory("job", "step").getCount());
+		assertEquals(1, store.getStepExecutionHistory("job", "step").getCount());
+		verify(stepExecutionDao, times(1)).getStepExecutions(Collections.singleton(1L));
+	}
+
+	@Test
+	public void testRunningExecutionsReadTogether() {
+		when(stepExecutionDao.findStepExecutions("job", "step*", 0, 100)).thenReturn(
+				Arrays.asList(createStepExecution(3L, false), createStepExecution(2L, false),
+						createStepExecution(1L, false)));
+		assertEquals(0, store.getStepExecutionHistory("job", "step*").getCount());
+		when(stepExecutionDao.getStepExecutions(new TreeSet<Long>(Arrays.asList(1L, 2L, 3L)))).thenReturn(
+				Arrays.asList(createStepExecution(1L, true), createStepExecution(3L, true)));
+		assertEquals(2, store.getStepExecutionHistory("job", "step*").getCount());
+		verify(stepExecutionDao, never()).getStepExecution(any(JobExecution.class), any(Long.class));
+	}
+
+	@Test
+	public void testHistoryIsCopy() {
+		when(stepExecutionDao.findStepExecutions("job", "step", 0, 100)).thenReturn(
+				Arrays.asList(createStepExecution(1L, true)));
+		StepExecutionHistory history = store.getStepExecutionHistory("job", "step");
+		when(stepExecutionDao.findStepExecutions("job", "step", 0, 100)).thenReturn(
+				Arrays.asList(createStepExecution(2L, true), createStepExecution(1L, true)));
+		assertEquals(2, store.getStepExecutionHistory("job", "step").getCount());
+		assertEquals(1, history.getCount());
+	}
+
+	@Test
+	public void testMaxEntries() {
+		store.setMaxEntries(1);
+		when(stepExecutionDao.findStepExecutions("job", "step", 0, 100)).thenReturn(
+				Arrays.asList(createStepExecution(1L, true)));
+		store.getStepExecutionHistory("job", "step");
+		store.getStepExecutionHistory("job", "other");
+		store.getStepExecutionHistory("job", "step");
+		// The first entry was evicted, so the history is read from scratch
+		verify(stepExecutionDao, times(2)).findStepExecutions("job", "step", 0, 100);
+	}
+
+	@Test
+	public void testWindowSize() {
+		store.setWindowSize(2);
+		when(stepExecutionDao.findStepExecutions("job", "step", 0, 100)).thenReturn(
+				Arrays.asList(createStepExecution(3L, true), createStepExecution(2L, true),
+						createStepExecution(1L, true)));
+		assertEquals(2, store.getStepExecutionHistory("job", "step").getCount());
+		when(stepExecutionDao.findStepExecutions("job", "step", 0, 100)).thenReturn(
+				Arrays.asList(createStepExecution(4L, true), createStepExecution(3L, true)));
+		assertEquals(2, store.getStepExecutionHistory("job", "step").getCount());
+	}
+
+	@Test
+	public void testWindowDuration() {
+		store.setWindowDuration(60000L);
+		StepExecution old = createStepExecution(1L, true);
+		old.setEndTime(new Date(System.currentTimeMillis() - 120000L));
+		old.setStartTime(new Date(System.currentTimeMillis() - 180000L));
+		when(stepExecutionDao.findStepExecutions("job", "step", 0, 100)).thenReturn(
+				Arrays.asList(createStepExecution(2L, true), old));
+		assertEquals(1, store.getStepExecutionHistory("job", "step").getCount());
+	}
+
+	private StepExecution createStepExecution(Long id, boolean finished) {
+		StepExecution stepExecution = new StepExecution("step", new JobExecution(11L));
+		stepExecution.setId(id);
+		stepExecution.setStartTime(new Date(System.currentTimeMillis() - 1000L));
+		if (finished) {
+			stepExecution.setEndTime(new Date());
+		}
+		return stepExecution;
+	}
+
+}
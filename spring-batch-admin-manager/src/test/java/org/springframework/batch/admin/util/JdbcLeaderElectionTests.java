@@ -0,0 +1,116 @@
+/*
+ * Copyright 2009-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.admin.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+
+/**
+ * @author Dave Syer
+ * 
+ */
+public class JdbcLeaderElectionTests {
+
+	private EmbeddedDatabase database;
+
+	private JdbcLeaderElection first;
+
+	private JdbcLeaderElection second;
+
+	@Before
+	public void init() throws Exception {
+		database = new EmbeddedDatabaseBuilder().setName("leaderElection")
+				.addScript("classpath:/org/springframework/batch/admin/util/schema-leader.sql").build();
+		first = createElection("first");
+		second = createElection("second");
+	}
+
+	@After
+	public void close() {
+		database.shutdown();
+	}
+
+	@Test
+	public void testOneLeader() throws Exception {
+		assertFalse(first.isLeader());
+		assertTrue(first.heartbeat());
+		assertFalse(second.heartbeat());
+		assertTrue(first.isLeader());
+		assertFalse(second.isLeader());
+		// Renewing does not count as another election
+		assertTrue(first.heartbeat());
+		assertEquals(1, first.getElectedCount());
+	}
+
+	@Test
+	public void testFailoverWhenLeaseExpires() throws Exception {
+		first.setLeaseTime(1);
+		assertTrue(first.heartbeat());
+		Thread.sleep(10L);
+		assertFalse(first.isLeader());
+		assertTrue(second.heartbeat());
+		assertFalse(first.heartbeat());
+	}
+
+	@Test
+	public void testFailoverOnRelease() throws Exception {
+		assertTrue(first.heartbeat());
+		first.destroy();
+		assertFalse(first.isLeader());
+		assertTrue(second.heartbeat());
+	}
+
+	@Test
+	public void testDisabled() throws Exception {
+		JdbcLeaderElection election = createElection("disabled");
+		election.setEnabled(false);
+		assertTrue(first.heartbeat());
+		assertTrue(election.isLeader());
+	}
+
+	@Test
+	public void testLeaderOnlyTask() throws Exception {
+		final AtomicInteger count = new AtomicInteger();
+		Runnable task = new Runnable() {
+			public void run() {
+				count.incrementAndGet();
+			}
+		};
+		first.heartbeat();
+		second.heartbeat();
+		new LeaderOnlyTask(first, task).run();
+		new LeaderOnlyTask(second, task).run();
+		assertEquals(1, count.get());
+	}
+
+	private JdbcLeaderElection createElection(String nodeId) throws Exception {
+		JdbcLeaderElection election = new JdbcLeaderElection();
+		election.setDataSource(database);
+		election.setNodeId(nodeId);
+		election.afterPropertiesSet();
+		return election;
+	}
+
+}
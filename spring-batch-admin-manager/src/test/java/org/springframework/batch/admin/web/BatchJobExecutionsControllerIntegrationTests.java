@@ -17,23 +17,41 @@
 package org.springframework.batch.admin.web;
 
 import static org.hamcrest.Matchers.contains;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Matchers.eq;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 
 import org.hamcrest.Matchers;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 
+import org.springframework.batch.admin.domain.StepExecutionHistory;
+import org.springframework.batch.admin.service.ExecutionContextFetchMode;
+import org.springframework.batch.admin.service.JobExecutionCriteria;
+import org.springframework.batch.admin.service.JobExecutionOutcome;
 import org.springframework.batch.admin.service.JobSupport;
+import org.springframework.batch.admin.service.LaunchQueueDisabledException;
+import org.springframework.batch.admin.service.LaunchRequest;
+import org.springframework.batch.admin.service.TotalCount;
 import org.springframework.batch.core.BatchStatus;
 import org.springframework.batch.core.JobExecution;
 import org.springframework.batch.core.JobInstance;
@@ -50,6 +68,7 @@ import org.springframework.http.MediaType;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MvcResult;
 
 /**
  * Tests REST compliance of {@link BatchJobExecutionsController} endpoints.
@@ -94,7 +113,7 @@ public class BatchJobExecutionsControllerIntegrationTests extends AbstractContro
 	public void testGetJobExecutionsByName() throws Exception {
 		when(jobService.listJobExecutionsForJob("job1", 0, 20)).thenReturn(Arrays.asList(execution1));
 		when(jobLocator.getJob("job1")).thenReturn(new JobSupport("job1"));
-		when(jobService.countJobExecutions()).thenReturn(1);
+		when(jobService.getTotalJobExecutionsForJob("job1")).thenReturn(TotalCount.exact(1));
 
 		mockMvc.perform(
 				get("/batch/executions").param("jobname", "job1").param("startJobInstance", "0").param("pageSize", "20").accept(
@@ -120,7 +139,7 @@ public class BatchJobExecutionsControllerIntegrationTests extends AbstractContro
 	public void testGetBatchJobExecutions() throws Exception {
 		when(jobService.listJobExecutions(0, 20)).thenReturn(Arrays.asList(execution2, execution1));
 		when(jobLocator.getJob("job1")).thenReturn(new JobSupport("job1"));
-		when(jobService.countJobExecutions()).thenReturn(1);
+		when(jobService.getTotalJobExecutions()).thenReturn(TotalCount.exact(1));
 
 		mockMvc.perform(
 				get("/batch/executions").accept(
@@ -141,7 +160,7 @@ public class BatchJobExecutionsControllerIntegrationTests extends AbstractContro
 	public void testGetBatchJobExecutionsPaginated() throws Exception {
 		when(jobService.listJobExecutions(5, 5)).thenReturn(Arrays.asList(execution2, execution1));
 		when(jobLocator.getJob("job1")).thenReturn(new JobSupport("job1"));
-		when(jobService.countJobExecutions()).thenReturn(1);
+		when(jobService.getTotalJobExecutions()).thenReturn(TotalCount.exact(1));
 
 		mockMvc.perform(
 				get("/batch/executions").param("page", "1").param("size", "5").accept(
@@ -149,9 +168,67 @@ public class BatchJobExecutionsControllerIntegrationTests extends AbstractContro
 				jsonPath("$.pagedResources.content[*]", Matchers.hasSize(2)));
 	}
 
+	@Test
+	public void testGetBatchJobExecutionsWithEstimatedTotal() throws Exception {
+		when(jobService.listJobExecutions(0, 20)).thenReturn(Arrays.asList(execution2, execution1));
+		when(jobLocator.getJob("job1")).thenReturn(new JobSupport("job1"));
+		when(jobService.getTotalJobExecutions()).thenReturn(TotalCount.moreThan(1000));
+
+		mockMvc.perform(get("/batch/executions").accept(MediaType.APPLICATION_JSON)).andDo(print())
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.pagedResources.page.totalElements").value(1000))
+				.andExpect(jsonPath("$.pagedResources.page.totalElementsEstimated").value(true));
+	}
+
+	@Test
+	public void testGetBatchJobExecutionsAfter() throws Exception {
+		when(jobService.listJobExecutionsAfter(5, 2)).thenReturn(Arrays.asList(execution1, execution2));
+
+		mockMvc.perform(
+				get("/batch/executions").param("after", "5").param("size", "2").accept(MediaType.APPLICATION_JSON))
+				.andDo(print()).andExpect(status().isOk())
+				.andExpect(jsonPath("$.pagedResources.content[*].executionId", contains(3, 0)))
+				.andExpect(jsonPath("$.pagedResources.links[?(@.rel=='next')].href",
+						contains("http://localhost/batch/executions?after=0&size=2")))
+				.andExpect(jsonPath("$.pagedResources.links[?(@.rel=='prev')].href",
+						contains("http://localhost/batch/executions?before=3&size=2")));
+	}
+
+	@Test
+	public void testGetBatchJobExecutionsAfterLastPage() throws Exception {
+		when(jobService.listJobExecutionsAfter(5, 20)).thenReturn(Arrays.asList(execution1));
+
+		mockMvc.perform(get("/batch/executions").param("after", "5").accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.pagedResources.content", Matchers.hasSize(1)))
+				.andExpect(jsonPath("$.pagedResources.links[*].rel", contains("prev")));
+	}
+
+	@Test
+	public void testGetBatchJobExecutionsAfterAndBefore() throws Exception {
+		mockMvc.perform(
+				get("/batch/executions").param("after", "5").param("before", "3")
+						.accept(MediaType.APPLICATION_JSON)).andExpect(status().isBadRequest());
+		mockMvc.perform(
+				get("/batch/executions").param("jobname", "job1").param("after", "5").param("before", "3")
+						.accept(MediaType.APPLICATION_JSON)).andExpect(status().isBadRequest());
+	}
+
+	@Test
+	public void testGetBatchJobExecutionsForJobBefore() throws Exception {
+		when(jobService.listJobExecutionsForJobBefore("job1", 3, 20)).thenReturn(Arrays.<JobExecution> asList());
+
+		mockMvc.perform(
+				get("/batch/executions").param("jobname", "job1").param("before", "3")
+						.accept(MediaType.APPLICATION_JSON)).andExpect(status().isOk())
+				.andExpect(jsonPath("$.pagedResources.content", Matchers.hasSize(0)))
+				.andExpect(jsonPath("$.pagedResources.links[*].href",
+						contains("http://localhost/batch/executions?jobname=job1&after=4&size=20")));
+	}
+
 	@Test
 	public void testGetSingleBatchJobExecution() throws Exception {
-		when(jobService.getJobExecution(0l)).thenReturn(execution2);
+		when(jobService.getJobExecution(0l, ExecutionContextFetchMode.FULL)).thenReturn(execution2);
 		when(jobLocator.getJob("job1")).thenReturn(new JobSupport("job1"));
 
 		mockMvc.perform(
@@ -170,7 +247,7 @@ public class BatchJobExecutionsControllerIntegrationTests extends AbstractContro
 
 	@Test
 	public void testGetNonExistingBatchJobExecution() throws Exception {
-		when(jobService.getJobExecution(99999l)).thenThrow(new NoSuchJobExecutionException("Could not find jobExecution with id 99999"));
+		when(jobService.getJobExecution(99999l, ExecutionContextFetchMode.FULL)).thenThrow(new NoSuchJobExecutionException("Could not find jobExecution with id 99999"));
 
 		mockMvc.perform(get("/batch/executions/99999").accept(MediaType.APPLICATION_JSON))
 				.andExpect(status().isNotFound()).andDo(print())
@@ -184,6 +261,93 @@ public class BatchJobExecutionsControllerIntegrationTests extends AbstractContro
 		verify(jobService).stopAll();
 	}
 
+	@Test
+	public void testStopJobExecutionsInBulk() throws Exception {
+		when(jobService.stopJobExecutions(any(JobExecutionCriteria.class))).thenReturn(
+				Arrays.asList(new JobExecutionOutcome(5L, "job1", JobExecutionOutcome.Result.UPDATED,
+						BatchStatus.STOPPING, null), new JobExecutionOutcome(6L, "job1",
+						JobExecutionOutcome.Result.CONFLICT, BatchStatus.STARTED, "Conflict")));
+
+		mockMvc.perform(
+				put("/batch/executions").param("stop", "true").param("jobname", "job1").param("status", "STARTED")
+						.param("olderThan", "60000").accept(MediaType.APPLICATION_JSON)).andExpect(status().isOk())
+				.andExpect(jsonPath("$.jobExecutionOutcomes", Matchers.hasSize(2)))
+				.andExpect(jsonPath("$.jobExecutionOutcomes[0].jobExecutionId").value(5))
+				.andExpect(jsonPath("$.jobExecutionOutcomes[0].result").value("UPDATED"))
+				.andExpect(jsonPath("$.jobExecutionOutcomes[1].result").value("CONFLICT"));
+
+		ArgumentCaptor<JobExecutionCriteria> criteria = ArgumentCaptor.forClass(JobExecutionCriteria.class);
+		verify(jobService).stopJobExecutions(criteria.capture());
+		assertEquals("job1", criteria.getValue().getJobName());
+		assertEquals(Collections.singleton(BatchStatus.STARTED), criteria.getValue().getStatuses());
+		assertTrue(criteria.getValue().getCreatedBefore().before(new Date()));
+	}
+
+	@Test
+	public void testAbandonJobExecutionsInBulk() throws Exception {
+		when(jobService.abandonJobExecutions(any(JobExecutionCriteria.class))).thenReturn(
+				Arrays.asList(new JobExecutionOutcome(7L, "job2", JobExecutionOutcome.Result.UPDATED,
+						BatchStatus.ABANDONED, null)));
+
+		mockMvc.perform(put("/batch/executions").param("abandon", "true").param("status", "FAILED", "STOPPED")
+				.accept(MediaType.APPLICATION_JSON)).andExpect(status().isOk())
+				.andExpect(jsonPath("$.jobExecutionOutcomes[0].status").value("ABANDONED"));
+
+		ArgumentCaptor<JobExecutionCriteria> criteria = ArgumentCaptor.forClass(JobExecutionCriteria.class);
+		verify(jobService).abandonJobExecutions(criteria.capture());
+		assertNull(criteria.getValue().getJobName());
+		assertEquals(2, criteria.getValue().getStatuses().size());
+		assertNull(criteria.getValue().getCreatedBefore());
+	}
+
+	@Test
+	public void testEnqueueJob() throws Exception {
+		LaunchRequest request = new LaunchRequest("job1", new JobParameters(), 1);
+		request.setId(12L);
+		when(jobService.enqueue(any(String.class), any(JobParameters.class), any(Integer.class))).thenReturn(request);
+
+		mockMvc.perform(
+				post("/batch/executions").param("jobname", "job1").param("queue", "true")
+						.param("jobParameters", "foo=bar").param("priority", "1").accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isAccepted()).andExpect(jsonPath("$.launchRequest.id").value(12))
+				.andExpect(jsonPath("$.launchRequest.status").value("QUEUED"));
+
+		ArgumentCaptor<JobParameters> jobParameters = ArgumentCaptor.forClass(JobParameters.class);
+		verify(jobService).enqueue(eq("job1"), jobParameters.capture(),
+				eq(1));
+		assertEquals("bar", jobParameters.getValue().getString("foo"));
+	}
+
+	@Test
+	public void testEnqueueJobWithQueueDisabled() throws Exception {
+		when(jobService.enqueue(eq("job2"), any(JobParameters.class), any(Integer.class))).thenThrow(
+				new LaunchQueueDisabledException("The launch queue is not enabled"));
+
+		mockMvc.perform(
+				post("/batch/executions").param("jobname", "job2").param("queue", "true")
+						.accept(MediaType.APPLICATION_JSON)).andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$[1][0].message", Matchers.is("The launch queue is not enabled")));
+	}
+
+	@Test
+	public void testGetLaunchRequest() throws Exception {
+		LaunchRequest request = new LaunchRequest("job1", new JobParameters(), 0);
+		request.setId(13L);
+		request.setStatus(LaunchRequest.Status.LAUNCHED);
+		request.setJobExecutionId(3L);
+		when(jobService.getLaunchRequest(13L)).thenReturn(request);
+
+		mockMvc.perform(get("/batch/executions/requests/{launchRequestId}", "13").accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isOk()).andExpect(jsonPath("$.launchRequest.status").value("LAUNCHED"))
+				.andExpect(jsonPath("$.launchRequest.jobExecutionId").value(3));
+	}
+
+	@Test
+	public void testGetNonExistingLaunchRequest() throws Exception {
+		mockMvc.perform(get("/batch/executions/requests/{launchRequestId}", "14").accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isNotFound());
+	}
+
 	@Test
 	public void testStopJobExecution() throws Exception {
 		mockMvc.perform(put("/batch/executions/{executionId}?stop=true", "0")).andExpect(status().isOk());
@@ -193,7 +357,7 @@ public class BatchJobExecutionsControllerIntegrationTests extends AbstractContro
 
 	@Test
 	public void testRestartNonExistingJobExecution() throws Exception {
-		when(jobService.getJobExecution(1234l)).thenThrow(new NoSuchJobExecutionException(""));
+		when(jobService.getJobExecution(1234l, ExecutionContextFetchMode.NONE)).thenThrow(new NoSuchJobExecutionException(""));
 
 		mockMvc.perform(put("/batch/executions/{executionId}?restart=true", "1234")).andExpect(status().isNotFound()).andExpect(
 				jsonPath("$[1][0].message", Matchers.is("Could not find jobExecution with id 1234")));
@@ -203,7 +367,7 @@ public class BatchJobExecutionsControllerIntegrationTests extends AbstractContro
 	public void testRestartAlreadyRunningJobExecution() throws Exception {
 		JobInstance instance = new JobInstance(4l, "job4running");
 		JobExecution execution = new JobExecution(instance, 4l, new JobParameters(), null);
-		when(jobService.getJobExecution(4l)).thenReturn(execution);
+		when(jobService.getJobExecution(4l, ExecutionContextFetchMode.NONE)).thenReturn(execution);
 
 		mockMvc.perform(put("/batch/executions/{executionId}?restart=true", "4")).andExpect(status().isBadRequest()).andExpect(
 				jsonPath(
@@ -218,7 +382,7 @@ public class BatchJobExecutionsControllerIntegrationTests extends AbstractContro
 		execution.setEndTime(new Date());
 		execution.upgradeStatus(BatchStatus.COMPLETED);
 
-		when(jobService.getJobExecution(33l)).thenReturn(execution);
+		when(jobService.getJobExecution(33l, ExecutionContextFetchMode.NONE)).thenReturn(execution);
 		when(jobLocator.getJob("job4running")).thenReturn(new JobSupport("job4running"));
 
 		mockMvc.perform(put("/batch/executions/{executionId}?restart=true", "33")).andExpect(status().isBadRequest()).andExpect(
@@ -227,7 +391,7 @@ public class BatchJobExecutionsControllerIntegrationTests extends AbstractContro
 
 	@Test
 	public void testRestartJobExecutionWithJobNotAvailable() throws Exception {
-		when(jobService.getJobExecution(3333l)).thenThrow(new NoSuchJobExecutionException(""));
+		when(jobService.getJobExecution(3333l, ExecutionContextFetchMode.NONE)).thenThrow(new NoSuchJobExecutionException(""));
 
 		mockMvc.perform(put("/batch/executions/{executionId}?restart=true", "3333")).andExpect(status().isNotFound()).andExpect(
 				jsonPath("$[1][0].message", Matchers.is("Could not find jobExecution with id 3333")));
@@ -244,7 +408,7 @@ public class BatchJobExecutionsControllerIntegrationTests extends AbstractContro
 		validator.setRequiredKeys(new String [] {"missing-key"});
 		job4running.setJobParametersValidator(validator);
 
-		when(jobService.getJobExecution(5l)).thenReturn(execution);
+		when(jobService.getJobExecution(5l, ExecutionContextFetchMode.NONE)).thenReturn(execution);
 		when(jobLocator.getJob("job4running")).thenReturn(job4running);
 
 		mockMvc.perform(put("/batch/executions/{executionId}?restart=true", "5")).andExpect(status().isBadRequest()).andExpect(
@@ -260,7 +424,7 @@ public class BatchJobExecutionsControllerIntegrationTests extends AbstractContro
 		SimpleJob job4running = new SimpleJob("job2");
 		job4running.setRestartable(false);
 
-		when(jobService.getJobExecution(2l)).thenReturn(execution);
+		when(jobService.getJobExecution(2l, ExecutionContextFetchMode.NONE)).thenReturn(execution);
 		when(jobLocator.getJob("job2")).thenReturn(job4running);
 
 		mockMvc.perform(put("/batch/executions/{executionId}?restart=true", "2")).andExpect(status().isBadRequest()).andExpect(
@@ -283,4 +447,31 @@ public class BatchJobExecutionsControllerIntegrationTests extends AbstractContro
 				jsonPath("$[1][0].message",
 						Matchers.is("Could not find jobExecution with id 5")));
 	}
+
+	@Test
+	public void testGetJobExecutionUpdates() throws Exception {
+		when(jobService.getJobExecutionRevisions(anyCollectionOf(Long.class))).thenReturn(
+				Collections.singletonMap(0L, 1L));
+		when(jobService.getJobExecution(0L, ExecutionContextFetchMode.NONE)).thenReturn(execution2);
+		when(jobService.getStepExecutionHistory("job1", "step1")).thenReturn(new StepExecutionHistory("step1"));
+		when(jobService.getStepExecutionHistory("job1", "step2")).thenReturn(new StepExecutionHistory("step2"));
+
+		MvcResult result = mockMvc.perform(
+				get("/batch/executions/{executionId}/updates", "0").param("since", "0").accept(
+						MediaType.APPLICATION_JSON)).andExpect(request().asyncStarted()).andReturn();
+		mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk())
+				.andExpect(jsonPath("$.jobExecutionUpdate.jobExecutionId").value(0))
+				.andExpect(jsonPath("$.jobExecutionUpdate.status").value("STARTING"))
+				.andExpect(jsonPath("$.jobExecutionUpdate.stepExecutions", Matchers.hasSize(2)));
+	}
+
+	@Test
+	public void testGetJobExecutionUpdatesNonExistent() throws Exception {
+		when(jobService.getJobExecutionRevisions(anyCollectionOf(Long.class))).thenReturn(
+				Collections.<Long, Long> emptyMap());
+		when(jobService.getJobExecution(12345l, ExecutionContextFetchMode.NONE)).thenThrow(new NoSuchJobExecutionException(""));
+
+		mockMvc.perform(get("/batch/executions/{executionId}/updates", "12345").accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isNotFound());
+	}
 }
@@ -31,6 +31,7 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import org.springframework.batch.admin.service.TotalCount;
 import org.springframework.batch.core.ExitStatus;
 import org.springframework.batch.core.JobExecution;
 import org.springframework.batch.core.JobInstance;
@@ -95,6 +96,7 @@ public class BatchJobInstancesControllerIntegrationTests extends AbstractControl
 	public void testGetJobInstanceByJobName() throws Exception {
 		when(jobService.listJobInstances("job1", 0, 20)).thenReturn(Arrays.asList(jobInstance, new JobInstance(3l, "job1")));
 		when(jobService.getJobExecutionsForJobInstance(jobInstance.getJobName(), jobInstance.getId())).thenReturn(Arrays.asList(execution));
+		when(jobService.getTotalJobInstances("job1")).thenReturn(TotalCount.exact(2));
 
 		mockMvc.perform(
 				get("/batch/instances").param("jobname", "job1").param("startJobInstance", "0").param("pageSize", "20").accept(
@@ -104,6 +106,21 @@ public class BatchJobInstancesControllerIntegrationTests extends AbstractControl
 				.andExpect(jsonPath("$.pagedResources.content[*].jobName", contains("job1", "job1")));
 	}
 
+	@Test
+	public void testGetJobInstanceByJobNameWithEstimatedTotal() throws Exception {
+		when(jobService.listJobInstances("job1", 0, 2)).thenReturn(Arrays.asList(jobInstance, new JobInstance(3l, "job1")));
+		when(jobService.getJobExecutionsForJobInstance(jobInstance.getJobName(), jobInstance.getId())).thenReturn(Arrays.asList(execution));
+		when(jobService.getTotalJobInstances("job1")).thenReturn(TotalCount.moreThan(2));
+
+		mockMvc.perform(
+				get("/batch/instances").param("jobname", "job1").param("size", "2").accept(MediaType.APPLICATION_JSON))
+				.andDo(print()).andExpect(status().isOk())
+				.andExpect(jsonPath("$.pagedResources.content", Matchers.hasSize(2)))
+				.andExpect(jsonPath("$.pagedResources.page.totalElements").value(2))
+				.andExpect(jsonPath("$.pagedResources.page.totalElementsEstimated").value(true))
+				.andExpect(jsonPath("$.pagedResources.links[*].rel", Matchers.hasItem("next")));
+	}
+
 	@Test
 	public void testGetJobInstanceByInvalidInstanceId() throws Exception {
 		when(jobService.getJobInstance(100l)).thenThrow(new NoSuchJobInstanceException("Batch Job instance with the id 100 doesn't exist"));
@@ -30,6 +30,8 @@ import org.hamcrest.Matchers;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import org.springframework.batch.admin.domain.StepExecutionHistory;
+import org.springframework.batch.admin.service.ExecutionContextFetchMode;
 import org.springframework.batch.admin.service.NoSuchStepExecutionException;
 import org.springframework.batch.core.JobExecution;
 import org.springframework.batch.core.JobInstance;
@@ -96,7 +98,7 @@ public class BatchStepExecutionsControllerIntegrationTests extends AbstractContr
 		execution.setLastUpdated(new Date());
 		execution.getExecutionContext().put("contextTestKey", "someValue");
 
-		when(jobService.getStepExecution(2l, 1l)).thenReturn(execution);
+		when(jobService.getStepExecution(2l, 1l, ExecutionContextFetchMode.FULL)).thenReturn(execution);
 
 		mockMvc.perform(
 				get("/batch/executions/2/steps/1").accept(MediaType.APPLICATION_JSON))
@@ -110,7 +112,7 @@ public class BatchStepExecutionsControllerIntegrationTests extends AbstractContr
 
 	@Test
 	public void testGetSingleBatchStepExecutionForNonExistingJobExecution() throws Exception {
-		when(jobService.getStepExecution(5555l, 1l)).thenThrow(new NoSuchJobExecutionException(""));
+		when(jobService.getStepExecution(5555l, 1l, ExecutionContextFetchMode.FULL)).thenThrow(new NoSuchJobExecutionException(""));
 
 		mockMvc.perform(get("/batch/executions/{jobExecutionId}/steps/{stepExecutionId}", "5555", "1")).andExpect(
 				status().isNotFound()).andExpect(
@@ -120,7 +122,7 @@ public class BatchStepExecutionsControllerIntegrationTests extends AbstractContr
 
 	@Test
 	public void testGetSingleBatchStepExecutionThatDoesNotExist() throws Exception {
-		when(jobService.getStepExecution(2l, 5555l)).thenThrow(new NoSuchStepExecutionException(""));
+		when(jobService.getStepExecution(2l, 5555l, ExecutionContextFetchMode.FULL)).thenThrow(new NoSuchStepExecutionException(""));
 
 		mockMvc.perform(get("/batch/executions/{jobExecutionId}/steps/{stepExecutionId}", "2", "5555")).andExpect(
 				status().isNotFound()).andExpect(
@@ -136,9 +138,8 @@ public class BatchStepExecutionsControllerIntegrationTests extends AbstractContr
 		StepExecution execution = new StepExecution("step1", jobExecution, 1l);
 		execution.setLastUpdated(new Date());
 
-		when(jobService.getStepExecution(2l, 1l)).thenReturn(execution);
-		when(jobService.countStepExecutionsForStep("job", "step1")).thenReturn(1);
-		when(jobService.listStepExecutionsForStep("job1", "step1", 0, 1000)).thenReturn(Arrays.asList(new StepExecution("step1", new JobExecution(5l))));
+		when(jobService.getStepExecution(2l, 1l, ExecutionContextFetchMode.SHORT)).thenReturn(execution);
+		when(jobService.getStepExecutionHistory("job1", "step1")).thenReturn(new StepExecutionHistory("step1"));
 
 		mockMvc.perform(
 				get("/batch/executions/2/steps/1/progress").accept(MediaType.APPLICATION_JSON))
@@ -150,7 +151,7 @@ public class BatchStepExecutionsControllerIntegrationTests extends AbstractContr
 
 	@Test
 	public void testGetProgressForJobExecutionNotExists() throws Exception {
-		when(jobService.getStepExecution(5555l, 2l)).thenThrow(new NoSuchJobExecutionException(""));
+		when(jobService.getStepExecution(5555l, 2l, ExecutionContextFetchMode.SHORT)).thenThrow(new NoSuchJobExecutionException(""));
 
 		mockMvc.perform(get("/batch/executions/{jobExecutionId}/steps/{stepExecutionId}/progress", "5555", "2")).andExpect(
 				status().isNotFound()).andExpect(
@@ -160,7 +161,7 @@ public class BatchStepExecutionsControllerIntegrationTests extends AbstractContr
 
 	@Test
 	public void testGetProgressForStepExecutionNotExists() throws Exception {
-		when(jobService.getStepExecution(3l, 5555l)).thenThrow(new NoSuchStepExecutionException(""));
+		when(jobService.getStepExecution(3l, 5555l, ExecutionContextFetchMode.SHORT)).thenThrow(new NoSuchStepExecutionException(""));
 
 		mockMvc.perform(get("/batch/executions/{jobExecutionId}/steps/{stepExecutionId}/progress", "3", "5555")).andExpect(
 				status().isNotFound()).andExpect(
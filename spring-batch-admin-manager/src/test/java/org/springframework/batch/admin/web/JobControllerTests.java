@@ -31,6 +31,7 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
 import org.springframework.batch.admin.service.JobService;
+import org.springframework.batch.admin.service.TotalCount;
 import org.springframework.batch.core.JobParameters;
 import org.springframework.batch.test.MetaDataInstanceFactory;
 import org.springframework.mock.web.MockHttpServletRequest;
@@ -90,7 +91,7 @@ public class JobControllerTests {
 		when(jobService.listJobInstances("foo", 0, 20)).thenReturn(Arrays.asList(MetaDataInstanceFactory.createJobInstance()));
 		when(jobService.getJobExecutionsForJobInstance("foo", 12L)).thenReturn(Arrays.asList(MetaDataInstanceFactory.createJobExecution("foo", 12L, 123L)));
 		when(jobService.countJobExecutionsForJob("foo")).thenReturn(12);
-		when(jobService.countJobInstances("foo")).thenReturn(100);
+		when(jobService.getTotalJobInstances("foo")).thenReturn(TotalCount.exact(100));
 		when(jobService.isLaunchable("foo")).thenReturn(true);
 		when(jobService.isIncrementable("foo")).thenReturn(true);
 		when(jobService.getLastJobParameters("foo")).thenReturn(new JobParameters());
@@ -127,7 +128,7 @@ public class JobControllerTests {
 		when(jobService.listJobInstances("job", 10, 20)).thenReturn(Arrays.asList(MetaDataInstanceFactory.createJobInstance()));
 		when(jobService.getJobExecutionsForJobInstance("job", 12L)).thenReturn(Arrays.asList(MetaDataInstanceFactory.createJobExecution("job", 12L, 123L)));
 		when(jobService.countJobExecutionsForJob("job")).thenReturn(12);
-		when(jobService.countJobInstances("job")).thenReturn(100);
+		when(jobService.getTotalJobInstances("job")).thenReturn(TotalCount.exact(100));
 		when(jobService.isLaunchable("job")).thenReturn(true);
 		when(jobService.isIncrementable("job")).thenReturn(true);
 		when(jobService.getLastJobParameters("job")).thenReturn(new JobParameters());
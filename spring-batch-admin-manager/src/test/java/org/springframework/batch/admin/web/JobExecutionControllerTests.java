@@ -16,6 +16,7 @@
 package org.springframework.batch.admin.web;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.when;
 
@@ -34,7 +35,9 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
 import org.springframework.batch.admin.domain.StepExecutionInfo;
+import org.springframework.batch.admin.service.ExecutionContextFetchMode;
 import org.springframework.batch.admin.service.JobService;
+import org.springframework.batch.admin.service.TotalCount;
 import org.springframework.batch.core.BatchStatus;
 import org.springframework.batch.core.JobExecution;
 import org.springframework.batch.core.launch.NoSuchJobInstanceException;
@@ -89,7 +92,7 @@ public class JobExecutionControllerTests {
 		JobExecution jobExecution = MetaDataInstanceFactory.createJobExecution();
 		MetaDataInstanceFactory.createStepExecution(jobExecution,"foo", 111L);
 		MetaDataInstanceFactory.createStepExecution(jobExecution, "bar", 222L);
-		when(jobService.getJobExecution(123L)).thenReturn(jobExecution);
+		when(jobService.getJobExecution(123L, ExecutionContextFetchMode.NONE)).thenReturn(jobExecution);
 
 		ExtendedModelMap model = new ExtendedModelMap();
 		String result = controller.detail(model, 123L, null, null);
@@ -106,7 +109,8 @@ public class JobExecutionControllerTests {
 	@Test
 	public void testListForJobSunnyDay() throws Exception {
 
-		when(jobService.countJobExecutionsForJob("foo")).thenReturn(100).thenReturn(10);
+		when(jobService.getTotalJobExecutionsForJob("foo")).thenReturn(TotalCount.exact(100));
+		when(jobService.countJobExecutionsForJob("foo")).thenReturn(10);
 		when(jobService.listJobExecutionsForJob("foo", 10, 20)).thenReturn(Arrays.asList(MetaDataInstanceFactory.createJobExecution()));
 		when(jobService.isLaunchable("foo")).thenReturn(true);
 		when(jobService.isIncrementable("foo")).thenReturn(true);
@@ -185,11 +189,27 @@ public class JobExecutionControllerTests {
 	@Test
 	public void testListSunnyDay() throws Exception {
 
-		when(jobService.countJobExecutions()).thenReturn(100);
+		when(jobService.getTotalJobExecutions()).thenReturn(TotalCount.exact(100));
 		when(jobService.listJobExecutions(10, 20)).thenReturn(new ArrayList<JobExecution>());
 
 		ExtendedModelMap model = new ExtendedModelMap();
 		controller.list(model, 10, 20);
+		assertEquals(100, model.get("totalJobExecutions"));
+		assertFalse(model.containsKey("totalJobExecutionsEstimated"));
+	}
+
+	@Test
+	public void testListWithEstimatedTotal() throws Exception {
+
+		when(jobService.getTotalJobExecutions()).thenReturn(TotalCount.moreThan(20));
+		when(jobService.listJobExecutions(20, 20)).thenReturn(new ArrayList<JobExecution>());
+
+		ExtendedModelMap model = new ExtendedModelMap();
+		controller.list(model, 20, 20);
+		assertEquals(20, model.get("totalJobExecutions"));
+		assertEquals(true, model.get("totalJobExecutionsEstimated"));
+		assertEquals(40, model.get("endJobExecution"));
+		assertEquals(40, model.get("nextJobExecution"));
 	}
 
 }
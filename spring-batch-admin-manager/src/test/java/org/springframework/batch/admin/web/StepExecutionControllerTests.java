@@ -27,6 +27,7 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
 import org.springframework.batch.admin.domain.StepExecutionHistory;
+import org.springframework.batch.admin.service.ExecutionContextFetchMode;
 import org.springframework.batch.admin.service.JobService;
 import org.springframework.batch.core.StepExecution;
 import org.springframework.batch.test.MetaDataInstanceFactory;
@@ -50,7 +51,7 @@ public class StepExecutionControllerTests {
 	@Test
 	public void testDetailSunnyDay() throws Exception {
 
-		when(jobService.getStepExecution(123L, 1234L)).thenReturn(MetaDataInstanceFactory.createStepExecution());
+		when(jobService.getStepExecution(123L, 1234L, ExecutionContextFetchMode.NONE)).thenReturn(MetaDataInstanceFactory.createStepExecution());
 
 		ExtendedModelMap model = new ExtendedModelMap();
 		String result = controller.detail(model, 123L, 1234L, null, null);
@@ -64,10 +65,8 @@ public class StepExecutionControllerTests {
 	@Test
 	public void testProgressSunnyDay() throws Exception {
 
-		when(jobService.getStepExecution(123L, 1234L)).thenReturn(MetaDataInstanceFactory.createStepExecution());
-		when(jobService.countStepExecutionsForStep("job", "step")).thenReturn(1200);
-		when(jobService.listStepExecutionsForStep("job", "step", 0, 1000)).thenReturn(Arrays.asList(MetaDataInstanceFactory.createStepExecution()));
-		when(jobService.listStepExecutionsForStep("job", "step", 1000, 1000)).thenReturn(Arrays.asList(MetaDataInstanceFactory.createStepExecution()));
+		when(jobService.getStepExecution(123L, 1234L, ExecutionContextFetchMode.NONE)).thenReturn(MetaDataInstanceFactory.createStepExecution());
+		when(jobService.getStepExecutionHistory("job", "step")).thenReturn(new StepExecutionHistory("step"));
 
 		ExtendedModelMap model = new ExtendedModelMap();
 		String result = controller.history(model, 123L, 1234L, null, null);
@@ -81,10 +80,8 @@ public class StepExecutionControllerTests {
 	@Test
 	public void testProgressPartitionSunnyDay() throws Exception {
 
-		when(jobService.getStepExecution(123L, 1234L)).thenReturn(MetaDataInstanceFactory.createStepExecution("step:partition1", 0L));
-		when(jobService.countStepExecutionsForStep("job", "step:partition*")).thenReturn(1200);
-		when(jobService.listStepExecutionsForStep("job", "step:partition*", 0, 1000)).thenReturn(Arrays.asList(MetaDataInstanceFactory.createStepExecution()));
-		when(jobService.listStepExecutionsForStep("job", "step:partition*", 1000, 1000)).thenReturn(Arrays.asList(MetaDataInstanceFactory.createStepExecution()));
+		when(jobService.getStepExecution(123L, 1234L, ExecutionContextFetchMode.NONE)).thenReturn(MetaDataInstanceFactory.createStepExecution("step:partition1", 0L));
+		when(jobService.getStepExecutionHistory("job", "step:partition*")).thenReturn(new StepExecutionHistory("step:partition*"));
 
 		ExtendedModelMap model = new ExtendedModelMap();
 		String result = controller.history(model, 123L, 1234L, null, null);
@@ -103,7 +100,7 @@ public class StepExecutionControllerTests {
 
 		StepExecution stepExecution = MetaDataInstanceFactory.createStepExecution();
 		when(jobService.getStepExecutions(123L)).thenReturn(Arrays.asList(stepExecution));
-		when(jobService.getJobExecution(123L)).thenReturn(stepExecution.getJobExecution());
+		when(jobService.getJobExecution(123L, ExecutionContextFetchMode.NONE)).thenReturn(stepExecution.getJobExecution());
 
 		ExtendedModelMap model = new ExtendedModelMap();
 		String result = controller.list(model, 123L, null, null);